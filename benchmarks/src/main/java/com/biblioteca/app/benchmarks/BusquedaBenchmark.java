@@ -0,0 +1,84 @@
+package com.biblioteca.app.benchmarks;
+
+import com.biblioteca.app.model.Libro;
+import com.biblioteca.app.repository.impl.LibroRepositoryImpl;
+import com.biblioteca.app.repository.indice.IndiceAutocompletado;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Búsqueda por texto (BM25) y autocompletado sobre el catálogo de libros.
+ * Las consultas y prefijos salen de títulos y autores generados con la misma
+ * distribución que el catálogo, así que hay términos muy frecuentes y raros.
+ * Al preparar los datos se informa cuántos bytes ocupa la base del
+ * autocompletado por cada texto indexado.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class BusquedaBenchmark {
+    private static final int CONSULTAS = 4096;
+
+    @Param({"100000", "2000000"})
+    public int cantidadLibros;
+
+    @Param({"10"})
+    public int limite;
+
+    private LibroRepositoryImpl libros;
+    private String[] consultas;
+    private String[] prefijos;
+
+    @Setup(Level.Trial)
+    public void cargar() throws InterruptedException {
+        libros = new LibroRepositoryImpl();
+        Random random = new Random(7);
+        for (int i = 0; i < cantidadLibros; i++) {
+            libros.save(new Libro(DatosDePrueba.isbn(i + 1L), DatosDePrueba.titulo(random),
+                    DatosDePrueba.autor(random)));
+        }
+        consultas = new String[CONSULTAS];
+        prefijos = new String[CONSULTAS];
+        for (int i = 0; i < CONSULTAS; i++) {
+            String titulo = DatosDePrueba.titulo(random);
+            String[] palabras = titulo.split(" ");
+            consultas[i] = palabras[random.nextInt(palabras.length - 1)] + " " + palabras[palabras.length - 2];
+            String texto = random.nextBoolean() ? titulo : DatosDePrueba.autor(random);
+            prefijos[i] = texto.substring(0, 1 + random.nextInt(Math.min(8, texto.length())));
+        }
+        // Da tiempo a que termine una fusión del autocompletado lanzada por las últimas altas
+        Thread.sleep(2_000);
+        IndiceAutocompletado.Memoria memoria = libros.getMemoriaAutocompletado();
+        System.out.printf("%nAutocompletado: %d textos en la base, %d bytes, %.1f bytes por texto, %d en el delta%n",
+                memoria.sugerenciasBase(), memoria.bytesBase(), memoria.bytesPorSugerencia(),
+                memoria.entradasDelta());
+    }
+
+    @Benchmark
+    public List<Libro> buscar() {
+        return libros.findPorTexto(consultas[ThreadLocalRandom.current().nextInt(CONSULTAS)], limite);
+    }
+
+    @Benchmark
+    public List<String> autocompletar() {
+        return libros.findSugerencias(prefijos[ThreadLocalRandom.current().nextInt(CONSULTAS)], limite);
+    }
+}
@@ -0,0 +1,234 @@
+package com.biblioteca.app.benchmarks;
+
+import com.biblioteca.app.BibliotecaApplication;
+import com.biblioteca.app.model.Libro;
+import com.biblioteca.app.model.Usuario;
+import com.biblioteca.app.repository.LibroRepository;
+import com.biblioteca.app.repository.UsuarioRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Prueba de carga del circuito de préstamo ({@code POST /api/prestamos} y
+ * {@code PATCH /api/prestamos/{id}/devolver}) con los pedidos atendidos por el
+ * pool de hilos de Tomcat o por hilos virtuales.
+ * <p>
+ * Para cada modo levanta la aplicación en un puerto libre, crea un usuario y
+ * un libro por cliente y lanza todos los clientes a la vez: cada uno presta y
+ * devuelve su libro en bucle. Después del calentamiento mide durante el tiempo
+ * indicado y reporta ciclos por segundo y percentiles de latencia.
+ * <p>
+ * Opciones (todas con {@code --nombre=valor}):
+ * <ul>
+ *   <li>{@code clientes}: clientes concurrentes (1000);</li>
+ *   <li>{@code duracion} y {@code calentamiento}: segundos (30 y 10);</li>
+ *   <li>{@code modos}: {@code plataforma}, {@code virtuales} o ambos separados por coma;</li>
+ *   <li>{@code persistencia}: con el log de escritura anticipada esperando el
+ *   fsync (true), que es donde los hilos pasan tiempo bloqueados;</li>
+ *   <li>{@code hilos-tomcat}: tamaño del pool en modo plataforma (200);</li>
+ *   <li>{@code salida}: archivo JSON con los resultados (carga-resultados.json).</li>
+ * </ul>
+ * Clientes y servidor comparten la JVM; para números absolutos conviene
+ * apuntar una herramienta externa a la aplicación, pero la comparación entre
+ * modos es justa porque ambos corren en las mismas condiciones.
+ */
+public final class CargaPrestamos {
+    private static final HttpRequest.BodyPublisher SIN_CUERPO = HttpRequest.BodyPublishers.noBody();
+
+    private final int clientes;
+    private final int duracion;
+    private final int calentamiento;
+    private final boolean persistencia;
+    private final int hilosTomcat;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private CargaPrestamos(Map<String, String> opciones) {
+        this.clientes = Integer.parseInt(opciones.getOrDefault("clientes", "1000"));
+        this.duracion = Integer.parseInt(opciones.getOrDefault("duracion", "30"));
+        this.calentamiento = Integer.parseInt(opciones.getOrDefault("calentamiento", "10"));
+        this.persistencia = Boolean.parseBoolean(opciones.getOrDefault("persistencia", "true"));
+        this.hilosTomcat = Integer.parseInt(opciones.getOrDefault("hilos-tomcat", "200"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opciones = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Opción inválida: " + arg);
+            }
+            opciones.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        CargaPrestamos carga = new CargaPrestamos(opciones);
+        List<Resultado> resultados = new ArrayList<>();
+        for (String modo : opciones.getOrDefault("modos", "plataforma,virtuales").split(",")) {
+            Resultado resultado = carga.correr(modo.trim());
+            System.out.println(resultado.resumen());
+            resultados.add(resultado);
+        }
+        Path salida = Path.of(opciones.getOrDefault("salida", "carga-resultados.json"));
+        carga.mapper.enable(SerializationFeature.INDENT_OUTPUT).writeValue(salida.toFile(), resultados);
+        System.out.println("Resultados en " + salida);
+    }
+
+    private Resultado correr(String modo) throws Exception {
+        if (!modo.equals("plataforma") && !modo.equals("virtuales")) {
+            throw new IllegalArgumentException("Modo desconocido: " + modo);
+        }
+        Path directorio = Files.createTempDirectory("carga-prestamos");
+        Map<String, Object> propiedades = new HashMap<>();
+        propiedades.put("server.port", 0);
+        propiedades.put("management.server.port", -1);
+        propiedades.put("spring.threads.virtual.enabled", modo.equals("virtuales"));
+        propiedades.put("server.tomcat.threads.max", hilosTomcat);
+        propiedades.put("server.tomcat.max-connections", Math.max(8192, clientes * 2));
+        propiedades.put("biblioteca.persistencia.habilitada", persistencia);
+        propiedades.put("biblioteca.persistencia.directorio", directorio.toString());
+        propiedades.put("biblioteca.prestamos.barrido-vencidos.habilitado", false);
+        propiedades.put("logging.level.com.biblioteca", "INFO");
+
+        try (ConfigurableApplicationContext contexto = new SpringApplicationBuilder(BibliotecaApplication.class)
+                .properties(propiedades)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .run()) {
+            long[][] pares = cargarDatos(contexto);
+            int puerto = ((WebServerApplicationContext) contexto).getWebServer().getPort();
+            return medir(modo, "http://localhost:" + puerto + "/api/prestamos", pares);
+        } finally {
+            borrar(directorio);
+        }
+    }
+
+    /**
+     * Un usuario y un libro propios por cliente, así los clientes no compiten
+     * por el mismo libro ni por el cupo de un mismo usuario.
+     */
+    private long[][] cargarDatos(ConfigurableApplicationContext contexto) {
+        LibroRepository libros = contexto.getBean(LibroRepository.class);
+        UsuarioRepository usuarios = contexto.getBean(UsuarioRepository.class);
+        long[][] pares = new long[clientes][];
+        for (int i = 0; i < clientes; i++) {
+            Libro libro = libros.save(new Libro(String.format("979-%09d", i), "Libro de carga " + i, "Autor " + i));
+            Usuario usuario = usuarios.save(new Usuario("Cliente " + i, "cliente" + i + "@carga"));
+            pares[i] = new long[] {libro.getId(), usuario.getId()};
+        }
+        return pares;
+    }
+
+    private Resultado medir(String modo, String base, long[][] pares) throws InterruptedException {
+        Histogram prestamos = new ConcurrentHistogram(3);
+        Histogram devoluciones = new ConcurrentHistogram(3);
+        LongAdder ciclos = new LongAdder();
+        LongAdder errores = new LongAdder();
+        Control control = new Control();
+
+        try (HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+                ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long[] par : pares) {
+                HttpRequest prestar = HttpRequest.newBuilder(
+                        URI.create(base + "?libroId=" + par[0] + "&usuarioId=" + par[1])).POST(SIN_CUERPO).build();
+                hilos.execute(() -> {
+                    while (!control.detenido) {
+                        try {
+                            long inicio = System.nanoTime();
+                            HttpResponse<String> prestado = http.send(prestar, HttpResponse.BodyHandlers.ofString());
+                            long medio = System.nanoTime();
+                            if (prestado.statusCode() != 201) {
+                                errores.increment();
+                                continue;
+                            }
+                            long prestamoId = mapper.readTree(prestado.body()).get("id").asLong();
+                            HttpRequest devolver = HttpRequest.newBuilder(
+                                    URI.create(base + "/" + prestamoId + "/devolver")).method("PATCH", SIN_CUERPO).build();
+                            int estado = http.send(devolver, HttpResponse.BodyHandlers.discarding()).statusCode();
+                            long fin = System.nanoTime();
+                            if (estado != 200) {
+                                errores.increment();
+                            } else if (control.midiendo) {
+                                prestamos.recordValue(medio - inicio);
+                                devoluciones.recordValue(fin - medio);
+                                ciclos.increment();
+                            }
+                        } catch (IOException e) {
+                            errores.increment();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                    }
+                });
+            }
+            TimeUnit.SECONDS.sleep(calentamiento);
+            control.midiendo = true;
+            long inicio = System.nanoTime();
+            TimeUnit.SECONDS.sleep(duracion);
+            control.midiendo = false;
+            double segundos = (System.nanoTime() - inicio) / 1e9;
+            control.detenido = true;
+            return new Resultado(modo, clientes, persistencia, ciclos.sum(), errores.sum(),
+                    ciclos.sum() / segundos, percentiles(prestamos), percentiles(devoluciones));
+        }
+    }
+
+    private static Map<String, Double> percentiles(Histogram histograma) {
+        Map<String, Double> valores = new LinkedHashMap<>();
+        valores.put("p50", histograma.getValueAtPercentile(50) / 1e6);
+        valores.put("p90", histograma.getValueAtPercentile(90) / 1e6);
+        valores.put("p99", histograma.getValueAtPercentile(99) / 1e6);
+        valores.put("p999", histograma.getValueAtPercentile(99.9) / 1e6);
+        valores.put("max", histograma.getMaxValue() / 1e6);
+        return valores;
+    }
+
+    private static void borrar(Path directorio) throws IOException {
+        try (Stream<Path> archivos = Files.walk(directorio)) {
+            for (Path archivo : (Iterable<Path>) archivos.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(archivo);
+            }
+        }
+    }
+
+    private static final class Control {
+        volatile boolean midiendo;
+        volatile boolean detenido;
+    }
+
+    /**
+     * Resultado de un modo; las latencias están en milisegundos.
+     */
+    public record Resultado(String modo, int clientes, boolean persistencia, long ciclos, long errores,
+            double ciclosPorSegundo, Map<String, Double> prestamoMs, Map<String, Double> devolucionMs) {
+
+        String resumen() {
+            return String.format("%-10s %6d clientes  %9.1f ciclos/s  préstamo p50 %.2f ms p99 %.2f ms  "
+                            + "devolución p50 %.2f ms p99 %.2f ms  errores %d",
+                    modo, clientes, ciclosPorSegundo, prestamoMs.get("p50"), prestamoMs.get("p99"),
+                    devolucionMs.get("p50"), devolucionMs.get("p99"), errores);
+        }
+    }
+}
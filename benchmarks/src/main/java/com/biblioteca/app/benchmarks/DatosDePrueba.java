@@ -0,0 +1,99 @@
+package com.biblioteca.app.benchmarks;
+
+import com.biblioteca.app.model.EstadoLibro;
+import com.biblioteca.app.model.Libro;
+import com.biblioteca.app.model.Prestamo;
+import com.biblioteca.app.model.Usuario;
+import com.biblioteca.app.repository.LibroRepository;
+import com.biblioteca.app.repository.PrestamoRepository;
+import com.biblioteca.app.repository.UsuarioRepository;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+/**
+ * Carga repositorios con datos sintéticos reproducibles.
+ * Por cada diez libros hay un usuario; cada usuario tiene dos préstamos ya
+ * devueltos y uno activo, y uno de cada cuatro activos está vencido.
+ * Los libros que quedan sin préstamo activo están disponibles.
+ */
+final class DatosDePrueba {
+    static final int LIBROS_POR_USUARIO = 10;
+
+    private static final String[] PALABRAS = {
+            "amor", "guerra", "noche", "ciudad", "historia", "mar", "tiempo", "sombra", "jardín", "memoria",
+            "río", "viaje", "silencio", "fuego", "camino", "invierno", "casa", "sueño", "verano", "niebla",
+            "isla", "puerto", "luna", "tierra", "voz", "ceniza", "espejo", "laberinto", "piedra", "viento"};
+    private static final String[] NOMBRES = {
+            "Ana", "Bruno", "Carla", "Diego", "Elena", "Facundo", "Gabriela", "Hernán", "Inés", "Julián"};
+    private static final String[] APELLIDOS = {
+            "García", "Pérez", "Gómez", "Fernández", "López", "Díaz", "Martínez", "Romero", "Sosa", "Álvarez"};
+
+    private DatosDePrueba() {
+    }
+
+    static String isbn(long numero) {
+        return String.format("978-%09d", numero);
+    }
+
+    static String email(long numero) {
+        return "usuario" + numero + "@biblioteca.edu";
+    }
+
+    /**
+     * Título de dos a cinco palabras, con las primeras mucho más frecuentes
+     * que las últimas, como en un catálogo real.
+     */
+    static String titulo(Random random) {
+        int palabras = 2 + random.nextInt(4);
+        StringBuilder titulo = new StringBuilder();
+        for (int i = 0; i < palabras; i++) {
+            int indice = (int) (Math.pow(random.nextDouble(), 2) * PALABRAS.length);
+            String palabra = PALABRAS[indice];
+            if (i == 0) {
+                titulo.append(Character.toUpperCase(palabra.charAt(0))).append(palabra.substring(1));
+            } else {
+                titulo.append(i == palabras - 1 ? " de " : " ").append(palabra);
+            }
+        }
+        return titulo.append(' ').append(random.nextInt(1000)).toString();
+    }
+
+    static String autor(Random random) {
+        return NOMBRES[random.nextInt(NOMBRES.length)] + " " + APELLIDOS[random.nextInt(APELLIDOS.length)]
+                + " " + APELLIDOS[random.nextInt(APELLIDOS.length)];
+    }
+
+    /**
+     * Guarda {@code cantidadLibros} libros y los usuarios y préstamos que les
+     * corresponden. Los ids quedan de 1 en adelante en orden de alta.
+     */
+    static void cargar(int cantidadLibros, LibroRepository libros, UsuarioRepository usuarios,
+            PrestamoRepository prestamos) {
+        Random random = new Random(42);
+        Libro[] guardados = new Libro[cantidadLibros];
+        for (int i = 0; i < cantidadLibros; i++) {
+            guardados[i] = libros.save(new Libro(isbn(i + 1L), titulo(random), autor(random)));
+        }
+        int cantidadUsuarios = Math.max(1, cantidadLibros / LIBROS_POR_USUARIO);
+        LocalDate hoy = LocalDate.now();
+        for (int i = 0; i < cantidadUsuarios; i++) {
+            Usuario usuario = usuarios.save(new Usuario(NOMBRES[i % NOMBRES.length] + " " + i, email(i + 1L)));
+            for (int j = 0; j < 2; j++) {
+                Libro libro = guardados[random.nextInt(cantidadLibros)];
+                LocalDate desde = hoy.minusDays(30 + random.nextInt(300));
+                prestamos.save(new Prestamo(null, libro.getId(), usuario.getId(), desde, desde.plusDays(Prestamo.DIAS_PRESTAMO)));
+            }
+            // El primer libro de cada grupo de diez queda prestado
+            Libro prestado = guardados[i * LIBROS_POR_USUARIO % cantidadLibros];
+            if (prestado.getEstado() == EstadoLibro.DISPONIBLE) {
+                boolean vencido = i % 4 == 0;
+                LocalDate desde = hoy.minusDays(vencido ? Prestamo.DIAS_PRESTAMO + 1 + random.nextInt(30) : 1);
+                prestado.setEstado(EstadoLibro.PRESTADO);
+                usuario.agregarLibroPrestado(prestado);
+                prestamos.save(new Prestamo(null, prestado.getId(), usuario.getId(), desde, null));
+                libros.save(prestado);
+            }
+        }
+    }
+}
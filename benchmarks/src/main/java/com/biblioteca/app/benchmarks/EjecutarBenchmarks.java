@@ -0,0 +1,75 @@
+package com.biblioteca.app.benchmarks;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Punto de entrada del jar de benchmarks. Acepta las mismas opciones que JMH
+ * y además:
+ * <ul>
+ *   <li>{@code --hilos=1,4,16}: repite la corrida con cada cantidad de hilos
+ *   (por defecto la de JMH, {@code -t});</li>
+ *   <li>{@code --salida=archivo.json}: archivo con los resultados de todas las
+ *   corridas en el formato JSON de JMH (por defecto {@code jmh-resultados.json}).</li>
+ * </ul>
+ * El JSON incluye parámetros, hilos y percentiles de cada benchmark, así que
+ * dos corridas se pueden comparar con cualquier herramienta que lea JMH.
+ */
+public final class EjecutarBenchmarks {
+    private static final String HILOS = "--hilos=";
+    private static final String SALIDA = "--salida=";
+
+    private EjecutarBenchmarks() {
+    }
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException, IOException {
+        List<Integer> hilos = new ArrayList<>();
+        String salida = "jmh-resultados.json";
+        List<String> opcionesJmh = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith(HILOS)) {
+                for (String cantidad : arg.substring(HILOS.length()).split(",")) {
+                    hilos.add(Integer.parseInt(cantidad.trim()));
+                }
+            } else if (arg.startsWith(SALIDA)) {
+                salida = arg.substring(SALIDA.length());
+            } else {
+                opcionesJmh.add(arg);
+            }
+        }
+
+        CommandLineOptions linea = new CommandLineOptions(opcionesJmh.toArray(String[]::new));
+        if (linea.shouldHelp() || linea.shouldList() || linea.shouldListWithParams()
+                || linea.shouldListProfilers() || linea.shouldListResultFormats()) {
+            // Ayuda y listados los resuelve JMH sin correr nada
+            org.openjdk.jmh.Main.main(opcionesJmh.toArray(String[]::new));
+            return;
+        }
+
+        List<RunResult> resultados = new ArrayList<>();
+        if (hilos.isEmpty()) {
+            resultados.addAll(new Runner(linea).run());
+        } else {
+            for (int cantidad : hilos) {
+                Options opciones = new OptionsBuilder().parent(linea).threads(cantidad).build();
+                resultados.addAll(new Runner(opciones).run());
+            }
+        }
+        try (PrintStream archivo = new PrintStream(salida)) {
+            ResultFormatFactory.getInstance(ResultFormatType.JSON, archivo).writeOut(resultados);
+        }
+        System.out.println("Resultados en " + salida);
+    }
+}
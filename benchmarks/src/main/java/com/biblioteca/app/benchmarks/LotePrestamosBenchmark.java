@@ -0,0 +1,155 @@
+package com.biblioteca.app.benchmarks;
+
+import com.biblioteca.app.event.PublicadorEventos;
+import com.biblioteca.app.model.Libro;
+import com.biblioteca.app.model.Prestamo;
+import com.biblioteca.app.model.Usuario;
+import com.biblioteca.app.repository.LibroRepository;
+import com.biblioteca.app.repository.PrestamoRepository;
+import com.biblioteca.app.repository.UsuarioRepository;
+import com.biblioteca.app.repository.impl.LibroRepositoryImpl;
+import com.biblioteca.app.repository.impl.PrestamoRepositoryImpl;
+import com.biblioteca.app.repository.impl.UsuarioRepositoryImpl;
+import com.biblioteca.app.repository.persistencia.LibroRepositoryDuradero;
+import com.biblioteca.app.repository.persistencia.LogEscrituraAnticipada;
+import com.biblioteca.app.repository.persistencia.OpcionesLog;
+import com.biblioteca.app.repository.persistencia.PrestamoRepositoryDuradero;
+import com.biblioteca.app.repository.persistencia.RegistradorCambios;
+import com.biblioteca.app.repository.persistencia.UsuarioRepositoryDuradero;
+import com.biblioteca.app.service.PrestamoService;
+import com.biblioteca.app.service.ResultadoLote;
+import com.biblioteca.app.service.SolicitudPrestamo;
+import com.biblioteca.app.service.impl.PrestamoServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Un mostrador presta y devuelve una pila de libros: uno por uno o con los
+ * endpoints por lotes. Cada operación medida es la pila completa (préstamo y
+ * devolución), así que los puntajes de ambos modos se comparan directamente.
+ * La pila reparte los libros entre varios usuarios porque cada uno puede
+ * tener a lo sumo tres prestados.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class LotePrestamosBenchmark {
+
+    @Param({"20"})
+    public int librosPorPila;
+
+    @Param({"memoria", "wal"})
+    public String persistencia;
+
+    private PrestamoService prestamoService;
+    private LibroRepository libroRepository;
+    private UsuarioRepository usuarioRepository;
+    private LogEscrituraAnticipada wal;
+    private Path directorio;
+    private final AtomicInteger mostradores = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        LibroRepository libros = new LibroRepositoryImpl();
+        UsuarioRepository usuarios = new UsuarioRepositoryImpl();
+        PrestamoRepository prestamos = new PrestamoRepositoryImpl();
+        if ("wal".equals(persistencia)) {
+            directorio = Files.createTempDirectory("bench-lote");
+            wal = LogEscrituraAnticipada.abrir(directorio, new OpcionesLog(true, Duration.ofMillis(5), 256), 0,
+                    registro -> {
+                    });
+            RegistradorCambios registrador = new RegistradorCambios(wal);
+            libros = new LibroRepositoryDuradero(libros, registrador);
+            usuarios = new UsuarioRepositoryDuradero(usuarios, registrador);
+            prestamos = new PrestamoRepositoryDuradero(prestamos, registrador);
+        }
+        libroRepository = libros;
+        usuarioRepository = usuarios;
+        prestamoService = new PrestamoServiceImpl(prestamos, libros, usuarios, PublicadorEventos.NINGUNO);
+
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws IOException {
+        if (wal != null) {
+            wal.close();
+            try (Stream<Path> archivos = Files.walk(directorio)) {
+                for (Path archivo : (Iterable<Path>) archivos.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.delete(archivo);
+                }
+            }
+        }
+    }
+
+    /**
+     * Libros y usuarios propios de cada hilo: un libro por usuario.
+     */
+    @State(Scope.Thread)
+    public static class Mostrador {
+        long[] libros;
+        long[] usuarios;
+        List<SolicitudPrestamo> solicitudes;
+
+        @Setup(Level.Trial)
+        public void preparar(LotePrestamosBenchmark benchmark) {
+            int numero = benchmark.mostradores.getAndIncrement();
+            libros = new long[benchmark.librosPorPila];
+            usuarios = new long[benchmark.librosPorPila];
+            solicitudes = new ArrayList<>(benchmark.librosPorPila);
+            for (int i = 0; i < benchmark.librosPorPila; i++) {
+                String clave = numero + "-" + i;
+                libros[i] = benchmark.libroRepository.save(
+                        new Libro("LOTE-" + clave, "Libro " + clave, "Autor")).getId();
+                usuarios[i] = benchmark.usuarioRepository.save(
+                        new Usuario("Lector " + clave, "lector" + clave + "@benchmark")).getId();
+                solicitudes.add(new SolicitudPrestamo(libros[i], usuarios[i]));
+            }
+        }
+    }
+
+    @Benchmark
+    public int individual(Mostrador mostrador) {
+        long[] prestamos = new long[mostrador.libros.length];
+        for (int i = 0; i < prestamos.length; i++) {
+            prestamos[i] = prestamoService.realizarPrestamo(mostrador.libros[i], mostrador.usuarios[i]).getId();
+        }
+        for (long prestamo : prestamos) {
+            prestamoService.devolverLibro(prestamo);
+        }
+        return prestamos.length;
+    }
+
+    @Benchmark
+    public int lote(Mostrador mostrador) {
+        List<Long> prestamos = new ArrayList<>(mostrador.solicitudes.size());
+        for (ResultadoLote<Prestamo> resultado : prestamoService.realizarPrestamos(mostrador.solicitudes)) {
+            prestamos.add(resultado.valor().getId());
+        }
+        return prestamoService.devolverLibros(prestamos).size();
+    }
+}
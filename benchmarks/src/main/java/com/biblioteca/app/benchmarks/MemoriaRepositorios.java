@@ -0,0 +1,150 @@
+package com.biblioteca.app.benchmarks;
+
+import com.biblioteca.app.repository.LibroRepository;
+import com.biblioteca.app.repository.PrestamoRepository;
+import com.biblioteca.app.repository.compacto.LibroRepositoryCompacto;
+import com.biblioteca.app.repository.compacto.PrestamoRepositoryCompacto;
+import com.biblioteca.app.repository.impl.LibroRepositoryImpl;
+import com.biblioteca.app.repository.impl.PrestamoRepositoryImpl;
+import com.biblioteca.app.repository.impl.UsuarioRepositoryImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Memoria retenida por fila de los repositorios de libros y de préstamos, con
+ * los mapas de objetos ({@code estandar}) y guardados por columnas
+ * ({@code compacto}), sobre los datos de {@link DatosDePrueba}.
+ * <p>
+ * Cada motor se mide en una JVM nueva (con las mismas opciones de la JVM que
+ * lanzó el reporte): carga los tres repositorios y mide el heap ocupado
+ * después de recolectar; luego suelta los préstamos y después los libros y
+ * atribuye a cada uno lo que se liberó. Los usuarios son los mismos en los dos motores y
+ * no se cuentan. Lo de los libros incluye los índices de ISBN, texto y
+ * autocompletado, que son iguales en ambos.
+ * <p>
+ * Opciones (todas con {@code --nombre=valor}):
+ * <ul>
+ *   <li>{@code libros}: tamaño del catálogo (1000000); hay tres préstamos
+ *   por cada diez libros;</li>
+ *   <li>{@code motores}: {@code estandar}, {@code compacto} o ambos separados por coma;</li>
+ *   <li>{@code salida}: archivo JSON con los resultados (memoria-resultados.json).</li>
+ * </ul>
+ * Conviene correrlo con un heap fijo y holgado, por ejemplo {@code -Xms4g -Xmx4g}.
+ */
+public final class MemoriaRepositorios {
+    // En campos estáticos para poder soltarlos uno por uno
+    private static UsuarioRepositoryImpl usuarios;
+    private static LibroRepository libros;
+    private static PrestamoRepository prestamos;
+
+    private MemoriaRepositorios() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        ObjectMapper mapper = new ObjectMapper();
+        Map<String, String> opciones = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Opción inválida: " + arg);
+            }
+            opciones.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        int cantidadLibros = Integer.parseInt(opciones.getOrDefault("libros", "1000000"));
+        if (opciones.containsKey("motor")) {
+            System.out.println(mapper.writeValueAsString(medir(opciones.get("motor"), cantidadLibros)));
+            return;
+        }
+        List<Resultado> resultados = new ArrayList<>();
+        for (String motor : opciones.getOrDefault("motores", "estandar,compacto").split(",")) {
+            Resultado resultado = mapper.readValue(enOtraJvm(motor.trim(), cantidadLibros), Resultado.class);
+            System.out.println(resultado.resumen());
+            resultados.add(resultado);
+        }
+        Path salida = Path.of(opciones.getOrDefault("salida", "memoria-resultados.json"));
+        mapper.enable(SerializationFeature.INDENT_OUTPUT).writeValue(salida.toFile(), resultados);
+        System.out.println("Resultados en " + salida);
+    }
+
+    /**
+     * Corre la medición de un motor en una JVM aparte y devuelve la última
+     * línea que imprime.
+     */
+    private static String enOtraJvm(String motor, int cantidadLibros) throws IOException, InterruptedException {
+        List<String> comando = new ArrayList<>();
+        comando.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        comando.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        comando.addAll(List.of("-cp", System.getProperty("java.class.path"), MemoriaRepositorios.class.getName(),
+                "--motor=" + motor, "--libros=" + cantidadLibros));
+        Process proceso = new ProcessBuilder(comando).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        List<String> lineas;
+        try (var salida = proceso.inputReader()) {
+            lineas = salida.lines().toList();
+        }
+        if (proceso.waitFor() != 0 || lineas.isEmpty()) {
+            throw new IllegalStateException("Falló la medición de " + motor + " (código " + proceso.exitValue() + ")");
+        }
+        return lineas.get(lineas.size() - 1);
+    }
+
+    private static Resultado medir(String motor, int cantidadLibros) throws InterruptedException {
+        long base = heapRetenido();
+        usuarios = new UsuarioRepositoryImpl();
+        if (motor.equals("compacto")) {
+            libros = new LibroRepositoryCompacto();
+            prestamos = new PrestamoRepositoryCompacto();
+        } else if (motor.equals("estandar")) {
+            libros = new LibroRepositoryImpl();
+            prestamos = new PrestamoRepositoryImpl();
+        } else {
+            throw new IllegalArgumentException("Motor desconocido: " + motor);
+        }
+        DatosDePrueba.cargar(cantidadLibros, libros, usuarios, prestamos);
+        // El índice de autocompletado fusiona su delta en segundo plano
+        ForkJoinPool.commonPool().awaitQuiescence(1, TimeUnit.MINUTES);
+        int filasLibros = libros.contar();
+        int filasPrestamos = prestamos.contar();
+
+        // Una búsqueda después de recolectar purga las vistas que se liberaron
+        heapRetenido();
+        libros.findById(1L);
+        prestamos.findById(1L);
+        long conTodo = heapRetenido();
+        prestamos = null;
+        long sinPrestamos = heapRetenido();
+        libros = null;
+        long sinLibros = heapRetenido();
+        usuarios = null;
+
+        return new Resultado(motor, filasLibros, filasPrestamos,
+                (double) (sinPrestamos - sinLibros) / filasLibros,
+                (double) (conTodo - sinPrestamos) / filasPrestamos,
+                conTodo - base);
+    }
+
+    private static long heapRetenido() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(200);
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    record Resultado(String motor, int libros, int prestamos, double bytesPorLibro, double bytesPorPrestamo,
+            long bytesTotales) {
+
+        String resumen() {
+            return String.format("%-9s %,d libros: %.0f B/libro, %,d préstamos: %.0f B/préstamo, total %,d MB",
+                    motor, libros, bytesPorLibro, prestamos, bytesPorPrestamo, bytesTotales >> 20);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.biblioteca.app.benchmarks;
+
+import com.biblioteca.app.event.BusEventos;
+import com.biblioteca.app.event.EventoDominio;
+import com.biblioteca.app.event.OpcionesBus;
+import com.biblioteca.app.event.PoliticaSaturacion;
+import com.biblioteca.app.event.PublicadorEventos;
+import com.biblioteca.app.event.SuscriptorEventos;
+import com.biblioteca.app.model.Prestamo;
+import com.biblioteca.app.model.Usuario;
+import com.biblioteca.app.repository.LibroRepository;
+import com.biblioteca.app.repository.PrestamoRepository;
+import com.biblioteca.app.repository.UsuarioRepository;
+import com.biblioteca.app.repository.impl.LibroRepositoryImpl;
+import com.biblioteca.app.repository.impl.PrestamoRepositoryImpl;
+import com.biblioteca.app.repository.impl.UsuarioRepositoryImpl;
+import com.biblioteca.app.repository.persistencia.LibroRepositoryDuradero;
+import com.biblioteca.app.repository.persistencia.LogEscrituraAnticipada;
+import com.biblioteca.app.repository.persistencia.OpcionesLog;
+import com.biblioteca.app.repository.persistencia.PrestamoRepositoryDuradero;
+import com.biblioteca.app.repository.persistencia.RegistradorCambios;
+import com.biblioteca.app.repository.persistencia.UsuarioRepositoryDuradero;
+import com.biblioteca.app.service.PrestamoService;
+import com.biblioteca.app.service.impl.PrestamoServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Préstamo y devolución a través del servicio, en memoria o con el log de
+ * escritura anticipada esperando el fsync (la configuración por defecto
+ * cuando la persistencia está habilitada).
+ * <p>
+ * Cada hilo tiene su propio usuario y su propia franja de libros, así que los
+ * hilos no compiten por el mismo libro: lo que se mide es la contención en los
+ * repositorios y en el log. La operación contraria (devolver antes de prestar
+ * y viceversa) se hace en el setup de cada invocación, fuera de la medición;
+ * ambas operaciones tardan varios microsegundos, bastante más que el costo de
+ * ese setup.
+ * <p>
+ * Con {@code eventos=bus} el servicio publica en un bus con un suscriptor
+ * que tarda un milisegundo por lote, mucho más lento que los préstamos: el
+ * buffer se llena y los eventos se descartan, pero el préstamo no debería
+ * tardar más que sin bus.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class PrestamoServiceBenchmark {
+    private static final int LIBROS_POR_HILO = 1_000;
+
+    @Param({"100000"})
+    public int cantidadLibros;
+
+    @Param({"memoria", "wal"})
+    public String persistencia;
+
+    @Param({"ninguno", "bus"})
+    public String eventos;
+
+    private PrestamoService prestamoService;
+    private UsuarioRepository usuarioRepository;
+    private LogEscrituraAnticipada wal;
+    private BusEventos bus;
+    private Path directorio;
+    private final AtomicInteger hilos = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        LibroRepository libros = new LibroRepositoryImpl();
+        UsuarioRepository usuarios = new UsuarioRepositoryImpl();
+        PrestamoRepository prestamos = new PrestamoRepositoryImpl();
+        DatosDePrueba.cargar(cantidadLibros, libros, usuarios, prestamos);
+        if ("wal".equals(persistencia)) {
+            directorio = Files.createTempDirectory("bench-wal");
+            wal = LogEscrituraAnticipada.abrir(directorio, new OpcionesLog(true, Duration.ofMillis(5), 256), 0,
+                    registro -> {
+                    });
+            RegistradorCambios registrador = new RegistradorCambios(wal);
+            libros = new LibroRepositoryDuradero(libros, registrador);
+            usuarios = new UsuarioRepositoryDuradero(usuarios, registrador);
+            prestamos = new PrestamoRepositoryDuradero(prestamos, registrador);
+        }
+        usuarioRepository = usuarios;
+        PublicadorEventos publicador = PublicadorEventos.NINGUNO;
+        if ("bus".equals(eventos)) {
+            bus = BusEventos.iniciar(List.of(new SuscriptorLento()),
+                    new OpcionesBus(8192, 256, PoliticaSaturacion.DESCARTAR, Duration.ofMillis(1)));
+            publicador = bus;
+        }
+        prestamoService = new PrestamoServiceImpl(prestamos, libros, usuarios, publicador);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws IOException {
+        if (bus != null) {
+            bus.close();
+        }
+        if (wal != null) {
+            wal.close();
+            try (Stream<Path> archivos = Files.walk(directorio)) {
+                for (Path archivo : (Iterable<Path>) archivos.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.delete(archivo);
+                }
+            }
+        }
+    }
+
+    /**
+     * Usuario nuevo y franja de libros disponibles propios de cada hilo. Los
+     * estados de cada benchmark heredan de éste porque JMH no comparte una
+     * misma instancia entre el método medido y el setup de otro estado.
+     */
+    public abstract static class Hilo {
+        long usuarioId;
+        long primerLibro;
+        int siguiente;
+        Prestamo pendiente;
+
+        @Setup(Level.Trial)
+        public void preparar(PrestamoServiceBenchmark benchmark) {
+            int numero = benchmark.hilos.getAndIncrement();
+            Usuario usuario = benchmark.usuarioRepository.save(
+                    new Usuario("Hilo " + numero, "hilo" + numero + "@benchmark"));
+            usuarioId = usuario.getId();
+            primerLibro = 1L + (long) numero * LIBROS_POR_HILO;
+            if (primerLibro + LIBROS_POR_HILO > benchmark.cantidadLibros) {
+                throw new IllegalStateException("No hay libros suficientes para " + (numero + 1) + " hilos");
+            }
+        }
+
+        /**
+         * Próximo libro de la franja; salta el primero de cada diez, que los
+         * datos de prueba dejan prestado.
+         */
+        long siguienteLibro() {
+            do {
+                siguiente = (siguiente + 1) % LIBROS_POR_HILO;
+            } while ((primerLibro + siguiente - 1) % DatosDePrueba.LIBROS_POR_USUARIO == 0);
+            return primerLibro + siguiente;
+        }
+    }
+
+    /**
+     * Antes de medir un préstamo se devuelve el del paso anterior.
+     */
+    @State(Scope.Thread)
+    public static class ParaPrestar extends Hilo {
+        @Setup(Level.Invocation)
+        public void devolverAnterior(PrestamoServiceBenchmark benchmark) {
+            if (pendiente != null) {
+                benchmark.prestamoService.devolverLibro(pendiente.getId());
+                pendiente = null;
+            }
+        }
+    }
+
+    /**
+     * Antes de medir una devolución se presta un libro.
+     */
+    @State(Scope.Thread)
+    public static class ParaDevolver extends Hilo {
+        @Setup(Level.Invocation)
+        public void prestar(PrestamoServiceBenchmark benchmark) {
+            if (pendiente == null) {
+                pendiente = benchmark.prestamoService.realizarPrestamo(siguienteLibro(), usuarioId);
+            }
+        }
+    }
+
+    @Benchmark
+    public Prestamo realizarPrestamo(ParaPrestar hilo) {
+        hilo.pendiente = prestamoService.realizarPrestamo(hilo.siguienteLibro(), hilo.usuarioId);
+        return hilo.pendiente;
+    }
+
+    @Benchmark
+    public void devolverLibro(ParaDevolver hilo) {
+        prestamoService.devolverLibro(hilo.pendiente.getId());
+        hilo.pendiente = null;
+    }
+
+    private static final class SuscriptorLento implements SuscriptorEventos {
+        @Override
+        public String nombre() {
+            return "lento";
+        }
+
+        @Override
+        public void procesar(List<EventoDominio> lote) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+}
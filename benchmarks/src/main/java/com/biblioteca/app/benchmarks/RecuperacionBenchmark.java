@@ -0,0 +1,99 @@
+package com.biblioteca.app.benchmarks;
+
+import com.biblioteca.app.repository.impl.LibroRepositoryImpl;
+import com.biblioteca.app.repository.impl.PrestamoRepositoryImpl;
+import com.biblioteca.app.repository.impl.UsuarioRepositoryImpl;
+import com.biblioteca.app.repository.persistencia.AplicadorRegistros;
+import com.biblioteca.app.repository.persistencia.CodificadorRegistros;
+import com.biblioteca.app.repository.persistencia.Instantaneas;
+import com.biblioteca.app.repository.persistencia.LogEscrituraAnticipada;
+import com.biblioteca.app.repository.persistencia.OpcionesLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Tiempo hasta poder atender pedidos después de un reinicio: cargar la última
+ * instantánea, reaplicar la cola del log y derivar el estado de libros y
+ * usuarios. Es un arranque en frío por medición, así que se usa SingleShotTime.
+ * Los datos se generan una vez por hilo; cada medición recupera sobre
+ * repositorios nuevos.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+public class RecuperacionBenchmark {
+    private static final OpcionesLog OPCIONES = new OpcionesLog(false, Duration.ofMillis(5), 256);
+
+    /** Libros en la instantánea; hay un préstamo activo por cada diez y dos devueltos por usuario. */
+    @Param({"1000000"})
+    public int cantidadLibros;
+
+    /** Registros escritos en el log después de la instantánea. */
+    @Param({"100000"})
+    public int registrosCola;
+
+    private Path directorio;
+
+    @Setup(Level.Trial)
+    public void generar() throws IOException {
+        directorio = Files.createTempDirectory("bench-recuperacion");
+        LibroRepositoryImpl libros = new LibroRepositoryImpl();
+        UsuarioRepositoryImpl usuarios = new UsuarioRepositoryImpl();
+        PrestamoRepositoryImpl prestamos = new PrestamoRepositoryImpl();
+        DatosDePrueba.cargar(cantidadLibros, libros, usuarios, prestamos);
+        try (LogEscrituraAnticipada wal = LogEscrituraAnticipada.abrir(directorio, OPCIONES, 0, registro -> {
+        })) {
+            long segmento = wal.rotar();
+            Instantaneas.escribir(directorio, segmento, libros, usuarios, prestamos);
+            LogEscrituraAnticipada.eliminarSegmentosAnteriores(directorio, segmento);
+            // La cola reescribe libros ya existentes, como las actualizaciones de un día normal
+            for (int i = 0; i < registrosCola; i++) {
+                wal.agregar(CodificadorRegistros.guardado(libros.findById(1L + i % cantidadLibros).orElseThrow()));
+            }
+            wal.sincronizar();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void borrar() throws IOException {
+        try (Stream<Path> archivos = Files.walk(directorio)) {
+            for (Path archivo : (Iterable<Path>) archivos.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(archivo);
+            }
+        }
+    }
+
+    @Benchmark
+    public long recuperar() throws IOException {
+        AplicadorRegistros aplicador = new AplicadorRegistros(new LibroRepositoryImpl(),
+                new UsuarioRepositoryImpl(), new PrestamoRepositoryImpl());
+        long desdeSegmento = Instantaneas.cargarUltima(directorio, aplicador);
+        try (LogEscrituraAnticipada wal = LogEscrituraAnticipada.abrir(directorio, OPCIONES, desdeSegmento,
+                registro -> CodificadorRegistros.aplicar(registro, aplicador))) {
+            aplicador.reconstruirEstadoDerivado();
+            return aplicador.getRegistrosAplicados() + wal.getSegmentoActual();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.biblioteca.app.benchmarks;
+
+import com.biblioteca.app.model.Libro;
+import com.biblioteca.app.model.Prestamo;
+import com.biblioteca.app.model.Usuario;
+import com.biblioteca.app.repository.LibroRepository;
+import com.biblioteca.app.repository.PrestamoRepository;
+import com.biblioteca.app.repository.compacto.LibroRepositoryCompacto;
+import com.biblioteca.app.repository.compacto.PrestamoRepositoryCompacto;
+import com.biblioteca.app.repository.impl.LibroRepositoryImpl;
+import com.biblioteca.app.repository.impl.PrestamoRepositoryImpl;
+import com.biblioteca.app.repository.impl.UsuarioRepositoryImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lecturas de los repositorios en memoria sobre catálogos de distinto tamaño.
+ * Cada operación busca una clave al azar, así que el costo incluye los fallos
+ * de caché de un mapa grande y no sólo el de la misma entrada repetida.
+ * El parámetro {@code motor} compara los repositorios de mapas de objetos
+ * ({@code estandar}) con los guardados por columnas ({@code compacto}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class RepositoriosBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int cantidadLibros;
+
+    @Param({"estandar", "compacto"})
+    public String motor;
+
+    private LibroRepository libros;
+    private UsuarioRepositoryImpl usuarios;
+    private PrestamoRepository prestamos;
+    private int cantidadUsuarios;
+
+    @Setup(Level.Trial)
+    public void cargar() {
+        usuarios = new UsuarioRepositoryImpl();
+        if (motor.equals("compacto")) {
+            libros = new LibroRepositoryCompacto();
+            prestamos = new PrestamoRepositoryCompacto();
+        } else {
+            libros = new LibroRepositoryImpl();
+            prestamos = new PrestamoRepositoryImpl();
+        }
+        DatosDePrueba.cargar(cantidadLibros, libros, usuarios, prestamos);
+        cantidadUsuarios = Math.max(1, cantidadLibros / DatosDePrueba.LIBROS_POR_USUARIO);
+    }
+
+    @Benchmark
+    public Optional<Libro> findById() {
+        return libros.findById(1L + ThreadLocalRandom.current().nextInt(cantidadLibros));
+    }
+
+    @Benchmark
+    public Optional<Libro> findByIsbn() {
+        return libros.findByIsbn(DatosDePrueba.isbn(1L + ThreadLocalRandom.current().nextInt(cantidadLibros)));
+    }
+
+    @Benchmark
+    public Optional<Usuario> findByEmail() {
+        return usuarios.findByEmail(DatosDePrueba.email(1L + ThreadLocalRandom.current().nextInt(cantidadUsuarios)));
+    }
+
+    @Benchmark
+    public List<Prestamo> findByUsuario() {
+        Usuario usuario = usuarios.findById(1L + ThreadLocalRandom.current().nextInt(cantidadUsuarios)).orElseThrow();
+        return prestamos.findByUsuario(usuario);
+    }
+
+    /**
+     * Devuelve todos los vencidos (uno de cada cuatro usuarios tiene uno), así
+     * que crece con el catálogo: se mide en microsegundos.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<Prestamo> findPrestamosVencidos() {
+        return prestamos.findPrestamosVencidos();
+    }
+}
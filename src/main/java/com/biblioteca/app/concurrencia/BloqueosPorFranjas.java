@@ -0,0 +1,30 @@
+package com.biblioteca.app.concurrencia;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Conjunto fijo de locks repartidos por id. Dos operaciones sobre ids
+ * distintos casi nunca comparten lock, y la memoria no crece con la cantidad
+ * de libros, usuarios o préstamos. Se usa ReentrantLock para no fijar hilos virtuales.
+ */
+public class BloqueosPorFranjas {
+    private final Lock[] franjas;
+    private final int mascara;
+
+    public BloqueosPorFranjas(int cantidad) {
+        if (Integer.bitCount(cantidad) != 1) {
+            throw new IllegalArgumentException("La cantidad de franjas debe ser potencia de 2");
+        }
+        this.franjas = new Lock[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            franjas[i] = new ReentrantLock();
+        }
+        this.mascara = cantidad - 1;
+    }
+
+    public Lock para(Long id) {
+        int hash = Long.hashCode(id);
+        return franjas[(hash ^ (hash >>> 16)) & mascara];
+    }
+}
@@ -0,0 +1,37 @@
+package com.biblioteca.app.config;
+
+import com.biblioteca.app.event.BusEventos;
+import com.biblioteca.app.event.OpcionesBus;
+import com.biblioteca.app.event.PoliticaSaturacion;
+import com.biblioteca.app.event.ReenvioEventosSpring;
+import com.biblioteca.app.event.SuscriptorEventos;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Bus de eventos del dominio. Los suscriptores son los beans de tipo
+ * {@link SuscriptorEventos}; cada uno recibe los eventos en su propio hilo.
+ */
+@Configuration
+public class EventosConfig {
+
+    @Bean
+    public ReenvioEventosSpring reenvioEventosSpring(ApplicationEventPublisher publicador) {
+        return new ReenvioEventosSpring(publicador);
+    }
+
+    @Bean(destroyMethod = "close")
+    public BusEventos busEventos(ObjectProvider<SuscriptorEventos> suscriptores,
+            @Value("${biblioteca.eventos.capacidad:8192}") int capacidad,
+            @Value("${biblioteca.eventos.lote:256}") int lote,
+            @Value("${biblioteca.eventos.politica:DESCARTAR}") PoliticaSaturacion politica,
+            @Value("${biblioteca.eventos.espera-inactiva-ms:1}") long esperaInactivaMs) {
+        OpcionesBus opciones = new OpcionesBus(capacidad, lote, politica, Duration.ofMillis(esperaInactivaMs));
+        return BusEventos.iniciar(suscriptores.orderedStream().toList(), opciones);
+    }
+}
@@ -0,0 +1,121 @@
+package com.biblioteca.app.config;
+
+import com.biblioteca.app.event.BusEventos;
+import com.biblioteca.app.repository.LibroRepository;
+import com.biblioteca.app.repository.PrestamoRepository;
+import com.biblioteca.app.repository.UsuarioRepository;
+import com.biblioteca.app.service.LibroService;
+import com.biblioteca.app.service.PrestamoService;
+import com.biblioteca.app.service.UsuarioService;
+import com.biblioteca.app.service.impl.LibroServiceImpl;
+import com.biblioteca.app.service.impl.PrestamoServiceImpl;
+import com.biblioteca.app.service.impl.UsuarioServiceImpl;
+import com.biblioteca.app.service.metricas.LibroServiceMedido;
+import com.biblioteca.app.service.metricas.PrestamoServiceMedido;
+import com.biblioteca.app.service.metricas.UsuarioServiceMedido;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.time.LocalDate;
+
+/**
+ * Métricas de los servicios: los decoradores medidos quedan como primarios
+ * para que los controladores pasen por ellos, y los tamaños de los
+ * repositorios se publican como gauges (se leen al consultar el endpoint de
+ * métricas, no en cada operación). Lo mismo el bus de eventos: publicados y
+ * descartados, y por suscriptor el retraso, los procesados y los lotes que
+ * fallaron.
+ */
+@Configuration
+@ConditionalOnProperty(name = "biblioteca.metricas.habilitadas", havingValue = "true", matchIfMissing = true)
+public class MetricasConfig {
+
+    @Bean
+    @Primary
+    public LibroService libroServiceMedido(LibroServiceImpl libroService, MeterRegistry registro) {
+        return new LibroServiceMedido(libroService, registro);
+    }
+
+    @Bean
+    @Primary
+    public UsuarioService usuarioServiceMedido(UsuarioServiceImpl usuarioService, MeterRegistry registro) {
+        return new UsuarioServiceMedido(usuarioService, registro);
+    }
+
+    @Bean
+    @Primary
+    public PrestamoService prestamoServiceMedido(PrestamoServiceImpl prestamoService, MeterRegistry registro) {
+        return new PrestamoServiceMedido(prestamoService, registro);
+    }
+
+    @Bean
+    public Gauge librosGauge(LibroRepository libroRepository, MeterRegistry registro) {
+        return Gauge.builder("biblioteca.libros", libroRepository, LibroRepository::contar)
+                .description("Libros en el catálogo")
+                .register(registro);
+    }
+
+    @Bean
+    public Gauge usuariosGauge(UsuarioRepository usuarioRepository, MeterRegistry registro) {
+        return Gauge.builder("biblioteca.usuarios", usuarioRepository, UsuarioRepository::contar)
+                .description("Usuarios registrados")
+                .register(registro);
+    }
+
+    @Bean
+    public Gauge prestamosGauge(PrestamoRepository prestamoRepository, MeterRegistry registro) {
+        return Gauge.builder("biblioteca.prestamos", prestamoRepository, PrestamoRepository::contar)
+                .description("Préstamos registrados, activos y finalizados")
+                .register(registro);
+    }
+
+    @Bean
+    public Gauge prestamosActivosGauge(PrestamoRepository prestamoRepository, MeterRegistry registro) {
+        return Gauge.builder("biblioteca.prestamos.activos", prestamoRepository,
+                        PrestamoRepository::contarActivos)
+                .description("Préstamos activos")
+                .register(registro);
+    }
+
+    @Bean
+    public Gauge prestamosVencidosGauge(PrestamoRepository prestamoRepository, MeterRegistry registro) {
+        return Gauge.builder("biblioteca.prestamos.vencidos", prestamoRepository,
+                        repositorio -> repositorio.contarVencidosAl(LocalDate.now()))
+                .description("Préstamos activos con la fecha de vencimiento pasada")
+                .register(registro);
+    }
+
+    @Bean
+    public MeterBinder busEventosMetricas(BusEventos busEventos) {
+        return registro -> {
+            FunctionCounter.builder("biblioteca.eventos.publicados", busEventos, BusEventos::getPublicados)
+                    .description("Eventos aceptados por el bus")
+                    .register(registro);
+            FunctionCounter.builder("biblioteca.eventos.descartados", busEventos, BusEventos::getDescartados)
+                    .description("Eventos descartados con el buffer lleno o el bus cerrado")
+                    .register(registro);
+            for (String suscriptor : busEventos.getSuscriptores()) {
+                Gauge.builder("biblioteca.eventos.retraso", busEventos, bus -> bus.getRetraso(suscriptor))
+                        .description("Eventos publicados que el suscriptor todavía no procesó")
+                        .tag("suscriptor", suscriptor)
+                        .register(registro);
+                FunctionCounter.builder("biblioteca.eventos.procesados", busEventos,
+                                bus -> bus.getProcesados(suscriptor))
+                        .description("Eventos que el suscriptor ya procesó")
+                        .tag("suscriptor", suscriptor)
+                        .register(registro);
+                FunctionCounter.builder("biblioteca.eventos.lotes-fallidos", busEventos,
+                                bus -> bus.getLotesFallidos(suscriptor))
+                        .description("Lotes en los que el suscriptor lanzó una excepción")
+                        .tag("suscriptor", suscriptor)
+                        .register(registro);
+            }
+        };
+    }
+}
@@ -0,0 +1,75 @@
+package com.biblioteca.app.config;
+
+import com.biblioteca.app.repository.impl.LibroRepositoryImpl;
+import com.biblioteca.app.repository.impl.PrestamoRepositoryImpl;
+import com.biblioteca.app.repository.impl.UsuarioRepositoryImpl;
+import com.biblioteca.app.repository.persistencia.AplicadorRegistros;
+import com.biblioteca.app.repository.persistencia.CodificadorRegistros;
+import com.biblioteca.app.repository.persistencia.GestorInstantaneas;
+import com.biblioteca.app.repository.persistencia.Instantaneas;
+import com.biblioteca.app.repository.persistencia.LogEscrituraAnticipada;
+import com.biblioteca.app.repository.persistencia.OpcionesLog;
+import com.biblioteca.app.repository.persistencia.RegistradorCambios;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Persistencia con log de escritura anticipada. Al crear el log se recuperan
+ * los repositorios en memoria (última instantánea más la cola del log); el
+ * registrador de cambios lo usa {@link RepositoriosConfig} para que los
+ * servicios escriban a través de los repositorios duraderos.
+ */
+@Configuration
+@ConditionalOnProperty(name = "biblioteca.persistencia.habilitada", havingValue = "true")
+public class PersistenciaConfig {
+    private static final Logger log = LoggerFactory.getLogger(PersistenciaConfig.class);
+
+    @Bean(destroyMethod = "close")
+    public LogEscrituraAnticipada logEscrituraAnticipada(
+            LibroRepositoryImpl libroRepository,
+            UsuarioRepositoryImpl usuarioRepository,
+            PrestamoRepositoryImpl prestamoRepository,
+            @Value("${biblioteca.persistencia.directorio:datos}") Path directorio,
+            @Value("${biblioteca.persistencia.wal.esperar-fsync:true}") boolean esperarFsync,
+            @Value("${biblioteca.persistencia.wal.fsync-intervalo-ms:5}") long intervaloMs,
+            @Value("${biblioteca.persistencia.wal.fsync-lote:256}") int lote) throws IOException {
+        Files.createDirectories(directorio);
+        OpcionesLog opciones = new OpcionesLog(esperarFsync, Duration.ofMillis(intervaloMs), lote);
+        AplicadorRegistros aplicador = new AplicadorRegistros(libroRepository, usuarioRepository, prestamoRepository);
+
+        long inicio = System.nanoTime();
+        long desdeSegmento = Instantaneas.cargarUltima(directorio, aplicador);
+        long registrosInstantanea = aplicador.getRegistrosAplicados();
+        LogEscrituraAnticipada wal = LogEscrituraAnticipada.abrir(directorio, opciones, desdeSegmento,
+                registro -> CodificadorRegistros.aplicar(registro, aplicador));
+        aplicador.reconstruirEstadoDerivado();
+        log.info("Estado recuperado: {} registros de la instantánea y {} del log en {} ms",
+                registrosInstantanea, aplicador.getRegistrosAplicados() - registrosInstantanea,
+                Duration.ofNanos(System.nanoTime() - inicio).toMillis());
+        return wal;
+    }
+
+    @Bean
+    public GestorInstantaneas gestorInstantaneas(LogEscrituraAnticipada logEscrituraAnticipada,
+            LibroRepositoryImpl libroRepository,
+            UsuarioRepositoryImpl usuarioRepository,
+            PrestamoRepositoryImpl prestamoRepository,
+            @Value("${biblioteca.persistencia.instantanea.umbral-bytes:67108864}") long umbralBytes) {
+        return new GestorInstantaneas(logEscrituraAnticipada, libroRepository, usuarioRepository,
+                prestamoRepository, umbralBytes);
+    }
+
+    @Bean
+    public RegistradorCambios registradorCambios(LogEscrituraAnticipada logEscrituraAnticipada) {
+        return new RegistradorCambios(logEscrituraAnticipada);
+    }
+}
@@ -0,0 +1,146 @@
+package com.biblioteca.app.config;
+
+import com.biblioteca.app.repository.LibroRepository;
+import com.biblioteca.app.repository.PrestamoRepository;
+import com.biblioteca.app.repository.UsuarioRepository;
+import com.biblioteca.app.repository.cache.LibroRepositoryCacheado;
+import com.biblioteca.app.repository.cache.OpcionesCache;
+import com.biblioteca.app.repository.cache.UsuarioRepositoryCacheado;
+import com.biblioteca.app.repository.compacto.LibroRepositoryCompacto;
+import com.biblioteca.app.repository.compacto.PrestamoRepositoryCompacto;
+import com.biblioteca.app.repository.impl.LibroRepositoryImpl;
+import com.biblioteca.app.repository.impl.PrestamoRepositoryImpl;
+import com.biblioteca.app.repository.impl.UsuarioRepositoryImpl;
+import com.biblioteca.app.repository.mapeado.PrestamoRepositoryMapeado;
+import com.biblioteca.app.repository.persistencia.AplicadorRegistros;
+import com.biblioteca.app.repository.persistencia.LibroRepositoryDuradero;
+import com.biblioteca.app.repository.persistencia.PrestamoRepositoryDuradero;
+import com.biblioteca.app.repository.persistencia.RegistradorCambios;
+import com.biblioteca.app.repository.persistencia.UsuarioRepositoryDuradero;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Arma el repositorio que usan los servicios a partir del repositorio en
+ * memoria: con persistencia habilitada cada escritura pasa por el log, y con
+ * la caché habilitada las búsquedas por id (y por ISBN) se sirven desde
+ * memoria acotada. La caché va por fuera para que se invalide después de que
+ * la escritura quedó registrada. Las estadísticas de la caché (aciertos,
+ * fallos, desalojos) se publican como {@code cache.*} con la etiqueta
+ * {@code cache}. Viene deshabilitada: todos los repositorios leen de
+ * memoria, así que la caché sólo agrega una búsqueda más por lectura.
+ * <p>
+ * Con {@code biblioteca.repositorios.compactos} los libros y los préstamos se
+ * guardan por columnas de tipos primitivos en lugar de un mapa de objetos
+ * (menos memoria por fila, a cambio de serializar las escrituras). Por ahora
+ * la persistencia sólo sabe recuperar sobre los repositorios en memoria
+ * estándar, así que no se pueden habilitar las dos cosas a la vez.
+ */
+@Configuration
+public class RepositoriosConfig {
+    private final RegistradorCambios registrador;
+    private final OpcionesCache opcionesCache;
+    private final MeterRegistry registro;
+    private final LibroRepositoryCompacto libroCompacto;
+
+    public RepositoriosConfig(ObjectProvider<RegistradorCambios> registrador,
+            ObjectProvider<MeterRegistry> registro,
+            @Value("${biblioteca.repositorios.compactos:false}") boolean compactos,
+            @Value("${biblioteca.cache.habilitada:false}") boolean cacheHabilitada,
+            @Value("${biblioteca.cache.maximo:100000}") long maximo,
+            @Value("${biblioteca.cache.ttl-segundos:600}") long ttlSegundos) {
+        this.registrador = registrador.getIfAvailable();
+        this.registro = registro.getIfAvailable();
+        this.opcionesCache = cacheHabilitada ? new OpcionesCache(maximo, Duration.ofSeconds(ttlSegundos)) : null;
+        if (compactos && this.registrador != null) {
+            throw new IllegalStateException(
+                    "biblioteca.repositorios.compactos no admite biblioteca.persistencia.habilitada");
+        }
+        this.libroCompacto = compactos ? new LibroRepositoryCompacto() : null;
+    }
+
+    @Bean
+    @Primary
+    public LibroRepository libroRepository(LibroRepositoryImpl libroRepository) {
+        LibroRepository repositorio;
+        if (libroCompacto != null) {
+            repositorio = libroCompacto;
+        } else if (registrador == null) {
+            repositorio = libroRepository;
+        } else {
+            repositorio = new LibroRepositoryDuradero(libroRepository, registrador);
+        }
+        if (opcionesCache == null) {
+            return repositorio;
+        }
+        LibroRepositoryCacheado cacheado = new LibroRepositoryCacheado(repositorio, opcionesCache);
+        if (registro != null) {
+            CaffeineCacheMetrics.monitor(registro, cacheado.getCachePorId(), "libros");
+            CaffeineCacheMetrics.monitor(registro, cacheado.getCachePorIsbn(), "libros.isbn");
+        }
+        return cacheado;
+    }
+
+    @Bean
+    @Primary
+    public UsuarioRepository usuarioRepository(UsuarioRepositoryImpl usuarioRepository) {
+        UsuarioRepository repositorio = registrador == null
+                ? usuarioRepository
+                : new UsuarioRepositoryDuradero(usuarioRepository, registrador);
+        if (opcionesCache == null) {
+            return repositorio;
+        }
+        UsuarioRepositoryCacheado cacheado = new UsuarioRepositoryCacheado(repositorio, opcionesCache);
+        if (registro != null) {
+            CaffeineCacheMetrics.monitor(registro, cacheado.getCachePorId(), "usuarios");
+        }
+        return cacheado;
+    }
+
+    /**
+     * Con {@code biblioteca.prestamos.mapeados.habilitado} los préstamos van a
+     * archivos mapeados en memoria, que ya sobreviven a un reinicio por sí
+     * mismos: no pasan por el log, y el estado derivado de los libros se
+     * recalcula con los préstamos activos de los archivos. Requiere la
+     * persistencia habilitada: sin ella los libros y los usuarios se pierden
+     * al reiniciar y los préstamos recuperados apuntarían a ids que no
+     * existen o que se vuelven a asignar.
+     *
+     * @throws IllegalStateException si la persistencia no está habilitada
+     */
+    @Bean
+    @Primary
+    public PrestamoRepository prestamoRepository(PrestamoRepositoryImpl prestamoRepository,
+            LibroRepositoryImpl libroRepository,
+            UsuarioRepositoryImpl usuarioRepository,
+            @Value("${biblioteca.prestamos.mapeados.habilitado:false}") boolean mapeados,
+            @Value("${biblioteca.prestamos.mapeados.directorio:datos/prestamos}") Path directorio,
+            @Value("${biblioteca.prestamos.mapeados.sincronizar:false}") boolean sincronizar) throws IOException {
+        if (mapeados) {
+            if (registrador == null) {
+                throw new IllegalStateException(
+                        "biblioteca.prestamos.mapeados.habilitado requiere biblioteca.persistencia.habilitada");
+            }
+            PrestamoRepositoryMapeado mapeado = PrestamoRepositoryMapeado.abrir(directorio,
+                    PrestamoRepositoryMapeado.REGISTROS_POR_SEGMENTO, sincronizar);
+            AplicadorRegistros.reconstruirEstadoDerivado(mapeado.findPrestamosActivos(), libroRepository,
+                    usuarioRepository);
+            return mapeado;
+        }
+        if (libroCompacto != null) {
+            return new PrestamoRepositoryCompacto();
+        }
+        return registrador == null
+                ? prestamoRepository
+                : new PrestamoRepositoryDuradero(prestamoRepository, registrador);
+    }
+}
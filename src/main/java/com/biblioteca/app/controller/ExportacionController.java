@@ -0,0 +1,115 @@
+package com.biblioteca.app.controller;
+
+import com.biblioteca.app.model.Libro;
+import com.biblioteca.app.model.Prestamo;
+import com.biblioteca.app.model.Usuario;
+import com.biblioteca.app.service.LibroService;
+import com.biblioteca.app.service.PrestamoService;
+import com.biblioteca.app.service.UsuarioService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Controlador REST para exportar colecciones completas como JSON delimitado por
+ * líneas (un objeto por línea). Los datos se recorren por páginas y se escriben
+ * directo en la respuesta, así que la memoria usada no depende del tamaño de la
+ * colección y el cliente recibe las primeras líneas mientras se leen las demás.
+ * Todos los endpoints comienzan con /api/exportar
+ */
+@RestController
+@RequestMapping("/api/exportar")
+public class ExportacionController {
+    static final int TAMANIO_PAGINA = 1000;
+
+    private final LibroService libroService;
+    private final UsuarioService usuarioService;
+    private final PrestamoService prestamoService;
+    private final ObjectWriter escritor;
+
+    public ExportacionController(LibroService libroService, UsuarioService usuarioService,
+            PrestamoService prestamoService, ObjectMapper objectMapper) {
+        this.libroService = libroService;
+        this.usuarioService = usuarioService;
+        this.prestamoService = prestamoService;
+        // Se vuelca una vez por página, no después de cada objeto
+        this.escritor = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Exporta todos los libros ordenados por id.
+     *
+     * @return Un libro por línea
+     * @HTTP GET /api/exportar/libros
+     * @response 200 - Exportación en curso
+     */
+    @GetMapping(value = "/libros", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportarLibros() {
+        return exportar(libroService::obtenerPagina, Libro::getId);
+    }
+
+    /**
+     * Exporta todos los usuarios ordenados por id.
+     *
+     * @return Un usuario por línea
+     * @HTTP GET /api/exportar/usuarios
+     * @response 200 - Exportación en curso
+     */
+    @GetMapping(value = "/usuarios", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportarUsuarios() {
+        return exportar(usuarioService::obtenerPagina, Usuario::getId);
+    }
+
+    /**
+     * Exporta el historial completo de préstamos ordenado por id.
+     *
+     * @return Un préstamo por línea
+     * @HTTP GET /api/exportar/prestamos
+     * @response 200 - Exportación en curso
+     */
+    @GetMapping(value = "/prestamos", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportarPrestamos() {
+        return exportar(prestamoService::obtenerPagina, Prestamo::getId);
+    }
+
+    /**
+     * Recorre la colección con el mismo cursor que la paginación: lo que se
+     * agregue o elimine durante la exportación puede aparecer o no, pero cada
+     * elemento se escribe a lo sumo una vez.
+     */
+    private <T> ResponseEntity<StreamingResponseBody> exportar(BiFunction<Long, Integer, List<T>> pagina,
+            Function<T, Long> id) {
+        StreamingResponseBody cuerpo = salida -> {
+            try (JsonGenerator generador = escritor.createGenerator(salida)) {
+                generador.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                // Sin el espacio que Jackson pone entre valores raíz: el separador es el salto de línea
+                generador.setRootValueSeparator(null);
+                Long despuesDeId = null;
+                List<T> elementos;
+                do {
+                    elementos = pagina.apply(despuesDeId, TAMANIO_PAGINA);
+                    for (T elemento : elementos) {
+                        escritor.writeValue(generador, elemento);
+                        generador.writeRaw('\n');
+                    }
+                    generador.flush();
+                    if (!elementos.isEmpty()) {
+                        despuesDeId = id.apply(elementos.get(elementos.size() - 1));
+                    }
+                } while (elementos.size() == TAMANIO_PAGINA);
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(cuerpo);
+    }
+}
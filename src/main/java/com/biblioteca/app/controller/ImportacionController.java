@@ -0,0 +1,123 @@
+package com.biblioteca.app.controller;
+
+import com.biblioteca.app.service.FilaImportacion;
+import com.biblioteca.app.service.LibroService;
+import com.biblioteca.app.service.ResumenImportacion;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+
+/**
+ * Controlador REST para cargar colecciones grandes de una vez. El cuerpo se
+ * lee a medida que llega y los libros se guardan por lotes, así que la
+ * memoria usada no depende del tamaño del archivo. La respuesta es JSON
+ * delimitado por líneas: una línea por cada fila rechazada, escrita cuando se
+ * procesa su lote, y al final una línea con los totales.
+ * Todos los endpoints comienzan con /api/importar
+ */
+@RestController
+@RequestMapping("/api/importar")
+public class ImportacionController {
+    static final String TEXT_CSV_VALUE = "text/csv";
+    static final int FILAS_POR_ENVIO = 1000;
+
+    private final LibroService libroService;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter escritor;
+
+    public ImportacionController(LibroService libroService, ObjectMapper objectMapper) {
+        this.libroService = libroService;
+        this.objectMapper = objectMapper;
+        // Se vuelca cada FILAS_POR_ENVIO filas leídas, no después de cada error
+        this.escritor = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Importa libros desde un CSV en UTF-8 con encabezado isbn,titulo,autor.
+     *
+     * @param cuerpo El archivo CSV
+     * @return Las filas rechazadas y el resumen, una línea cada uno
+     * @HTTP POST /api/importar/libros (Content-Type: text/csv)
+     * @response 200 - Importación en curso
+     * @response 400 - Encabezado ausente o sin las columnas requeridas
+     */
+    @PostMapping(value = "/libros", consumes = TEXT_CSV_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> importarCsv(InputStream cuerpo) {
+        try {
+            return importar(new LectorCsv(cuerpo));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Importa libros desde JSON delimitado por líneas, un objeto con isbn,
+     * titulo y autor por línea.
+     *
+     * @param cuerpo Los libros, uno por línea
+     * @return Las filas rechazadas y el resumen, una línea cada uno
+     * @HTTP POST /api/importar/libros (Content-Type: application/x-ndjson)
+     * @response 200 - Importación en curso
+     */
+    @PostMapping(value = "/libros", consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> importarNdjson(InputStream cuerpo) {
+        return importar(new LectorNdjson(cuerpo, objectMapper));
+    }
+
+    private ResponseEntity<StreamingResponseBody> importar(Iterator<FilaImportacion> filas) {
+        StreamingResponseBody respuesta = salida -> {
+            try (JsonGenerator generador = escritor.createGenerator(salida)) {
+                generador.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generador.setRootValueSeparator(null);
+                ResumenImportacion resumen = libroService.importar(new Iterator<>() {
+                    private long leidas;
+
+                    @Override
+                    public boolean hasNext() {
+                        return filas.hasNext();
+                    }
+
+                    /**
+                     * Antes de empezar otro tramo se envía lo escrito, así los
+                     * errores llegan mientras sigue la importación.
+                     */
+                    @Override
+                    public FilaImportacion next() {
+                        if (++leidas % FILAS_POR_ENVIO == 0) {
+                            try {
+                                generador.flush();
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        }
+                        return filas.next();
+                    }
+                }, error -> escribirLinea(generador, error));
+                escribirLinea(generador, resumen);
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(respuesta);
+    }
+
+    private void escribirLinea(JsonGenerator generador, Object valor) {
+        try {
+            escritor.writeValue(generador, valor);
+            generador.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.biblioteca.app.controller;
+
+import com.biblioteca.app.exception.LibroNoDisponibleException;
+import com.biblioteca.app.service.ResultadoLote;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.springframework.http.HttpStatus;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Resultado de un elemento de un pedido por lotes, con el código que habría
+ * devuelto el endpoint individual.
+ *
+ * @param estado    código HTTP del elemento
+ * @param resultado valor devuelto si el elemento salió bien
+ * @param error     mensaje del error si no
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ItemLote<T>(int estado, T resultado, String error) {
+    public static final int MAXIMO_POR_LOTE = 100;
+
+    /**
+     * Como en los endpoints individuales: lo que no existe es 404, el libro
+     * que no está disponible es 409 y lo demás que no se puede hacer en el
+     * estado actual es 400.
+     */
+    static <T> ItemLote<T> de(ResultadoLote<T> resultado, HttpStatus exito) {
+        if (resultado.exitoso()) {
+            return new ItemLote<>(exito.value(), resultado.valor(), null);
+        }
+        HttpStatus estado;
+        if (resultado.error() instanceof IllegalArgumentException) {
+            estado = HttpStatus.NOT_FOUND;
+        } else if (resultado.error() instanceof LibroNoDisponibleException) {
+            estado = HttpStatus.CONFLICT;
+        } else {
+            estado = HttpStatus.BAD_REQUEST;
+        }
+        return new ItemLote<>(estado.value(), null, resultado.error().getMessage());
+    }
+
+    /**
+     * @throws IllegalArgumentException si el lote está vacío, es demasiado grande o tiene elementos nulos
+     */
+    static <E> List<E> validarLote(List<E> lote) {
+        if (lote == null || lote.isEmpty() || lote.size() > MAXIMO_POR_LOTE) {
+            throw new IllegalArgumentException("El lote debe tener entre 1 y " + MAXIMO_POR_LOTE + " elementos");
+        }
+        if (lote.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("El lote no puede tener elementos nulos");
+        }
+        return lote;
+    }
+}
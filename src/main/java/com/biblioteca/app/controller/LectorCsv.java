@@ -0,0 +1,184 @@
+package com.biblioteca.app.controller;
+
+import com.biblioteca.app.model.Libro;
+import com.biblioteca.app.service.FilaImportacion;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+
+/**
+ * Lee libros de un CSV (RFC 4180) a medida que llega: la primera fila es el
+ * encabezado y debe nombrar las columnas isbn, titulo y autor, en cualquier
+ * orden; las demás columnas se ignoran. Los campos entre comillas pueden
+ * contener comas, saltos de línea y comillas duplicadas. Las líneas vacías se
+ * saltean.
+ */
+class LectorCsv implements Iterator<FilaImportacion> {
+    private static final String[] COLUMNAS = {"isbn", "titulo", "autor"};
+
+    private final Reader entrada;
+    private final char[] buffer = new char[16 * 1024];
+    private int posicion;
+    private int limite;
+    private long lineas;
+    private final List<String> campos = new ArrayList<>();
+    private final StringBuilder campo = new StringBuilder();
+    private final int[] indices = new int[COLUMNAS.length];
+    private int columnasRequeridas;
+    private FilaImportacion siguiente;
+
+    /**
+     * Lee el encabezado antes de devolver el control.
+     *
+     * @throws IllegalArgumentException si el encabezado falta o no tiene las columnas requeridas
+     */
+    LectorCsv(InputStream entrada) {
+        this.entrada = new InputStreamReader(entrada, StandardCharsets.UTF_8);
+        if (leerRegistro() == null) {
+            throw new IllegalArgumentException("El CSV no tiene encabezado");
+        }
+        List<String> encabezado = new ArrayList<>(campos.size());
+        for (String nombre : campos) {
+            encabezado.add(normalizar(nombre));
+        }
+        for (int i = 0; i < COLUMNAS.length; i++) {
+            indices[i] = encabezado.indexOf(COLUMNAS[i]);
+            if (indices[i] < 0) {
+                throw new IllegalArgumentException("Falta la columna " + COLUMNAS[i] + " en el encabezado");
+            }
+            columnasRequeridas = Math.max(columnasRequeridas, indices[i] + 1);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (siguiente == null) {
+            long linea = lineas + 1;
+            String error = leerRegistro();
+            if (error == null) {
+                return false;
+            }
+            if (campos.size() == 1 && campos.get(0).isEmpty() && error.isEmpty()) {
+                continue;
+            }
+            if (!error.isEmpty()) {
+                siguiente = FilaImportacion.invalida(linea, error);
+            } else if (campos.size() < columnasRequeridas) {
+                siguiente = FilaImportacion.invalida(linea,
+                        "Se esperaban " + columnasRequeridas + " columnas y hay " + campos.size());
+            } else {
+                siguiente = FilaImportacion.valida(linea,
+                        new Libro(campos.get(indices[0]), campos.get(indices[1]), campos.get(indices[2])));
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public FilaImportacion next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        FilaImportacion fila = siguiente;
+        siguiente = null;
+        return fila;
+    }
+
+    /**
+     * Deja en {@code campos} el próximo registro.
+     *
+     * @return null al final de la entrada, "" si el registro se leyó bien o el
+     *         motivo por el que está mal formado
+     */
+    private String leerRegistro() {
+        campos.clear();
+        campo.setLength(0);
+        int c = leer();
+        if (c == -1) {
+            return null;
+        }
+        boolean entreComillas = false;
+        while (true) {
+            if (entreComillas) {
+                if (c == -1) {
+                    campos.add(campo.toString());
+                    return "Comillas sin cerrar";
+                }
+                if (c != '"') {
+                    campo.append((char) c);
+                } else if (mirar() == '"') {
+                    posicion++;
+                    campo.append('"');
+                } else {
+                    entreComillas = false;
+                }
+            } else if (c == '"' && campo.isEmpty()) {
+                entreComillas = true;
+            } else if (c == ',') {
+                campos.add(campo.toString());
+                campo.setLength(0);
+            } else if (c == '\n' || c == '\r' || c == -1) {
+                if (c == '\r' && mirar() == '\n') {
+                    leer();
+                }
+                campos.add(campo.toString());
+                return "";
+            } else {
+                campo.append((char) c);
+            }
+            c = leer();
+        }
+    }
+
+    private int leer() {
+        if (posicion == limite && !llenar()) {
+            return -1;
+        }
+        char c = buffer[posicion++];
+        if (c == '\n') {
+            lineas++;
+        }
+        return c;
+    }
+
+    private int mirar() {
+        if (posicion == limite && !llenar()) {
+            return -1;
+        }
+        return buffer[posicion];
+    }
+
+    private boolean llenar() {
+        try {
+            int leidos = entrada.read(buffer);
+            if (leidos <= 0) {
+                return false;
+            }
+            posicion = 0;
+            limite = leidos;
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Sin marca de orden de bytes, espacios, mayúsculas ni tildes: "Título" es titulo.
+     */
+    private static String normalizar(String nombre) {
+        String sinMarca = nombre.startsWith("\uFEFF") ? nombre.substring(1) : nombre;
+        return Normalizer.normalize(sinMarca.trim(), Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,87 @@
+package com.biblioteca.app.controller;
+
+import com.biblioteca.app.model.Libro;
+import com.biblioteca.app.service.FilaImportacion;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Lee libros de JSON delimitado por líneas a medida que llega: un objeto con
+ * isbn, titulo y autor por línea; los demás campos se ignoran. Cada línea se
+ * interpreta por separado, así que una línea mal formada se reporta sin
+ * cortar la lectura. Las líneas vacías se saltean.
+ */
+class LectorNdjson implements Iterator<FilaImportacion> {
+    private final BufferedReader entrada;
+    private final ObjectReader lector;
+    private long lineas;
+    private FilaImportacion siguiente;
+    private boolean terminado;
+
+    LectorNdjson(InputStream entrada, ObjectMapper objectMapper) {
+        this.entrada = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8), 16 * 1024);
+        this.lector = objectMapper.readerFor(EntradaLibro.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (siguiente == null && !terminado) {
+            String linea = leerLinea();
+            if (linea == null) {
+                terminado = true;
+            } else if (!linea.isBlank()) {
+                siguiente = interpretar(linea);
+            }
+        }
+        return siguiente != null;
+    }
+
+    @Override
+    public FilaImportacion next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        FilaImportacion fila = siguiente;
+        siguiente = null;
+        return fila;
+    }
+
+    private FilaImportacion interpretar(String linea) {
+        try {
+            EntradaLibro entrada = lector.readValue(linea);
+            if (entrada == null) {
+                return FilaImportacion.invalida(lineas, "Se esperaba un objeto");
+            }
+            return FilaImportacion.valida(lineas, new Libro(entrada.isbn(), entrada.titulo(), entrada.autor()));
+        } catch (JsonProcessingException e) {
+            return FilaImportacion.invalida(lineas, "JSON inválido: " + e.getOriginalMessage());
+        }
+    }
+
+    private String leerLinea() {
+        try {
+            String linea = entrada.readLine();
+            if (linea != null) {
+                lineas++;
+            }
+            return linea;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    record EntradaLibro(String isbn, String titulo, String autor) {
+    }
+}
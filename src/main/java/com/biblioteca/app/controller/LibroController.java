@@ -1,5 +1,6 @@
 package com.biblioteca.app.controller;
 
+import com.biblioteca.app.model.EstadoLibro;
 import com.biblioteca.app.model.Libro;
 import com.biblioteca.app.service.LibroService;
 import org.springframework.http.HttpStatus;
@@ -23,15 +24,50 @@ public class LibroController {
     }
 
     /**
-     * Obtiene todos los libros del sistema.
+     * Obtiene los libros del sistema ordenados por id, de a páginas. Conserva
+     * la respuesta de antes de paginar (una lista) y devuelve el cursor de la
+     * página siguiente en la cabecera {@value Pagina#CABECERA_SIGUIENTE}.
      * 
-     * @return Lista de todos los libros
-     * @HTTP GET /api/libros
+     * @param cursor Valor de la cabecera de la respuesta anterior (vacío para la primera)
+     * @param limite Cantidad máxima de libros (entre 1 y 1000)
+     * @return Lista de libros de la página
+     * @HTTP GET /api/libros?limite=100&cursor=...
      * @response 200 - Lista de libros encontrada exitosamente
+     * @response 400 - Cursor o límite inválidos
      */
     @GetMapping
-    public List<Libro> obtenerTodos() {
-        return libroService.obtenerTodos();
+    public ResponseEntity<List<Libro>> obtenerTodos(@RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + Pagina.LIMITE_POR_DEFECTO) int limite) {
+        try {
+            Pagina.validarLimite(limite);
+            List<Libro> libros = libroService.obtenerPagina(Pagina.decodificarCursor(cursor), limite);
+            return Pagina.de(libros, limite, Libro::getId).conCursorEnCabecera(libros);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Obtiene una página de libros ordenados por id. La memoria usada depende
+     * del tamaño de la página y no de la cantidad total de libros.
+     * 
+     * @param cursor Valor "siguiente" de la página anterior (vacío para la primera)
+     * @param limite Cantidad máxima de libros (entre 1 y 1000)
+     * @return La página y el cursor de la siguiente, o null si no hay más
+     * @HTTP GET /api/libros/pagina?limite=100&cursor=...
+     * @response 200 - Página obtenida exitosamente
+     * @response 400 - Cursor o límite inválidos
+     */
+    @GetMapping("/pagina")
+    public ResponseEntity<Pagina<Libro>> obtenerPagina(@RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + Pagina.LIMITE_POR_DEFECTO) int limite) {
+        try {
+            Pagina.validarLimite(limite);
+            List<Libro> libros = libroService.obtenerPagina(Pagina.decodificarCursor(cursor), limite);
+            return ResponseEntity.ok(Pagina.de(libros, limite, Libro::getId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     /**
@@ -70,6 +106,48 @@ public class LibroController {
         }
     }
 
+    /**
+     * Busca libros por palabras del título o del autor. No distingue
+     * mayúsculas ni tildes y devuelve primero los más relevantes.
+     *
+     * @param q      Texto a buscar
+     * @param limite Cantidad máxima de libros (entre 1 y 1000)
+     * @return Lista de libros encontrados, ordenada por relevancia
+     * @HTTP GET /api/libros/buscar?q=cien años&limite=20
+     * @response 200 - Búsqueda realizada exitosamente
+     * @response 400 - Consulta vacía o límite inválido
+     */
+    @GetMapping("/buscar")
+    public ResponseEntity<List<Libro>> buscar(@RequestParam String q,
+            @RequestParam(defaultValue = "20") int limite) {
+        try {
+            return ResponseEntity.ok(libroService.buscar(q, Pagina.validarLimite(limite)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Sugiere títulos y autores que empiezan con lo escrito hasta ahora, para
+     * completar el cuadro de búsqueda.
+     *
+     * @param prefijo Texto escrito por el usuario
+     * @param limite  Cantidad máxima de sugerencias (entre 1 y 1000)
+     * @return Lista de títulos y autores, primero los que comparten más libros
+     * @HTTP GET /api/libros/autocompletar?prefijo=cien a&limite=10
+     * @response 200 - Sugerencias obtenidas exitosamente
+     * @response 400 - Límite inválido
+     */
+    @GetMapping("/autocompletar")
+    public ResponseEntity<List<String>> autocompletar(@RequestParam String prefijo,
+            @RequestParam(defaultValue = "10") int limite) {
+        try {
+            return ResponseEntity.ok(libroService.autocompletar(prefijo, Pagina.validarLimite(limite)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     /**
      * Obtiene todos los libros que están disponibles para préstamo.
      * 
@@ -82,6 +160,34 @@ public class LibroController {
         return libroService.buscarDisponibles();
     }
 
+    /**
+     * Obtiene los libros en un estado, ordenados por ID.
+     * 
+     * @param estado DISPONIBLE, PRESTADO o EN_REPARACION
+     * @return Lista de libros en ese estado
+     * @HTTP GET /api/libros/estado/{estado}
+     * @response 200 - Lista de libros encontrada exitosamente
+     * @response 400 - Estado inválido
+     */
+    @GetMapping("/estado/{estado}")
+    public List<Libro> obtenerPorEstado(@PathVariable EstadoLibro estado) {
+        return libroService.buscarPorEstado(estado);
+    }
+
+    /**
+     * Cuenta los libros en un estado sin recorrerlos.
+     * 
+     * @param estado DISPONIBLE, PRESTADO o EN_REPARACION
+     * @return Cantidad de libros en ese estado
+     * @HTTP GET /api/libros/estado/{estado}/count
+     * @response 200 - Cantidad obtenida exitosamente
+     * @response 400 - Estado inválido
+     */
+    @GetMapping("/estado/{estado}/count")
+    public int contarPorEstado(@PathVariable EstadoLibro estado) {
+        return libroService.contarPorEstado(estado);
+    }
+
     /**
      * Crea un nuevo libro en el sistema.
      * 
@@ -146,9 +252,8 @@ public class LibroController {
      * @return Respuesta sin contenido
      * @HTTP PATCH /api/libros/{id}/reparacion
      * @response 200 - Libro enviado a reparación exitosamente
-     * @response 400 - El libro no puede ser enviado a reparación (ej: está
-     *           prestado)
      * @response 404 - Libro no encontrado
+     * @response 409 - El libro está prestado
      */
     @PatchMapping("/{id}/reparacion")
     public ResponseEntity<Void> enviarAReparacion(@PathVariable Long id) {
@@ -0,0 +1,79 @@
+package com.biblioteca.app.controller;
+
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Página de resultados ordenada por id.
+ *
+ * @param elementos elementos de la página
+ * @param siguiente cursor opaco para pedir la página siguiente, o null si no hay más
+ */
+public record Pagina<T>(List<T> elementos, String siguiente) {
+    public static final int LIMITE_POR_DEFECTO = 100;
+    public static final int LIMITE_MAXIMO = 1000;
+    /**
+     * Cabecera con el cursor siguiente en los listados que conservan el
+     * cuerpo de antes de paginar.
+     */
+    public static final String CABECERA_SIGUIENTE = "X-Cursor-Siguiente";
+
+    private static final String PREFIJO_CURSOR = "id:";
+
+    /**
+     * Arma la página. Si vino completa hay un cursor siguiente, aunque la
+     * página que devuelva pueda resultar vacía.
+     */
+    static <T> Pagina<T> de(List<T> elementos, int limite, Function<T, Long> id) {
+        String siguiente = elementos.size() < limite
+                ? null
+                : codificarCursor(id.apply(elementos.get(elementos.size() - 1)));
+        return new Pagina<>(elementos, siguiente);
+    }
+
+    /**
+     * Respuesta con {@code cuerpo} tal cual y el cursor siguiente, si hay, en
+     * la cabecera {@value #CABECERA_SIGUIENTE}.
+     */
+    <B> ResponseEntity<B> conCursorEnCabecera(B cuerpo) {
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok();
+        if (siguiente != null) {
+            respuesta.header(CABECERA_SIGUIENTE, siguiente);
+        }
+        return respuesta.body(cuerpo);
+    }
+
+    /**
+     * @throws IllegalArgumentException si el límite está fuera de rango
+     */
+    static int validarLimite(int limite) {
+        if (limite < 1 || limite > LIMITE_MAXIMO) {
+            throw new IllegalArgumentException("El límite debe estar entre 1 y " + LIMITE_MAXIMO);
+        }
+        return limite;
+    }
+
+    static String codificarCursor(Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIJO_CURSOR + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return último id entregado, o null para la primera página
+     * @throws IllegalArgumentException si el cursor no fue generado por el servidor
+     */
+    static Long decodificarCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        String texto = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        if (!texto.startsWith(PREFIJO_CURSOR)) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+        return Long.valueOf(texto.substring(PREFIJO_CURSOR.length()));
+    }
+}
@@ -0,0 +1,26 @@
+package com.biblioteca.app.controller;
+
+import com.biblioteca.app.model.Libro;
+import com.biblioteca.app.model.Prestamo;
+import com.biblioteca.app.model.Usuario;
+import com.biblioteca.app.service.PrestamosResueltos;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link Pagina} de préstamos con los libros y los usuarios que referencian,
+ * cada uno una sola vez.
+ *
+ * @param elementos préstamos de la página
+ * @param libros    libros referenciados, por id
+ * @param usuarios  usuarios referenciados, por id
+ * @param siguiente cursor opaco para pedir la página siguiente, o null si no hay más
+ */
+public record PaginaPrestamos(List<Prestamo> elementos, Map<Long, Libro> libros, Map<Long, Usuario> usuarios,
+        String siguiente) {
+
+    static PaginaPrestamos de(Pagina<Prestamo> pagina, PrestamosResueltos resueltos) {
+        return new PaginaPrestamos(pagina.elementos(), resueltos.libros(), resueltos.usuarios(), pagina.siguiente());
+    }
+}
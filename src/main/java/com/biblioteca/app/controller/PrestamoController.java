@@ -2,6 +2,8 @@ package com.biblioteca.app.controller;
 
 import com.biblioteca.app.model.Prestamo;
 import com.biblioteca.app.service.PrestamoService;
+import com.biblioteca.app.service.PrestamosResueltos;
+import com.biblioteca.app.service.SolicitudPrestamo;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -11,6 +13,9 @@ import java.util.List;
 /**
  * Controlador REST que maneja las operaciones relacionadas con los préstamos de
  * libros.
+ * Un préstamo trae los ids del libro y del usuario; los endpoints que listan
+ * préstamos devuelven además cada libro y cada usuario referenciado una sola
+ * vez (ver {@link PrestamosResueltos}).
  * Todos los endpoints comienzan con /api/prestamos
  */
 @RestController
@@ -23,15 +28,53 @@ public class PrestamoController {
     }
 
     /**
-     * Obtiene todos los préstamos del sistema.
+     * Obtiene los préstamos del sistema ordenados por id, de a páginas.
+     * Conserva la respuesta de antes de paginar y devuelve el cursor de la
+     * página siguiente en la cabecera {@value Pagina#CABECERA_SIGUIENTE}.
      * 
-     * @return Lista de todos los préstamos
-     * @HTTP GET /api/prestamos
+     * @param cursor Valor de la cabecera de la respuesta anterior (vacío para la primera)
+     * @param limite Cantidad máxima de préstamos (entre 1 y 1000)
+     * @return Los préstamos de la página con sus libros y usuarios
+     * @HTTP GET /api/prestamos?limite=100&cursor=...
      * @response 200 - Lista de préstamos encontrada exitosamente
+     * @response 400 - Cursor o límite inválidos
      */
     @GetMapping
-    public List<Prestamo> obtenerTodos() {
-        return prestamoService.obtenerTodos();
+    public ResponseEntity<PrestamosResueltos> obtenerTodos(@RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + Pagina.LIMITE_POR_DEFECTO) int limite) {
+        try {
+            Pagina.validarLimite(limite);
+            List<Prestamo> prestamos = prestamoService.obtenerPagina(Pagina.decodificarCursor(cursor), limite);
+            return Pagina.de(prestamos, limite, Prestamo::getId)
+                    .conCursorEnCabecera(prestamoService.resolver(prestamos));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Obtiene una página de préstamos ordenados por id. La memoria usada depende
+     * del tamaño de la página y no de la cantidad total de préstamos.
+     * 
+     * @param cursor Valor "siguiente" de la página anterior (vacío para la primera)
+     * @param limite Cantidad máxima de préstamos (entre 1 y 1000)
+     * @return La página con sus libros y usuarios y el cursor de la siguiente,
+     *         o null si no hay más
+     * @HTTP GET /api/prestamos/pagina?limite=100&cursor=...
+     * @response 200 - Página obtenida exitosamente
+     * @response 400 - Cursor o límite inválidos
+     */
+    @GetMapping("/pagina")
+    public ResponseEntity<PaginaPrestamos> obtenerPagina(@RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + Pagina.LIMITE_POR_DEFECTO) int limite) {
+        try {
+            Pagina.validarLimite(limite);
+            List<Prestamo> prestamos = prestamoService.obtenerPagina(Pagina.decodificarCursor(cursor), limite);
+            return ResponseEntity.ok(PaginaPrestamos.de(Pagina.de(prestamos, limite, Prestamo::getId),
+                    prestamoService.resolver(prestamos)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     /**
@@ -55,40 +98,40 @@ public class PrestamoController {
     /**
      * Obtiene todos los préstamos activos.
      * 
-     * @return Lista de préstamos activos
+     * @return Lista de préstamos activos con sus libros y usuarios
      * @HTTP GET /api/prestamos/activos
      * @response 200 - Lista de préstamos activos encontrada exitosamente
      */
     @GetMapping("/activos")
-    public List<Prestamo> obtenerPrestamosActivos() {
-        return prestamoService.obtenerPrestamosActivos();
+    public PrestamosResueltos obtenerPrestamosActivos() {
+        return prestamoService.resolver(prestamoService.obtenerPrestamosActivos());
     }
 
     /**
      * Obtiene todos los préstamos vencidos.
      * 
-     * @return Lista de préstamos vencidos
+     * @return Lista de préstamos vencidos con sus libros y usuarios
      * @HTTP GET /api/prestamos/vencidos
      * @response 200 - Lista de préstamos vencidos encontrada exitosamente
      */
     @GetMapping("/vencidos")
-    public List<Prestamo> obtenerPrestamosVencidos() {
-        return prestamoService.obtenerPrestamosVencidos();
+    public PrestamosResueltos obtenerPrestamosVencidos() {
+        return prestamoService.resolver(prestamoService.obtenerPrestamosVencidos());
     }
 
     /**
      * Obtiene todos los préstamos de un usuario específico.
      * 
      * @param usuarioId ID del usuario
-     * @return Lista de préstamos del usuario
+     * @return Lista de préstamos del usuario con sus libros y el usuario
      * @HTTP GET /api/prestamos/usuario/{usuarioId}
      * @response 200 - Lista de préstamos del usuario encontrada exitosamente
      * @response 404 - Usuario no encontrado
      */
     @GetMapping("/usuario/{usuarioId}")
-    public ResponseEntity<List<Prestamo>> obtenerPrestamosPorUsuario(@PathVariable Long usuarioId) {
+    public ResponseEntity<PrestamosResueltos> obtenerPrestamosPorUsuario(@PathVariable Long usuarioId) {
         try {
-            return ResponseEntity.ok(prestamoService.obtenerPrestamosPorUsuario(usuarioId));
+            return ResponseEntity.ok(prestamoService.resolver(prestamoService.obtenerPrestamosPorUsuario(usuarioId)));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.notFound().build();
         }
@@ -102,9 +145,9 @@ public class PrestamoController {
      * @return El préstamo creado
      * @HTTP POST /api/prestamos
      * @response 201 - Préstamo creado exitosamente
-     * @response 400 - No se puede realizar el préstamo (libro no disponible o
-     *           usuario no elegible)
+     * @response 400 - No se puede realizar el préstamo (usuario no elegible)
      * @response 404 - Libro o usuario no encontrado
+     * @response 409 - El libro no está disponible
      */
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -141,6 +184,52 @@ public class PrestamoController {
         }
     }
 
+    /**
+     * Realiza varios préstamos en un solo pedido, por ejemplo los de un
+     * mostrador de autopréstamo. Cada elemento se resuelve por separado.
+     *
+     * @param solicitudes Pares libroId/usuarioId, hasta {@value ItemLote#MAXIMO_POR_LOTE}
+     * @return Un resultado por solicitud, en el mismo orden, con el código que
+     *         habría devuelto {@code POST /api/prestamos} (201, 400, 404 o 409)
+     * @HTTP POST /api/prestamos/lote
+     * @response 200 - Lote procesado; ver el estado de cada elemento
+     * @response 400 - Lote vacío, demasiado grande o con elementos nulos
+     */
+    @PostMapping("/lote")
+    public ResponseEntity<List<ItemLote<Prestamo>>> realizarPrestamos(
+            @RequestBody List<SolicitudPrestamo> solicitudes) {
+        try {
+            ItemLote.validarLote(solicitudes);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(prestamoService.realizarPrestamos(solicitudes).stream()
+                .map(resultado -> ItemLote.de(resultado, HttpStatus.CREATED))
+                .toList());
+    }
+
+    /**
+     * Registra la devolución de varios préstamos en un solo pedido.
+     *
+     * @param prestamoIds IDs de los préstamos, hasta {@value ItemLote#MAXIMO_POR_LOTE}
+     * @return Un resultado por id, en el mismo orden, con el préstamo finalizado
+     *         o el código que habría devuelto {@code PATCH /api/prestamos/{id}/devolver}
+     * @HTTP PATCH /api/prestamos/lote/devolver
+     * @response 200 - Lote procesado; ver el estado de cada elemento
+     * @response 400 - Lote vacío, demasiado grande o con elementos nulos
+     */
+    @PatchMapping("/lote/devolver")
+    public ResponseEntity<List<ItemLote<Prestamo>>> devolverLibros(@RequestBody List<Long> prestamoIds) {
+        try {
+            ItemLote.validarLote(prestamoIds);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(prestamoService.devolverLibros(prestamoIds).stream()
+                .map(resultado -> ItemLote.de(resultado, HttpStatus.OK))
+                .toList());
+    }
+
     /**
      * Elimina un préstamo del sistema.
      * 
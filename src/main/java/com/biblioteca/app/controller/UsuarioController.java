@@ -23,15 +23,50 @@ public class UsuarioController {
     }
 
     /**
-     * Obtiene todos los usuarios del sistema.
+     * Obtiene los usuarios del sistema ordenados por id, de a páginas. Conserva
+     * la respuesta de antes de paginar (una lista) y devuelve el cursor de la
+     * página siguiente en la cabecera {@value Pagina#CABECERA_SIGUIENTE}.
      * 
-     * @return Lista de todos los usuarios
-     * @HTTP GET /api/usuarios
+     * @param cursor Valor de la cabecera de la respuesta anterior (vacío para la primera)
+     * @param limite Cantidad máxima de usuarios (entre 1 y 1000)
+     * @return Lista de usuarios de la página
+     * @HTTP GET /api/usuarios?limite=100&cursor=...
      * @response 200 - Lista de usuarios encontrada exitosamente
+     * @response 400 - Cursor o límite inválidos
      */
     @GetMapping
-    public List<Usuario> obtenerTodos() {
-        return usuarioService.obtenerTodos();
+    public ResponseEntity<List<Usuario>> obtenerTodos(@RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + Pagina.LIMITE_POR_DEFECTO) int limite) {
+        try {
+            Pagina.validarLimite(limite);
+            List<Usuario> usuarios = usuarioService.obtenerPagina(Pagina.decodificarCursor(cursor), limite);
+            return Pagina.de(usuarios, limite, Usuario::getId).conCursorEnCabecera(usuarios);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Obtiene una página de usuarios ordenados por id. La memoria usada depende
+     * del tamaño de la página y no de la cantidad total de usuarios.
+     * 
+     * @param cursor Valor "siguiente" de la página anterior (vacío para la primera)
+     * @param limite Cantidad máxima de usuarios (entre 1 y 1000)
+     * @return La página y el cursor de la siguiente, o null si no hay más
+     * @HTTP GET /api/usuarios/pagina?limite=100&cursor=...
+     * @response 200 - Página obtenida exitosamente
+     * @response 400 - Cursor o límite inválidos
+     */
+    @GetMapping("/pagina")
+    public ResponseEntity<Pagina<Usuario>> obtenerPagina(@RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + Pagina.LIMITE_POR_DEFECTO) int limite) {
+        try {
+            Pagina.validarLimite(limite);
+            List<Usuario> usuarios = usuarioService.obtenerPagina(Pagina.decodificarCursor(cursor), limite);
+            return ResponseEntity.ok(Pagina.de(usuarios, limite, Usuario::getId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     /**
@@ -0,0 +1,292 @@
+package com.biblioteca.app.event;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bus de eventos en proceso sobre un buffer circular acotado, sin locks.
+ * <p>
+ * Quien publica reclama el número de secuencia siguiente con un
+ * compare-and-set, escribe el evento en la casilla {@code secuencia % capacidad}
+ * y la marca como publicada guardando esa secuencia. Cada suscriptor tiene un
+ * hilo que avanza su propia secuencia leyendo de corrido las casillas ya
+ * publicadas, hasta un lote, y las entrega juntas. Una casilla se puede volver
+ * a usar cuando todos los suscriptores la pasaron; si no, el buffer está lleno
+ * y manda la {@link PoliticaSaturacion}. El último suscriptor en pasar una
+ * casilla la vacía, así que el buffer no retiene eventos ya entregados.
+ * <p>
+ * Un lote que falla se cuenta y el suscriptor sigue con el próximo. Ante un
+ * error fatal de la JVM ({@link VirtualMachineError}) el suscriptor da el
+ * lote por procesado, su hilo termina con ese error y deja de contar para
+ * liberar casillas, así que no frena a quien publica.
+ * <p>
+ * Publicar no despierta a nadie: los suscriptores sin trabajo duermen a lo
+ * sumo {@link OpcionesBus#esperaInactiva()} y vuelven a mirar, así que un
+ * préstamo paga sólo el compare-and-set y dos escrituras.
+ * <p>
+ * Al cerrar, cada suscriptor termina de procesar lo publicado hasta ese
+ * momento; lo que se publique después se descarta.
+ */
+public final class BusEventos implements PublicadorEventos, Closeable {
+    private static final Logger log = LoggerFactory.getLogger(BusEventos.class);
+    private static final long SIN_SECUENCIA = -1;
+    private static final int VUELTAS_ANTES_DE_DORMIR = 100;
+
+    private final OpcionesBus opciones;
+    private final int mascara;
+    private final EventoDominio[] eventos;
+    private final AtomicLongArray publicadas;
+    // Suscriptores que todavía no pasaron el evento de cada casilla
+    private final AtomicIntegerArray pendientes;
+    private final AtomicInteger vivos;
+    private final AtomicLong reclamada = new AtomicLong(SIN_SECUENCIA);
+    private final LongAdder descartados = new LongAdder();
+    private final List<Consumidor> consumidores;
+
+    // Mínimo de las secuencias procesadas visto por última vez: puede estar atrasado, nunca adelantado
+    private volatile long minimoProcesado = SIN_SECUENCIA;
+    private volatile boolean cerrado;
+
+    private BusEventos(List<SuscriptorEventos> suscriptores, OpcionesBus opciones) {
+        this.opciones = opciones;
+        this.mascara = opciones.capacidad() - 1;
+        this.eventos = new EventoDominio[opciones.capacidad()];
+        this.publicadas = new AtomicLongArray(opciones.capacidad());
+        for (int i = 0; i < opciones.capacidad(); i++) {
+            publicadas.set(i, SIN_SECUENCIA);
+        }
+        this.pendientes = new AtomicIntegerArray(opciones.capacidad());
+        this.consumidores = suscriptores.stream().map(Consumidor::new).toList();
+        this.vivos = new AtomicInteger(consumidores.size());
+    }
+
+    /**
+     * Crea el bus y arranca un hilo por suscriptor.
+     *
+     * @throws IllegalArgumentException si dos suscriptores tienen el mismo nombre
+     */
+    public static BusEventos iniciar(List<SuscriptorEventos> suscriptores, OpcionesBus opciones) {
+        if (suscriptores.stream().map(SuscriptorEventos::nombre).distinct().count() != suscriptores.size()) {
+            throw new IllegalArgumentException("Hay suscriptores de eventos con el mismo nombre");
+        }
+        BusEventos bus = new BusEventos(suscriptores, opciones);
+        for (Consumidor consumidor : bus.consumidores) {
+            consumidor.hilo.start();
+        }
+        return bus;
+    }
+
+    @Override
+    public boolean publicar(EventoDominio evento) {
+        long secuencia;
+        long actual;
+        do {
+            actual = reclamada.get();
+            secuencia = actual + 1;
+            while (!hayLugar(secuencia)) {
+                if (cerrado || opciones.politica() == PoliticaSaturacion.DESCARTAR) {
+                    descartados.increment();
+                    return false;
+                }
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+                actual = reclamada.get();
+                secuencia = actual + 1;
+            }
+            if (cerrado) {
+                descartados.increment();
+                return false;
+            }
+        } while (!reclamada.compareAndSet(actual, secuencia));
+        int casilla = (int) (secuencia & mascara);
+        int suscriptores = vivos.get();
+        if (suscriptores > 0) {
+            eventos[casilla] = evento;
+            pendientes.setPlain(casilla, suscriptores);
+        }
+        // La escritura del evento queda visible para quien vea la secuencia
+        publicadas.setRelease(casilla, secuencia);
+        return true;
+    }
+
+    public long getPublicados() {
+        return reclamada.get() + 1;
+    }
+
+    public long getDescartados() {
+        return descartados.sum();
+    }
+
+    /**
+     * Eventos publicados que el suscriptor todavía no terminó de procesar.
+     */
+    public long getRetraso(String suscriptor) {
+        return reclamada.get() - consumidor(suscriptor).procesada;
+    }
+
+    public long getProcesados(String suscriptor) {
+        return consumidor(suscriptor).procesada + 1;
+    }
+
+    public long getLotesFallidos(String suscriptor) {
+        return consumidor(suscriptor).fallidos;
+    }
+
+    public List<String> getSuscriptores() {
+        return consumidores.stream().map(consumidor -> consumidor.suscriptor.nombre()).toList();
+    }
+
+    /**
+     * Deja de aceptar eventos y espera a que los suscriptores procesen los ya
+     * publicados.
+     */
+    @Override
+    public void close() {
+        cerrado = true;
+        for (Consumidor consumidor : consumidores) {
+            LockSupport.unpark(consumidor.hilo);
+        }
+        for (Consumidor consumidor : consumidores) {
+            try {
+                consumidor.hilo.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private boolean hayLugar(long secuencia) {
+        long necesario = secuencia - opciones.capacidad();
+        if (necesario <= minimoProcesado) {
+            return true;
+        }
+        long minimo = Long.MAX_VALUE;
+        for (Consumidor consumidor : consumidores) {
+            if (!consumidor.detenido) {
+                minimo = Math.min(minimo, consumidor.procesada);
+            }
+        }
+        if (minimo == Long.MAX_VALUE) {
+            // Sin suscriptores vivos no hay quien lea las casillas
+            return true;
+        }
+        if (minimo > minimoProcesado) {
+            minimoProcesado = minimo;
+        }
+        return necesario <= minimo;
+    }
+
+    private Consumidor consumidor(String suscriptor) {
+        for (Consumidor consumidor : consumidores) {
+            if (consumidor.suscriptor.nombre().equals(suscriptor)) {
+                return consumidor;
+            }
+        }
+        throw new IllegalArgumentException("No existe el suscriptor de eventos: " + suscriptor);
+    }
+
+    private final class Consumidor {
+        private final SuscriptorEventos suscriptor;
+        private final Thread hilo;
+        private final List<EventoDominio> lote;
+
+        // Sólo las escribe el hilo del consumidor
+        private volatile long procesada = SIN_SECUENCIA;
+        private volatile long fallidos;
+        private volatile boolean detenido;
+
+        Consumidor(SuscriptorEventos suscriptor) {
+            this.suscriptor = suscriptor;
+            this.lote = new ArrayList<>(opciones.lote());
+            this.hilo = Thread.ofPlatform().name("eventos-" + suscriptor.nombre()).daemon()
+                    .unstarted(this::consumirEnBucle);
+        }
+
+        private void consumirEnBucle() {
+            try {
+                consumir();
+            } finally {
+                detenido = true;
+                vivos.decrementAndGet();
+            }
+        }
+
+        private void consumir() {
+            int vueltasSinTrabajo = 0;
+            while (true) {
+                // Se lee antes de juntar el lote: si ya estaba cerrado, lo juntado incluye todo lo publicado
+                boolean terminar = cerrado;
+                long siguiente = procesada + 1;
+                while (lote.size() < opciones.lote()) {
+                    long secuencia = siguiente + lote.size();
+                    int casilla = (int) (secuencia & mascara);
+                    if (publicadas.getAcquire(casilla) != secuencia) {
+                        break;
+                    }
+                    lote.add(eventos[casilla]);
+                }
+                if (!lote.isEmpty()) {
+                    entregar(siguiente, siguiente + lote.size() - 1);
+                    vueltasSinTrabajo = 0;
+                } else if (terminar && procesada >= reclamada.get()) {
+                    return;
+                } else if (++vueltasSinTrabajo < VUELTAS_ANTES_DE_DORMIR) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(opciones.esperaInactiva().toNanos());
+                }
+            }
+        }
+
+        /**
+         * @throws VirtualMachineError si el suscriptor lo lanzó, después de
+         *                             dar el lote por procesado
+         */
+        private void entregar(long primera, long ultima) {
+            VirtualMachineError fatal = null;
+            try {
+                suscriptor.procesar(lote);
+            } catch (VirtualMachineError e) {
+                fallidos++;
+                fatal = e;
+                log.error("El suscriptor de eventos {} se detiene por un error fatal con un lote de {} eventos",
+                        suscriptor.nombre(), lote.size(), e);
+            } catch (Throwable e) {
+                fallidos++;
+                log.warn("El suscriptor de eventos {} falló con un lote de {} eventos",
+                        suscriptor.nombre(), lote.size(), e);
+            }
+            lote.clear();
+            soltar(primera, ultima);
+            procesada = ultima;
+            if (fatal != null) {
+                throw fatal;
+            }
+        }
+
+        /**
+         * Vacía las casillas que ningún otro suscriptor tiene pendientes. Va
+         * antes de avanzar {@code procesada}, así que quien publique en la
+         * casilla la encuentra ya vacía.
+         */
+        private void soltar(long primera, long ultima) {
+            for (long secuencia = primera; secuencia <= ultima; secuencia++) {
+                int casilla = (int) (secuencia & mascara);
+                if (pendientes.decrementAndGet(casilla) == 0) {
+                    eventos[casilla] = null;
+                }
+            }
+        }
+    }
+}
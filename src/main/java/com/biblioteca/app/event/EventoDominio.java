@@ -0,0 +1,11 @@
+package com.biblioteca.app.event;
+
+/**
+ * Cambio del dominio que los servicios publican en el {@link BusEventos} una
+ * vez confirmado. Los eventos llevan sólo ids y fechas: quien los consume
+ * busca lo que necesite.
+ */
+public sealed interface EventoDominio
+        permits PrestamoRealizadoEvent, LibroDevueltoEvent, UsuarioSuspendidoEvent, LibroEnReparacionEvent,
+        PrestamoVencidoEvent {
+}
@@ -0,0 +1,7 @@
+package com.biblioteca.app.event;
+
+import java.time.LocalDate;
+
+public record LibroDevueltoEvent(Long prestamoId, Long libroId, Long usuarioId, LocalDate fechaDevolucion)
+        implements EventoDominio {
+}
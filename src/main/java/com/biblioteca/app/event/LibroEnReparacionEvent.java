@@ -0,0 +1,4 @@
+package com.biblioteca.app.event;
+
+public record LibroEnReparacionEvent(Long libroId) implements EventoDominio {
+}
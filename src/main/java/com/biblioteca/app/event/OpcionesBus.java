@@ -0,0 +1,26 @@
+package com.biblioteca.app.event;
+
+import java.time.Duration;
+
+/**
+ * Parámetros del bus de eventos.
+ *
+ * @param capacidad      eventos que entran en el buffer; potencia de dos
+ * @param lote           máximo de eventos que recibe un suscriptor por llamada
+ * @param politica       qué hacer al publicar con el buffer lleno
+ * @param esperaInactiva demora máxima con la que un suscriptor sin trabajo ve un evento nuevo
+ */
+public record OpcionesBus(int capacidad, int lote, PoliticaSaturacion politica, Duration esperaInactiva) {
+
+    public OpcionesBus {
+        if (capacidad < 2 || Integer.bitCount(capacidad) != 1) {
+            throw new IllegalArgumentException("La capacidad del bus debe ser una potencia de dos");
+        }
+        if (lote < 1) {
+            throw new IllegalArgumentException("El lote del bus debe ser al menos 1");
+        }
+        if (esperaInactiva.isNegative() || esperaInactiva.isZero()) {
+            throw new IllegalArgumentException("La espera de los suscriptores debe ser positiva");
+        }
+    }
+}
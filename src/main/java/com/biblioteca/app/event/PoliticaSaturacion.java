@@ -0,0 +1,17 @@
+package com.biblioteca.app.event;
+
+/**
+ * Qué hace {@link BusEventos#publicar} cuando el suscriptor más atrasado
+ * todavía no liberó lugar en el buffer.
+ */
+public enum PoliticaSaturacion {
+    /**
+     * El evento se pierde y se cuenta como descartado; quien publica sigue de largo.
+     */
+    DESCARTAR,
+    /**
+     * Quien publica espera a que haya lugar: no se pierden eventos, pero un
+     * suscriptor lento frena a los servicios.
+     */
+    ESPERAR
+}
@@ -0,0 +1,7 @@
+package com.biblioteca.app.event;
+
+import java.time.LocalDate;
+
+public record PrestamoRealizadoEvent(Long prestamoId, Long libroId, Long usuarioId, LocalDate fechaPrestamo)
+        implements EventoDominio {
+}
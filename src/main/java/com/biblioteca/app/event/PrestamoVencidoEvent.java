@@ -0,0 +1,11 @@
+package com.biblioteca.app.event;
+
+import java.time.LocalDate;
+
+/**
+ * Se publica cuando un préstamo activo pasa a estar vencido. Normalmente una
+ * sola vez; tras un corte del proceso puede repetirse, nunca perderse.
+ */
+public record PrestamoVencidoEvent(Long prestamoId, Long libroId, Long usuarioId, LocalDate fechaVencimiento)
+        implements EventoDominio {
+}
@@ -0,0 +1,18 @@
+package com.biblioteca.app.event;
+
+/**
+ * Lo que ven los servicios del bus de eventos. Publicar nunca bloquea al
+ * llamador salvo que el bus esté configurado para esperar cuando se llena.
+ */
+public interface PublicadorEventos {
+
+    /**
+     * Para usar los servicios sin bus, como en las pruebas y los benchmarks.
+     */
+    PublicadorEventos NINGUNO = evento -> true;
+
+    /**
+     * @return false si el evento se descartó porque el bus estaba lleno o cerrado
+     */
+    boolean publicar(EventoDominio evento);
+}
@@ -0,0 +1,30 @@
+package com.biblioteca.app.event;
+
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+
+/**
+ * Suscriptor que reenvía cada evento a los {@code @EventListener} de la
+ * aplicación desde el hilo del bus, así que los listeners corren fuera del
+ * pedido que originó el evento.
+ */
+public class ReenvioEventosSpring implements SuscriptorEventos {
+    private final ApplicationEventPublisher publicador;
+
+    public ReenvioEventosSpring(ApplicationEventPublisher publicador) {
+        this.publicador = publicador;
+    }
+
+    @Override
+    public String nombre() {
+        return "spring";
+    }
+
+    @Override
+    public void procesar(List<EventoDominio> lote) {
+        for (EventoDominio evento : lote) {
+            publicador.publishEvent(evento);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.biblioteca.app.event;
+
+import java.util.List;
+
+/**
+ * Consumidor del {@link BusEventos}. Cada suscriptor tiene su propio hilo y
+ * su propia posición en el buffer, así que uno lento no demora a los demás.
+ */
+public interface SuscriptorEventos {
+
+    /**
+     * Identifica al suscriptor en el nombre del hilo y en las métricas.
+     */
+    String nombre();
+
+    /**
+     * Recibe los eventos en el orden en que se publicaron, de a lotes. La
+     * lista se reutiliza para el lote siguiente: no hay que guardarla. Si
+     * lanza una excepción, el lote se registra como fallido y no se reintenta.
+     */
+    void procesar(List<EventoDominio> lote);
+}
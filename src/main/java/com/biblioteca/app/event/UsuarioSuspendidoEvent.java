@@ -0,0 +1,4 @@
+package com.biblioteca.app.event;
+
+public record UsuarioSuspendidoEvent(Long usuarioId) implements EventoDominio {
+}
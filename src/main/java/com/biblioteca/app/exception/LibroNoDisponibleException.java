@@ -1,5 +1,13 @@
 package com.biblioteca.app.exception;
 
+/**
+ * Se lanza cuando el estado del libro no permite la operación: otro préstamo
+ * lo tomó primero o está prestado y no se puede enviar a reparación. No es
+ * una IllegalStateException para que los controladores no la conviertan en
+ * 400: la atiende {@link GlobalExceptionHandler} con 409. No captura la pila:
+ * perder un compare-and-set es un resultado esperado bajo contención, no un
+ * error que haya que depurar.
+ */
 public class LibroNoDisponibleException extends RuntimeException {
     public LibroNoDisponibleException(String mensaje) {
         super(mensaje);
@@ -8,4 +16,19 @@ public class LibroNoDisponibleException extends RuntimeException {
     public LibroNoDisponibleException(String mensaje, Throwable causa) {
         super(mensaje, causa);
     }
-}
\ No newline at end of file
+
+    public static LibroNoDisponibleException paraPrestamo() {
+        return new LibroNoDisponibleException(
+                "No se puede realizar el préstamo: El libro no está disponible para préstamo");
+    }
+
+    public static LibroNoDisponibleException paraReparacion() {
+        return new LibroNoDisponibleException(
+                "No se puede enviar a reparación: El libro está prestado");
+    }
+
+    @Override
+    public Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -1,11 +1,24 @@
 package com.biblioteca.app.model;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
 public class Libro {
+    private static final VarHandle ESTADO;
+
+    static {
+        try {
+            ESTADO = MethodHandles.lookup().findVarHandle(Libro.class, "estado", EstadoLibro.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     private Long id;
     private String isbn;
     private String titulo;
     private String autor;
-    private EstadoLibro estado;
+    private volatile EstadoLibro estado;
 
     public Libro() {
         this.estado = EstadoLibro.DISPONIBLE;
@@ -18,6 +31,14 @@ public class Libro {
         this.estado = EstadoLibro.DISPONIBLE;
     }
 
+    public Libro(Long id, String isbn, String titulo, String autor, EstadoLibro estado) {
+        this.id = id;
+        this.isbn = isbn;
+        this.titulo = titulo;
+        this.autor = autor;
+        this.estado = estado;
+    }
+
     public Long getId() {
         return id;
     }
@@ -62,25 +83,46 @@ public class Libro {
         return this.estado == EstadoLibro.DISPONIBLE;
     }
 
+    /**
+     * Transiciones de estado sin bloqueo: cada una es un compare-and-set sobre
+     * el campo estado, así que de dos hilos que compiten exactamente uno gana
+     * y el otro recibe false sin que se construya ninguna excepción.
+     */
+    public boolean intentarPrestar() {
+        return ESTADO.compareAndSet(this, EstadoLibro.DISPONIBLE, EstadoLibro.PRESTADO);
+    }
+
+    public boolean intentarDevolver() {
+        return ESTADO.compareAndSet(this, EstadoLibro.PRESTADO, EstadoLibro.DISPONIBLE);
+    }
+
+    public boolean intentarEnviarAReparacion() {
+        EstadoLibro actual;
+        do {
+            actual = this.estado;
+            if (actual == EstadoLibro.PRESTADO) {
+                return false;
+            }
+        } while (!ESTADO.compareAndSet(this, actual, EstadoLibro.EN_REPARACION));
+        return true;
+    }
+
     public void prestar() {
-        if (!estaDisponible()) {
+        if (!intentarPrestar()) {
             throw new IllegalStateException("El libro no está disponible para préstamo");
         }
-        this.estado = EstadoLibro.PRESTADO;
     }
 
     public void devolver() {
-        if (this.estado != EstadoLibro.PRESTADO) {
+        if (!intentarDevolver()) {
             throw new IllegalStateException("El libro no está prestado");
         }
-        this.estado = EstadoLibro.DISPONIBLE;
     }
 
     public void enviarAReparacion() {
-        if (this.estado == EstadoLibro.PRESTADO) {
+        if (!intentarEnviarAReparacion()) {
             throw new IllegalStateException("No se puede enviar a reparación un libro prestado");
         }
-        this.estado = EstadoLibro.EN_REPARACION;
     }
 
     @Override
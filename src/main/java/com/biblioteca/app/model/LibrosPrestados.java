@@ -0,0 +1,103 @@
+package com.biblioteca.app.model;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ids de los libros que tiene prestados un usuario, con un cupo fijo. Cada id
+ * ocupa una casilla de un arreglo de longs (cero es casilla libre) y la
+ * cantidad se lleva aparte. Para agregar se reserva primero el lugar
+ * incrementando la cantidad con un compare-and-set que falla si ya se llegó
+ * al cupo, así que dos préstamos simultáneos nunca lo superan. Como el cupo es
+ * chico, buscar un id recorre unas pocas casillas.
+ * <p>
+ * Al quitar se libera la casilla antes de descontar la cantidad: la cantidad
+ * nunca es menor que las casillas ocupadas y quien reservó lugar siempre
+ * termina encontrando una libre.
+ */
+final class LibrosPrestados {
+    private static final long LIBRE = 0;
+    private static final VarHandle CASILLA = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle CANTIDAD;
+
+    static {
+        try {
+            CANTIDAD = MethodHandles.lookup().findVarHandle(LibrosPrestados.class, "cantidad", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final long[] casillas;
+    private volatile int cantidad;
+
+    LibrosPrestados(int cupo) {
+        this.casillas = new long[cupo];
+    }
+
+    /**
+     * Agrega el id si queda cupo.
+     *
+     * @return false si el cupo ya estaba completo
+     */
+    boolean agregar(long libroId) {
+        int actual;
+        do {
+            actual = cantidad;
+            if (actual >= casillas.length) {
+                return false;
+            }
+        } while (!CANTIDAD.compareAndSet(this, actual, actual + 1));
+        while (true) {
+            for (int i = 0; i < casillas.length; i++) {
+                if (CASILLA.compareAndSet(casillas, i, LIBRE, libroId)) {
+                    return true;
+                }
+            }
+            // Otro hilo ocupó la casilla libre y se liberó una ya recorrida: hay lugar, se vuelve a buscar
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * @return false si el id no estaba
+     */
+    boolean quitar(long libroId) {
+        for (int i = 0; i < casillas.length; i++) {
+            if (CASILLA.compareAndSet(casillas, i, libroId, LIBRE)) {
+                CANTIDAD.getAndAdd(this, -1);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    boolean contiene(long libroId) {
+        for (int i = 0; i < casillas.length; i++) {
+            if ((long) CASILLA.getVolatile(casillas, i) == libroId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    int cantidad() {
+        return cantidad;
+    }
+
+    /**
+     * Copia de los ids ocupados en este momento.
+     */
+    List<Long> ids() {
+        List<Long> resultado = new ArrayList<>(casillas.length);
+        for (int i = 0; i < casillas.length; i++) {
+            long id = (long) CASILLA.getVolatile(casillas, i);
+            if (id != LIBRE) {
+                resultado.add(id);
+            }
+        }
+        return resultado;
+    }
+}
@@ -2,10 +2,19 @@ package com.biblioteca.app.model;
 
 import java.time.LocalDate;
 
+/**
+ * Préstamo de un libro a un usuario. Guarda sólo los ids del libro y del
+ * usuario: un préstamo (sobre todo uno finalizado, que se conserva como
+ * historial) no retiene los objetos, y las respuestas que listan préstamos
+ * incluyen cada libro y cada usuario una sola vez. Los servicios resuelven
+ * los ids cuando necesitan cambiar el estado del libro o del usuario.
+ */
 public class Prestamo {
+    public static final int DIAS_PRESTAMO = 7;
+
     private Long id;
-    private Libro libro;
-    private Usuario usuario;
+    private Long libroId;
+    private Long usuarioId;
     private LocalDate fechaPrestamo;
     private LocalDate fechaDevolucion;
     private boolean activo;
@@ -15,21 +24,13 @@ public class Prestamo {
         this.activo = true;
     }
 
-    public Prestamo(Libro libro, Usuario usuario) {
-        if (!usuario.puedePrestarLibro()) {
-            throw new IllegalStateException("El usuario no puede realizar más préstamos");
-        }
-        if (!libro.estaDisponible()) {
-            throw new IllegalStateException("El libro no está disponible para préstamo");
-        }
-
-        this.libro = libro;
-        this.usuario = usuario;
-        this.fechaPrestamo = LocalDate.now();
-        this.activo = true;
-
-        libro.prestar();
-        usuario.agregarLibroPrestado(libro);
+    public Prestamo(Long id, Long libroId, Long usuarioId, LocalDate fechaPrestamo, LocalDate fechaDevolucion) {
+        this.id = id;
+        this.libroId = libroId;
+        this.usuarioId = usuarioId;
+        this.fechaPrestamo = fechaPrestamo;
+        this.fechaDevolucion = fechaDevolucion;
+        this.activo = fechaDevolucion == null;
     }
 
     public Long getId() {
@@ -40,20 +41,20 @@ public class Prestamo {
         this.id = id;
     }
 
-    public Libro getLibro() {
-        return libro;
+    public Long getLibroId() {
+        return libroId;
     }
 
-    public void setLibro(Libro libro) {
-        this.libro = libro;
+    public void setLibroId(Long libroId) {
+        this.libroId = libroId;
     }
 
-    public Usuario getUsuario() {
-        return usuario;
+    public Long getUsuarioId() {
+        return usuarioId;
     }
 
-    public void setUsuario(Usuario usuario) {
-        this.usuario = usuario;
+    public void setUsuarioId(Long usuarioId) {
+        this.usuarioId = usuarioId;
     }
 
     public LocalDate getFechaPrestamo() {
@@ -76,32 +77,50 @@ public class Prestamo {
         return activo;
     }
 
+    /**
+     * Marca el préstamo como devuelto hoy. El libro y el usuario los
+     * actualiza quien llama.
+     */
     public void finalizar() {
         if (!this.activo) {
             throw new IllegalStateException("El préstamo ya está finalizado");
         }
         this.activo = false;
         this.fechaDevolucion = LocalDate.now();
-        this.usuario.devolverLibro(this.libro);
+    }
+
+    /**
+     * Deshace {@link #finalizar}, cuando la devolución no se pudo guardar.
+     */
+    public void reabrir() {
+        this.activo = true;
+        this.fechaDevolucion = null;
+    }
+
+    public LocalDate getFechaVencimiento() {
+        return this.fechaPrestamo.plusDays(DIAS_PRESTAMO);
     }
 
     public boolean estaVencido() {
+        return estaVencidoAl(LocalDate.now());
+    }
+
+    public boolean estaVencidoAl(LocalDate fecha) {
         if (!this.activo) {
             return false;
         }
-        LocalDate fechaLimite = this.fechaPrestamo.plusDays(7);
-        return LocalDate.now().isAfter(fechaLimite);
+        return fecha.isAfter(getFechaVencimiento());
     }
 
     @Override
     public String toString() {
         return "Prestamo{" +
                 "id=" + id +
-                ", libro=" + libro.getTitulo() +
-                ", usuario=" + usuario.getNombre() +
+                ", libroId=" + libroId +
+                ", usuarioId=" + usuarioId +
                 ", fechaPrestamo=" + fechaPrestamo +
                 ", fechaDevolucion=" + fechaDevolucion +
                 ", activo=" + activo +
                 '}';
     }
-}
\ No newline at end of file
+}
@@ -1,25 +1,31 @@
 package com.biblioteca.app.model;
 
-import java.util.ArrayList;
 import java.util.List;
 
 public class Usuario {
+    public static final int LIMITE_PRESTAMOS = 3;
+
     private Long id;
     private String nombre;
     private String email;
     private String estado;
-    private List<Libro> librosPrestados;
+    private final LibrosPrestados idsPrestados = new LibrosPrestados(LIMITE_PRESTAMOS);
 
     public Usuario() {
         this.estado = "ACTIVO";
-        this.librosPrestados = new ArrayList<>();
     }
 
     public Usuario(String nombre, String email) {
         this.nombre = nombre;
         this.email = email;
         this.estado = "ACTIVO";
-        this.librosPrestados = new ArrayList<>();
+    }
+
+    public Usuario(Long id, String nombre, String email, String estado) {
+        this.id = id;
+        this.nombre = nombre;
+        this.email = email;
+        this.estado = estado;
     }
 
     public Long getId() {
@@ -54,10 +60,27 @@ public class Usuario {
         this.estado = estado;
     }
 
-    public List<Libro> getLibrosPrestados() {
-        return new ArrayList<>(librosPrestados);
+    /**
+     * Ids de los libros que tiene prestados, en una lista nueva.
+     */
+    public List<Long> getLibrosPrestados() {
+        return idsPrestados.ids();
+    }
+
+    public int contarLibrosPrestados() {
+        return idsPrestados.cantidad();
     }
 
+    public boolean tieneLibroPrestado(Long libroId) {
+        return libroId != null && idsPrestados.contiene(libroId);
+    }
+
+    /**
+     * Registra un libro que ya está prestado, como al reconstruir el estado.
+     *
+     * @throws IllegalStateException si el libro no está prestado o el usuario
+     *                               ya llegó al límite de préstamos
+     */
     public void agregarLibroPrestado(Libro libro) {
         if (libro == null) {
             throw new IllegalArgumentException("El libro no puede ser null");
@@ -65,22 +88,47 @@ public class Usuario {
         if (!libro.getEstado().equals(EstadoLibro.PRESTADO)) {
             throw new IllegalStateException("El libro debe estar en estado PRESTADO");
         }
-        this.librosPrestados.add(libro);
+        if (!idsPrestados.agregar(libro.getId())) {
+            throw new IllegalStateException("El usuario ya tiene " + LIMITE_PRESTAMOS + " libros prestados");
+        }
+    }
+
+    /**
+     * Ocupa un lugar del cupo con el libro en una sola operación atómica, así
+     * que préstamos concurrentes del mismo usuario no superan el límite. El
+     * libro todavía no se toma: si después no se puede prestar, el llamador lo
+     * libera con {@link #quitarLibroPrestado}.
+     *
+     * @return false si el usuario no está activo o no le queda cupo
+     */
+    public boolean intentarAgregarLibroPrestado(Long libroId) {
+        if (libroId == null) {
+            throw new IllegalArgumentException("El libro no puede ser null");
+        }
+        return "ACTIVO".equals(this.estado) && idsPrestados.agregar(libroId);
+    }
+
+    public boolean quitarLibroPrestado(Long libroId) {
+        return libroId != null && idsPrestados.quitar(libroId);
     }
 
     public void devolverLibro(Libro libro) {
         if (libro == null) {
             throw new IllegalArgumentException("El libro no puede ser null");
         }
-        if (!librosPrestados.contains(libro)) {
+        if (!tieneLibroPrestado(libro.getId())) {
             throw new IllegalStateException("El usuario no tiene este libro prestado");
         }
         libro.devolver();
-        this.librosPrestados.remove(libro);
+        idsPrestados.quitar(libro.getId());
     }
 
+    /**
+     * Consulta informativa: el préstamo reserva el cupo con
+     * {@link #intentarAgregarLibroPrestado}, que es la verificación que vale.
+     */
     public boolean puedePrestarLibro() {
-        return "ACTIVO".equals(this.estado) && this.librosPrestados.size() < 3;
+        return "ACTIVO".equals(this.estado) && idsPrestados.cantidad() < LIMITE_PRESTAMOS;
     }
 
     @Override
@@ -90,7 +138,7 @@ public class Usuario {
                 ", nombre='" + nombre + '\'' +
                 ", email='" + email + '\'' +
                 ", estado='" + estado + '\'' +
-                ", librosPrestados=" + librosPrestados.size() +
+                ", librosPrestados=" + idsPrestados.cantidad() +
                 '}';
     }
 }
\ No newline at end of file
@@ -1,19 +1,81 @@
 package com.biblioteca.app.repository;
 
+import com.biblioteca.app.model.EstadoLibro;
 import com.biblioteca.app.model.Libro;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface LibroRepository {
     Libro save(Libro libro);
 
+    /**
+     * Guarda en orden, como llamar a {@code save} con cada uno. Si uno falla
+     * se lanza su excepción y los anteriores quedan guardados. Con persistencia
+     * el lote espera un único fsync.
+     */
+    List<Libro> saveAll(List<Libro> libros);
+
+    /**
+     * Cambia el ISBN, el título y el autor del libro guardado, sin tocar su
+     * estado. El ISBN se reserva antes de cambiar el libro, así que si ya es
+     * de otro no se cambia nada y nadie ve el libro a medio editar.
+     *
+     * @return La misma instancia que devuelve {@code findById}
+     * @throws IllegalArgumentException si no existe el libro o el ISBN ya
+     *                                  pertenece a otro
+     */
+    Libro actualizar(Long id, String isbn, String titulo, String autor);
+
     Optional<Libro> findById(Long id);
 
+    /**
+     * Busca varios ids de una vez, por ejemplo los libros que referencian los
+     * préstamos de una respuesta. Los ids que no existen no aparecen en el
+     * resultado.
+     */
+    Map<Long, Libro> findAllById(Collection<Long> ids);
+
     Optional<Libro> findByIsbn(String isbn);
 
     List<Libro> findAll();
 
+    /**
+     * Devuelve hasta {@code limite} elementos con id mayor a {@code despuesDeId},
+     * ordenados por id. Con {@code despuesDeId} null empieza desde el primero.
+     */
+    List<Libro> findPagina(Long despuesDeId, int limite);
+
+    /**
+     * Libros en el estado dado, ordenados por id, en tiempo proporcional a la
+     * cantidad devuelta.
+     */
+    List<Libro> findByEstado(EstadoLibro estado);
+
+    /**
+     * Cantidad de libros en el estado dado, sin recorrerlos.
+     */
+    int countByEstado(EstadoLibro estado);
+
+    /**
+     * Busca libros por palabras del título o del autor, sin distinguir
+     * mayúsculas ni tildes, ordenados por relevancia (BM25).
+     */
+    List<Libro> findPorTexto(String consulta, int limite);
+
+    /**
+     * Títulos y autores que empiezan con el prefijo, sin distinguir mayúsculas
+     * ni tildes, primero los que comparten más libros.
+     */
+    List<String> findSugerencias(String prefijo, int limite);
+
     void deleteById(Long id);
 
     boolean existsById(Long id);
+
+    /**
+     * Cantidad de libros guardados, sin recorrerlos.
+     */
+    int contar();
 }
\ No newline at end of file
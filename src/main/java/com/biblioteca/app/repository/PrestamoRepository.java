@@ -2,18 +2,32 @@ package com.biblioteca.app.repository;
 
 import com.biblioteca.app.model.Prestamo;
 import com.biblioteca.app.model.Usuario;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
 public interface PrestamoRepository {
     Prestamo save(Prestamo prestamo);
 
+    /**
+     * Guarda en orden, como llamar a {@code save} con cada uno. Si uno falla
+     * se lanza su excepción y los anteriores quedan guardados. Con persistencia
+     * el lote espera un único fsync.
+     */
+    List<Prestamo> saveAll(List<Prestamo> prestamos);
+
     Optional<Prestamo> findById(Long id);
 
     List<Prestamo> findByUsuario(Usuario usuario);
 
     List<Prestamo> findAll();
 
+    /**
+     * Devuelve hasta {@code limite} elementos con id mayor a {@code despuesDeId},
+     * ordenados por id. Con {@code despuesDeId} null empieza desde el primero.
+     */
+    List<Prestamo> findPagina(Long despuesDeId, int limite);
+
     void deleteById(Long id);
 
     boolean existsById(Long id);
@@ -21,4 +35,27 @@ public interface PrestamoRepository {
     List<Prestamo> findPrestamosActivos();
 
     List<Prestamo> findPrestamosVencidos();
+
+    List<Prestamo> findPrestamosVencidosAl(LocalDate fecha);
+
+    /**
+     * Préstamos activos cuyo vencimiento cae en {@code [desde, hasta)}, es
+     * decir vencidos al {@code hasta} que todavía no lo estaban al
+     * {@code desde}, ordenados por vencimiento y después por id. Con
+     * {@code desde} null equivale a {@link #findPrestamosVencidosAl}.
+     */
+    List<Prestamo> findPrestamosQueVencenEntre(LocalDate desde, LocalDate hasta);
+
+    int contar();
+
+    /**
+     * Cantidad de préstamos activos; puede incluir por un momento un préstamo
+     * finalizado que todavía no se volvió a guardar.
+     */
+    int contarActivos();
+
+    /**
+     * Cantidad de préstamos activos vencidos a la fecha, sin armar los préstamos.
+     */
+    int contarVencidosAl(LocalDate fecha);
 }
\ No newline at end of file
@@ -1,19 +1,49 @@
 package com.biblioteca.app.repository;
 
 import com.biblioteca.app.model.Usuario;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface UsuarioRepository {
     Usuario save(Usuario usuario);
 
+    /**
+     * Cambia el nombre y el email del usuario guardado, sin tocar su estado
+     * ni sus libros prestados. El email se reserva antes de cambiar el
+     * usuario, así que si ya es de otro no se cambia nada.
+     *
+     * @return La misma instancia que devuelve {@code findById}
+     * @throws IllegalArgumentException si no existe el usuario o el email ya
+     *                                  pertenece a otro
+     */
+    Usuario actualizar(Long id, String nombre, String email);
+
     Optional<Usuario> findById(Long id);
 
+    /**
+     * Busca varios ids de una vez; los que no existen no aparecen en el
+     * resultado.
+     */
+    Map<Long, Usuario> findAllById(Collection<Long> ids);
+
     Optional<Usuario> findByEmail(String email);
 
     List<Usuario> findAll();
 
+    /**
+     * Devuelve hasta {@code limite} elementos con id mayor a {@code despuesDeId},
+     * ordenados por id. Con {@code despuesDeId} null empieza desde el primero.
+     */
+    List<Usuario> findPagina(Long despuesDeId, int limite);
+
     void deleteById(Long id);
 
     boolean existsById(Long id);
+
+    /**
+     * Cantidad de usuarios guardados, sin recorrerlos.
+     */
+    int contar();
 }
\ No newline at end of file
@@ -0,0 +1,179 @@
+package com.biblioteca.app.repository.cache;
+
+import com.biblioteca.app.model.EstadoLibro;
+import com.biblioteca.app.model.Libro;
+import com.biblioteca.app.repository.LibroRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Repositorio de libros que guarda en caché las búsquedas por id y por ISBN.
+ * Toda escritura (alta, edición, cambio de estado por un préstamo o una
+ * devolución, eliminación) pasa por acá e invalida el libro después de
+ * aplicarse en el delegado. Caffeine serializa la invalidación con una carga
+ * en curso de la misma clave, así que una lectura que empezó antes de la
+ * escritura no puede dejar el valor viejo en la caché: después de que la
+ * escritura vuelve, la próxima lectura ve el estado nuevo.
+ * <p>
+ * La caché de ISBN guarda sólo el id; el libro sale de la caché por id y se
+ * descarta la entrada si su ISBN ya no coincide (porque se editó o se
+ * eliminó). Las búsquedas sin resultado no se guardan.
+ */
+public class LibroRepositoryCacheado implements LibroRepository {
+    private final LibroRepository delegado;
+    private final Cache<Long, Libro> porId;
+    private final Cache<String, Long> idPorIsbn;
+
+    public LibroRepositoryCacheado(LibroRepository delegado, OpcionesCache opciones) {
+        this.delegado = delegado;
+        this.porId = opciones.construir();
+        this.idPorIsbn = opciones.construir();
+    }
+
+    @Override
+    public Libro save(Libro libro) {
+        try {
+            return delegado.save(libro);
+        } finally {
+            invalidar(libro);
+        }
+    }
+
+    /**
+     * La entrada del ISBN anterior se descarta sola en la próxima búsqueda,
+     * porque el libro ya no tiene ese ISBN.
+     */
+    @Override
+    public Libro actualizar(Long id, String isbn, String titulo, String autor) {
+        try {
+            return delegado.actualizar(id, isbn, titulo, autor);
+        } finally {
+            porId.invalidate(id);
+            if (isbn != null) {
+                idPorIsbn.invalidate(isbn);
+            }
+        }
+    }
+
+    @Override
+    public List<Libro> saveAll(List<Libro> libros) {
+        try {
+            return delegado.saveAll(libros);
+        } finally {
+            libros.forEach(this::invalidar);
+        }
+    }
+
+    @Override
+    public Optional<Libro> findById(Long id) {
+        if (id == null) {
+            return delegado.findById(null);
+        }
+        return Optional.ofNullable(porId.get(id, clave -> delegado.findById(clave).orElse(null)));
+    }
+
+    /**
+     * Los ids que no están en la caché se piden al delegado en una sola
+     * llamada.
+     */
+    @Override
+    public Map<Long, Libro> findAllById(Collection<Long> ids) {
+        List<Long> claves = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            if (id != null) {
+                claves.add(id);
+            }
+        }
+        return porId.getAll(claves, faltantes -> delegado.findAllById(List.copyOf(faltantes)));
+    }
+
+    @Override
+    public Optional<Libro> findByIsbn(String isbn) {
+        if (isbn == null) {
+            return delegado.findByIsbn(null);
+        }
+        Long id = idPorIsbn.get(isbn, clave -> delegado.findByIsbn(clave).map(Libro::getId).orElse(null));
+        if (id == null) {
+            return Optional.empty();
+        }
+        Optional<Libro> libro = findById(id);
+        if (libro.isPresent() && isbn.equals(libro.get().getIsbn())) {
+            return libro;
+        }
+        idPorIsbn.invalidate(isbn);
+        return delegado.findByIsbn(isbn);
+    }
+
+    @Override
+    public List<Libro> findAll() {
+        return delegado.findAll();
+    }
+
+    @Override
+    public List<Libro> findPagina(Long despuesDeId, int limite) {
+        return delegado.findPagina(despuesDeId, limite);
+    }
+
+    @Override
+    public List<Libro> findByEstado(EstadoLibro estado) {
+        return delegado.findByEstado(estado);
+    }
+
+    @Override
+    public int countByEstado(EstadoLibro estado) {
+        return delegado.countByEstado(estado);
+    }
+
+    @Override
+    public List<Libro> findPorTexto(String consulta, int limite) {
+        return delegado.findPorTexto(consulta, limite);
+    }
+
+    @Override
+    public List<String> findSugerencias(String prefijo, int limite) {
+        return delegado.findSugerencias(prefijo, limite);
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        try {
+            delegado.deleteById(id);
+        } finally {
+            if (id != null) {
+                porId.invalidate(id);
+            }
+        }
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return delegado.existsById(id);
+    }
+
+    @Override
+    public int contar() {
+        return delegado.contar();
+    }
+
+    public Cache<Long, Libro> getCachePorId() {
+        return porId;
+    }
+
+    public Cache<String, Long> getCachePorIsbn() {
+        return idPorIsbn;
+    }
+
+    private void invalidar(Libro libro) {
+        if (libro.getId() != null) {
+            porId.invalidate(libro.getId());
+        }
+        if (libro.getIsbn() != null) {
+            idPorIsbn.invalidate(libro.getIsbn());
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.biblioteca.app.repository.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+
+/**
+ * Parámetros de una caché de lecturas.
+ *
+ * @param maximo cantidad de elementos; al superarla se desalojan los menos usados (W-TinyLFU)
+ * @param ttl    tiempo desde que se cargó un elemento hasta que se vuelve a leer del repositorio
+ */
+public record OpcionesCache(long maximo, Duration ttl) {
+
+    public OpcionesCache {
+        if (maximo < 1) {
+            throw new IllegalArgumentException("El tamaño máximo de la caché debe ser al menos 1");
+        }
+        if (ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("El tiempo de vida de la caché debe ser positivo");
+        }
+    }
+
+    <K, V> Cache<K, V> construir() {
+        return Caffeine.newBuilder()
+                .maximumSize(maximo)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+}
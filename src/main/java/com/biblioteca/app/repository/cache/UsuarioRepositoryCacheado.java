@@ -0,0 +1,109 @@
+package com.biblioteca.app.repository.cache;
+
+import com.biblioteca.app.model.Usuario;
+import com.biblioteca.app.repository.UsuarioRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Repositorio de usuarios que guarda en caché las búsquedas por id. Cada
+ * escritura invalida el usuario después de aplicarse en el delegado, con la
+ * misma garantía que {@link LibroRepositoryCacheado}.
+ */
+public class UsuarioRepositoryCacheado implements UsuarioRepository {
+    private final UsuarioRepository delegado;
+    private final Cache<Long, Usuario> porId;
+
+    public UsuarioRepositoryCacheado(UsuarioRepository delegado, OpcionesCache opciones) {
+        this.delegado = delegado;
+        this.porId = opciones.construir();
+    }
+
+    @Override
+    public Usuario save(Usuario usuario) {
+        try {
+            return delegado.save(usuario);
+        } finally {
+            if (usuario.getId() != null) {
+                porId.invalidate(usuario.getId());
+            }
+        }
+    }
+
+    @Override
+    public Usuario actualizar(Long id, String nombre, String email) {
+        try {
+            return delegado.actualizar(id, nombre, email);
+        } finally {
+            porId.invalidate(id);
+        }
+    }
+
+    @Override
+    public Optional<Usuario> findById(Long id) {
+        if (id == null) {
+            return delegado.findById(null);
+        }
+        return Optional.ofNullable(porId.get(id, clave -> delegado.findById(clave).orElse(null)));
+    }
+
+    /**
+     * Los ids que no están en la caché se piden al delegado en una sola
+     * llamada.
+     */
+    @Override
+    public Map<Long, Usuario> findAllById(Collection<Long> ids) {
+        List<Long> claves = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            if (id != null) {
+                claves.add(id);
+            }
+        }
+        return porId.getAll(claves, faltantes -> delegado.findAllById(List.copyOf(faltantes)));
+    }
+
+    @Override
+    public Optional<Usuario> findByEmail(String email) {
+        return delegado.findByEmail(email);
+    }
+
+    @Override
+    public List<Usuario> findAll() {
+        return delegado.findAll();
+    }
+
+    @Override
+    public List<Usuario> findPagina(Long despuesDeId, int limite) {
+        return delegado.findPagina(despuesDeId, limite);
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        try {
+            delegado.deleteById(id);
+        } finally {
+            if (id != null) {
+                porId.invalidate(id);
+            }
+        }
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return delegado.existsById(id);
+    }
+
+    @Override
+    public int contar() {
+        return delegado.contar();
+    }
+
+    public Cache<Long, Usuario> getCachePorId() {
+        return porId;
+    }
+}
@@ -0,0 +1,48 @@
+package com.biblioteca.app.repository.compacto;
+
+import java.util.BitSet;
+
+/**
+ * Filas ocupadas de un almacén por columnas. Las filas que se liberan se
+ * reutilizan antes de agregar nuevas, así que las columnas no crecen con las
+ * bajas. No es seguro para hilos.
+ */
+final class Filas {
+    static final int NINGUNA = -1;
+
+    private final BitSet ocupadas = new BitSet();
+    private int primeraLibre;
+    private int cantidad;
+
+    int ocupar() {
+        int fila = ocupadas.nextClearBit(primeraLibre);
+        ocupadas.set(fila);
+        primeraLibre = fila + 1;
+        cantidad++;
+        return fila;
+    }
+
+    void liberar(int fila) {
+        ocupadas.clear(fila);
+        primeraLibre = Math.min(primeraLibre, fila);
+        cantidad--;
+    }
+
+    /**
+     * @return La primera fila ocupada desde {@code desde} inclusive, o {@link #NINGUNA}
+     */
+    int siguiente(int desde) {
+        return ocupadas.nextSetBit(desde);
+    }
+
+    int cantidad() {
+        return cantidad;
+    }
+
+    /**
+     * Nueva longitud para columnas que tienen que alojar la fila indicada.
+     */
+    static int crecer(int longitudActual, int fila) {
+        return Math.max(fila + 1, longitudActual + (longitudActual >> 1) + 16);
+    }
+}
@@ -0,0 +1,97 @@
+package com.biblioteca.app.repository.compacto;
+
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+/**
+ * Índice único texto → fila sin objetos por entrada: una tabla de ints con
+ * sondeo lineal que guarda sólo la fila, y la clave se lee de la columna del
+ * almacén al comparar. Cuesta cuatro bytes por casillero, contra los dos nodos
+ * de mapa y el id en caja de {@code IndiceUnico}.
+ * No es seguro para hilos; las claves no cambian en la columna mientras están
+ * en el índice.
+ */
+final class IndiceUnicoPorFila {
+    private static final double CARGA_MAXIMA = 0.75;
+
+    private final IntFunction<String> claveDeFila;
+    private int[] filas;
+    private int mascara;
+    private int tamanio;
+    private int limite;
+
+    IndiceUnicoPorFila(IntFunction<String> claveDeFila) {
+        this.claveDeFila = claveDeFila;
+        reservar(16);
+    }
+
+    /**
+     * @return La fila con esa clave, o {@link Filas#NINGUNA}
+     */
+    int buscar(String clave) {
+        for (int i = indice(clave); filas[i] != Filas.NINGUNA; i = (i + 1) & mascara) {
+            if (clave.equals(claveDeFila.apply(filas[i]))) {
+                return filas[i];
+            }
+        }
+        return Filas.NINGUNA;
+    }
+
+    /**
+     * La clave no debe estar en el índice.
+     */
+    void agregar(String clave, int fila) {
+        int i = indice(clave);
+        while (filas[i] != Filas.NINGUNA) {
+            i = (i + 1) & mascara;
+        }
+        filas[i] = fila;
+        if (++tamanio > limite) {
+            crecer();
+        }
+    }
+
+    void quitar(String clave) {
+        int i = indice(clave);
+        while (filas[i] != Filas.NINGUNA && !clave.equals(claveDeFila.apply(filas[i]))) {
+            i = (i + 1) & mascara;
+        }
+        if (filas[i] == Filas.NINGUNA) {
+            return;
+        }
+        // Corrimiento hacia atrás, como en MapaLongInt
+        for (int j = (i + 1) & mascara; filas[j] != Filas.NINGUNA; j = (j + 1) & mascara) {
+            int ideal = indice(claveDeFila.apply(filas[j]));
+            boolean mover = j > i ? ideal <= i || ideal > j : ideal <= i && ideal > j;
+            if (mover) {
+                filas[i] = filas[j];
+                i = j;
+            }
+        }
+        filas[i] = Filas.NINGUNA;
+        tamanio--;
+    }
+
+    private int indice(String clave) {
+        int h = clave.hashCode() * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mascara;
+    }
+
+    private void crecer() {
+        int[] viejas = filas;
+        reservar(filas.length * 2);
+        tamanio = 0;
+        for (int fila : viejas) {
+            if (fila != Filas.NINGUNA) {
+                agregar(claveDeFila.apply(fila), fila);
+            }
+        }
+    }
+
+    private void reservar(int capacidad) {
+        filas = new int[capacidad];
+        Arrays.fill(filas, Filas.NINGUNA);
+        mascara = capacidad - 1;
+        limite = (int) (capacidad * CARGA_MAXIMA);
+    }
+}
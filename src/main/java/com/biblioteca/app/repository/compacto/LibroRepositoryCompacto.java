@@ -0,0 +1,418 @@
+package com.biblioteca.app.repository.compacto;
+
+import com.biblioteca.app.model.EstadoLibro;
+import com.biblioteca.app.model.Libro;
+import com.biblioteca.app.repository.LibroRepository;
+import com.biblioteca.app.repository.indice.IndiceAutocompletado;
+import com.biblioteca.app.repository.indice.IndiceTextoCompleto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Repositorio de libros guardado por columnas: cada campo es un arreglo
+ * indexado por fila y el id se traduce a fila con un mapa de longs
+ * primitivos, así que un libro no ocupa un objeto ni un nodo de mapa por
+ * entrada. El estado es un byte y cada estado lleva un conjunto de bits con
+ * sus filas. Los {@link Libro} se arman al buscarlos y, mientras alguien los
+ * usa, se devuelve siempre la misma instancia (ver {@link VistasVivas}).
+ * <p>
+ * Las escrituras se serializan con un lock de escritura; las lecturas
+ * comparten el de lectura. El ISBN se indexa por fila; los índices de texto y
+ * autocompletado son los mismos que usa {@code LibroRepositoryImpl}.
+ */
+public class LibroRepositoryCompacto implements LibroRepository {
+    private static final byte SIN_ESTADO = -1;
+    private static final EstadoLibro[] ESTADOS = EstadoLibro.values();
+
+    private final ReadWriteLock bloqueo = new ReentrantReadWriteLock();
+    private final MapaLongInt filaPorId = new MapaLongInt(1024);
+    private final Filas filas = new Filas();
+    private final BitSet[] filasPorEstado = new BitSet[ESTADOS.length];
+    private final int[] cantidadPorEstado = new int[ESTADOS.length];
+    private final IndiceUnicoPorFila filaPorIsbn = new IndiceUnicoPorFila(fila -> this.isbns[fila]);
+    private final IndiceTextoCompleto indiceTexto = new IndiceTextoCompleto();
+    private final IndiceAutocompletado indiceAutocompletado = new IndiceAutocompletado();
+    private final VistasVivas<Libro> vistas = new VistasVivas<>();
+    private final AtomicLong sequence = new AtomicLong(0);
+
+    private long[] ids = new long[0];
+    private byte[] estados = new byte[0];
+    private String[] isbns = new String[0];
+    private String[] titulos = new String[0];
+    private String[] autores = new String[0];
+
+    public LibroRepositoryCompacto() {
+        for (int i = 0; i < ESTADOS.length; i++) {
+            filasPorEstado[i] = new BitSet();
+        }
+    }
+
+    /**
+     * Si el id ya tiene una instancia viva distinta de {@code libro}, los
+     * datos se copian en ella y se devuelve esa: quien la tenga no se queda
+     * con un objeto que el repositorio ya no sigue.
+     *
+     * @throws IllegalArgumentException si el ISBN ya pertenece a otro libro
+     */
+    @Override
+    public Libro save(Libro libro) {
+        bloqueo.writeLock().lock();
+        try {
+            return guardar(libro);
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Cambia la instancia viva del libro (la arma si nadie la usa) y la
+     * guarda, todo con el lock de escritura.
+     */
+    @Override
+    public Libro actualizar(Long id, String isbn, String titulo, String autor) {
+        bloqueo.writeLock().lock();
+        try {
+            int fila = filaPorId.get(id);
+            if (fila == MapaLongInt.AUSENTE) {
+                throw new IllegalArgumentException("No existe el libro con ID: " + id);
+            }
+            int duenio = isbn == null ? Filas.NINGUNA : filaPorIsbn.buscar(isbn);
+            if (duenio != Filas.NINGUNA && duenio != fila) {
+                throw new IllegalArgumentException("Ya existe un libro con ISBN: " + isbn);
+            }
+            Libro libro = vista(fila);
+            libro.setIsbn(isbn);
+            libro.setTitulo(titulo);
+            libro.setAutor(autor);
+            return guardar(libro);
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Libro> saveAll(List<Libro> libros) {
+        List<Libro> guardados = new ArrayList<>(libros.size());
+        bloqueo.writeLock().lock();
+        try {
+            for (Libro libro : libros) {
+                guardados.add(guardar(libro));
+            }
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+        return guardados;
+    }
+
+    @Override
+    public Optional<Libro> findById(Long id) {
+        bloqueo.readLock().lock();
+        try {
+            return Optional.ofNullable(buscar(id));
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    /**
+     * Arma todos los libros con una sola toma del lock de lectura.
+     */
+    @Override
+    public Map<Long, Libro> findAllById(Collection<Long> buscados) {
+        Map<Long, Libro> resultado = new HashMap<>(buscados.size() * 2);
+        bloqueo.readLock().lock();
+        try {
+            for (Long id : buscados) {
+                Libro libro = id != null ? buscar(id) : null;
+                if (libro != null) {
+                    resultado.put(id, libro);
+                }
+            }
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+        return resultado;
+    }
+
+    @Override
+    public Optional<Libro> findByIsbn(String isbn) {
+        bloqueo.readLock().lock();
+        try {
+            int fila = isbn == null ? Filas.NINGUNA : filaPorIsbn.buscar(isbn);
+            return fila == Filas.NINGUNA ? Optional.empty() : Optional.of(vista(fila));
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Libro> findAll() {
+        bloqueo.readLock().lock();
+        try {
+            List<Libro> resultado = new ArrayList<>(filas.cantidad());
+            for (int fila = filas.siguiente(0); fila != Filas.NINGUNA; fila = filas.siguiente(fila + 1)) {
+                resultado.add(vista(fila));
+            }
+            return resultado;
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    /**
+     * Prueba los ids siguientes en orden, así que el costo es el límite más
+     * los ids borrados que haya en el medio.
+     */
+    @Override
+    public List<Libro> findPagina(Long despuesDeId, int limite) {
+        bloqueo.readLock().lock();
+        try {
+            List<Libro> resultado = new ArrayList<>(Math.min(limite, filas.cantidad()));
+            long ultimo = sequence.get();
+            for (long id = despuesDeId == null ? 1 : despuesDeId + 1; id <= ultimo && resultado.size() < limite; id++) {
+                Libro libro = buscar(id);
+                if (libro != null) {
+                    resultado.add(libro);
+                }
+            }
+            return resultado;
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    /**
+     * Recorre los bits del estado (una palabra cada 64 filas) y ordena lo
+     * encontrado por id. Como en {@code LibroRepositoryImpl}, se descartan los
+     * libros que cambiaron de estado y todavía no se guardaron.
+     */
+    @Override
+    public List<Libro> findByEstado(EstadoLibro estado) {
+        bloqueo.readLock().lock();
+        try {
+            BitSet bits = filasPorEstado[estado.ordinal()];
+            List<Libro> resultado = new ArrayList<>(cantidadPorEstado[estado.ordinal()]);
+            for (int fila = bits.nextSetBit(0); fila >= 0; fila = bits.nextSetBit(fila + 1)) {
+                Libro libro = vista(fila);
+                if (libro.getEstado() == estado) {
+                    resultado.add(libro);
+                }
+            }
+            resultado.sort(Comparator.comparing(Libro::getId));
+            return resultado;
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int countByEstado(EstadoLibro estado) {
+        bloqueo.readLock().lock();
+        try {
+            return cantidadPorEstado[estado.ordinal()];
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Libro> findPorTexto(String consulta, int limite) {
+        List<Long> encontrados = indiceTexto.buscar(consulta, limite);
+        bloqueo.readLock().lock();
+        try {
+            List<Libro> resultado = new ArrayList<>(encontrados.size());
+            for (Long id : encontrados) {
+                Libro libro = buscar(id);
+                if (libro != null) {
+                    resultado.add(libro);
+                }
+            }
+            return resultado;
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<String> findSugerencias(String prefijo, int limite) {
+        return indiceAutocompletado.sugerir(prefijo, limite);
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        bloqueo.writeLock().lock();
+        try {
+            int fila = filaPorId.remove(id);
+            if (fila == MapaLongInt.AUSENTE) {
+                return;
+            }
+            if (isbns[fila] != null) {
+                filaPorIsbn.quitar(isbns[fila]);
+            }
+            indiceTexto.quitar(id);
+            indiceAutocompletado.quitar(id);
+            quitarEstado(fila);
+            isbns[fila] = null;
+            titulos[fila] = null;
+            autores[fila] = null;
+            filas.liberar(fila);
+            vistas.quitar(id);
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        bloqueo.readLock().lock();
+        try {
+            return filaPorId.get(id) != MapaLongInt.AUSENTE;
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int contar() {
+        bloqueo.readLock().lock();
+        try {
+            return filas.cantidad();
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    /**
+     * Copia a la columna el estado de los libros en uso, para cuando se cambia
+     * sin pasar por {@code save}.
+     */
+    public void reindexarEstados() {
+        bloqueo.writeLock().lock();
+        try {
+            for (int fila = filas.siguiente(0); fila != Filas.NINGUNA; fila = filas.siguiente(fila + 1)) {
+                Libro libro = vista(fila);
+                quitarEstado(fila);
+                agregarEstado(fila, libro.getEstado());
+            }
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    public long getUltimoId() {
+        return sequence.get();
+    }
+
+    public void avanzarSecuenciaHasta(long id) {
+        sequence.accumulateAndGet(id, Math::max);
+    }
+
+    private Libro guardar(Libro libro) {
+        boolean nuevo = libro.getId() == null;
+        if (nuevo) {
+            libro.setId(sequence.incrementAndGet());
+        } else {
+            avanzarSecuenciaHasta(libro.getId());
+        }
+        long id = libro.getId();
+        int fila = filaPorId.get(id);
+        String isbn = libro.getIsbn();
+        int duenio = isbn == null ? Filas.NINGUNA : filaPorIsbn.buscar(isbn);
+        if (duenio != Filas.NINGUNA && duenio != fila) {
+            if (nuevo) {
+                libro.setId(null);
+            }
+            throw new IllegalArgumentException("Ya existe un libro con ISBN: " + isbn);
+        }
+        Libro viva = vistas.viva(id);
+        if (viva != null && viva != libro) {
+            viva.setIsbn(isbn);
+            viva.setTitulo(libro.getTitulo());
+            viva.setAutor(libro.getAutor());
+            viva.setEstado(libro.getEstado());
+            libro = viva;
+        }
+        if (fila == MapaLongInt.AUSENTE) {
+            fila = filas.ocupar();
+            if (fila >= ids.length) {
+                crecer(fila);
+            }
+            filaPorId.put(id, fila);
+            ids[fila] = id;
+        } else {
+            quitarEstado(fila);
+        }
+        if (!Objects.equals(isbns[fila], isbn)) {
+            if (isbns[fila] != null) {
+                filaPorIsbn.quitar(isbns[fila]);
+            }
+            isbns[fila] = isbn;
+            if (isbn != null) {
+                filaPorIsbn.agregar(isbn, fila);
+            }
+        }
+        // Un préstamo o una devolución sólo cambian el estado: los índices de texto no se tocan
+        boolean mismoTexto = Objects.equals(titulos[fila], libro.getTitulo())
+                && Objects.equals(autores[fila], libro.getAutor())
+                && indiceTexto.indexadoCon(id, libro.getTitulo(), libro.getAutor());
+        titulos[fila] = libro.getTitulo();
+        autores[fila] = libro.getAutor();
+        agregarEstado(fila, libro.getEstado());
+        if (!mismoTexto) {
+            indiceTexto.indexar(id, libro.getTitulo(), libro.getAutor());
+            indiceAutocompletado.indexar(id, libro.getTitulo(), libro.getAutor());
+        }
+        vistas.registrar(id, libro);
+        return libro;
+    }
+
+    private Libro buscar(long id) {
+        int fila = filaPorId.get(id);
+        return fila == MapaLongInt.AUSENTE ? null : vista(fila);
+    }
+
+    private Libro vista(int fila) {
+        return vistas.obtener(ids[fila], id -> new Libro(id, isbns[fila], titulos[fila], autores[fila],
+                estados[fila] == SIN_ESTADO ? null : ESTADOS[estados[fila]]));
+    }
+
+    private void agregarEstado(int fila, EstadoLibro estado) {
+        if (estado == null) {
+            estados[fila] = SIN_ESTADO;
+            return;
+        }
+        estados[fila] = (byte) estado.ordinal();
+        filasPorEstado[estado.ordinal()].set(fila);
+        cantidadPorEstado[estado.ordinal()]++;
+    }
+
+    private void quitarEstado(int fila) {
+        byte estado = estados[fila];
+        if (estado != SIN_ESTADO) {
+            filasPorEstado[estado].clear(fila);
+            cantidadPorEstado[estado]--;
+            estados[fila] = SIN_ESTADO;
+        }
+    }
+
+    private void crecer(int fila) {
+        int longitud = Filas.crecer(ids.length, fila);
+        ids = Arrays.copyOf(ids, longitud);
+        estados = Arrays.copyOf(estados, longitud);
+        isbns = Arrays.copyOf(isbns, longitud);
+        titulos = Arrays.copyOf(titulos, longitud);
+        autores = Arrays.copyOf(autores, longitud);
+    }
+}
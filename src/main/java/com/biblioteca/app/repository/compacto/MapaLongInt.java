@@ -0,0 +1,121 @@
+package com.biblioteca.app.repository.compacto;
+
+import java.util.Arrays;
+
+/**
+ * Mapa de claves long a valores int con direccionamiento abierto y sondeo
+ * lineal, sin objetos por entrada: dos arreglos paralelos. Al borrar se
+ * corren hacia atrás las entradas siguientes del mismo grupo, así que no
+ * quedan marcas de borrado que alarguen las búsquedas.
+ * No es seguro para hilos; los repositorios lo usan bajo su lock.
+ */
+final class MapaLongInt {
+    static final int AUSENTE = -1;
+    private static final long VACIA = Long.MIN_VALUE;
+    private static final double CARGA_MAXIMA = 0.75;
+
+    private long[] claves;
+    private int[] valores;
+    private int mascara;
+    private int tamanio;
+    private int limite;
+
+    MapaLongInt(int capacidadInicial) {
+        int capacidad = Integer.highestOneBit(Math.max(4, (int) (capacidadInicial / CARGA_MAXIMA)) * 2 - 1);
+        reservar(capacidad);
+    }
+
+    /**
+     * @return El valor de la clave, o {@link #AUSENTE}
+     */
+    int get(long clave) {
+        for (int i = indice(clave); ; i = (i + 1) & mascara) {
+            long actual = claves[i];
+            if (actual == clave) {
+                return valores[i];
+            }
+            if (actual == VACIA) {
+                return AUSENTE;
+            }
+        }
+    }
+
+    /**
+     * @param clave cualquier long salvo {@link Long#MIN_VALUE}
+     */
+    void put(long clave, int valor) {
+        if (clave == VACIA) {
+            throw new IllegalArgumentException("Clave reservada: " + clave);
+        }
+        int i = indice(clave);
+        while (claves[i] != VACIA) {
+            if (claves[i] == clave) {
+                valores[i] = valor;
+                return;
+            }
+            i = (i + 1) & mascara;
+        }
+        claves[i] = clave;
+        valores[i] = valor;
+        if (++tamanio > limite) {
+            crecer();
+        }
+    }
+
+    /**
+     * @return El valor que tenía la clave, o {@link #AUSENTE}
+     */
+    int remove(long clave) {
+        int i = indice(clave);
+        while (claves[i] != clave) {
+            if (claves[i] == VACIA) {
+                return AUSENTE;
+            }
+            i = (i + 1) & mascara;
+        }
+        int anterior = valores[i];
+        // Cada entrada siguiente del grupo baja al hueco si su posición ideal
+        // no queda entre el hueco y ella
+        for (int j = (i + 1) & mascara; claves[j] != VACIA; j = (j + 1) & mascara) {
+            int ideal = indice(claves[j]);
+            boolean mover = j > i ? ideal <= i || ideal > j : ideal <= i && ideal > j;
+            if (mover) {
+                claves[i] = claves[j];
+                valores[i] = valores[j];
+                i = j;
+            }
+        }
+        claves[i] = VACIA;
+        tamanio--;
+        return anterior;
+    }
+
+    int size() {
+        return tamanio;
+    }
+
+    private int indice(long clave) {
+        long h = clave * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mascara;
+    }
+
+    private void crecer() {
+        long[] clavesViejas = claves;
+        int[] valoresViejos = valores;
+        reservar(claves.length * 2);
+        tamanio = 0;
+        for (int i = 0; i < clavesViejas.length; i++) {
+            if (clavesViejas[i] != VACIA) {
+                put(clavesViejas[i], valoresViejos[i]);
+            }
+        }
+    }
+
+    private void reservar(int capacidad) {
+        claves = new long[capacidad];
+        Arrays.fill(claves, VACIA);
+        valores = new int[capacidad];
+        mascara = capacidad - 1;
+        limite = (int) (capacidad * CARGA_MAXIMA);
+    }
+}
@@ -0,0 +1,391 @@
+package com.biblioteca.app.repository.compacto;
+
+import com.biblioteca.app.model.Prestamo;
+import com.biblioteca.app.model.Usuario;
+import com.biblioteca.app.repository.PrestamoRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Repositorio de préstamos guardado por columnas. Cada préstamo ocupa una
+ * fila: el id, el id del libro y el del usuario como longs y las fechas como
+ * días desde la época en ints. Los préstamos de un usuario forman una lista
+ * doblemente enlazada de filas y los activos un conjunto de bits, de modo que
+ * ningún índice guarda objetos por préstamo.
+ * <p>
+ * Los {@link Prestamo} se arman al buscarlos y mientras alguien los usa se
+ * devuelve siempre la misma instancia (ver {@link VistasVivas}). Las
+ * escrituras se serializan con un lock de escritura; las lecturas comparten
+ * el de lectura.
+ */
+public class PrestamoRepositoryCompacto implements PrestamoRepository {
+    private static final long SIN_ID = Long.MIN_VALUE;
+    private static final int SIN_FECHA = Integer.MIN_VALUE;
+
+    private final ReadWriteLock bloqueo = new ReentrantReadWriteLock();
+    private final MapaLongInt filaPorId = new MapaLongInt(1024);
+    private final MapaLongInt primeraFilaPorUsuario = new MapaLongInt(256);
+    private final Filas filas = new Filas();
+    private final BitSet activos = new BitSet();
+    private final VistasVivas<Prestamo> vistas = new VistasVivas<>();
+    private final AtomicLong sequence = new AtomicLong(0);
+    private int cantidadActivos;
+
+    private long[] ids = new long[0];
+    private long[] libroIds = new long[0];
+    private long[] usuarioIds = new long[0];
+    private int[] fechasPrestamo = new int[0];
+    private int[] fechasDevolucion = new int[0];
+    private int[] anteriorDelUsuario = new int[0];
+    private int[] siguienteDelUsuario = new int[0];
+
+    @Override
+    public Prestamo save(Prestamo prestamo) {
+        bloqueo.writeLock().lock();
+        try {
+            return guardar(prestamo);
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Prestamo> saveAll(List<Prestamo> prestamos) {
+        List<Prestamo> guardados = new ArrayList<>(prestamos.size());
+        bloqueo.writeLock().lock();
+        try {
+            for (Prestamo prestamo : prestamos) {
+                guardados.add(guardar(prestamo));
+            }
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+        return guardados;
+    }
+
+    @Override
+    public Optional<Prestamo> findById(Long id) {
+        bloqueo.readLock().lock();
+        try {
+            return Optional.ofNullable(buscar(id));
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    /**
+     * Recorre la lista de filas del usuario. Como en
+     * {@code PrestamoRepositoryImpl}, se descarta un préstamo que cambió de
+     * usuario y todavía no se guardó.
+     */
+    @Override
+    public List<Prestamo> findByUsuario(Usuario usuario) {
+        bloqueo.readLock().lock();
+        try {
+            List<Prestamo> resultado = new ArrayList<>();
+            int fila = primeraFilaPorUsuario.get(usuario.getId());
+            for (; fila != Filas.NINGUNA; fila = siguienteDelUsuario[fila]) {
+                Prestamo prestamo = vista(fila);
+                if (usuario.getId().equals(prestamo.getUsuarioId())) {
+                    resultado.add(prestamo);
+                }
+            }
+            return resultado;
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Prestamo> findAll() {
+        bloqueo.readLock().lock();
+        try {
+            List<Prestamo> resultado = new ArrayList<>(filas.cantidad());
+            for (int fila = filas.siguiente(0); fila != Filas.NINGUNA; fila = filas.siguiente(fila + 1)) {
+                resultado.add(vista(fila));
+            }
+            return resultado;
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    /**
+     * Prueba los ids siguientes en orden, así que el costo es el límite más
+     * los ids borrados que haya en el medio.
+     */
+    @Override
+    public List<Prestamo> findPagina(Long despuesDeId, int limite) {
+        bloqueo.readLock().lock();
+        try {
+            List<Prestamo> resultado = new ArrayList<>(Math.min(limite, filas.cantidad()));
+            long ultimo = sequence.get();
+            for (long id = despuesDeId == null ? 1 : despuesDeId + 1; id <= ultimo && resultado.size() < limite; id++) {
+                Prestamo prestamo = buscar(id);
+                if (prestamo != null) {
+                    resultado.add(prestamo);
+                }
+            }
+            return resultado;
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        bloqueo.writeLock().lock();
+        try {
+            int fila = filaPorId.remove(id);
+            if (fila == MapaLongInt.AUSENTE) {
+                return;
+            }
+            desenlazarDelUsuario(fila);
+            marcarActivo(fila, false);
+            filas.liberar(fila);
+            vistas.quitar(id);
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        bloqueo.readLock().lock();
+        try {
+            return filaPorId.get(id) != MapaLongInt.AUSENTE;
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    /**
+     * Recorre los bits de activos. Un préstamo finalizado que todavía no se
+     * volvió a guardar se descarta.
+     */
+    @Override
+    public List<Prestamo> findPrestamosActivos() {
+        bloqueo.readLock().lock();
+        try {
+            List<Prestamo> resultado = new ArrayList<>(cantidadActivos);
+            for (int fila = activos.nextSetBit(0); fila >= 0; fila = activos.nextSetBit(fila + 1)) {
+                Prestamo prestamo = vista(fila);
+                if (prestamo.isActivo()) {
+                    resultado.add(prestamo);
+                }
+            }
+            return resultado;
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Prestamo> findPrestamosVencidos() {
+        return findPrestamosVencidosAl(LocalDate.now());
+    }
+
+    @Override
+    public List<Prestamo> findPrestamosVencidosAl(LocalDate fecha) {
+        return findPrestamosQueVencenEntre(null, fecha);
+    }
+
+    /**
+     * Compara la columna de fechas de los activos sin armar objetos y sólo
+     * arma los del rango, ordenados por vencimiento y después por id.
+     */
+    @Override
+    public List<Prestamo> findPrestamosQueVencenEntre(LocalDate desde, LocalDate hasta) {
+        bloqueo.readLock().lock();
+        try {
+            List<int[]> vencidas = new ArrayList<>();
+            int minimo = desde == null ? Integer.MIN_VALUE : vencimientoLimite(desde);
+            int limite = vencimientoLimite(hasta);
+            for (int fila = activos.nextSetBit(0); fila >= 0; fila = activos.nextSetBit(fila + 1)) {
+                if (fechasPrestamo[fila] != SIN_FECHA && fechasPrestamo[fila] >= minimo
+                        && fechasPrestamo[fila] < limite) {
+                    vencidas.add(new int[]{fechasPrestamo[fila], fila});
+                }
+            }
+            vencidas.sort((a, b) -> a[0] != b[0] ? Integer.compare(a[0], b[0]) : Long.compare(ids[a[1]], ids[b[1]]));
+            List<Prestamo> resultado = new ArrayList<>(vencidas.size());
+            for (int[] vencida : vencidas) {
+                Prestamo prestamo = vista(vencida[1]);
+                if (prestamo.isActivo()) {
+                    resultado.add(prestamo);
+                }
+            }
+            return resultado;
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int contar() {
+        bloqueo.readLock().lock();
+        try {
+            return filas.cantidad();
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int contarActivos() {
+        bloqueo.readLock().lock();
+        try {
+            return cantidadActivos;
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    /**
+     * Recorre la columna de fechas de los activos, sin armar préstamos.
+     */
+    @Override
+    public int contarVencidosAl(LocalDate fecha) {
+        bloqueo.readLock().lock();
+        try {
+            int cantidad = 0;
+            int limite = vencimientoLimite(fecha);
+            for (int fila = activos.nextSetBit(0); fila >= 0; fila = activos.nextSetBit(fila + 1)) {
+                if (fechasPrestamo[fila] != SIN_FECHA && fechasPrestamo[fila] < limite) {
+                    cantidad++;
+                }
+            }
+            return cantidad;
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    public long getUltimoId() {
+        return sequence.get();
+    }
+
+    public void avanzarSecuenciaHasta(long id) {
+        sequence.accumulateAndGet(id, Math::max);
+    }
+
+    private Prestamo guardar(Prestamo prestamo) {
+        if (prestamo.getId() == null) {
+            prestamo.setId(sequence.incrementAndGet());
+        } else {
+            avanzarSecuenciaHasta(prestamo.getId());
+        }
+        long id = prestamo.getId();
+        int fila = filaPorId.get(id);
+        if (fila == MapaLongInt.AUSENTE) {
+            fila = filas.ocupar();
+            if (fila >= ids.length) {
+                crecer(fila);
+            }
+            filaPorId.put(id, fila);
+            ids[fila] = id;
+        } else {
+            desenlazarDelUsuario(fila);
+        }
+        libroIds[fila] = idDe(prestamo.getLibroId());
+        usuarioIds[fila] = idDe(prestamo.getUsuarioId());
+        fechasPrestamo[fila] = dia(prestamo.getFechaPrestamo());
+        fechasDevolucion[fila] = dia(prestamo.getFechaDevolucion());
+        enlazarAlUsuario(fila);
+        marcarActivo(fila, prestamo.isActivo());
+        vistas.registrar(id, prestamo);
+        return prestamo;
+    }
+
+    private Prestamo buscar(long id) {
+        int fila = filaPorId.get(id);
+        return fila == MapaLongInt.AUSENTE ? null : vista(fila);
+    }
+
+    private Prestamo vista(int fila) {
+        return vistas.obtener(ids[fila], id -> new Prestamo(id, idOriginal(libroIds[fila]),
+                idOriginal(usuarioIds[fila]), fecha(fechasPrestamo[fila]), fecha(fechasDevolucion[fila])));
+    }
+
+    private void enlazarAlUsuario(int fila) {
+        anteriorDelUsuario[fila] = Filas.NINGUNA;
+        siguienteDelUsuario[fila] = Filas.NINGUNA;
+        if (usuarioIds[fila] == SIN_ID) {
+            return;
+        }
+        int primera = primeraFilaPorUsuario.get(usuarioIds[fila]);
+        if (primera != MapaLongInt.AUSENTE) {
+            siguienteDelUsuario[fila] = primera;
+            anteriorDelUsuario[primera] = fila;
+        }
+        primeraFilaPorUsuario.put(usuarioIds[fila], fila);
+    }
+
+    private void desenlazarDelUsuario(int fila) {
+        if (usuarioIds[fila] == SIN_ID) {
+            return;
+        }
+        int anterior = anteriorDelUsuario[fila];
+        int siguiente = siguienteDelUsuario[fila];
+        if (anterior != Filas.NINGUNA) {
+            siguienteDelUsuario[anterior] = siguiente;
+        } else if (siguiente != Filas.NINGUNA) {
+            primeraFilaPorUsuario.put(usuarioIds[fila], siguiente);
+        } else {
+            primeraFilaPorUsuario.remove(usuarioIds[fila]);
+        }
+        if (siguiente != Filas.NINGUNA) {
+            anteriorDelUsuario[siguiente] = anterior;
+        }
+        usuarioIds[fila] = SIN_ID;
+    }
+
+    private void marcarActivo(int fila, boolean activo) {
+        if (activos.get(fila) != activo) {
+            activos.set(fila, activo);
+            cantidadActivos += activo ? 1 : -1;
+        }
+    }
+
+    private void crecer(int fila) {
+        int longitud = Filas.crecer(ids.length, fila);
+        ids = Arrays.copyOf(ids, longitud);
+        libroIds = Arrays.copyOf(libroIds, longitud);
+        usuarioIds = Arrays.copyOf(usuarioIds, longitud);
+        fechasPrestamo = Arrays.copyOf(fechasPrestamo, longitud);
+        fechasDevolucion = Arrays.copyOf(fechasDevolucion, longitud);
+        anteriorDelUsuario = Arrays.copyOf(anteriorDelUsuario, longitud);
+        siguienteDelUsuario = Arrays.copyOf(siguienteDelUsuario, longitud);
+    }
+
+    /**
+     * Los préstamos prestados antes de este día ya vencieron a la fecha.
+     */
+    private static int vencimientoLimite(LocalDate fecha) {
+        return dia(fecha) - Prestamo.DIAS_PRESTAMO;
+    }
+
+    private static long idDe(Long id) {
+        return id != null ? id : SIN_ID;
+    }
+
+    private static Long idOriginal(long id) {
+        return id != SIN_ID ? id : null;
+    }
+
+    private static int dia(LocalDate fecha) {
+        return fecha != null ? Math.toIntExact(fecha.toEpochDay()) : SIN_FECHA;
+    }
+
+    private static LocalDate fecha(int dia) {
+        return dia != SIN_FECHA ? LocalDate.ofEpochDay(dia) : null;
+    }
+}
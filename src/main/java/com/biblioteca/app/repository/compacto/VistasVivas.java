@@ -0,0 +1,84 @@
+package com.biblioteca.app.repository.compacto;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongFunction;
+
+/**
+ * Objetos armados a partir de las columnas que todavía alguien usa. Mientras
+ * un objeto está vivo, buscar el mismo id devuelve esa misma instancia, así
+ * que los servicios siguen cambiando el estado sobre un único objeto (por
+ * ejemplo el compare-and-set de {@code Libro}) como con los repositorios que
+ * guardan los objetos. Cuando nadie lo referencia, el recolector lo libera y
+ * la entrada se purga en la próxima operación.
+ */
+final class VistasVivas<T> {
+    private final Map<Long, Referencia<T>> vistas = new ConcurrentHashMap<>();
+    private final ReferenceQueue<T> liberadas = new ReferenceQueue<>();
+
+    /**
+     * Devuelve la instancia viva del id o la arma con {@code construir}; si
+     * éste devuelve null no se registra nada.
+     */
+    T obtener(long id, LongFunction<T> construir) {
+        purgar();
+        Referencia<T> referencia = vistas.get(id);
+        T vista = referencia != null ? referencia.get() : null;
+        if (vista != null) {
+            return vista;
+        }
+        Object[] resultado = new Object[1];
+        vistas.compute(id, (clave, actual) -> {
+            T viva = actual != null ? actual.get() : null;
+            if (viva != null) {
+                resultado[0] = viva;
+                return actual;
+            }
+            T nueva = construir.apply(id);
+            resultado[0] = nueva;
+            return nueva != null ? new Referencia<>(id, nueva, liberadas) : null;
+        });
+        @SuppressWarnings("unchecked")
+        T obtenida = (T) resultado[0];
+        return obtenida;
+    }
+
+    /**
+     * La instancia viva del id, o null si nadie la usa; nunca arma una.
+     */
+    T viva(long id) {
+        purgar();
+        Referencia<T> referencia = vistas.get(id);
+        return referencia != null ? referencia.get() : null;
+    }
+
+    /**
+     * La instancia guardada pasa a ser la que devuelven las búsquedas.
+     */
+    void registrar(long id, T vista) {
+        purgar();
+        vistas.put(id, new Referencia<>(id, vista, liberadas));
+    }
+
+    void quitar(long id) {
+        vistas.remove(id);
+    }
+
+    private void purgar() {
+        for (Object liberada = liberadas.poll(); liberada != null; liberada = liberadas.poll()) {
+            Referencia<?> referencia = (Referencia<?>) liberada;
+            vistas.remove(referencia.id, referencia);
+        }
+    }
+
+    private static final class Referencia<T> extends WeakReference<T> {
+        private final long id;
+
+        Referencia(long id, T vista, ReferenceQueue<T> cola) {
+            super(vista, cola);
+            this.id = id;
+        }
+    }
+}
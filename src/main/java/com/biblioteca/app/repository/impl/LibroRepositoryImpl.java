@@ -1,7 +1,13 @@
 package com.biblioteca.app.repository.impl;
 
+import com.biblioteca.app.model.EstadoLibro;
 import com.biblioteca.app.model.Libro;
 import com.biblioteca.app.repository.LibroRepository;
+import com.biblioteca.app.repository.indice.IdsOrdenados;
+import com.biblioteca.app.repository.indice.IndiceAutocompletado;
+import com.biblioteca.app.repository.indice.IndicePorEstado;
+import com.biblioteca.app.repository.indice.IndiceTextoCompleto;
+import com.biblioteca.app.repository.indice.IndiceUnico;
 import org.springframework.stereotype.Repository;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
@@ -10,27 +16,99 @@ import java.util.concurrent.atomic.AtomicLong;
 @Repository
 public class LibroRepositoryImpl implements LibroRepository {
     private final Map<Long, Libro> libros = new ConcurrentHashMap<>();
+    private final IndiceUnico<String> indiceIsbn = new IndiceUnico<>();
+    private final IdsOrdenados idsOrdenados = new IdsOrdenados();
+    private final IndiceTextoCompleto indiceTexto = new IndiceTextoCompleto();
+    private final IndiceAutocompletado indiceAutocompletado = new IndiceAutocompletado();
+    private final IndicePorEstado<EstadoLibro> indiceEstados = new IndicePorEstado<>(EstadoLibro.class);
     private final AtomicLong sequence = new AtomicLong(0);
 
+    /**
+     * Guarda el libro y mantiene los índices secundarios dentro del mismo compute,
+     * de modo que las escrituras sobre un mismo id quedan serializadas.
+     * Un id explícito (por ejemplo al recuperar desde el log) adelanta la
+     * secuencia para que los libros nuevos no lo reutilicen.
+     *
+     * @throws IllegalArgumentException si el ISBN ya pertenece a otro libro
+     */
     @Override
     public Libro save(Libro libro) {
-        if (libro.getId() == null) {
+        boolean nuevo = libro.getId() == null;
+        if (nuevo) {
             libro.setId(sequence.incrementAndGet());
+        } else {
+            avanzarSecuenciaHasta(libro.getId());
+        }
+        try {
+            libros.compute(libro.getId(), (id, actual) -> {
+                if (!indiceIsbn.asignar(id, libro.getIsbn())) {
+                    throw new IllegalArgumentException("Ya existe un libro con ISBN: " + libro.getIsbn());
+                }
+                idsOrdenados.agregar(id);
+                indexarTexto(id, libro);
+                indiceEstados.registrar(id, libro.getEstado());
+                return libro;
+            });
+        } catch (IllegalArgumentException e) {
+            if (nuevo) {
+                libro.setId(null);
+            }
+            throw e;
         }
-        libros.put(libro.getId(), libro);
         return libro;
     }
 
+    /**
+     * Reserva el ISBN y cambia el libro dentro del compute de su id.
+     */
+    @Override
+    public Libro actualizar(Long id, String isbn, String titulo, String autor) {
+        Libro actualizado = libros.computeIfPresent(id, (clave, libro) -> {
+            if (!indiceIsbn.asignar(clave, isbn)) {
+                throw new IllegalArgumentException("Ya existe un libro con ISBN: " + isbn);
+            }
+            libro.setIsbn(isbn);
+            libro.setTitulo(titulo);
+            libro.setAutor(autor);
+            indexarTexto(clave, libro);
+            return libro;
+        });
+        if (actualizado == null) {
+            throw new IllegalArgumentException("No existe el libro con ID: " + id);
+        }
+        return actualizado;
+    }
+
+    @Override
+    public List<Libro> saveAll(List<Libro> libros) {
+        List<Libro> guardados = new ArrayList<>(libros.size());
+        for (Libro libro : libros) {
+            guardados.add(save(libro));
+        }
+        return guardados;
+    }
+
     @Override
     public Optional<Libro> findById(Long id) {
         return Optional.ofNullable(libros.get(id));
     }
 
+    @Override
+    public Map<Long, Libro> findAllById(Collection<Long> ids) {
+        Map<Long, Libro> resultado = new HashMap<>(ids.size() * 2);
+        for (Long id : ids) {
+            Libro encontrado = id != null ? libros.get(id) : null;
+            if (encontrado != null) {
+                resultado.put(id, encontrado);
+            }
+        }
+        return resultado;
+    }
+
     @Override
     public Optional<Libro> findByIsbn(String isbn) {
-        return libros.values().stream()
-                .filter(libro -> libro.getIsbn().equals(isbn))
-                .findFirst();
+        Long id = indiceIsbn.buscar(isbn);
+        return id == null ? Optional.empty() : Optional.ofNullable(libros.get(id));
     }
 
     @Override
@@ -38,13 +116,116 @@ public class LibroRepositoryImpl implements LibroRepository {
         return new ArrayList<>(libros.values());
     }
 
+    @Override
+    public List<Libro> findPagina(Long despuesDeId, int limite) {
+        return idsOrdenados.pagina(despuesDeId, limite, libros);
+    }
+
+    /**
+     * Los libros se leen del índice de estados, así que el costo depende de
+     * cuántos hay en ese estado y no del total. El índice refleja el estado con
+     * el que se guardó cada libro; los que cambiaron después y todavía no se
+     * guardaron se descartan.
+     */
+    @Override
+    public List<Libro> findByEstado(EstadoLibro estado) {
+        List<Libro> resultado = new ArrayList<>();
+        for (Long id : indiceEstados.ids(estado)) {
+            Libro libro = libros.get(id);
+            if (libro != null && libro.getEstado() == estado) {
+                resultado.add(libro);
+            }
+        }
+        return resultado;
+    }
+
+    @Override
+    public int countByEstado(EstadoLibro estado) {
+        return indiceEstados.contar(estado);
+    }
+
+    @Override
+    public List<Libro> findPorTexto(String consulta, int limite) {
+        List<Libro> resultado = new ArrayList<>();
+        for (Long id : indiceTexto.buscar(consulta, limite)) {
+            Libro libro = libros.get(id);
+            // Puede haberse borrado entre la lectura del índice y la del mapa
+            if (libro != null) {
+                resultado.add(libro);
+            }
+        }
+        return resultado;
+    }
+
+    @Override
+    public List<String> findSugerencias(String prefijo, int limite) {
+        return indiceAutocompletado.sugerir(prefijo, limite);
+    }
+
     @Override
     public void deleteById(Long id) {
-        libros.remove(id);
+        libros.computeIfPresent(id, (clave, actual) -> {
+            indiceIsbn.eliminar(clave);
+            idsOrdenados.quitar(clave);
+            indiceTexto.quitar(clave);
+            indiceAutocompletado.quitar(clave);
+            indiceEstados.eliminar(clave);
+            return null;
+        });
     }
 
     @Override
     public boolean existsById(Long id) {
         return libros.containsKey(id);
     }
-}
\ No newline at end of file
+
+    /**
+     * Memoria ocupada por el índice de autocompletado, para reportes.
+     */
+    public IndiceAutocompletado.Memoria getMemoriaAutocompletado() {
+        return indiceAutocompletado.memoria();
+    }
+
+    /**
+     * Vuelve a indexar el estado de todos los libros, para cuando se cambia
+     * sin pasar por {@code save} (al derivarlo de los préstamos recuperados).
+     */
+    public void reindexarEstados() {
+        for (Long id : libros.keySet()) {
+            libros.computeIfPresent(id, (clave, libro) -> {
+                indiceEstados.registrar(clave, libro.getEstado());
+                return libro;
+            });
+        }
+    }
+
+    @Override
+    public int contar() {
+        return libros.size();
+    }
+
+    public long getUltimoId() {
+        return sequence.get();
+    }
+
+    /**
+     * Garantiza que los ids nuevos sean mayores que el indicado, aunque ese id
+     * ya no exista (por ejemplo al recuperar una instantánea).
+     */
+    public void avanzarSecuenciaHasta(long id) {
+        sequence.accumulateAndGet(id, Math::max);
+    }
+
+    /**
+     * El libro guardado suele ser la misma instancia que se modificó, así que
+     * no sirve compararlo con el anterior: se compara con lo que quedó
+     * indexado. Un préstamo o una devolución sólo cambian el estado y no
+     * tocan los índices de texto.
+     */
+    private void indexarTexto(Long id, Libro libro) {
+        if (!indiceTexto.indexadoCon(id, libro.getTitulo(), libro.getAutor())) {
+            indiceTexto.indexar(id, libro.getTitulo(), libro.getAutor());
+            indiceAutocompletado.indexar(id, libro.getTitulo(), libro.getAutor());
+        }
+    }
+}
@@ -3,36 +3,78 @@ package com.biblioteca.app.repository.impl;
 import com.biblioteca.app.model.Prestamo;
 import com.biblioteca.app.model.Usuario;
 import com.biblioteca.app.repository.PrestamoRepository;
+import com.biblioteca.app.repository.indice.IdsOrdenados;
+import com.biblioteca.app.repository.indice.IndiceVencimientos;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDate;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.stream.Collectors;
 
 @Repository
 public class PrestamoRepositoryImpl implements PrestamoRepository {
     private final Map<Long, Prestamo> prestamos = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> prestamosPorUsuario = new ConcurrentHashMap<>();
+    private final Set<Long> activos = ConcurrentHashMap.newKeySet();
+    private final IndiceVencimientos vencimientos = new IndiceVencimientos();
+    private final IdsOrdenados idsOrdenados = new IdsOrdenados();
     private final AtomicLong sequence = new AtomicLong(0);
 
     @Override
     public Prestamo save(Prestamo prestamo) {
         if (prestamo.getId() == null) {
             prestamo.setId(sequence.incrementAndGet());
+        } else {
+            avanzarSecuenciaHasta(prestamo.getId());
         }
-        prestamos.put(prestamo.getId(), prestamo);
+        prestamos.compute(prestamo.getId(), (id, actual) -> {
+            idsOrdenados.agregar(id);
+            indexarPorUsuario(id, prestamo.getUsuarioId());
+            if (prestamo.isActivo()) {
+                activos.add(id);
+                vencimientos.registrar(id, prestamo.getFechaVencimiento());
+            } else {
+                quitarDeActivos(id);
+            }
+            return prestamo;
+        });
         return prestamo;
     }
 
+    @Override
+    public List<Prestamo> saveAll(List<Prestamo> prestamos) {
+        List<Prestamo> guardados = new ArrayList<>(prestamos.size());
+        for (Prestamo prestamo : prestamos) {
+            guardados.add(save(prestamo));
+        }
+        return guardados;
+    }
+
     @Override
     public Optional<Prestamo> findById(Long id) {
         return Optional.ofNullable(prestamos.get(id));
     }
 
+    /**
+     * Recorre sólo los préstamos del usuario. Si un préstamo cambió de usuario
+     * después de indexarse, se descarta aquí y se quita del índice viejo.
+     */
     @Override
     public List<Prestamo> findByUsuario(Usuario usuario) {
-        return prestamos.values().stream()
-                .filter(prestamo -> prestamo.getUsuario().getId().equals(usuario.getId()))
-                .collect(Collectors.toList());
+        Set<Long> ids = prestamosPorUsuario.get(usuario.getId());
+        if (ids == null) {
+            return new ArrayList<>();
+        }
+        List<Prestamo> resultado = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Prestamo prestamo = prestamos.get(id);
+            if (prestamo != null && usuario.getId().equals(prestamo.getUsuarioId())) {
+                resultado.add(prestamo);
+            } else {
+                desindexarPorUsuario(id, usuario.getId());
+            }
+        }
+        return resultado;
     }
 
     @Override
@@ -40,9 +82,19 @@ public class PrestamoRepositoryImpl implements PrestamoRepository {
         return new ArrayList<>(prestamos.values());
     }
 
+    @Override
+    public List<Prestamo> findPagina(Long despuesDeId, int limite) {
+        return idsOrdenados.pagina(despuesDeId, limite, prestamos);
+    }
+
     @Override
     public void deleteById(Long id) {
-        prestamos.remove(id);
+        prestamos.computeIfPresent(id, (clave, actual) -> {
+            desindexarPorUsuario(clave, actual.getUsuarioId());
+            quitarDeActivos(clave);
+            idsOrdenados.quitar(clave);
+            return null;
+        });
     }
 
     @Override
@@ -50,17 +102,120 @@ public class PrestamoRepositoryImpl implements PrestamoRepository {
         return prestamos.containsKey(id);
     }
 
+    /**
+     * Recorre sólo el conjunto de préstamos activos. Un préstamo finalizado
+     * que todavía no se volvió a guardar se descarta aquí y sale del conjunto.
+     */
     @Override
     public List<Prestamo> findPrestamosActivos() {
-        return prestamos.values().stream()
-                .filter(Prestamo::isActivo)
-                .collect(Collectors.toList());
+        List<Prestamo> resultado = new ArrayList<>(activos.size());
+        for (Long id : activos) {
+            Prestamo prestamo = prestamos.get(id);
+            if (prestamo != null && prestamo.isActivo()) {
+                resultado.add(prestamo);
+            } else if (prestamo != null) {
+                descartarActivo(id);
+            }
+        }
+        return resultado;
     }
 
     @Override
     public List<Prestamo> findPrestamosVencidos() {
-        return prestamos.values().stream()
-                .filter(prestamo -> prestamo.isActivo() && prestamo.estaVencido())
-                .collect(Collectors.toList());
+        return findPrestamosVencidosAl(LocalDate.now());
     }
-}
\ No newline at end of file
+
+    /**
+     * Lee la cabeza del índice de vencimientos: sólo se visitan los préstamos
+     * cuyo vencimiento es anterior a la fecha.
+     */
+    @Override
+    public List<Prestamo> findPrestamosVencidosAl(LocalDate fecha) {
+        return findPrestamosQueVencenEntre(null, fecha);
+    }
+
+    /**
+     * Lee el rango del índice de vencimientos: sólo se visitan los préstamos
+     * que vencen entre las dos fechas.
+     */
+    @Override
+    public List<Prestamo> findPrestamosQueVencenEntre(LocalDate desde, LocalDate hasta) {
+        List<Prestamo> resultado = new ArrayList<>();
+        for (Long id : vencimientos.vencenEntre(desde, hasta)) {
+            Prestamo prestamo = prestamos.get(id);
+            if (prestamo != null && prestamo.isActivo()) {
+                resultado.add(prestamo);
+            } else if (prestamo != null) {
+                descartarActivo(id);
+            }
+        }
+        return resultado;
+    }
+
+    @Override
+    public int contar() {
+        return prestamos.size();
+    }
+
+    @Override
+    public int contarActivos() {
+        return activos.size();
+    }
+
+    /**
+     * Cuenta la cabeza del índice de vencimientos.
+     */
+    @Override
+    public int contarVencidosAl(LocalDate fecha) {
+        return vencimientos.contarVencidosAl(fecha);
+    }
+
+    public long getUltimoId() {
+        return sequence.get();
+    }
+
+    /**
+     * Garantiza que los ids nuevos sean mayores que el indicado, aunque ese id
+     * ya no exista (por ejemplo al recuperar una instantánea).
+     */
+    public void avanzarSecuenciaHasta(long id) {
+        sequence.accumulateAndGet(id, Math::max);
+    }
+
+    private void indexarPorUsuario(Long prestamoId, Long usuarioId) {
+        if (usuarioId == null) {
+            return;
+        }
+        prestamosPorUsuario.compute(usuarioId, (clave, ids) -> {
+            Set<Long> resultado = ids != null ? ids : ConcurrentHashMap.newKeySet();
+            resultado.add(prestamoId);
+            return resultado;
+        });
+    }
+
+    private void desindexarPorUsuario(Long prestamoId, Long usuarioId) {
+        if (usuarioId == null) {
+            return;
+        }
+        prestamosPorUsuario.computeIfPresent(usuarioId, (clave, ids) -> {
+            ids.remove(prestamoId);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private void descartarActivo(Long id) {
+        // Bajo el lock del id para no pisar un save concurrente que lo reactive
+        prestamos.computeIfPresent(id, (clave, prestamo) -> {
+            if (!prestamo.isActivo()) {
+                quitarDeActivos(clave);
+            }
+            return prestamo;
+        });
+    }
+
+    private void quitarDeActivos(Long id) {
+        activos.remove(id);
+        vencimientos.eliminar(id);
+    }
+
+}
@@ -2,6 +2,8 @@ package com.biblioteca.app.repository.impl;
 
 import com.biblioteca.app.model.Usuario;
 import com.biblioteca.app.repository.UsuarioRepository;
+import com.biblioteca.app.repository.indice.IdsOrdenados;
+import com.biblioteca.app.repository.indice.IndiceUnico;
 import org.springframework.stereotype.Repository;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
@@ -10,27 +12,81 @@ import java.util.concurrent.atomic.AtomicLong;
 @Repository
 public class UsuarioRepositoryImpl implements UsuarioRepository {
     private final Map<Long, Usuario> usuarios = new ConcurrentHashMap<>();
+    private final IndiceUnico<String> indiceEmail = new IndiceUnico<>();
+    private final IdsOrdenados idsOrdenados = new IdsOrdenados();
     private final AtomicLong sequence = new AtomicLong(0);
 
+    /**
+     * Guarda el usuario y mantiene el índice de emails dentro del mismo compute.
+     * Un id explícito adelanta la secuencia, igual que en los libros.
+     *
+     * @throws IllegalArgumentException si el email ya pertenece a otro usuario
+     */
     @Override
     public Usuario save(Usuario usuario) {
-        if (usuario.getId() == null) {
+        boolean nuevo = usuario.getId() == null;
+        if (nuevo) {
             usuario.setId(sequence.incrementAndGet());
+        } else {
+            avanzarSecuenciaHasta(usuario.getId());
+        }
+        try {
+            usuarios.compute(usuario.getId(), (id, actual) -> {
+                if (!indiceEmail.asignar(id, normalizarEmail(usuario.getEmail()))) {
+                    throw new IllegalArgumentException("Ya existe un usuario con email: " + usuario.getEmail());
+                }
+                idsOrdenados.agregar(id);
+                return usuario;
+            });
+        } catch (IllegalArgumentException e) {
+            if (nuevo) {
+                usuario.setId(null);
+            }
+            throw e;
         }
-        usuarios.put(usuario.getId(), usuario);
         return usuario;
     }
 
+    /**
+     * Reserva el email y cambia el usuario dentro del compute de su id.
+     */
+    @Override
+    public Usuario actualizar(Long id, String nombre, String email) {
+        Usuario actualizado = usuarios.computeIfPresent(id, (clave, usuario) -> {
+            if (!indiceEmail.asignar(clave, normalizarEmail(email))) {
+                throw new IllegalArgumentException("Ya existe un usuario con email: " + email);
+            }
+            usuario.setNombre(nombre);
+            usuario.setEmail(email);
+            return usuario;
+        });
+        if (actualizado == null) {
+            throw new IllegalArgumentException("No existe el usuario con ID: " + id);
+        }
+        return actualizado;
+    }
+
     @Override
     public Optional<Usuario> findById(Long id) {
         return Optional.ofNullable(usuarios.get(id));
     }
 
+    @Override
+    public Map<Long, Usuario> findAllById(Collection<Long> ids) {
+        Map<Long, Usuario> resultado = new HashMap<>(ids.size() * 2);
+        for (Long id : ids) {
+            Usuario encontrado = id != null ? usuarios.get(id) : null;
+            if (encontrado != null) {
+                resultado.put(id, encontrado);
+            }
+        }
+        return resultado;
+    }
+
     @Override
     public Optional<Usuario> findByEmail(String email) {
-        return usuarios.values().stream()
-                .filter(usuario -> usuario.getEmail().equals(email))
-                .findFirst();
+        Long id = indiceEmail.buscar(normalizarEmail(email));
+        return id == null ? Optional.empty() : Optional.ofNullable(usuarios.get(id));
     }
 
     @Override
@@ -38,13 +94,46 @@ public class UsuarioRepositoryImpl implements UsuarioRepository {
         return new ArrayList<>(usuarios.values());
     }
 
+    @Override
+    public List<Usuario> findPagina(Long despuesDeId, int limite) {
+        return idsOrdenados.pagina(despuesDeId, limite, usuarios);
+    }
+
     @Override
     public void deleteById(Long id) {
-        usuarios.remove(id);
+        usuarios.computeIfPresent(id, (clave, actual) -> {
+            indiceEmail.eliminar(clave);
+            idsOrdenados.quitar(clave);
+            return null;
+        });
     }
 
     @Override
     public boolean existsById(Long id) {
         return usuarios.containsKey(id);
     }
-}
\ No newline at end of file
+
+    @Override
+    public int contar() {
+        return usuarios.size();
+    }
+
+    public long getUltimoId() {
+        return sequence.get();
+    }
+
+    /**
+     * Garantiza que los ids nuevos sean mayores que el indicado, aunque ese id
+     * ya no exista (por ejemplo al recuperar una instantánea).
+     */
+    public void avanzarSecuenciaHasta(long id) {
+        sequence.accumulateAndGet(id, Math::max);
+    }
+
+    /**
+     * Los emails se comparan sin distinguir mayúsculas ni espacios alrededor.
+     */
+    static String normalizarEmail(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+}
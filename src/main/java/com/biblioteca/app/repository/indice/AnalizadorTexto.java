@@ -0,0 +1,88 @@
+package com.biblioteca.app.repository.indice;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Convierte texto libre en términos de búsqueda: separa por todo lo que no sea
+ * letra o dígito, pasa a minúsculas y quita tildes y diéresis ("Canción" y
+ * "cancion" dan el mismo término). La ñ también se pliega a n, igual que hace
+ * la mayoría de los buscadores. Las palabras vacías del español no se indexan:
+ * aparecen en casi todos los títulos y no ayudan a ordenar.
+ */
+public final class AnalizadorTexto {
+    private static final Set<String> PALABRAS_VACIAS = Set.of(
+            "a", "al", "con", "de", "del", "e", "el", "en", "la", "las", "lo", "los",
+            "o", "para", "por", "que", "se", "su", "sus", "u", "un", "una", "y");
+
+    private AnalizadorTexto() {
+    }
+
+    /**
+     * Términos del texto en orden de aparición, con repeticiones.
+     */
+    public static List<String> terminos(String texto) {
+        List<String> terminos = new ArrayList<>();
+        if (texto == null || texto.isEmpty()) {
+            return terminos;
+        }
+        String descompuesto = Normalizer.normalize(texto, Normalizer.Form.NFD);
+        StringBuilder actual = new StringBuilder();
+        for (int i = 0; i < descompuesto.length(); i++) {
+            char c = descompuesto.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                // Tilde separada de su letra por la descomposición
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                actual.append(Character.toLowerCase(c));
+            } else {
+                agregar(terminos, actual);
+            }
+        }
+        agregar(terminos, actual);
+        return terminos;
+    }
+
+    /**
+     * Forma plegada del texto completo, para comparar y ordenar frases: igual
+     * que los términos pero conservando las palabras vacías y con un solo
+     * espacio entre palabras ("Cien  Años de Soledad" da "cien anos de soledad").
+     */
+    public static String clave(String texto) {
+        if (texto == null || texto.isEmpty()) {
+            return "";
+        }
+        String descompuesto = Normalizer.normalize(texto, Normalizer.Form.NFD);
+        StringBuilder clave = new StringBuilder(descompuesto.length());
+        for (int i = 0; i < descompuesto.length(); i++) {
+            char c = descompuesto.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                clave.append(Character.toLowerCase(c));
+            } else if (!clave.isEmpty() && clave.charAt(clave.length() - 1) != ' ') {
+                clave.append(' ');
+            }
+        }
+        int largo = clave.length();
+        if (largo > 0 && clave.charAt(largo - 1) == ' ') {
+            clave.setLength(largo - 1);
+        }
+        return clave.toString();
+    }
+
+    private static void agregar(List<String> terminos, StringBuilder actual) {
+        if (actual.isEmpty()) {
+            return;
+        }
+        String termino = actual.toString();
+        actual.setLength(0);
+        if (!PALABRAS_VACIAS.contains(termino)) {
+            terminos.add(termino);
+        }
+    }
+}
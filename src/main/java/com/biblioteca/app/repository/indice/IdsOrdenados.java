@@ -0,0 +1,50 @@
+package com.biblioteca.app.repository.indice;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Ids de un repositorio en orden ascendente, para paginar por clave.
+ * Una página se lee recorriendo la cola del conjunto a partir del último id
+ * entregado, así que el costo y la memoria dependen del tamaño de la página y
+ * no del total. Las altas y bajas concurrentes no invalidan el recorrido: cada
+ * id aparece a lo sumo una vez a lo largo de todas las páginas.
+ */
+public class IdsOrdenados {
+    private final NavigableSet<Long> ids = new ConcurrentSkipListSet<>();
+
+    public void agregar(Long id) {
+        ids.add(id);
+    }
+
+    public void quitar(Long id) {
+        ids.remove(id);
+    }
+
+    /**
+     * @param despuesDeId último id de la página anterior, o null para empezar
+     * @param limite      cantidad máxima de elementos
+     * @param valores     mapa principal del repositorio
+     */
+    public <V> List<V> pagina(Long despuesDeId, int limite, Map<Long, V> valores) {
+        if (limite < 1) {
+            throw new IllegalArgumentException("El límite debe ser positivo");
+        }
+        NavigableSet<Long> cola = despuesDeId == null ? ids : ids.tailSet(despuesDeId, false);
+        List<V> resultado = new ArrayList<>(Math.min(limite, 1024));
+        for (Long id : cola) {
+            V valor = valores.get(id);
+            // Puede haberse borrado entre la lectura del índice y la del mapa
+            if (valor != null) {
+                resultado.add(valor);
+                if (resultado.size() == limite) {
+                    break;
+                }
+            }
+        }
+        return resultado;
+    }
+}
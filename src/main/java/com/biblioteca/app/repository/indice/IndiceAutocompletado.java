@@ -0,0 +1,469 @@
+package com.biblioteca.app.repository.indice;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sugerencias para completar lo que se va escribiendo: dado un prefijo devuelve
+ * los textos indexados que empiezan con él (sin distinguir mayúsculas ni
+ * tildes), primero los que más libros comparten y a igual cantidad en orden
+ * alfabético.
+ * <p>
+ * El grueso de las sugerencias vive en una base inmutable: un arreglo ordenado
+ * por clave con todos los textos empaquetados en un único {@code byte[]} y el
+ * peso de cada uno en un {@code int[]}, sin un objeto por sugerencia. Para no
+ * recorrer todo el rango de un prefijo corto, la base guarda el peso máximo de
+ * cada bloque de {@value #TAMANIO_BLOQUE} entradas y los bloques se visitan del
+ * más pesado al más liviano, cortando cuando ya no pueden mejorar el resultado.
+ * <p>
+ * Los cambios van a un delta ordenado (con el peso vigente de cada clave
+ * tocada, 0 si ya no quedan libros) que tapa a la base. Cuando el delta crece
+ * se fusiona con la base en segundo plano: mientras tanto el delta anterior
+ * queda congelado entre ambos y los cambios nuevos van a un delta vacío, así
+ * que ni las lecturas ni las escrituras esperan a la fusión.
+ * Las actualizaciones de un mismo id deben estar serializadas por el llamador.
+ */
+public class IndiceAutocompletado {
+    static final int TAMANIO_BLOQUE = 64;
+    private static final int MINIMO_PARA_COMPACTAR = 4096;
+
+    /** Textos indexados de cada id, para descontarlos cuando cambian. */
+    private final Map<Long, String[]> textosPorId = new ConcurrentHashMap<>();
+    private final Object escritura = new Object();
+    private final AtomicBoolean compactando = new AtomicBoolean();
+    private volatile Capas capas = new Capas(Base.VACIA, null, new ConcurrentSkipListMap<>());
+    /** Claves en el delta actual; sólo se usa bajo el monitor de escritura. */
+    private int tamanioDelta;
+
+    /**
+     * Indexa (o reindexa) los textos del id. Si no cambiaron no toca el índice.
+     */
+    public void indexar(Long id, String... textos) {
+        String[] anteriores = textosPorId.get(id);
+        if (Arrays.equals(anteriores, textos)) {
+            return;
+        }
+        boolean compactar;
+        synchronized (escritura) {
+            if (anteriores != null) {
+                for (String texto : anteriores) {
+                    ajustar(texto, -1);
+                }
+            }
+            for (String texto : textos) {
+                ajustar(texto, 1);
+            }
+            compactar = hayQueCompactar();
+        }
+        textosPorId.put(id, textos.clone());
+        if (compactar) {
+            compactarEnSegundoPlano();
+        }
+    }
+
+    public void quitar(Long id) {
+        String[] anteriores = textosPorId.remove(id);
+        if (anteriores == null) {
+            return;
+        }
+        synchronized (escritura) {
+            for (String texto : anteriores) {
+                ajustar(texto, -1);
+            }
+        }
+    }
+
+    /**
+     * Hasta {@code limite} textos que empiezan con el prefijo. Un espacio al
+     * final del prefijo se respeta: "cien " no sugiere "Cienfuegos".
+     *
+     * @throws IllegalArgumentException si el límite no es positivo
+     */
+    public List<String> sugerir(String prefijo, int limite) {
+        if (limite < 1) {
+            throw new IllegalArgumentException("El límite debe ser positivo");
+        }
+        String clave = AnalizadorTexto.clave(prefijo);
+        if (clave.isEmpty()) {
+            return List.of();
+        }
+        if (Character.isWhitespace(prefijo.charAt(prefijo.length() - 1))) {
+            clave += ' ';
+        }
+        String hasta = clave + Character.MAX_VALUE;
+        Capas actuales = capas;
+        Seleccion seleccion = new Seleccion(limite);
+        for (Map.Entry<String, Sugerencia> entrada : actuales.delta.subMap(clave, hasta).entrySet()) {
+            seleccion.considerar(entrada.getKey(), entrada.getValue());
+        }
+        if (actuales.congelado != null) {
+            for (Map.Entry<String, Sugerencia> entrada : actuales.congelado.subMap(clave, hasta).entrySet()) {
+                if (!actuales.delta.containsKey(entrada.getKey())) {
+                    seleccion.considerar(entrada.getKey(), entrada.getValue());
+                }
+            }
+        }
+        actuales.base.seleccionar(clave, hasta, actuales, seleccion);
+        return seleccion.textos();
+    }
+
+    /**
+     * Fusiona el delta con la base. Si ya hay una fusión en curso no hace nada.
+     */
+    public void compactar() {
+        if (!compactando.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Capas congeladas;
+            synchronized (escritura) {
+                Capas actuales = capas;
+                congeladas = new Capas(actuales.base, actuales.delta, new ConcurrentSkipListMap<>());
+                capas = congeladas;
+                tamanioDelta = 0;
+            }
+            Base nueva = Base.fusionar(congeladas.base, congeladas.congelado);
+            synchronized (escritura) {
+                capas = new Capas(nueva, null, capas.delta);
+            }
+        } finally {
+            compactando.set(false);
+        }
+    }
+
+    /**
+     * Tamaño del índice, para estimar cuánto ocupa cada texto.
+     */
+    public Memoria memoria() {
+        Capas actuales = capas;
+        return new Memoria(actuales.base.tamanio, actuales.base.bytes(), actuales.delta.size());
+    }
+
+    /**
+     * @param sugerenciasBase textos distintos en la base
+     * @param bytesBase       bytes de los arreglos de la base
+     * @param entradasDelta   claves cambiadas desde la última fusión
+     */
+    public record Memoria(int sugerenciasBase, long bytesBase, int entradasDelta) {
+        public double bytesPorSugerencia() {
+            return sugerenciasBase == 0 ? 0 : (double) bytesBase / sugerenciasBase;
+        }
+    }
+
+    private void ajustar(String texto, int diferencia) {
+        String clave = AnalizadorTexto.clave(texto);
+        if (clave.isEmpty()) {
+            return;
+        }
+        Capas actuales = capas;
+        Sugerencia actual = actuales.buscar(clave);
+        int peso = Math.max(0, (actual == null ? 0 : actual.peso()) + diferencia);
+        // Se conserva el texto que ya se mostraba mientras quede algún libro con esa clave
+        String mostrado = actual != null && actual.peso() > 0 ? actual.texto() : texto;
+        if (actuales.delta.put(clave, new Sugerencia(mostrado, peso)) == null) {
+            tamanioDelta++;
+        }
+    }
+
+    private boolean hayQueCompactar() {
+        return tamanioDelta > Math.max(MINIMO_PARA_COMPACTAR, capas.base.tamanio / 8) && !compactando.get();
+    }
+
+    private void compactarEnSegundoPlano() {
+        ForkJoinPool.commonPool().execute(this::compactar);
+    }
+
+    private record Sugerencia(String texto, int peso) {
+    }
+
+    /**
+     * Base, delta congelado (durante una fusión) y delta actual. Una clave del
+     * delta tapa a la del congelado y ésta a la de la base.
+     */
+    private record Capas(Base base, NavigableMap<String, Sugerencia> congelado,
+            NavigableMap<String, Sugerencia> delta) {
+
+        Sugerencia buscar(String clave) {
+            Sugerencia sugerencia = delta.get(clave);
+            if (sugerencia == null && congelado != null) {
+                sugerencia = congelado.get(clave);
+            }
+            return sugerencia != null ? sugerencia : base.buscar(clave);
+        }
+
+        boolean tapada(String clave) {
+            return delta.containsKey(clave) || (congelado != null && congelado.containsKey(clave));
+        }
+    }
+
+    /**
+     * Los mejores candidatos vistos, en un montículo cuya raíz es el peor.
+     */
+    private static final class Seleccion {
+        private final int limite;
+        private final PriorityQueue<Candidato> candidatos;
+
+        Seleccion(int limite) {
+            this.limite = limite;
+            this.candidatos = new PriorityQueue<>(Math.min(limite, 1024) + 1);
+        }
+
+        void considerar(String clave, Sugerencia sugerencia) {
+            if (sugerencia.peso() > 0) {
+                considerar(new Candidato(clave, sugerencia.texto(), sugerencia.peso()));
+            }
+        }
+
+        void considerar(Candidato candidato) {
+            if (candidatos.size() < limite) {
+                candidatos.add(candidato);
+            } else if (candidatos.peek().compareTo(candidato) < 0) {
+                candidatos.poll();
+                candidatos.add(candidato);
+            }
+        }
+
+        boolean completa() {
+            return candidatos.size() == limite;
+        }
+
+        Candidato peor() {
+            return candidatos.peek();
+        }
+
+        List<String> textos() {
+            String[] textos = new String[candidatos.size()];
+            for (int i = textos.length - 1; i >= 0; i--) {
+                textos[i] = candidatos.poll().texto();
+            }
+            return Arrays.asList(textos);
+        }
+    }
+
+    /**
+     * Ordenado del peor al mejor: menos peso, o a igual peso clave mayor.
+     */
+    private record Candidato(String clave, String texto, int peso) implements Comparable<Candidato> {
+        @Override
+        public int compareTo(Candidato otro) {
+            return peso != otro.peso ? Integer.compare(peso, otro.peso) : otro.clave.compareTo(clave);
+        }
+    }
+
+    /**
+     * Arreglo inmutable ordenado por clave. Cada entrada ocupa en {@code datos}
+     * el largo de la clave (varint), la clave en UTF-8 y, si difiere de la
+     * clave, el texto a mostrar en UTF-8.
+     */
+    private static final class Base {
+        static final Base VACIA = new Base(new byte[0], new int[] {0}, new int[0], 0);
+
+        private final byte[] datos;
+        private final int[] inicios;
+        private final int[] pesos;
+        private final int[] maximosPorBloque;
+        private final int tamanio;
+
+        Base(byte[] datos, int[] inicios, int[] pesos, int tamanio) {
+            this.datos = datos;
+            this.inicios = inicios;
+            this.pesos = pesos;
+            this.tamanio = tamanio;
+            this.maximosPorBloque = new int[(tamanio + TAMANIO_BLOQUE - 1) / TAMANIO_BLOQUE];
+            for (int i = 0; i < tamanio; i++) {
+                int bloque = i / TAMANIO_BLOQUE;
+                maximosPorBloque[bloque] = Math.max(maximosPorBloque[bloque], pesos[i]);
+            }
+        }
+
+        long bytes() {
+            return datos.length + 4L * (inicios.length + pesos.length + maximosPorBloque.length);
+        }
+
+        Sugerencia buscar(String clave) {
+            int i = primeraDesde(clave);
+            return i < tamanio && clave(i).equals(clave) ? new Sugerencia(texto(i), pesos[i]) : null;
+        }
+
+        /**
+         * Agrega a la selección las entradas de [desde, hasta) que no estén tapadas.
+         */
+        void seleccionar(String desde, String hasta, Capas capas, Seleccion seleccion) {
+            int inicio = primeraDesde(desde);
+            int fin = primeraDesde(hasta);
+            if (inicio >= fin) {
+                return;
+            }
+            int primerBloque = inicio / TAMANIO_BLOQUE;
+            int ultimoBloque = (fin - 1) / TAMANIO_BLOQUE;
+            PriorityQueue<Integer> bloques = new PriorityQueue<>((a, b) -> maximosPorBloque[a] != maximosPorBloque[b]
+                    ? Integer.compare(maximosPorBloque[b], maximosPorBloque[a])
+                    : Integer.compare(a, b));
+            for (int bloque = primerBloque; bloque <= ultimoBloque; bloque++) {
+                bloques.add(bloque);
+            }
+            while (!bloques.isEmpty()) {
+                int bloque = bloques.poll();
+                int desdeEntrada = Math.max(inicio, bloque * TAMANIO_BLOQUE);
+                if (seleccion.completa()) {
+                    Candidato peor = seleccion.peor();
+                    int maximo = maximosPorBloque[bloque];
+                    // Los bloques que quedan pesan menos, o lo mismo pero con claves mayores
+                    if (maximo < peor.peso()
+                            || (maximo == peor.peso() && clave(desdeEntrada).compareTo(peor.clave()) > 0)) {
+                        return;
+                    }
+                }
+                int hastaEntrada = Math.min(fin, (bloque + 1) * TAMANIO_BLOQUE);
+                for (int i = desdeEntrada; i < hastaEntrada; i++) {
+                    if (seleccion.completa() && pesos[i] < seleccion.peor().peso()) {
+                        continue;
+                    }
+                    String clave = clave(i);
+                    if (!capas.tapada(clave)) {
+                        seleccion.considerar(new Candidato(clave, texto(i), pesos[i]));
+                    }
+                }
+            }
+        }
+
+        /**
+         * Fusiona la base con un delta, descartando las claves que quedaron sin libros.
+         */
+        static Base fusionar(Base base, NavigableMap<String, Sugerencia> delta) {
+            Constructor constructor = new Constructor(base.tamanio + delta.size());
+            Iterator<Map.Entry<String, Sugerencia>> cambios = delta.entrySet().iterator();
+            Map.Entry<String, Sugerencia> cambio = cambios.hasNext() ? cambios.next() : null;
+            int i = 0;
+            while (i < base.tamanio || cambio != null) {
+                int comparacion = i == base.tamanio ? 1
+                        : cambio == null ? -1
+                        : base.clave(i).compareTo(cambio.getKey());
+                if (comparacion < 0) {
+                    constructor.copiar(base, i);
+                    i++;
+                } else {
+                    if (comparacion == 0) {
+                        i++;
+                    }
+                    constructor.agregar(cambio.getKey(), cambio.getValue().texto(), cambio.getValue().peso());
+                    cambio = cambios.hasNext() ? cambios.next() : null;
+                }
+            }
+            return constructor.construir();
+        }
+
+        private int primeraDesde(String clave) {
+            int bajo = 0;
+            int alto = tamanio;
+            while (bajo < alto) {
+                int medio = (bajo + alto) >>> 1;
+                if (clave(medio).compareTo(clave) < 0) {
+                    bajo = medio + 1;
+                } else {
+                    alto = medio;
+                }
+            }
+            return bajo;
+        }
+
+        private String clave(int i) {
+            int posicion = inicios[i];
+            int largo = 0;
+            for (int desplazamiento = 0; ; desplazamiento += 7) {
+                byte b = datos[posicion++];
+                largo |= (b & 0x7F) << desplazamiento;
+                if (b >= 0) {
+                    break;
+                }
+            }
+            return new String(datos, posicion, largo, StandardCharsets.UTF_8);
+        }
+
+        private String texto(int i) {
+            int posicion = inicios[i];
+            int largo = 0;
+            for (int desplazamiento = 0; ; desplazamiento += 7) {
+                byte b = datos[posicion++];
+                largo |= (b & 0x7F) << desplazamiento;
+                if (b >= 0) {
+                    break;
+                }
+            }
+            int inicioTexto = posicion + largo;
+            if (inicioTexto == inicios[i + 1]) {
+                return new String(datos, posicion, largo, StandardCharsets.UTF_8);
+            }
+            return new String(datos, inicioTexto, inicios[i + 1] - inicioTexto, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static final class Constructor {
+        private byte[] datos;
+        private final int[] inicios;
+        private final int[] pesos;
+        private int tamanio;
+        private int posicion;
+
+        Constructor(int capacidad) {
+            this.datos = new byte[Math.max(16, capacidad * 32)];
+            this.inicios = new int[capacidad + 1];
+            this.pesos = new int[capacidad];
+        }
+
+        void agregar(String clave, String texto, int peso) {
+            if (peso <= 0) {
+                return;
+            }
+            byte[] claveUtf8 = clave.getBytes(StandardCharsets.UTF_8);
+            byte[] textoUtf8 = texto.equals(clave) ? new byte[0] : texto.getBytes(StandardCharsets.UTF_8);
+            asegurar(5 + claveUtf8.length + textoUtf8.length);
+            inicios[tamanio] = posicion;
+            int largo = claveUtf8.length;
+            while ((largo & ~0x7F) != 0) {
+                datos[posicion++] = (byte) ((largo & 0x7F) | 0x80);
+                largo >>>= 7;
+            }
+            datos[posicion++] = (byte) largo;
+            System.arraycopy(claveUtf8, 0, datos, posicion, claveUtf8.length);
+            posicion += claveUtf8.length;
+            System.arraycopy(textoUtf8, 0, datos, posicion, textoUtf8.length);
+            posicion += textoUtf8.length;
+            pesos[tamanio++] = peso;
+        }
+
+        /**
+         * Copia la entrada tal como está codificada, sin decodificarla.
+         */
+        void copiar(Base base, int i) {
+            int largo = base.inicios[i + 1] - base.inicios[i];
+            asegurar(largo);
+            inicios[tamanio] = posicion;
+            System.arraycopy(base.datos, base.inicios[i], datos, posicion, largo);
+            posicion += largo;
+            pesos[tamanio++] = base.pesos[i];
+        }
+
+        Base construir() {
+            inicios[tamanio] = posicion;
+            return new Base(Arrays.copyOf(datos, posicion), Arrays.copyOf(inicios, tamanio + 1),
+                    Arrays.copyOf(pesos, tamanio), tamanio);
+        }
+
+        private void asegurar(int cantidad) {
+            if (posicion + cantidad > datos.length) {
+                datos = Arrays.copyOf(datos, Math.max(datos.length + (datos.length >> 1), posicion + cantidad));
+            }
+        }
+    }
+}
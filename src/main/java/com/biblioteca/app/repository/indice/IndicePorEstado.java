@@ -0,0 +1,64 @@
+package com.biblioteca.app.repository.indice;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ids agrupados por estado, en orden ascendente dentro de cada estado. Listar
+ * los de un estado cuesta O(resultado) y contarlos O(1), porque cada estado
+ * lleva su propio contador en lugar de medir el conjunto.
+ * Las actualizaciones de un mismo id deben estar serializadas por el llamador.
+ */
+public class IndicePorEstado<E extends Enum<E>> {
+    private final Map<Long, E> estadoPorId = new ConcurrentHashMap<>();
+    private final Map<E, NavigableSet<Long>> idsPorEstado;
+    private final Map<E, AtomicInteger> cantidades;
+
+    public IndicePorEstado(Class<E> tipo) {
+        this.idsPorEstado = new EnumMap<>(tipo);
+        this.cantidades = new EnumMap<>(tipo);
+        for (E estado : tipo.getEnumConstants()) {
+            idsPorEstado.put(estado, new ConcurrentSkipListSet<>());
+            cantidades.put(estado, new AtomicInteger());
+        }
+    }
+
+    /**
+     * Mueve el id al conjunto de su estado actual; con estado null lo quita.
+     */
+    public void registrar(Long id, E estado) {
+        E anterior = estado == null ? estadoPorId.remove(id) : estadoPorId.put(id, estado);
+        if (anterior == estado) {
+            return;
+        }
+        if (estado != null) {
+            idsPorEstado.get(estado).add(id);
+            cantidades.get(estado).incrementAndGet();
+        }
+        if (anterior != null) {
+            idsPorEstado.get(anterior).remove(id);
+            cantidades.get(anterior).decrementAndGet();
+        }
+    }
+
+    public void eliminar(Long id) {
+        registrar(id, null);
+    }
+
+    /**
+     * Ids en el estado dado, del menor al mayor.
+     */
+    public List<Long> ids(E estado) {
+        return new ArrayList<>(idsPorEstado.get(estado));
+    }
+
+    public int contar(E estado) {
+        return cantidades.get(estado).get();
+    }
+}
@@ -0,0 +1,530 @@
+package com.biblioteca.app.repository.indice;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Índice invertido término → ids, con resultados ordenados por BM25.
+ * <p>
+ * Cada término tiene su lista de apariciones (id, frecuencia y largo del
+ * documento) en arreglos primitivos, protegida por su propio monitor; así un
+ * alta sólo bloquea los términos del documento que cambia y una búsqueda sólo
+ * los términos de la consulta. Las actualizaciones de un mismo id deben estar
+ * serializadas por el llamador (el repositorio lo hace dentro del compute del
+ * mapa principal). Mientras se reindexa un documento una búsqueda concurrente
+ * puede verlo con sus términos viejos, los nuevos o ninguno de los dos.
+ */
+public class IndiceTextoCompleto {
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final Map<String, Apariciones> apariciones = new ConcurrentHashMap<>();
+    /** Campos y términos indexados de cada documento, para compararlos y quitarlo después. */
+    private final Map<Long, Documento> documentos = new ConcurrentHashMap<>();
+    private final AtomicLong largoTotal = new AtomicLong();
+
+    /**
+     * Indexa (o reindexa) el documento con el texto de todos sus campos.
+     * Si los campos no cambiaron no los vuelve a analizar, y si cambiaron
+     * pero dan los mismos términos no toca las apariciones.
+     */
+    public void indexar(Long id, String... campos) {
+        Documento anterior = documentos.get(id);
+        if (anterior != null && Arrays.equals(anterior.campos(), campos)) {
+            return;
+        }
+        List<String> encontrados = new ArrayList<>();
+        for (String campo : campos) {
+            encontrados.addAll(AnalizadorTexto.terminos(campo));
+        }
+        String[] terminos = encontrados.toArray(String[]::new);
+        if (anterior != null && Arrays.equals(anterior.terminos(), terminos)) {
+            documentos.put(id, new Documento(campos.clone(), anterior.terminos()));
+            return;
+        }
+        if (anterior != null) {
+            quitar(id);
+        }
+        if (terminos.length == 0) {
+            return;
+        }
+
+        Map<String, Integer> frecuencias = new LinkedHashMap<>();
+        for (String termino : terminos) {
+            frecuencias.merge(termino, 1, Integer::sum);
+        }
+        for (Map.Entry<String, Integer> entrada : frecuencias.entrySet()) {
+            apariciones.computeIfAbsent(entrada.getKey(), Apariciones::new)
+                    .agregar(id, entrada.getValue(), terminos.length);
+        }
+        // Se guarda la instancia de cada término que ya vive en el diccionario
+        for (int i = 0; i < terminos.length; i++) {
+            terminos[i] = apariciones.get(terminos[i]).termino;
+        }
+        documentos.put(id, new Documento(campos.clone(), terminos));
+        largoTotal.addAndGet(terminos.length);
+    }
+
+    /**
+     * Indica si el documento está indexado con exactamente esos campos, para
+     * que el repositorio no toque los índices de texto cuando el título y el
+     * autor no cambiaron.
+     */
+    public boolean indexadoCon(Long id, String... campos) {
+        Documento documento = documentos.get(id);
+        return documento != null && Arrays.equals(documento.campos(), campos);
+    }
+
+    public void quitar(Long id) {
+        Documento documento = documentos.remove(id);
+        if (documento == null) {
+            return;
+        }
+        String[] terminos = documento.terminos();
+        for (String termino : terminos) {
+            Apariciones lista = apariciones.get(termino);
+            if (lista != null) {
+                lista.quitar(id);
+            }
+        }
+        largoTotal.addAndGet(-terminos.length);
+    }
+
+    /**
+     * Ids de los documentos que contienen algún término de la consulta, del
+     * más relevante al menos relevante (a igual puntaje, por id).
+     * <p>
+     * Los términos se recorren del menos frecuente al más frecuente. Cuando lo
+     * que falta recorrer ya no alcanza para superar al peor de los mejores
+     * acumulados, los términos restantes sólo suman a documentos ya vistos:
+     * una palabra común junto a una rara no obliga a puntuar a todos los
+     * documentos que tienen la común.
+     *
+     * @throws IllegalArgumentException si el límite no es positivo
+     */
+    public List<Long> buscar(String consulta, int limite) {
+        if (limite < 1) {
+            throw new IllegalArgumentException("El límite debe ser positivo");
+        }
+        int cantidadDocumentos = documentos.size();
+        if (cantidadDocumentos == 0) {
+            return List.of();
+        }
+        double largoPromedio = Math.max(1.0, (double) largoTotal.get() / cantidadDocumentos);
+        List<Apariciones> listas = new ArrayList<>();
+        for (String termino : new LinkedHashSet<>(AnalizadorTexto.terminos(consulta))) {
+            Apariciones lista = apariciones.get(termino);
+            if (lista != null) {
+                listas.add(lista);
+            }
+        }
+        if (listas.size() == 1) {
+            Mejores mejores = new Mejores(limite);
+            listas.get(0).puntuar(cantidadDocumentos, largoPromedio, mejores);
+            return mejores.ids();
+        }
+
+        int[] frecuencias = new int[listas.size()];
+        Integer[] orden = new Integer[listas.size()];
+        for (int i = 0; i < orden.length; i++) {
+            frecuencias[i] = listas.get(i).tamanio();
+            orden[i] = i;
+        }
+        Arrays.sort(orden, Comparator.comparingInt(i -> frecuencias[i]));
+        double[] maximoRestante = new double[orden.length + 1];
+        for (int i = orden.length - 1; i >= 0; i--) {
+            maximoRestante[i] = maximoRestante[i + 1] + puntajeMaximo(cantidadDocumentos, frecuencias[orden[i]]);
+        }
+
+        Puntajes puntajes = new Puntajes();
+        boolean soloVistos = false;
+        for (int i = 0; i < orden.length; i++) {
+            if (!soloVistos && i > 0 && maximoRestante[i] < puntajes.mejores(limite).umbral()) {
+                soloVistos = true;
+            }
+            listas.get(orden[i]).puntuar(cantidadDocumentos, largoPromedio, puntajes, soloVistos);
+        }
+        return puntajes.mejores(limite).ids();
+    }
+
+    /**
+     * Cantidad de documentos indexados.
+     */
+    public int tamanio() {
+        return documentos.size();
+    }
+
+    private static double idf(int cantidadDocumentos, int frecuencia) {
+        return Math.log(1 + (cantidadDocumentos - frecuencia + 0.5) / (frecuencia + 0.5));
+    }
+
+    /**
+     * Cota del aporte de un término a cualquier documento: la fracción de BM25
+     * que depende de la frecuencia nunca llega a K1 + 1.
+     */
+    private static double puntajeMaximo(int cantidadDocumentos, int frecuencia) {
+        return idf(cantidadDocumentos, frecuencia) * (K1 + 1);
+    }
+
+    private static int posicion(long id, int mascara) {
+        long mezcla = id * 0x9E3779B97F4A7C15L;
+        return (int) (mezcla ^ (mezcla >>> 32)) & mascara;
+    }
+
+    private static long[] vacios(int capacidad, long vacio) {
+        long[] arreglo = new long[capacidad];
+        Arrays.fill(arreglo, vacio);
+        return arreglo;
+    }
+
+    private record Documento(String[] campos, String[] terminos) {
+    }
+
+    /**
+     * Apariciones de un término. Las bajas intercambian con el último, así que
+     * el orden interno no importa. Cuando la lista pasa de
+     * {@value #MINIMO_PARA_POSICIONES} apariciones se le agrega una tabla id →
+     * posición para que quitar un documento de un término frecuente no recorra
+     * toda la lista; las listas chicas, que son la mayoría, no la necesitan.
+     */
+    private static final class Apariciones {
+        private static final int MINIMO_PARA_POSICIONES = 16;
+
+        private final String termino;
+        private long[] ids = new long[2];
+        private int[] frecuencias = new int[2];
+        private int[] largos = new int[2];
+        private int tamanio;
+        private PosicionesPorId posiciones;
+
+        Apariciones(String termino) {
+            this.termino = termino;
+        }
+
+        synchronized int tamanio() {
+            return tamanio;
+        }
+
+        synchronized void agregar(long id, int frecuencia, int largo) {
+            if (tamanio == ids.length) {
+                int capacidad = tamanio + (tamanio >> 1) + 1;
+                ids = Arrays.copyOf(ids, capacidad);
+                frecuencias = Arrays.copyOf(frecuencias, capacidad);
+                largos = Arrays.copyOf(largos, capacidad);
+            }
+            ids[tamanio] = id;
+            frecuencias[tamanio] = frecuencia;
+            largos[tamanio] = largo;
+            tamanio++;
+            if (posiciones != null) {
+                posiciones.poner(id, tamanio - 1);
+            } else if (tamanio > MINIMO_PARA_POSICIONES) {
+                posiciones = new PosicionesPorId(tamanio);
+                for (int i = 0; i < tamanio; i++) {
+                    posiciones.poner(ids[i], i);
+                }
+            }
+        }
+
+        synchronized void quitar(long id) {
+            int i = buscar(id);
+            if (i < 0) {
+                return;
+            }
+            tamanio--;
+            ids[i] = ids[tamanio];
+            frecuencias[i] = frecuencias[tamanio];
+            largos[i] = largos[tamanio];
+            if (posiciones != null) {
+                posiciones.quitar(id);
+                if (i < tamanio) {
+                    posiciones.poner(ids[i], i);
+                }
+            }
+        }
+
+        private int buscar(long id) {
+            if (posiciones != null) {
+                return posiciones.buscar(id);
+            }
+            for (int i = 0; i < tamanio; i++) {
+                if (ids[i] == id) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        synchronized void puntuar(int cantidadDocumentos, double largoPromedio, Puntajes puntajes,
+                boolean soloVistos) {
+            double idf = idf(cantidadDocumentos, tamanio);
+            for (int i = 0; i < tamanio; i++) {
+                puntajes.sumar(ids[i], idf * bm25(frecuencias[i], largos[i], largoPromedio), soloVistos);
+            }
+        }
+
+        /**
+         * Consulta de un solo término: no hace falta acumular.
+         */
+        synchronized void puntuar(int cantidadDocumentos, double largoPromedio, Mejores mejores) {
+            double idf = idf(cantidadDocumentos, tamanio);
+            for (int i = 0; i < tamanio; i++) {
+                mejores.considerar(ids[i], idf * bm25(frecuencias[i], largos[i], largoPromedio));
+            }
+        }
+
+        private static double bm25(double frecuencia, int largo, double largoPromedio) {
+            double normalizacion = K1 * (1 - B + B * largo / largoPromedio);
+            return frecuencia * (K1 + 1) / (frecuencia + normalizacion);
+        }
+    }
+
+    /**
+     * Tabla id → posición con direccionamiento abierto. Las bajas corren hacia
+     * atrás las entradas siguientes del mismo grupo en lugar de dejar marcas,
+     * así que las búsquedas no se alargan con el uso.
+     */
+    private static final class PosicionesPorId {
+        private static final long VACIO = Long.MIN_VALUE;
+
+        private long[] ids;
+        private int[] posiciones;
+        private int tamanio;
+
+        PosicionesPorId(int esperados) {
+            int capacidad = Integer.highestOneBit(Math.max(esperados, 8) * 2) * 2;
+            this.ids = vacios(capacidad, VACIO);
+            this.posiciones = new int[capacidad];
+        }
+
+        /**
+         * @return la posición del id, o -1 si no está
+         */
+        int buscar(long id) {
+            int mascara = ids.length - 1;
+            for (int i = posicion(id, mascara); ids[i] != VACIO; i = (i + 1) & mascara) {
+                if (ids[i] == id) {
+                    return posiciones[i];
+                }
+            }
+            return -1;
+        }
+
+        void poner(long id, int posicionEnLista) {
+            if ((tamanio + 1) * 2 > ids.length) {
+                crecer();
+            }
+            int mascara = ids.length - 1;
+            int i = posicion(id, mascara);
+            while (ids[i] != VACIO && ids[i] != id) {
+                i = (i + 1) & mascara;
+            }
+            if (ids[i] == VACIO) {
+                ids[i] = id;
+                tamanio++;
+            }
+            posiciones[i] = posicionEnLista;
+        }
+
+        void quitar(long id) {
+            int mascara = ids.length - 1;
+            int hueco = posicion(id, mascara);
+            while (ids[hueco] != id) {
+                if (ids[hueco] == VACIO) {
+                    return;
+                }
+                hueco = (hueco + 1) & mascara;
+            }
+            for (int j = (hueco + 1) & mascara; ids[j] != VACIO; j = (j + 1) & mascara) {
+                // La entrada de j puede ocupar el hueco si su casilla ideal no queda entre el hueco y j
+                int ideal = posicion(ids[j], mascara);
+                if (((j - ideal) & mascara) >= ((j - hueco) & mascara)) {
+                    ids[hueco] = ids[j];
+                    posiciones[hueco] = posiciones[j];
+                    hueco = j;
+                }
+            }
+            ids[hueco] = VACIO;
+            tamanio--;
+        }
+
+        private void crecer() {
+            long[] idsAnteriores = ids;
+            int[] posicionesAnteriores = posiciones;
+            ids = vacios(idsAnteriores.length * 2, VACIO);
+            posiciones = new int[idsAnteriores.length * 2];
+            int mascara = ids.length - 1;
+            for (int j = 0; j < idsAnteriores.length; j++) {
+                if (idsAnteriores[j] != VACIO) {
+                    int i = posicion(idsAnteriores[j], mascara);
+                    while (ids[i] != VACIO) {
+                        i = (i + 1) & mascara;
+                    }
+                    ids[i] = idsAnteriores[j];
+                    posiciones[i] = posicionesAnteriores[j];
+                }
+            }
+        }
+    }
+
+    /**
+     * Acumulador id → puntaje con direccionamiento abierto: evita crear un
+     * objeto por documento encontrado cuando un término es frecuente.
+     */
+    private static final class Puntajes {
+        private static final long VACIO = Long.MIN_VALUE;
+
+        private long[] ids = vacios(64, VACIO);
+        private double[] valores = new double[64];
+        private int tamanio;
+
+        void sumar(long id, double puntaje, boolean soloVistos) {
+            if ((tamanio + 1) * 2 > ids.length) {
+                crecer();
+            }
+            int mascara = ids.length - 1;
+            int i = posicion(id, mascara);
+            while (ids[i] != VACIO && ids[i] != id) {
+                i = (i + 1) & mascara;
+            }
+            if (ids[i] == VACIO) {
+                if (soloVistos) {
+                    return;
+                }
+                ids[i] = id;
+                tamanio++;
+            }
+            valores[i] += puntaje;
+        }
+
+        Mejores mejores(int limite) {
+            Mejores mejores = new Mejores(limite);
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] != VACIO) {
+                    mejores.considerar(ids[i], valores[i]);
+                }
+            }
+            return mejores;
+        }
+
+        private void crecer() {
+            long[] idsAnteriores = ids;
+            double[] valoresAnteriores = valores;
+            ids = vacios(idsAnteriores.length * 2, VACIO);
+            valores = new double[idsAnteriores.length * 2];
+            int mascara = ids.length - 1;
+            for (int j = 0; j < idsAnteriores.length; j++) {
+                if (idsAnteriores[j] != VACIO) {
+                    int i = posicion(idsAnteriores[j], mascara);
+                    while (ids[i] != VACIO) {
+                        i = (i + 1) & mascara;
+                    }
+                    ids[i] = idsAnteriores[j];
+                    valores[i] = valoresAnteriores[j];
+                }
+            }
+        }
+    }
+
+    /**
+     * Los {@code limite} mejores (id, puntaje) vistos, en un montículo de
+     * mínimos: la raíz es el peor de los que entran.
+     */
+    private static final class Mejores {
+        private final long[] ids;
+        private final double[] puntajes;
+        private int tamanio;
+
+        Mejores(int limite) {
+            // El límite viene validado por el llamador; no se reserva de más si es grande
+            int capacidad = Math.min(limite, 1 << 16);
+            this.ids = new long[capacidad];
+            this.puntajes = new double[capacidad];
+        }
+
+        void considerar(long id, double puntaje) {
+            if (tamanio < ids.length) {
+                ids[tamanio] = id;
+                puntajes[tamanio] = puntaje;
+                subir(tamanio++);
+            } else if (peor(ids[0], puntajes[0], id, puntaje)) {
+                ids[0] = id;
+                puntajes[0] = puntaje;
+                bajar(0);
+            }
+        }
+
+        /**
+         * Puntaje que hay que superar para entrar, o -infinito si todavía hay lugar.
+         */
+        double umbral() {
+            return tamanio < ids.length ? Double.NEGATIVE_INFINITY : puntajes[0];
+        }
+
+        /**
+         * Ids del mejor al peor. Deja el montículo vacío.
+         */
+        List<Long> ids() {
+            Long[] resultado = new Long[tamanio];
+            while (tamanio > 0) {
+                resultado[tamanio - 1] = ids[0];
+                tamanio--;
+                ids[0] = ids[tamanio];
+                puntajes[0] = puntajes[tamanio];
+                bajar(0);
+            }
+            return Arrays.asList(resultado);
+        }
+
+        /**
+         * Indica si (idA, a) queda detrás de (idB, b): menor puntaje o, a igual
+         * puntaje, mayor id.
+         */
+        private static boolean peor(long idA, double a, long idB, double b) {
+            return a != b ? a < b : idA > idB;
+        }
+
+        private void subir(int i) {
+            while (i > 0) {
+                int padre = (i - 1) / 2;
+                if (!peor(ids[i], puntajes[i], ids[padre], puntajes[padre])) {
+                    return;
+                }
+                intercambiar(i, padre);
+                i = padre;
+            }
+        }
+
+        private void bajar(int i) {
+            while (true) {
+                int menor = i;
+                for (int hijo = 2 * i + 1; hijo <= 2 * i + 2 && hijo < tamanio; hijo++) {
+                    if (peor(ids[hijo], puntajes[hijo], ids[menor], puntajes[menor])) {
+                        menor = hijo;
+                    }
+                }
+                if (menor == i) {
+                    return;
+                }
+                intercambiar(i, menor);
+                i = menor;
+            }
+        }
+
+        private void intercambiar(int a, int b) {
+            long id = ids[a];
+            ids[a] = ids[b];
+            ids[b] = id;
+            double puntaje = puntajes[a];
+            puntajes[a] = puntajes[b];
+            puntajes[b] = puntaje;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.biblioteca.app.repository.indice;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Índice secundario clave → id con unicidad garantizada.
+ * La reserva de una clave es atómica (putIfAbsent), por lo que dos escritores
+ * concurrentes nunca pueden quedarse con la misma clave.
+ * Las actualizaciones de un mismo id deben estar serializadas por el llamador
+ * (los repositorios lo hacen dentro del compute del mapa principal).
+ */
+public class IndiceUnico<K> {
+    private final Map<K, Long> idsPorClave = new ConcurrentHashMap<>();
+    private final Map<Long, K> clavesPorId = new ConcurrentHashMap<>();
+
+    /**
+     * Asocia la clave al id, liberando la clave anterior del id si cambió.
+     *
+     * @return false si la clave ya pertenece a otro id (el índice no se modifica)
+     */
+    public boolean asignar(Long id, K clave) {
+        K anterior = clavesPorId.get(id);
+        if (Objects.equals(anterior, clave)) {
+            return true;
+        }
+        if (clave != null) {
+            Long duenio = idsPorClave.putIfAbsent(clave, id);
+            if (duenio != null && !duenio.equals(id)) {
+                return false;
+            }
+            clavesPorId.put(id, clave);
+        } else {
+            clavesPorId.remove(id);
+        }
+        if (anterior != null) {
+            idsPorClave.remove(anterior, id);
+        }
+        return true;
+    }
+
+    public void eliminar(Long id) {
+        K anterior = clavesPorId.remove(id);
+        if (anterior != null) {
+            idsPorClave.remove(anterior, id);
+        }
+    }
+
+    public Long buscar(K clave) {
+        return clave == null ? null : idsPorClave.get(clave);
+    }
+
+    /**
+     * Indica si la clave está libre o ya pertenece al id indicado.
+     */
+    public boolean estaDisponible(K clave, Long id) {
+        Long duenio = buscar(clave);
+        return duenio == null || duenio.equals(id);
+    }
+}
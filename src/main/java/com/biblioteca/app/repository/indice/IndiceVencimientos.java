@@ -0,0 +1,80 @@
+package com.biblioteca.app.repository.indice;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Préstamos activos ordenados por fecha de vencimiento y luego por id.
+ * Los vencidos a una fecha son la cabeza del conjunto, así que consultarlos
+ * cuesta O(log n + vencidos) en lugar de recorrer todos los préstamos.
+ * Las actualizaciones de un mismo id deben estar serializadas por el llamador.
+ */
+public class IndiceVencimientos {
+    private final NavigableSet<Entrada> porVencimiento = new ConcurrentSkipListSet<>();
+    private final Map<Long, Entrada> entradasPorId = new ConcurrentHashMap<>();
+
+    public void registrar(Long id, LocalDate vencimiento) {
+        Entrada nueva = new Entrada(vencimiento.toEpochDay(), id);
+        Entrada anterior = entradasPorId.put(id, nueva);
+        if (nueva.equals(anterior)) {
+            return;
+        }
+        porVencimiento.add(nueva);
+        if (anterior != null) {
+            porVencimiento.remove(anterior);
+        }
+    }
+
+    public void eliminar(Long id) {
+        Entrada anterior = entradasPorId.remove(id);
+        if (anterior != null) {
+            porVencimiento.remove(anterior);
+        }
+    }
+
+    /**
+     * Ids cuyo vencimiento es estrictamente anterior a la fecha dada,
+     * del más antiguo al más reciente.
+     */
+    public List<Long> vencidosAl(LocalDate fecha) {
+        return vencenEntre(null, fecha);
+    }
+
+    /**
+     * Ids cuyo vencimiento cae en {@code [desde, hasta)}, del más antiguo al
+     * más reciente: los vencidos al {@code hasta} que no lo estaban al
+     * {@code desde}. Con {@code desde} null equivale a {@link #vencidosAl}.
+     */
+    public List<Long> vencenEntre(LocalDate desde, LocalDate hasta) {
+        NavigableSet<Entrada> rango = desde == null
+                ? cabeza(hasta)
+                : porVencimiento.subSet(new Entrada(desde.toEpochDay(), Long.MIN_VALUE), true,
+                        new Entrada(hasta.toEpochDay(), Long.MIN_VALUE), false);
+        List<Long> ids = new ArrayList<>();
+        for (Entrada entrada : rango) {
+            ids.add(entrada.id());
+        }
+        return ids;
+    }
+
+    public int contarVencidosAl(LocalDate fecha) {
+        return cabeza(fecha).size();
+    }
+
+    private NavigableSet<Entrada> cabeza(LocalDate fecha) {
+        return porVencimiento.headSet(new Entrada(fecha.toEpochDay(), Long.MIN_VALUE), false);
+    }
+
+    private record Entrada(long diaVencimiento, long id) implements Comparable<Entrada> {
+        @Override
+        public int compareTo(Entrada otra) {
+            int porDia = Long.compare(diaVencimiento, otra.diaVencimiento);
+            return porDia != 0 ? porDia : Long.compare(id, otra.id);
+        }
+    }
+}
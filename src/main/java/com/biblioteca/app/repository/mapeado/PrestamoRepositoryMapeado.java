@@ -0,0 +1,494 @@
+package com.biblioteca.app.repository.mapeado;
+
+import com.biblioteca.app.model.Prestamo;
+import com.biblioteca.app.model.Usuario;
+import com.biblioteca.app.repository.PrestamoRepository;
+import com.biblioteca.app.repository.indice.IndiceVencimientos;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Repositorio de préstamos fuera del heap: cada préstamo es un registro de
+ * {@value #TAMANIO_REGISTRO} bytes en archivos mapeados en memoria, en la
+ * posición {@code id - 1}, así que no hace falta un índice por id. En el heap
+ * quedan sólo los préstamos activos (los mismos objetos que usan los
+ * servicios), su índice de vencimientos y el último préstamo de cada usuario;
+ * el historial de préstamos finalizados no ocupa heap por más que crezca.
+ * <p>
+ * Los préstamos de un usuario forman una lista enlazada dentro de los
+ * registros, del id mayor al menor. Un préstamo finalizado se arma al
+ * buscarlo.
+ * <p>
+ * Los archivos sobreviven a un reinicio: al abrir se recorren los registros
+ * para recuperar la secuencia, los activos y las listas de cada usuario. El
+ * byte de estado se escribe al final, así que un registro nuevo a medio
+ * escribir cuando se cortó el proceso se ignora. Un registro existente se
+ * actualiza o se borra en el lugar, así que antes de tocarlo se marca como a
+ * medio escribir: si el proceso se corta antes de volver a escribir el
+ * estado, al abrir se descarta ese préstamo en lugar de leer una mezcla de la
+ * versión vieja y la nueva, y se rearman las listas de los usuarios, que
+ * pudieron quedar a medio enlazar. Los cambios llegan al disco cuando el
+ * sistema operativo baja las páginas o al cerrar; con {@code sincronizar}
+ * cada escritura espera su página, y los campos bajan antes que el estado.
+ * <p>
+ * Las escrituras se serializan con un lock de escritura; las lecturas
+ * comparten el de lectura.
+ */
+public class PrestamoRepositoryMapeado implements PrestamoRepository, Closeable {
+    public static final int REGISTROS_POR_SEGMENTO = 1 << 20;
+    static final int TAMANIO_REGISTRO = 48;
+
+    private static final int ID = 0;
+    private static final int LIBRO = 8;
+    private static final int USUARIO = 16;
+    static final int ANTERIOR_DEL_USUARIO = 24;
+    private static final int FECHA_PRESTAMO = 32;
+    private static final int FECHA_DEVOLUCION = 36;
+    static final int ESTADO = 40;
+
+    private static final byte VACIO = 0;
+    private static final byte ACTIVO = 1;
+    private static final byte FINALIZADO = 2;
+    private static final byte BORRADO = 3;
+    static final byte ESCRIBIENDO = 4;
+
+    private static final long SIN_ID = 0;
+    private static final int SIN_FECHA = Integer.MIN_VALUE;
+
+    private final SegmentosMapeados segmentos;
+    private final boolean sincronizar;
+    private final ReadWriteLock bloqueo = new ReentrantReadWriteLock();
+    private final Map<Long, Prestamo> activos = new ConcurrentHashMap<>();
+    private final IndiceVencimientos vencimientos = new IndiceVencimientos();
+    private final Map<Long, Long> ultimoPorUsuario = new HashMap<>();
+    private final AtomicLong sequence = new AtomicLong(0);
+    private int cantidad;
+
+    private PrestamoRepositoryMapeado(SegmentosMapeados segmentos, boolean sincronizar) {
+        this.segmentos = segmentos;
+        this.sincronizar = sincronizar;
+    }
+
+    /**
+     * Abre (o crea) el almacén del directorio y recupera su estado.
+     */
+    public static PrestamoRepositoryMapeado abrir(Path directorio, int registrosPorSegmento, boolean sincronizar)
+            throws IOException {
+        PrestamoRepositoryMapeado repositorio = new PrestamoRepositoryMapeado(
+                SegmentosMapeados.abrir(directorio, TAMANIO_REGISTRO, registrosPorSegmento), sincronizar);
+        repositorio.recuperar();
+        return repositorio;
+    }
+
+    @Override
+    public Prestamo save(Prestamo prestamo) {
+        bloqueo.writeLock().lock();
+        try {
+            return guardar(prestamo);
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Prestamo> saveAll(List<Prestamo> prestamos) {
+        List<Prestamo> guardados = new ArrayList<>(prestamos.size());
+        bloqueo.writeLock().lock();
+        try {
+            for (Prestamo prestamo : prestamos) {
+                guardados.add(guardar(prestamo));
+            }
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+        return guardados;
+    }
+
+    @Override
+    public Optional<Prestamo> findById(Long id) {
+        bloqueo.readLock().lock();
+        try {
+            return Optional.ofNullable(buscar(id));
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    /**
+     * Recorre la lista del usuario en los registros. Como en
+     * {@code PrestamoRepositoryImpl}, se descarta un préstamo activo que
+     * cambió de usuario y todavía no se guardó.
+     */
+    @Override
+    public List<Prestamo> findByUsuario(Usuario usuario) {
+        bloqueo.readLock().lock();
+        try {
+            List<Prestamo> resultado = new ArrayList<>();
+            Long ultimo = ultimoPorUsuario.get(usuario.getId());
+            for (long id = ultimo != null ? ultimo : SIN_ID; id != SIN_ID; id = leerLong(id, ANTERIOR_DEL_USUARIO)) {
+                Prestamo prestamo = buscar(id);
+                if (prestamo != null && usuario.getId().equals(prestamo.getUsuarioId())) {
+                    resultado.add(prestamo);
+                }
+            }
+            return resultado;
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Prestamo> findAll() {
+        return findPagina(null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Los registros están en orden de id, así que la página se lee seguida;
+     * el costo es el límite más los ids borrados que haya en el medio.
+     */
+    @Override
+    public List<Prestamo> findPagina(Long despuesDeId, int limite) {
+        bloqueo.readLock().lock();
+        try {
+            List<Prestamo> resultado = new ArrayList<>(Math.min(limite, cantidad));
+            long ultimo = sequence.get();
+            for (long id = despuesDeId == null ? 1 : despuesDeId + 1; id <= ultimo && resultado.size() < limite; id++) {
+                Prestamo prestamo = buscar(id);
+                if (prestamo != null) {
+                    resultado.add(prestamo);
+                }
+            }
+            return resultado;
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        bloqueo.writeLock().lock();
+        try {
+            byte estado = leerEstado(id);
+            if (estado == VACIO || estado == BORRADO) {
+                return;
+            }
+            escribirEstado(id, ESCRIBIENDO);
+            desenlazarDelUsuario(id, leerLong(id, USUARIO));
+            escribirEstado(id, BORRADO);
+            activos.remove(id);
+            vencimientos.eliminar(id);
+            cantidad--;
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        bloqueo.readLock().lock();
+        try {
+            byte estado = leerEstado(id);
+            return estado == ACTIVO || estado == FINALIZADO;
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    /**
+     * Sale de los activos en el heap. Un préstamo finalizado que todavía no
+     * se volvió a guardar se descarta.
+     */
+    @Override
+    public List<Prestamo> findPrestamosActivos() {
+        List<Prestamo> resultado = new ArrayList<>(activos.size());
+        for (Prestamo prestamo : activos.values()) {
+            if (prestamo.isActivo()) {
+                resultado.add(prestamo);
+            }
+        }
+        return resultado;
+    }
+
+    @Override
+    public List<Prestamo> findPrestamosVencidos() {
+        return findPrestamosVencidosAl(LocalDate.now());
+    }
+
+    @Override
+    public List<Prestamo> findPrestamosVencidosAl(LocalDate fecha) {
+        return findPrestamosQueVencenEntre(null, fecha);
+    }
+
+    @Override
+    public List<Prestamo> findPrestamosQueVencenEntre(LocalDate desde, LocalDate hasta) {
+        List<Prestamo> resultado = new ArrayList<>();
+        for (Long id : vencimientos.vencenEntre(desde, hasta)) {
+            Prestamo prestamo = activos.get(id);
+            if (prestamo != null && prestamo.isActivo()) {
+                resultado.add(prestamo);
+            }
+        }
+        return resultado;
+    }
+
+    @Override
+    public int contar() {
+        bloqueo.readLock().lock();
+        try {
+            return cantidad;
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int contarActivos() {
+        return activos.size();
+    }
+
+    @Override
+    public int contarVencidosAl(LocalDate fecha) {
+        return vencimientos.contarVencidosAl(fecha);
+    }
+
+    public long getUltimoId() {
+        return sequence.get();
+    }
+
+    /**
+     * Baja a disco todos los segmentos.
+     */
+    @Override
+    public void close() {
+        bloqueo.writeLock().lock();
+        try {
+            segmentos.close();
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException si el préstamo trae un id menor a 1
+     */
+    private Prestamo guardar(Prestamo prestamo) {
+        if (prestamo.getId() == null) {
+            prestamo.setId(sequence.incrementAndGet());
+        } else if (prestamo.getId() < 1) {
+            throw new IllegalArgumentException("Id de préstamo inválido: " + prestamo.getId());
+        } else {
+            sequence.accumulateAndGet(prestamo.getId(), Math::max);
+        }
+        long id = prestamo.getId();
+        long usuarioId = idDe(prestamo.getUsuarioId());
+        byte anterior = leerEstado(id);
+        boolean existia = anterior == ACTIVO || anterior == FINALIZADO;
+        if (existia) {
+            escribirEstado(id, ESCRIBIENDO);
+        }
+        boolean cambiaDeUsuario = !existia || leerLong(id, USUARIO) != usuarioId;
+        if (existia && cambiaDeUsuario) {
+            desenlazarDelUsuario(id, leerLong(id, USUARIO));
+        }
+
+        MappedByteBuffer segmento = segmentos.segmentoParaEscribir(id - 1);
+        int posicion = segmentos.posicion(id - 1);
+        segmento.putLong(posicion + ID, id);
+        segmento.putLong(posicion + LIBRO, idDe(prestamo.getLibroId()));
+        segmento.putLong(posicion + USUARIO, usuarioId);
+        segmento.putInt(posicion + FECHA_PRESTAMO, dia(prestamo.getFechaPrestamo()));
+        segmento.putInt(posicion + FECHA_DEVOLUCION, dia(prestamo.getFechaDevolucion()));
+        if (cambiaDeUsuario) {
+            enlazarAlUsuario(id, usuarioId);
+        }
+
+        if (prestamo.isActivo()) {
+            activos.put(id, prestamo);
+            vencimientos.registrar(id, prestamo.getFechaVencimiento());
+        } else {
+            activos.remove(id);
+            vencimientos.eliminar(id);
+        }
+        if (sincronizar) {
+            segmentos.sincronizar(id - 1);
+        }
+        escribirEstado(id, prestamo.isActivo() ? ACTIVO : FINALIZADO);
+        if (!existia) {
+            cantidad++;
+        }
+        return prestamo;
+    }
+
+    private Prestamo buscar(long id) {
+        Prestamo activo = activos.get(id);
+        if (activo != null) {
+            return activo;
+        }
+        byte estado = leerEstado(id);
+        return estado == ACTIVO || estado == FINALIZADO ? armar(id) : null;
+    }
+
+    private Prestamo armar(long id) {
+        return new Prestamo(id, idOriginal(leerLong(id, LIBRO)), idOriginal(leerLong(id, USUARIO)),
+                fecha(leerInt(id, FECHA_PRESTAMO)), fecha(leerInt(id, FECHA_DEVOLUCION)));
+    }
+
+    /**
+     * Recorre los registros en orden: el último préstamo de cada usuario es el
+     * de id mayor, porque las listas se mantienen ordenadas. Un registro que
+     * quedó a medio actualizar se da por borrado.
+     */
+    private void recuperar() {
+        boolean cortado = false;
+        for (long registro = 0; registro < segmentos.capacidad(); registro++) {
+            long id = registro + 1;
+            byte estado = leerEstado(id);
+            if (estado == VACIO) {
+                continue;
+            }
+            sequence.set(id);
+            if (estado == ESCRIBIENDO) {
+                escribirEstado(id, BORRADO);
+                cortado = true;
+                continue;
+            }
+            if (estado == BORRADO) {
+                continue;
+            }
+            cantidad++;
+            long usuarioId = leerLong(id, USUARIO);
+            if (usuarioId != SIN_ID) {
+                ultimoPorUsuario.put(usuarioId, id);
+            }
+            if (estado == ACTIVO) {
+                Prestamo prestamo = armar(id);
+                activos.put(id, prestamo);
+                vencimientos.registrar(id, prestamo.getFechaVencimiento());
+            }
+        }
+        if (cortado) {
+            reenlazarUsuarios();
+        }
+    }
+
+    /**
+     * Vuelve a armar la lista de cada usuario con los registros vigentes, en
+     * orden de id.
+     */
+    private void reenlazarUsuarios() {
+        ultimoPorUsuario.clear();
+        for (long id = 1; id <= sequence.get(); id++) {
+            byte estado = leerEstado(id);
+            long usuarioId = leerLong(id, USUARIO);
+            if ((estado != ACTIVO && estado != FINALIZADO) || usuarioId == SIN_ID) {
+                continue;
+            }
+            Long anterior = ultimoPorUsuario.put(usuarioId, id);
+            escribirLong(id, ANTERIOR_DEL_USUARIO, anterior != null ? anterior : SIN_ID);
+        }
+    }
+
+    /**
+     * Inserta el préstamo en la lista del usuario respetando el orden por id
+     * (casi siempre es el mayor y queda primero).
+     */
+    private void enlazarAlUsuario(long id, long usuarioId) {
+        if (usuarioId == SIN_ID) {
+            escribirLong(id, ANTERIOR_DEL_USUARIO, SIN_ID);
+            return;
+        }
+        long previo = SIN_ID;
+        Long primero = ultimoPorUsuario.get(usuarioId);
+        long actual = primero != null ? primero : SIN_ID;
+        while (actual != SIN_ID && actual > id) {
+            previo = actual;
+            actual = leerLong(actual, ANTERIOR_DEL_USUARIO);
+        }
+        escribirLong(id, ANTERIOR_DEL_USUARIO, actual);
+        if (previo == SIN_ID) {
+            ultimoPorUsuario.put(usuarioId, id);
+        } else {
+            escribirLong(previo, ANTERIOR_DEL_USUARIO, id);
+        }
+    }
+
+    private void desenlazarDelUsuario(long id, long usuarioId) {
+        if (usuarioId == SIN_ID) {
+            return;
+        }
+        long siguienteEnLaLista = leerLong(id, ANTERIOR_DEL_USUARIO);
+        Long primero = ultimoPorUsuario.get(usuarioId);
+        if (primero != null && primero == id) {
+            if (siguienteEnLaLista == SIN_ID) {
+                ultimoPorUsuario.remove(usuarioId);
+            } else {
+                ultimoPorUsuario.put(usuarioId, siguienteEnLaLista);
+            }
+            return;
+        }
+        for (long actual = primero != null ? primero : SIN_ID; actual != SIN_ID; ) {
+            long anterior = leerLong(actual, ANTERIOR_DEL_USUARIO);
+            if (anterior == id) {
+                escribirLong(actual, ANTERIOR_DEL_USUARIO, siguienteEnLaLista);
+                return;
+            }
+            actual = anterior;
+        }
+    }
+
+    private byte leerEstado(long id) {
+        if (id < 1) {
+            return VACIO;
+        }
+        MappedByteBuffer segmento = segmentos.segmento(id - 1);
+        return segmento == null ? VACIO : segmento.get(segmentos.posicion(id - 1) + ESTADO);
+    }
+
+    private void escribirEstado(long id, byte estado) {
+        segmentos.segmentoParaEscribir(id - 1).put(segmentos.posicion(id - 1) + ESTADO, estado);
+        if (sincronizar) {
+            segmentos.sincronizar(id - 1);
+        }
+    }
+
+    private long leerLong(long id, int campo) {
+        return segmentos.segmento(id - 1).getLong(segmentos.posicion(id - 1) + campo);
+    }
+
+    private void escribirLong(long id, int campo, long valor) {
+        segmentos.segmentoParaEscribir(id - 1).putLong(segmentos.posicion(id - 1) + campo, valor);
+    }
+
+    private int leerInt(long id, int campo) {
+        return segmentos.segmento(id - 1).getInt(segmentos.posicion(id - 1) + campo);
+    }
+
+    private static long idDe(Long id) {
+        return id != null ? id : SIN_ID;
+    }
+
+    private static Long idOriginal(long id) {
+        return id != SIN_ID ? id : null;
+    }
+
+    private static int dia(LocalDate fecha) {
+        return fecha != null ? Math.toIntExact(fecha.toEpochDay()) : SIN_FECHA;
+    }
+
+    private static LocalDate fecha(int dia) {
+        return dia != SIN_FECHA ? LocalDate.ofEpochDay(dia) : null;
+    }
+}
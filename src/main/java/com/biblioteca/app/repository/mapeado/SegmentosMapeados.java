@@ -0,0 +1,126 @@
+package com.biblioteca.app.repository.mapeado;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Registros de tamaño fijo repartidos en archivos de igual tamaño mapeados en
+ * memoria. El registro {@code n} vive en el segmento {@code n / registrosPorSegmento};
+ * los segmentos se crean al escribir el primer registro que les toca, y como
+ * el archivo se extiende al mapearlo, las zonas sin escribir no ocupan disco
+ * (y se leen en cero). Los datos quedan en el heap sólo como los
+ * {@link MappedByteBuffer} de cada segmento.
+ * <p>
+ * Las lecturas y escrituras son absolutas, así que se pueden leer registros
+ * desde varios hilos; el llamador serializa las escrituras.
+ */
+final class SegmentosMapeados implements Closeable {
+    private static final Pattern NOMBRE = Pattern.compile("prestamos-(\\d+)\\.seg");
+
+    private final Path directorio;
+    private final int tamanioRegistro;
+    private final int registrosPorSegmento;
+    private final List<MappedByteBuffer> segmentos = new ArrayList<>();
+
+    private SegmentosMapeados(Path directorio, int tamanioRegistro, int registrosPorSegmento) {
+        this.directorio = directorio;
+        this.tamanioRegistro = tamanioRegistro;
+        this.registrosPorSegmento = registrosPorSegmento;
+    }
+
+    /**
+     * Mapea los segmentos que ya existen en el directorio (creándolo si hace falta).
+     */
+    static SegmentosMapeados abrir(Path directorio, int tamanioRegistro, int registrosPorSegmento)
+            throws IOException {
+        Files.createDirectories(directorio);
+        SegmentosMapeados resultado = new SegmentosMapeados(directorio, tamanioRegistro, registrosPorSegmento);
+        int ultimo = -1;
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            for (Path archivo : (Iterable<Path>) archivos::iterator) {
+                Matcher matcher = NOMBRE.matcher(archivo.getFileName().toString());
+                if (matcher.matches()) {
+                    ultimo = Math.max(ultimo, Integer.parseInt(matcher.group(1)));
+                }
+            }
+        }
+        if (ultimo >= 0) {
+            resultado.asegurarSegmento(ultimo);
+        }
+        return resultado;
+    }
+
+    /**
+     * Cantidad de registros que entran en los segmentos existentes.
+     */
+    long capacidad() {
+        return (long) segmentos.size() * registrosPorSegmento;
+    }
+
+    /**
+     * Segmento del registro, o null si todavía no se creó.
+     */
+    MappedByteBuffer segmento(long registro) {
+        int numero = (int) (registro / registrosPorSegmento);
+        return numero < segmentos.size() ? segmentos.get(numero) : null;
+    }
+
+    /**
+     * Segmento del registro, creando los que falten hasta él.
+     */
+    MappedByteBuffer segmentoParaEscribir(long registro) {
+        int numero = (int) (registro / registrosPorSegmento);
+        if (numero >= segmentos.size()) {
+            try {
+                asegurarSegmento(numero);
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo crear el segmento " + numero, e);
+            }
+        }
+        return segmentos.get(numero);
+    }
+
+    /**
+     * Posición del registro dentro de su segmento.
+     */
+    int posicion(long registro) {
+        return (int) (registro % registrosPorSegmento) * tamanioRegistro;
+    }
+
+    /**
+     * Baja a disco el rango de un registro.
+     */
+    void sincronizar(long registro) {
+        segmento(registro).force(posicion(registro), tamanioRegistro);
+    }
+
+    @Override
+    public void close() {
+        for (MappedByteBuffer segmento : segmentos) {
+            segmento.force();
+        }
+    }
+
+    private void asegurarSegmento(int numero) throws IOException {
+        long tamanio = (long) registrosPorSegmento * tamanioRegistro;
+        for (int i = segmentos.size(); i <= numero; i++) {
+            Path archivo = directorio.resolve(String.format("prestamos-%06d.seg", i));
+            try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                // El mapeo sigue vigente después de cerrar el canal
+                segmentos.add(canal.map(FileChannel.MapMode.READ_WRITE, 0, tamanio));
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.biblioteca.app.repository.persistencia;
+
+import com.biblioteca.app.model.EstadoLibro;
+import com.biblioteca.app.model.Libro;
+import com.biblioteca.app.model.Prestamo;
+import com.biblioteca.app.model.Usuario;
+import com.biblioteca.app.repository.impl.LibroRepositoryImpl;
+import com.biblioteca.app.repository.impl.PrestamoRepositoryImpl;
+import com.biblioteca.app.repository.impl.UsuarioRepositoryImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reconstruye los repositorios en memoria a partir de registros decodificados.
+ * Los libros y usuarios que ya existen se actualizan en el lugar, porque los
+ * servicios cambian el estado sobre esas mismas instancias.
+ * Sólo se usa durante el arranque, antes de atender pedidos.
+ */
+public class AplicadorRegistros {
+    private static final Logger log = LoggerFactory.getLogger(AplicadorRegistros.class);
+
+    private final LibroRepositoryImpl libroRepository;
+    private final UsuarioRepositoryImpl usuarioRepository;
+    private final PrestamoRepositoryImpl prestamoRepository;
+    private long registrosAplicados;
+
+    public AplicadorRegistros(LibroRepositoryImpl libroRepository,
+            UsuarioRepositoryImpl usuarioRepository,
+            PrestamoRepositoryImpl prestamoRepository) {
+        this.libroRepository = libroRepository;
+        this.usuarioRepository = usuarioRepository;
+        this.prestamoRepository = prestamoRepository;
+    }
+
+    void guardarLibro(long id, String isbn, String titulo, String autor, EstadoLibro estado) {
+        Libro libro = libroRepository.findById(id).orElse(null);
+        if (libro == null) {
+            libro = new Libro(id, isbn, titulo, autor, estado);
+        } else {
+            libro.setIsbn(isbn);
+            libro.setTitulo(titulo);
+            libro.setAutor(autor);
+            libro.setEstado(estado);
+        }
+        libroRepository.save(libro);
+        registrosAplicados++;
+    }
+
+    void guardarUsuario(long id, String nombre, String email, String estado) {
+        Usuario usuario = usuarioRepository.findById(id).orElse(null);
+        if (usuario == null) {
+            usuario = new Usuario(id, nombre, email, estado);
+        } else {
+            usuario.setNombre(nombre);
+            usuario.setEmail(email);
+            usuario.setEstado(estado);
+        }
+        usuarioRepository.save(usuario);
+        registrosAplicados++;
+    }
+
+    void guardarPrestamo(long id, Long libroId, Long usuarioId, LocalDate fechaPrestamo, LocalDate fechaDevolucion) {
+        prestamoRepository.save(new Prestamo(id, libroId, usuarioId, fechaPrestamo, fechaDevolucion));
+        registrosAplicados++;
+    }
+
+    void eliminar(byte entidad, long id) {
+        switch (entidad) {
+            case CodificadorRegistros.LIBRO -> libroRepository.deleteById(id);
+            case CodificadorRegistros.USUARIO -> usuarioRepository.deleteById(id);
+            case CodificadorRegistros.PRESTAMO -> prestamoRepository.deleteById(id);
+            default -> throw new IllegalArgumentException("Entidad desconocida en el log: " + entidad);
+        }
+        registrosAplicados++;
+    }
+
+    void avanzarSecuencia(byte entidad, long ultimoId) {
+        switch (entidad) {
+            case CodificadorRegistros.LIBRO -> libroRepository.avanzarSecuenciaHasta(ultimoId);
+            case CodificadorRegistros.USUARIO -> usuarioRepository.avanzarSecuenciaHasta(ultimoId);
+            case CodificadorRegistros.PRESTAMO -> prestamoRepository.avanzarSecuenciaHasta(ultimoId);
+            default -> throw new IllegalArgumentException("Entidad desconocida en el log: " + entidad);
+        }
+    }
+
+    /**
+     * Deriva el estado que no se registra: un libro está PRESTADO si y sólo si
+     * tiene un préstamo activo, y los libros prestados de cada usuario salen de
+     * sus préstamos activos. Así un corte entre el guardado del préstamo y el
+     * del libro no deja estados inconsistentes.
+     */
+    public void reconstruirEstadoDerivado() {
+        reconstruirEstadoDerivado(prestamoRepository.findPrestamosActivos(), libroRepository, usuarioRepository);
+    }
+
+    /**
+     * Igual que {@link #reconstruirEstadoDerivado()}, pero con los préstamos
+     * activos de otro almacén (por ejemplo el de archivos mapeados, que no
+     * pasa por el log).
+     */
+    public static void reconstruirEstadoDerivado(List<Prestamo> activos, LibroRepositoryImpl libroRepository,
+            UsuarioRepositoryImpl usuarioRepository) {
+        Set<Long> librosConPrestamo = new HashSet<>();
+        for (Prestamo prestamo : activos) {
+            Libro libro = prestamo.getLibroId() != null
+                    ? libroRepository.findById(prestamo.getLibroId()).orElse(null)
+                    : null;
+            if (libro == null) {
+                continue;
+            }
+            librosConPrestamo.add(libro.getId());
+            libro.setEstado(EstadoLibro.PRESTADO);
+            Usuario usuario = prestamo.getUsuarioId() != null
+                    ? usuarioRepository.findById(prestamo.getUsuarioId()).orElse(null)
+                    : null;
+            if (usuario != null && !usuario.tieneLibroPrestado(libro.getId())) {
+                agregarAlCupo(usuario, libro, prestamo);
+            }
+        }
+        for (Libro libro : libroRepository.findAll()) {
+            if (libro.getEstado() == EstadoLibro.PRESTADO && !librosConPrestamo.contains(libro.getId())) {
+                libro.setEstado(EstadoLibro.DISPONIBLE);
+            }
+        }
+        libroRepository.reindexarEstados();
+    }
+
+    /**
+     * Datos guardados antes de que el modelo hiciera cumplir el límite de
+     * préstamos pueden tener más activos que el cupo: el préstamo se recupera
+     * igual, sin ocupar lugar en el cupo, para no impedir el arranque.
+     */
+    private static void agregarAlCupo(Usuario usuario, Libro libro, Prestamo prestamo) {
+        try {
+            usuario.agregarLibroPrestado(libro);
+        } catch (IllegalStateException e) {
+            log.warn("El préstamo {} del usuario {} no entra en su cupo al recuperar: {}",
+                    prestamo.getId(), usuario.getId(), e.getMessage());
+        }
+    }
+
+    public long getRegistrosAplicados() {
+        return registrosAplicados;
+    }
+}
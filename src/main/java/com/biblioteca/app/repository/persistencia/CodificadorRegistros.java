@@ -0,0 +1,208 @@
+package com.biblioteca.app.repository.persistencia;
+
+import com.biblioteca.app.model.EstadoLibro;
+import com.biblioteca.app.model.Libro;
+import com.biblioteca.app.model.Prestamo;
+import com.biblioteca.app.model.Usuario;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Formato binario de los registros del log y de las instantáneas.
+ * Cada cuerpo empieza con entidad (1 byte), operación (1 byte) e id (8 bytes);
+ * los guardados agregan los campos de la entidad y los registros de secuencia
+ * llevan en el id el último id asignado. Los textos van como largo (int, -1
+ * para null) seguido de sus bytes UTF-8 y las fechas como día epoch.
+ * Los préstamos guardan los ids de libro y usuario, no las entidades.
+ */
+public final class CodificadorRegistros {
+    static final byte LIBRO = 1;
+    static final byte USUARIO = 2;
+    static final byte PRESTAMO = 3;
+
+    static final byte GUARDAR = 1;
+    static final byte ELIMINAR = 2;
+    static final byte SECUENCIA = 3;
+
+    private static final long SIN_FECHA = Long.MIN_VALUE;
+    private static final long SIN_ID = -1L;
+    private static final EstadoLibro[] ESTADOS = EstadoLibro.values();
+
+    private CodificadorRegistros() {
+    }
+
+    public static byte[] guardado(Libro libro) {
+        Escritor escritor = new Escritor(64);
+        escritor.cabecera(LIBRO, GUARDAR, libro.getId());
+        escritor.texto(libro.getIsbn());
+        escritor.texto(libro.getTitulo());
+        escritor.texto(libro.getAutor());
+        EstadoLibro estado = libro.getEstado();
+        escritor.octeto(estado == null ? -1 : estado.ordinal());
+        return escritor.bytes();
+    }
+
+    public static byte[] guardado(Usuario usuario) {
+        Escritor escritor = new Escritor(64);
+        escritor.cabecera(USUARIO, GUARDAR, usuario.getId());
+        escritor.texto(usuario.getNombre());
+        escritor.texto(usuario.getEmail());
+        escritor.texto(usuario.getEstado());
+        return escritor.bytes();
+    }
+
+    public static byte[] guardado(Prestamo prestamo) {
+        Escritor escritor = new Escritor(42);
+        escritor.cabecera(PRESTAMO, GUARDAR, prestamo.getId());
+        escritor.entero(prestamo.getLibroId() != null ? prestamo.getLibroId() : SIN_ID);
+        escritor.entero(prestamo.getUsuarioId() != null ? prestamo.getUsuarioId() : SIN_ID);
+        escritor.fecha(prestamo.getFechaPrestamo());
+        escritor.fecha(prestamo.getFechaDevolucion());
+        return escritor.bytes();
+    }
+
+    public static byte[] eliminacion(byte entidad, Long id) {
+        Escritor escritor = new Escritor(10);
+        escritor.cabecera(entidad, ELIMINAR, id);
+        return escritor.bytes();
+    }
+
+    public static byte[] secuencia(byte entidad, long ultimoId) {
+        Escritor escritor = new Escritor(10);
+        escritor.cabecera(entidad, SECUENCIA, ultimoId);
+        return escritor.bytes();
+    }
+
+    /**
+     * Decodifica un cuerpo y lo aplica sobre los repositorios en memoria.
+     *
+     * @throws IllegalArgumentException si el registro no tiene un formato conocido
+     */
+    public static void aplicar(ByteBuffer cuerpo, AplicadorRegistros destino) {
+        byte entidad = cuerpo.get();
+        byte operacion = cuerpo.get();
+        long id = cuerpo.getLong();
+        if (operacion == ELIMINAR) {
+            destino.eliminar(entidad, id);
+            return;
+        }
+        if (operacion == SECUENCIA) {
+            destino.avanzarSecuencia(entidad, id);
+            return;
+        }
+        if (operacion != GUARDAR) {
+            throw new IllegalArgumentException("Operación desconocida en el log: " + operacion);
+        }
+        switch (entidad) {
+            case LIBRO -> {
+                String isbn = leerTexto(cuerpo);
+                String titulo = leerTexto(cuerpo);
+                String autor = leerTexto(cuerpo);
+                byte estado = cuerpo.get();
+                destino.guardarLibro(id, isbn, titulo, autor, estado < 0 ? null : ESTADOS[estado]);
+            }
+            case USUARIO -> destino.guardarUsuario(id, leerTexto(cuerpo), leerTexto(cuerpo), leerTexto(cuerpo));
+            case PRESTAMO -> {
+                Long libroId = leerId(cuerpo);
+                Long usuarioId = leerId(cuerpo);
+                LocalDate fechaPrestamo = leerFecha(cuerpo);
+                LocalDate fechaDevolucion = leerFecha(cuerpo);
+                destino.guardarPrestamo(id, libroId, usuarioId, fechaPrestamo, fechaDevolucion);
+            }
+            default -> throw new IllegalArgumentException("Entidad desconocida en el log: " + entidad);
+        }
+    }
+
+    private static Long leerId(ByteBuffer cuerpo) {
+        long id = cuerpo.getLong();
+        return id != SIN_ID ? id : null;
+    }
+
+    private static String leerTexto(ByteBuffer cuerpo) {
+        int largo = cuerpo.getInt();
+        if (largo < 0) {
+            return null;
+        }
+        if (cuerpo.hasArray()) {
+            String texto = new String(cuerpo.array(), cuerpo.arrayOffset() + cuerpo.position(), largo,
+                    StandardCharsets.UTF_8);
+            cuerpo.position(cuerpo.position() + largo);
+            return texto;
+        }
+        // Buffers mapeados desde una instantánea
+        byte[] utf8 = new byte[largo];
+        cuerpo.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    private static LocalDate leerFecha(ByteBuffer cuerpo) {
+        long dia = cuerpo.getLong();
+        return dia == SIN_FECHA ? null : LocalDate.ofEpochDay(dia);
+    }
+
+    /**
+     * Buffer creciente mínimo: evita el costo de DataOutputStream por registro.
+     */
+    private static final class Escritor {
+        private byte[] datos;
+        private int posicion;
+
+        Escritor(int capacidad) {
+            this.datos = new byte[capacidad];
+        }
+
+        void cabecera(byte entidad, byte operacion, Long id) {
+            octeto(entidad);
+            octeto(operacion);
+            entero(id);
+        }
+
+        void octeto(int valor) {
+            asegurar(1);
+            datos[posicion++] = (byte) valor;
+        }
+
+        void entero(long valor) {
+            asegurar(8);
+            for (int desplazamiento = 56; desplazamiento >= 0; desplazamiento -= 8) {
+                datos[posicion++] = (byte) (valor >>> desplazamiento);
+            }
+        }
+
+        void enteroCorto(int valor) {
+            asegurar(4);
+            for (int desplazamiento = 24; desplazamiento >= 0; desplazamiento -= 8) {
+                datos[posicion++] = (byte) (valor >>> desplazamiento);
+            }
+        }
+
+        void texto(String valor) {
+            if (valor == null) {
+                enteroCorto(-1);
+                return;
+            }
+            byte[] utf8 = valor.getBytes(StandardCharsets.UTF_8);
+            enteroCorto(utf8.length);
+            asegurar(utf8.length);
+            System.arraycopy(utf8, 0, datos, posicion, utf8.length);
+            posicion += utf8.length;
+        }
+
+        void fecha(LocalDate valor) {
+            entero(valor == null ? SIN_FECHA : valor.toEpochDay());
+        }
+
+        byte[] bytes() {
+            return posicion == datos.length ? datos : Arrays.copyOf(datos, posicion);
+        }
+
+        private void asegurar(int cantidad) {
+            if (posicion + cantidad > datos.length) {
+                datos = Arrays.copyOf(datos, Math.max(datos.length * 2, posicion + cantidad));
+            }
+        }
+    }
+}
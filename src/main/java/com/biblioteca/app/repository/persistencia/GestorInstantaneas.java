@@ -0,0 +1,73 @@
+package com.biblioteca.app.repository.persistencia;
+
+import com.biblioteca.app.repository.impl.LibroRepositoryImpl;
+import com.biblioteca.app.repository.impl.PrestamoRepositoryImpl;
+import com.biblioteca.app.repository.impl.UsuarioRepositoryImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Toma instantáneas en segundo plano cuando el segmento actual del log supera
+ * un umbral. Los escritores sólo se detienen durante la rotación del log (un
+ * fsync); el recorrido de los repositorios ocurre mientras siguen escribiendo.
+ * Una vez escrita la instantánea se borran los segmentos que cubre.
+ */
+public class GestorInstantaneas {
+    private static final Logger log = LoggerFactory.getLogger(GestorInstantaneas.class);
+
+    private final LogEscrituraAnticipada logEscritura;
+    private final LibroRepositoryImpl libroRepository;
+    private final UsuarioRepositoryImpl usuarioRepository;
+    private final PrestamoRepositoryImpl prestamoRepository;
+    private final long umbralBytes;
+    // Un lock y no synchronized: escribir la instantánea es I/O y con hilos
+    // virtuales un monitor retendría el hilo de plataforma mientras tanto
+    private final ReentrantLock enCurso = new ReentrantLock();
+
+    public GestorInstantaneas(LogEscrituraAnticipada logEscritura,
+            LibroRepositoryImpl libroRepository,
+            UsuarioRepositoryImpl usuarioRepository,
+            PrestamoRepositoryImpl prestamoRepository,
+            long umbralBytes) {
+        this.logEscritura = logEscritura;
+        this.libroRepository = libroRepository;
+        this.usuarioRepository = usuarioRepository;
+        this.prestamoRepository = prestamoRepository;
+        this.umbralBytes = umbralBytes;
+    }
+
+    @Scheduled(fixedDelayString = "${biblioteca.persistencia.instantanea.intervalo-ms:60000}")
+    public void revisar() throws IOException {
+        if (logEscritura.tamanioSegmentoActual() >= umbralBytes) {
+            tomarInstantanea();
+        }
+    }
+
+    /**
+     * Rota el log, escribe la instantánea asociada al segmento nuevo y borra
+     * los segmentos e instantáneas anteriores.
+     */
+    public Path tomarInstantanea() throws IOException {
+        enCurso.lock();
+        try {
+            long inicio = System.nanoTime();
+            long segmento = logEscritura.rotar();
+            Path directorio = logEscritura.getDirectorio();
+            Path ruta = Instantaneas.escribir(directorio, segmento, libroRepository, usuarioRepository,
+                    prestamoRepository);
+            Instantaneas.eliminarAnteriores(directorio, segmento);
+            LogEscrituraAnticipada.eliminarSegmentosAnteriores(directorio, segmento);
+            log.info("Instantánea {} escrita en {} ms", ruta.getFileName(),
+                    Duration.ofNanos(System.nanoTime() - inicio).toMillis());
+            return ruta;
+        } finally {
+            enCurso.unlock();
+        }
+    }
+}
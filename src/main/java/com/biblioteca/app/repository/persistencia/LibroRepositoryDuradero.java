@@ -0,0 +1,112 @@
+package com.biblioteca.app.repository.persistencia;
+
+import com.biblioteca.app.model.EstadoLibro;
+import com.biblioteca.app.model.Libro;
+import com.biblioteca.app.repository.LibroRepository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Repositorio de libros que registra cada escritura en el log al aplicarla
+ * en memoria, bajo el lock del id. Las lecturas van directo al repositorio
+ * en memoria.
+ */
+public class LibroRepositoryDuradero implements LibroRepository {
+    private final LibroRepository delegado;
+    private final RegistradorCambios registrador;
+
+    public LibroRepositoryDuradero(LibroRepository delegado, RegistradorCambios registrador) {
+        this.delegado = delegado;
+        this.registrador = registrador;
+    }
+
+    @Override
+    public Libro save(Libro libro) {
+        return registrador.guardar(libro, Libro::getId, delegado::save, delegado::existsById,
+                CodificadorRegistros::guardado);
+    }
+
+    /**
+     * Registra el libro como quedó, con su estado, igual que {@code save}.
+     */
+    @Override
+    public Libro actualizar(Long id, String isbn, String titulo, String autor) {
+        return registrador.guardar(new Libro(id, isbn, titulo, autor, null), Libro::getId,
+                cambios -> delegado.actualizar(id, isbn, titulo, autor), delegado::existsById,
+                CodificadorRegistros::guardado);
+    }
+
+    /**
+     * Registra lo que se llegó a guardar aunque un elemento falle, con una
+     * sola espera de fsync para todo el lote.
+     */
+    @Override
+    public List<Libro> saveAll(List<Libro> libros) {
+        return registrador.guardarTodos(libros, Libro::getId, delegado::save, delegado::existsById,
+                CodificadorRegistros::guardado);
+    }
+
+    @Override
+    public Optional<Libro> findById(Long id) {
+        return delegado.findById(id);
+    }
+
+    @Override
+    public Map<Long, Libro> findAllById(Collection<Long> ids) {
+        return delegado.findAllById(ids);
+    }
+
+    @Override
+    public Optional<Libro> findByIsbn(String isbn) {
+        return delegado.findByIsbn(isbn);
+    }
+
+    @Override
+    public List<Libro> findAll() {
+        return delegado.findAll();
+    }
+
+    @Override
+    public List<Libro> findPagina(Long despuesDeId, int limite) {
+        return delegado.findPagina(despuesDeId, limite);
+    }
+
+    @Override
+    public List<Libro> findByEstado(EstadoLibro estado) {
+        return delegado.findByEstado(estado);
+    }
+
+    @Override
+    public int countByEstado(EstadoLibro estado) {
+        return delegado.countByEstado(estado);
+    }
+
+    @Override
+    public List<Libro> findPorTexto(String consulta, int limite) {
+        return delegado.findPorTexto(consulta, limite);
+    }
+
+    @Override
+    public List<String> findSugerencias(String prefijo, int limite) {
+        return delegado.findSugerencias(prefijo, limite);
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        registrador.eliminar(id, () -> delegado.deleteById(id),
+                CodificadorRegistros.eliminacion(CodificadorRegistros.LIBRO, id));
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return delegado.existsById(id);
+    }
+
+    @Override
+    public int contar() {
+        return delegado.contar();
+    }
+}
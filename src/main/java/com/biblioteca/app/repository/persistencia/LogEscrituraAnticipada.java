@@ -0,0 +1,441 @@
+package com.biblioteca.app.repository.persistencia;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Log de escritura anticipada de sólo agregado sobre un FileChannel.
+ * <p>
+ * Formato: cada segmento tiene un encabezado fijo y luego registros
+ * {@code [largo:int][crc32c:int][cuerpo]}. Los escritores copian su registro a
+ * un buffer en memoria y un único hilo lo vuelca al canal y hace fsync (commit
+ * agrupado): todo lo que se acumuló mientras corría el fsync anterior se
+ * confirma con el siguiente. Hay dos buffers que se alternan, así que los
+ * escritores nunca esperan al disco salvo que pidan durabilidad o el buffer se
+ * llene.
+ * <p>
+ * El log se divide en segmentos numerados. {@link #rotar()} cierra el segmento
+ * actual en un punto exacto de la secuencia de registros; las instantáneas usan
+ * ese punto como marca de época y después borran los segmentos anteriores.
+ * <p>
+ * Al abrir se recorren los registros existentes; un registro incompleto o con
+ * CRC inválido al final del último segmento (escritura cortada por una caída)
+ * se descarta y el archivo se trunca en el último registro válido.
+ */
+public final class LogEscrituraAnticipada implements Closeable {
+    private static final byte[] ENCABEZADO = {'B', 'I', 'B', 'W', 'A', 'L', '0', '1'};
+    private static final Pattern NOMBRE_SEGMENTO = Pattern.compile("wal-(\\d+)\\.log");
+    private static final int CABECERA_REGISTRO = 8;
+    private static final int CAPACIDAD_BUFFER = 1 << 22;
+    private static final int MAXIMO_REGISTRO = CAPACIDAD_BUFFER - CABECERA_REGISTRO;
+
+    private final Path directorio;
+    private final OpcionesLog opciones;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition hayTrabajo = lock.newCondition();
+    private final Condition confirmado = lock.newCondition();
+    private final Thread escritor;
+
+    // Sólo lo cambia el hilo de fsync
+    private volatile FileChannel canal;
+
+    // Protegidos por lock
+    private ByteBuffer pendiente = ByteBuffer.allocateDirect(CAPACIDAD_BUFFER);
+    private ByteBuffer libre = ByteBuffer.allocateDirect(CAPACIDAD_BUFFER);
+    private int registrosPendientes;
+    private long ultimaSecuencia;
+    private long secuenciaDurable;
+    private long segmentoActual;
+    private boolean rotacionPedida;
+    private IOException falla;
+    private boolean cerrado;
+
+    private LogEscrituraAnticipada(Path directorio, FileChannel canal, long segmento, OpcionesLog opciones) {
+        this.directorio = directorio;
+        this.canal = canal;
+        this.segmentoActual = segmento;
+        this.opciones = opciones;
+        this.escritor = Thread.ofPlatform().name("wal-fsync").daemon().unstarted(this::volcarEnBucle);
+    }
+
+    /**
+     * Abre (o crea) el log del directorio, entrega al visitante en orden cada
+     * registro válido de los segmentos a partir de {@code desdeSegmento} y deja
+     * el log listo para agregar al final. Los segmentos anteriores ya están
+     * cubiertos por una instantánea y se borran.
+     *
+     * @throws IOException si un segmento que no es el último está dañado
+     */
+    public static LogEscrituraAnticipada abrir(Path directorio, OpcionesLog opciones, long desdeSegmento,
+            Consumer<ByteBuffer> visitante) throws IOException {
+        eliminarSegmentosAnteriores(directorio, desdeSegmento);
+        List<Long> segmentos = listarSegmentos(directorio);
+        for (int i = 0; i < segmentos.size() - 1; i++) {
+            Path ruta = rutaSegmento(directorio, segmentos.get(i));
+            try (FileChannel anterior = FileChannel.open(ruta, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                if (recorrer(anterior, visitante) != anterior.size()) {
+                    throw new IOException("Segmento dañado en el medio del log: " + ruta);
+                }
+            }
+        }
+
+        long ultimo = segmentos.isEmpty() ? Math.max(desdeSegmento, 1) : segmentos.get(segmentos.size() - 1);
+        FileChannel canal = FileChannel.open(rutaSegmento(directorio, ultimo),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long fin = recorrer(canal, visitante);
+            canal.truncate(fin);
+            canal.position(fin);
+            LogEscrituraAnticipada log = new LogEscrituraAnticipada(directorio, canal, ultimo, opciones);
+            log.escritor.start();
+            return log;
+        } catch (IOException | RuntimeException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Encola un registro para el próximo fsync.
+     *
+     * @return número de secuencia a pasar a {@link #esperarDurabilidad(long)}
+     * @throws UncheckedIOException  si un fsync anterior falló
+     * @throws IllegalStateException si el log está cerrado
+     */
+    public long agregar(byte[] cuerpo) {
+        if (cuerpo.length > MAXIMO_REGISTRO) {
+            throw new IllegalArgumentException("Registro demasiado grande: " + cuerpo.length + " bytes");
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(cuerpo);
+        int suma = (int) crc.getValue();
+
+        lock.lock();
+        try {
+            verificarAbierto();
+            while (pendiente.remaining() < CABECERA_REGISTRO + cuerpo.length) {
+                // Buffer lleno: se espera a que el hilo de fsync libere el otro
+                hayTrabajo.signal();
+                confirmado.awaitUninterruptibly();
+                verificarAbierto();
+            }
+            pendiente.putInt(cuerpo.length).putInt(suma).put(cuerpo);
+            registrosPendientes++;
+            long secuencia = ++ultimaSecuencia;
+            if (opciones.esperarFsync() || registrosPendientes == 1 || registrosPendientes >= opciones.loteFsync()) {
+                hayTrabajo.signal();
+            }
+            return secuencia;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Bloquea hasta que el registro con esa secuencia esté en disco.
+     * No hace nada si el log no espera fsync.
+     */
+    public void esperarDurabilidad(long secuencia) {
+        if (opciones.esperarFsync()) {
+            esperarHasta(secuencia);
+        }
+    }
+
+    /**
+     * Fuerza a disco todo lo agregado hasta ahora, sin importar las opciones.
+     */
+    public void sincronizar() {
+        long secuencia;
+        lock.lock();
+        try {
+            secuencia = ultimaSecuencia;
+            hayTrabajo.signal();
+        } finally {
+            lock.unlock();
+        }
+        esperarHasta(secuencia);
+    }
+
+    /**
+     * Vuelca lo pendiente al segmento actual y empieza uno nuevo. Todo registro
+     * agregado antes de la llamada queda en un segmento anterior al devuelto.
+     *
+     * @return número del segmento nuevo
+     */
+    public long rotar() {
+        lock.lock();
+        try {
+            verificarAbierto();
+            long objetivo = segmentoActual + 1;
+            rotacionPedida = true;
+            hayTrabajo.signal();
+            while (segmentoActual < objetivo) {
+                verificarAbierto();
+                confirmado.awaitUninterruptibly();
+            }
+            return objetivo;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getSegmentoActual() {
+        lock.lock();
+        try {
+            return segmentoActual;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long tamanioSegmentoActual() throws IOException {
+        return canal.size();
+    }
+
+    public Path getDirectorio() {
+        return directorio;
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (cerrado) {
+                return;
+            }
+            cerrado = true;
+            hayTrabajo.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            escritor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        canal.close();
+    }
+
+    private void esperarHasta(long secuencia) {
+        lock.lock();
+        try {
+            while (secuenciaDurable < secuencia) {
+                if (falla != null) {
+                    throw new UncheckedIOException("No se pudo escribir el log", falla);
+                }
+                confirmado.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void volcarEnBucle() {
+        while (true) {
+            ByteBuffer aVolcar;
+            long hasta;
+            long siguienteSegmento;
+            lock.lock();
+            try {
+                while (registrosPendientes == 0 && !rotacionPedida && !cerrado) {
+                    hayTrabajo.await();
+                }
+                if (!opciones.esperarFsync() && !rotacionPedida && !cerrado
+                        && registrosPendientes < opciones.loteFsync()) {
+                    // Nadie espera el fsync: se agrupa hasta el intervalo o hasta completar el lote
+                    hayTrabajo.awaitNanos(opciones.intervaloFsync().toNanos());
+                }
+                if (registrosPendientes == 0 && !rotacionPedida && cerrado) {
+                    confirmado.signalAll();
+                    return;
+                }
+                aVolcar = pendiente;
+                pendiente = libre;
+                libre = null;
+                hasta = ultimaSecuencia;
+                registrosPendientes = 0;
+                siguienteSegmento = rotacionPedida ? segmentoActual + 1 : 0;
+                rotacionPedida = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            IOException error = null;
+            try {
+                aVolcar.flip();
+                if (aVolcar.hasRemaining()) {
+                    while (aVolcar.hasRemaining()) {
+                        canal.write(aVolcar);
+                    }
+                    canal.force(false);
+                }
+                if (siguienteSegmento > 0) {
+                    abrirSegmentoNuevo(siguienteSegmento);
+                }
+            } catch (IOException e) {
+                error = e;
+            }
+
+            lock.lock();
+            try {
+                aVolcar.clear();
+                libre = aVolcar;
+                if (error != null) {
+                    falla = error;
+                    cerrado = true;
+                } else {
+                    secuenciaDurable = hasta;
+                    if (siguienteSegmento > 0) {
+                        segmentoActual = siguienteSegmento;
+                    }
+                }
+                confirmado.signalAll();
+                if (error != null) {
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void abrirSegmentoNuevo(long numero) throws IOException {
+        FileChannel nuevo = FileChannel.open(rutaSegmento(directorio, numero),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            nuevo.position(recorrer(nuevo, registro -> {
+            }));
+        } catch (IOException e) {
+            nuevo.close();
+            throw e;
+        }
+        FileChannel anterior = canal;
+        canal = nuevo;
+        anterior.close();
+    }
+
+    private void verificarAbierto() {
+        if (falla != null) {
+            throw new UncheckedIOException("No se pudo escribir el log", falla);
+        }
+        if (cerrado) {
+            throw new IllegalStateException("El log está cerrado");
+        }
+    }
+
+    public static Path rutaSegmento(Path directorio, long numero) {
+        return directorio.resolve(String.format("wal-%012d.log", numero));
+    }
+
+    /**
+     * Borra los segmentos con número menor al indicado.
+     */
+    public static void eliminarSegmentosAnteriores(Path directorio, long numero) throws IOException {
+        for (Long segmento : listarSegmentos(directorio)) {
+            if (segmento < numero) {
+                Files.deleteIfExists(rutaSegmento(directorio, segmento));
+            }
+        }
+    }
+
+    static List<Long> listarSegmentos(Path directorio) throws IOException {
+        List<Long> segmentos = new ArrayList<>();
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            archivos.forEach(archivo -> {
+                Matcher matcher = NOMBRE_SEGMENTO.matcher(archivo.getFileName().toString());
+                if (matcher.matches()) {
+                    segmentos.add(Long.parseLong(matcher.group(1)));
+                }
+            });
+        }
+        segmentos.sort(null);
+        return segmentos;
+    }
+
+    /**
+     * Entrega cada registro válido al visitante y devuelve la posición donde
+     * termina el último. Un archivo vacío recibe el encabezado.
+     */
+    static long recorrer(FileChannel canal, Consumer<ByteBuffer> visitante) throws IOException {
+        if (canal.size() == 0) {
+            canal.write(ByteBuffer.wrap(ENCABEZADO), 0);
+            canal.force(true);
+            return ENCABEZADO.length;
+        }
+        ByteBuffer encabezado = ByteBuffer.allocate(ENCABEZADO.length);
+        canal.read(encabezado, 0);
+        if (!Arrays.equals(encabezado.array(), ENCABEZADO)) {
+            throw new IOException("El archivo no es un log de la biblioteca");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 20).flip();
+        long leido = ENCABEZADO.length;
+        long finValido = ENCABEZADO.length;
+        CRC32C crc = new CRC32C();
+        while (true) {
+            if (buffer.remaining() < CABECERA_REGISTRO) {
+                int bytes = rellenar(canal, buffer, leido);
+                if (bytes <= 0) {
+                    break;
+                }
+                leido += bytes;
+                continue;
+            }
+            int inicio = buffer.position();
+            int largo = buffer.getInt(inicio);
+            int suma = buffer.getInt(inicio + 4);
+            if (largo <= 0 || largo > MAXIMO_REGISTRO) {
+                break;
+            }
+            if (buffer.remaining() < CABECERA_REGISTRO + largo) {
+                if (buffer.capacity() < CABECERA_REGISTRO + largo) {
+                    buffer = ByteBuffer.allocate(CABECERA_REGISTRO + largo).put(buffer).flip();
+                }
+                int bytes = rellenar(canal, buffer, leido);
+                if (bytes <= 0) {
+                    break;
+                }
+                leido += bytes;
+                continue;
+            }
+            crc.reset();
+            crc.update(buffer.array(), buffer.arrayOffset() + inicio + CABECERA_REGISTRO, largo);
+            if ((int) crc.getValue() != suma) {
+                break;
+            }
+            visitante.accept(buffer.slice(inicio + CABECERA_REGISTRO, largo));
+            buffer.position(inicio + CABECERA_REGISTRO + largo);
+            finValido += CABECERA_REGISTRO + largo;
+        }
+        return finValido;
+    }
+
+    /**
+     * Conserva lo no consumido al principio del buffer y lee a continuación.
+     */
+    private static int rellenar(FileChannel canal, ByteBuffer buffer, long posicion) throws IOException {
+        buffer.compact();
+        int bytes = canal.read(buffer, posicion);
+        buffer.flip();
+        return bytes;
+    }
+}
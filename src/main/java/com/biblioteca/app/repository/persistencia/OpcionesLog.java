@@ -0,0 +1,23 @@
+package com.biblioteca.app.repository.persistencia;
+
+import java.time.Duration;
+
+/**
+ * Parámetros del commit agrupado.
+ *
+ * @param esperarFsync   si es true cada escritura vuelve recién cuando su registro está en disco;
+ *                       si es false puede perderse como máximo el último intervalo ante una caída
+ * @param intervaloFsync demora máxima entre fsyncs cuando nadie espera durabilidad
+ * @param loteFsync      cantidad de registros pendientes que adelanta el fsync sin esperar el intervalo
+ */
+public record OpcionesLog(boolean esperarFsync, Duration intervaloFsync, int loteFsync) {
+
+    public OpcionesLog {
+        if (intervaloFsync.isNegative() || intervaloFsync.isZero()) {
+            throw new IllegalArgumentException("El intervalo de fsync debe ser positivo");
+        }
+        if (loteFsync < 1) {
+            throw new IllegalArgumentException("El lote de fsync debe ser al menos 1");
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.biblioteca.app.repository.persistencia;
+
+import com.biblioteca.app.model.Prestamo;
+import com.biblioteca.app.model.Usuario;
+import com.biblioteca.app.repository.PrestamoRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repositorio de préstamos que registra cada escritura en el log.
+ */
+public class PrestamoRepositoryDuradero implements PrestamoRepository {
+    private final PrestamoRepository delegado;
+    private final RegistradorCambios registrador;
+
+    public PrestamoRepositoryDuradero(PrestamoRepository delegado, RegistradorCambios registrador) {
+        this.delegado = delegado;
+        this.registrador = registrador;
+    }
+
+    @Override
+    public Prestamo save(Prestamo prestamo) {
+        return registrador.guardar(prestamo, Prestamo::getId, delegado::save, delegado::existsById,
+                CodificadorRegistros::guardado);
+    }
+
+    /**
+     * Registra lo que se llegó a guardar aunque un elemento falle, con una
+     * sola espera de fsync para todo el lote.
+     */
+    @Override
+    public List<Prestamo> saveAll(List<Prestamo> prestamos) {
+        return registrador.guardarTodos(prestamos, Prestamo::getId, delegado::save, delegado::existsById,
+                CodificadorRegistros::guardado);
+    }
+
+    @Override
+    public Optional<Prestamo> findById(Long id) {
+        return delegado.findById(id);
+    }
+
+    @Override
+    public List<Prestamo> findByUsuario(Usuario usuario) {
+        return delegado.findByUsuario(usuario);
+    }
+
+    @Override
+    public List<Prestamo> findAll() {
+        return delegado.findAll();
+    }
+
+    @Override
+    public List<Prestamo> findPagina(Long despuesDeId, int limite) {
+        return delegado.findPagina(despuesDeId, limite);
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        registrador.eliminar(id, () -> delegado.deleteById(id),
+                CodificadorRegistros.eliminacion(CodificadorRegistros.PRESTAMO, id));
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return delegado.existsById(id);
+    }
+
+    @Override
+    public List<Prestamo> findPrestamosActivos() {
+        return delegado.findPrestamosActivos();
+    }
+
+    @Override
+    public List<Prestamo> findPrestamosVencidos() {
+        return delegado.findPrestamosVencidos();
+    }
+
+    @Override
+    public List<Prestamo> findPrestamosVencidosAl(LocalDate fecha) {
+        return delegado.findPrestamosVencidosAl(fecha);
+    }
+
+    @Override
+    public List<Prestamo> findPrestamosQueVencenEntre(LocalDate desde, LocalDate hasta) {
+        return delegado.findPrestamosQueVencenEntre(desde, hasta);
+    }
+
+    @Override
+    public int contar() {
+        return delegado.contar();
+    }
+
+    @Override
+    public int contarActivos() {
+        return delegado.contarActivos();
+    }
+
+    @Override
+    public int contarVencidosAl(LocalDate fecha) {
+        return delegado.contarVencidosAl(fecha);
+    }
+}
@@ -0,0 +1,116 @@
+package com.biblioteca.app.repository.persistencia;
+
+import com.biblioteca.app.concurrencia.BloqueosPorFranjas;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Aplica los cambios de los repositorios duraderos al repositorio en memoria
+ * y los agrega al log. El cambio en memoria, la codificación y el agregado de
+ * un mismo id ocurren bajo el mismo lock, así que el log tiene los cambios de
+ * cada id en el mismo orden que la memoria: un guardado y una eliminación
+ * concurrentes no pueden quedar al revés y revivir la entidad al recuperar.
+ * La espera del fsync ocurre fuera del lock para que el commit agrupado
+ * pueda juntar escrituras de muchos hilos.
+ */
+public class RegistradorCambios {
+    private static final int FRANJAS = 256;
+    private static final long SIN_REGISTRO = 0;
+
+    private final LogEscrituraAnticipada log;
+    private final BloqueosPorFranjas bloqueos = new BloqueosPorFranjas(FRANJAS);
+
+    public RegistradorCambios(LogEscrituraAnticipada log) {
+        this.log = log;
+    }
+
+    /**
+     * Guarda la entidad con {@code guardar} y registra el estado guardado.
+     *
+     * @param existe dice si el id sigue en memoria; sólo se consulta para
+     *               entidades nuevas, ver {@link #guardarSinEsperar}
+     */
+    <T> T guardar(T entidad, Function<T, Long> id, UnaryOperator<T> guardar,
+            Predicate<Long> existe, Function<T, byte[]> codificar) {
+        Guardado<T> guardado = guardarSinEsperar(entidad, id, guardar, existe, codificar);
+        if (guardado.secuencia() > SIN_REGISTRO) {
+            log.esperarDurabilidad(guardado.secuencia());
+        }
+        return guardado.entidad();
+    }
+
+    /**
+     * Como {@link #guardar} para varias entidades, esperando el fsync una
+     * sola vez al final: todo el lote entra en el mismo commit agrupado. Si
+     * una entidad falla, las anteriores ya quedaron guardadas y registradas.
+     */
+    <T> List<T> guardarTodos(List<T> entidades, Function<T, Long> id, UnaryOperator<T> guardar,
+            Predicate<Long> existe, Function<T, byte[]> codificar) {
+        List<T> guardadas = new ArrayList<>(entidades.size());
+        long ultima = SIN_REGISTRO;
+        try {
+            for (T entidad : entidades) {
+                Guardado<T> guardado = guardarSinEsperar(entidad, id, guardar, existe, codificar);
+                guardadas.add(guardado.entidad());
+                ultima = Math.max(ultima, guardado.secuencia());
+            }
+        } finally {
+            if (ultima > SIN_REGISTRO) {
+                log.esperarDurabilidad(ultima);
+            }
+        }
+        return guardadas;
+    }
+
+    /**
+     * Elimina el id con {@code eliminar} y registra la eliminación.
+     */
+    void eliminar(Long id, Runnable eliminar, byte[] registro) {
+        long secuencia = conBloqueo(id, () -> {
+            eliminar.run();
+            return log.agregar(registro);
+        });
+        log.esperarDurabilidad(secuencia);
+    }
+
+    /**
+     * Una entidad sin id recibe uno del repositorio en memoria, así que no hay
+     * lock que tomar antes de guardarla; se registra después, bajo el lock del
+     * id asignado. Antes de eso otro hilo pudo verla en un listado y
+     * eliminarla: si ya no está en memoria, la eliminación ya quedó
+     * registrada y no se registra el alta.
+     */
+    private <T> Guardado<T> guardarSinEsperar(T entidad, Function<T, Long> id, UnaryOperator<T> guardar,
+            Predicate<Long> existe, Function<T, byte[]> codificar) {
+        Long actual = id.apply(entidad);
+        if (actual != null) {
+            return conBloqueo(actual, () -> {
+                T guardada = guardar.apply(entidad);
+                return new Guardado<>(guardada, log.agregar(codificar.apply(guardada)));
+            });
+        }
+        T guardada = guardar.apply(entidad);
+        Long asignado = id.apply(guardada);
+        return conBloqueo(asignado, () -> new Guardado<>(guardada,
+                existe.test(asignado) ? log.agregar(codificar.apply(guardada)) : SIN_REGISTRO));
+    }
+
+    private <R> R conBloqueo(Long id, Supplier<R> accion) {
+        Lock bloqueo = bloqueos.para(id);
+        bloqueo.lock();
+        try {
+            return accion.get();
+        } finally {
+            bloqueo.unlock();
+        }
+    }
+
+    private record Guardado<T>(T entidad, long secuencia) {
+    }
+}
@@ -0,0 +1,77 @@
+package com.biblioteca.app.repository.persistencia;
+
+import com.biblioteca.app.model.Usuario;
+import com.biblioteca.app.repository.UsuarioRepository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Repositorio de usuarios que registra cada escritura en el log. Los libros
+ * prestados no se registran: se derivan de los préstamos activos al recuperar.
+ */
+public class UsuarioRepositoryDuradero implements UsuarioRepository {
+    private final UsuarioRepository delegado;
+    private final RegistradorCambios registrador;
+
+    public UsuarioRepositoryDuradero(UsuarioRepository delegado, RegistradorCambios registrador) {
+        this.delegado = delegado;
+        this.registrador = registrador;
+    }
+
+    @Override
+    public Usuario save(Usuario usuario) {
+        return registrador.guardar(usuario, Usuario::getId, delegado::save, delegado::existsById,
+                CodificadorRegistros::guardado);
+    }
+
+    @Override
+    public Usuario actualizar(Long id, String nombre, String email) {
+        return registrador.guardar(new Usuario(id, nombre, email, null), Usuario::getId,
+                cambios -> delegado.actualizar(id, nombre, email), delegado::existsById,
+                CodificadorRegistros::guardado);
+    }
+
+    @Override
+    public Optional<Usuario> findById(Long id) {
+        return delegado.findById(id);
+    }
+
+    @Override
+    public Map<Long, Usuario> findAllById(Collection<Long> ids) {
+        return delegado.findAllById(ids);
+    }
+
+    @Override
+    public Optional<Usuario> findByEmail(String email) {
+        return delegado.findByEmail(email);
+    }
+
+    @Override
+    public List<Usuario> findAll() {
+        return delegado.findAll();
+    }
+
+    @Override
+    public List<Usuario> findPagina(Long despuesDeId, int limite) {
+        return delegado.findPagina(despuesDeId, limite);
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        registrador.eliminar(id, () -> delegado.deleteById(id),
+                CodificadorRegistros.eliminacion(CodificadorRegistros.USUARIO, id));
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return delegado.existsById(id);
+    }
+
+    @Override
+    public int contar() {
+        return delegado.contar();
+    }
+}
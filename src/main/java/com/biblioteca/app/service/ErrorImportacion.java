@@ -0,0 +1,14 @@
+package com.biblioteca.app.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Una fila rechazada durante una importación.
+ *
+ * @param linea línea del archivo donde empieza la fila
+ * @param isbn  ISBN de la fila, si se llegó a leer
+ * @param error motivo del rechazo
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ErrorImportacion(long linea, String isbn, String error) {
+}
@@ -0,0 +1,20 @@
+package com.biblioteca.app.service;
+
+import com.biblioteca.app.model.Libro;
+
+/**
+ * Una fila leída de un archivo de importación: el libro si se pudo
+ * interpretar o el motivo por el que no.
+ *
+ * @param linea línea del archivo donde empieza la fila
+ */
+public record FilaImportacion(long linea, Libro libro, String error) {
+
+    public static FilaImportacion valida(long linea, Libro libro) {
+        return new FilaImportacion(linea, libro, null);
+    }
+
+    public static FilaImportacion invalida(long linea, String error) {
+        return new FilaImportacion(linea, null, error);
+    }
+}
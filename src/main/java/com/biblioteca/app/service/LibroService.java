@@ -1,7 +1,10 @@
 package com.biblioteca.app.service;
 
+import com.biblioteca.app.model.EstadoLibro;
 import com.biblioteca.app.model.Libro;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface LibroService {
     Libro buscarPorIsbn(String isbn);
@@ -10,13 +13,32 @@ public interface LibroService {
 
     List<Libro> obtenerTodos();
 
+    List<Libro> obtenerPagina(Long despuesDeId, int limite);
+
+    List<Libro> buscar(String consulta, int limite);
+
+    List<String> autocompletar(String prefijo, int limite);
+
     Libro guardar(Libro libro);
 
+    /**
+     * Guarda los libros de las filas con las mismas validaciones que
+     * {@link #guardar(Libro)}, por lotes. Las filas se consumen a medida que se
+     * procesan, así que el iterador puede ir leyendo la entrada.
+     *
+     * @param errores recibe cada fila rechazada apenas se procesa su lote
+     */
+    ResumenImportacion importar(Iterator<FilaImportacion> filas, Consumer<ErrorImportacion> errores);
+
     void eliminar(Long id);
 
     Libro actualizar(Long id, Libro libro);
 
     List<Libro> buscarDisponibles();
 
+    List<Libro> buscarPorEstado(EstadoLibro estado);
+
+    int contarPorEstado(EstadoLibro estado);
+
     void enviarAReparacion(Long id);
 }
\ No newline at end of file
@@ -9,6 +9,19 @@ public interface PrestamoService {
 
     void devolverLibro(Long prestamoId);
 
+    /**
+     * Realiza varios préstamos. Cada solicitud se resuelve por separado, con
+     * el mismo resultado que {@link #realizarPrestamo}, y el resultado i
+     * corresponde a la solicitud i.
+     */
+    List<ResultadoLote<Prestamo>> realizarPrestamos(List<SolicitudPrestamo> solicitudes);
+
+    /**
+     * Devuelve varios préstamos; el resultado i corresponde al id i y trae el
+     * préstamo finalizado o el error que daría {@link #devolverLibro}.
+     */
+    List<ResultadoLote<Prestamo>> devolverLibros(List<Long> prestamoIds);
+
     List<Prestamo> obtenerPrestamosActivos();
 
     List<Prestamo> obtenerPrestamosVencidos();
@@ -19,5 +32,13 @@ public interface PrestamoService {
 
     List<Prestamo> obtenerTodos();
 
+    List<Prestamo> obtenerPagina(Long despuesDeId, int limite);
+
+    /**
+     * Busca los libros y usuarios que referencian los préstamos, con una sola
+     * búsqueda por repositorio para todos los ids distintos.
+     */
+    PrestamosResueltos resolver(List<Prestamo> prestamos);
+
     void eliminar(Long id);
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package com.biblioteca.app.service;
+
+import com.biblioteca.app.model.Libro;
+import com.biblioteca.app.model.Prestamo;
+import com.biblioteca.app.model.Usuario;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Préstamos junto con los libros y los usuarios que referencian, cada uno una
+ * sola vez aunque aparezca en varios préstamos. El cliente busca el
+ * {@code libroId} y el {@code usuarioId} de cada préstamo en los mapas.
+ *
+ * @param prestamos préstamos en el orden en que se pidieron
+ * @param libros    libros referenciados, por id (falta el de un libro eliminado)
+ * @param usuarios  usuarios referenciados, por id (falta el de un usuario eliminado)
+ */
+public record PrestamosResueltos(List<Prestamo> prestamos, Map<Long, Libro> libros, Map<Long, Usuario> usuarios) {
+}
@@ -0,0 +1,20 @@
+package com.biblioteca.app.service;
+
+/**
+ * Resultado de un elemento de una operación por lotes: el valor si salió bien
+ * o la excepción que habría lanzado la operación individual.
+ */
+public record ResultadoLote<T>(T valor, RuntimeException error) {
+
+    public static <T> ResultadoLote<T> exito(T valor) {
+        return new ResultadoLote<>(valor, null);
+    }
+
+    public static <T> ResultadoLote<T> fallo(RuntimeException error) {
+        return new ResultadoLote<>(null, error);
+    }
+
+    public boolean exitoso() {
+        return error == null;
+    }
+}
@@ -0,0 +1,7 @@
+package com.biblioteca.app.service;
+
+/**
+ * Totales de una importación terminada.
+ */
+public record ResumenImportacion(long importados, long rechazados) {
+}
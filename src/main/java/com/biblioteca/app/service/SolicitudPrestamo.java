@@ -0,0 +1,7 @@
+package com.biblioteca.app.service;
+
+/**
+ * Un préstamo pedido dentro de un lote.
+ */
+public record SolicitudPrestamo(Long libroId, Long usuarioId) {
+}
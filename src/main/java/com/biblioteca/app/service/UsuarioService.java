@@ -10,6 +10,8 @@ public interface UsuarioService {
 
     List<Usuario> obtenerTodos();
 
+    List<Usuario> obtenerPagina(Long despuesDeId, int limite);
+
     Usuario guardar(Usuario usuario);
 
     void eliminar(Long id);
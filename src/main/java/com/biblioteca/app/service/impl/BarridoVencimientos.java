@@ -0,0 +1,141 @@
+package com.biblioteca.app.service.impl;
+
+import com.biblioteca.app.event.PrestamoVencidoEvent;
+import com.biblioteca.app.event.PublicadorEventos;
+import com.biblioteca.app.model.Prestamo;
+import com.biblioteca.app.repository.PrestamoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Publica periódicamente en el bus de eventos un {@link PrestamoVencidoEvent}
+ * por cada préstamo que pasó a estar vencido desde la pasada anterior. Guarda sólo una marca: la
+ * fecha de la última pasada. Cada pasada lee del índice de vencimientos el
+ * rango entre la marca y la fecha nueva y después avanza la marca, así que el
+ * costo es proporcional a los que vencieron en el medio y no a todos los
+ * vencidos.
+ * <p>
+ * Con la persistencia habilitada la marca se guarda en un archivo junto a los
+ * datos, así que tras un reinicio se publican también los préstamos que
+ * vencieron mientras la aplicación estaba detenida. Sin marca guardada (sin
+ * persistencia, o la primera vez) la primera pasada publica todos los
+ * vencidos. La marca se guarda después de publicar: si el proceso se corta
+ * en el medio, esos eventos se vuelven a publicar, nunca se pierden. Por lo
+ * mismo, si el bus descarta alguno la marca no avanza y la próxima pasada
+ * repite el rango.
+ */
+@Component
+@ConditionalOnProperty(name = "biblioteca.prestamos.barrido-vencidos.habilitado", havingValue = "true", matchIfMissing = true)
+public class BarridoVencimientos {
+    private static final Logger log = LoggerFactory.getLogger(BarridoVencimientos.class);
+    private static final String ARCHIVO_MARCA = "marca-vencimientos";
+
+    private final PrestamoRepository prestamoRepository;
+    private final PublicadorEventos publicador;
+    private final Path archivoMarca;
+    // Null si no hubo ninguna pasada: la próxima publica todos los vencidos
+    private LocalDate marca;
+
+    @Autowired
+    public BarridoVencimientos(PrestamoRepository prestamoRepository, PublicadorEventos publicador,
+            @Value("${biblioteca.persistencia.habilitada:false}") boolean persistencia,
+            @Value("${biblioteca.persistencia.directorio:datos}") Path directorio) throws IOException {
+        this(prestamoRepository, publicador, persistencia ? directorio.resolve(ARCHIVO_MARCA) : null);
+    }
+
+    /**
+     * @param archivoMarca donde se lee y se guarda la marca, o null para no guardarla
+     */
+    public BarridoVencimientos(PrestamoRepository prestamoRepository, PublicadorEventos publicador,
+            Path archivoMarca) throws IOException {
+        this.prestamoRepository = prestamoRepository;
+        this.publicador = publicador;
+        this.archivoMarca = archivoMarca;
+        this.marca = archivoMarca != null && Files.exists(archivoMarca)
+                ? LocalDate.parse(Files.readString(archivoMarca).trim())
+                : null;
+    }
+
+    /**
+     * @param marca los préstamos que vencen antes de esta fecha se consideran ya notificados
+     */
+    public BarridoVencimientos(PrestamoRepository prestamoRepository, PublicadorEventos publicador,
+            LocalDate marca) {
+        this.prestamoRepository = prestamoRepository;
+        this.publicador = publicador;
+        this.archivoMarca = null;
+        this.marca = marca;
+    }
+
+    @Scheduled(fixedDelayString = "${biblioteca.prestamos.barrido-vencidos.intervalo-ms:3600000}")
+    public void barrer() {
+        barrer(LocalDate.now());
+    }
+
+    /**
+     * Una fecha anterior o igual a la marca no publica nada.
+     *
+     * @return cantidad de eventos que aceptó el bus en esta pasada
+     */
+    public synchronized int barrer(LocalDate fecha) {
+        if (marca != null && !fecha.isAfter(marca)) {
+            return 0;
+        }
+        List<Prestamo> vencidos = prestamoRepository.findPrestamosQueVencenEntre(marca, fecha);
+        int aceptados = 0;
+        for (Prestamo prestamo : vencidos) {
+            if (publicador.publicar(new PrestamoVencidoEvent(
+                    prestamo.getId(),
+                    prestamo.getLibroId(),
+                    prestamo.getUsuarioId(),
+                    prestamo.getFechaVencimiento()))) {
+                aceptados++;
+            }
+        }
+        if (aceptados < vencidos.size()) {
+            log.warn("El bus descartó {} de {} préstamos vencidos; se repiten en la próxima pasada",
+                    vencidos.size() - aceptados, vencidos.size());
+            return aceptados;
+        }
+        marca = fecha;
+        guardarMarca();
+        return aceptados;
+    }
+
+    /**
+     * @return la fecha de la última pasada, o null si todavía no hubo ninguna
+     */
+    public synchronized LocalDate getMarca() {
+        return marca;
+    }
+
+    /**
+     * Escribe un temporal y lo renombra, así que el archivo siempre tiene una
+     * marca entera. Si no se puede guardar se sigue con la marca en memoria;
+     * tras un reinicio se repiten los eventos desde la última guardada.
+     */
+    private void guardarMarca() {
+        if (archivoMarca == null) {
+            return;
+        }
+        Path temporal = archivoMarca.resolveSibling(archivoMarca.getFileName() + ".tmp");
+        try {
+            Files.writeString(temporal, marca.toString());
+            Files.move(temporal, archivoMarca, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.warn("No se pudo guardar la marca del barrido de vencimientos en {}", archivoMarca, e);
+        }
+    }
+}
@@ -1,19 +1,33 @@
 package com.biblioteca.app.service.impl;
 
+import com.biblioteca.app.exception.LibroNoDisponibleException;
+import com.biblioteca.app.event.LibroEnReparacionEvent;
+import com.biblioteca.app.event.PublicadorEventos;
 import com.biblioteca.app.model.Libro;
 import com.biblioteca.app.model.EstadoLibro;
 import com.biblioteca.app.repository.LibroRepository;
+import com.biblioteca.app.service.ErrorImportacion;
+import com.biblioteca.app.service.FilaImportacion;
 import com.biblioteca.app.service.LibroService;
+import com.biblioteca.app.service.ResumenImportacion;
 import org.springframework.stereotype.Service;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Service
 public class LibroServiceImpl implements LibroService {
+    static final int TAMANIO_LOTE_IMPORTACION = 1000;
+
     private final LibroRepository libroRepository;
+    private final PublicadorEventos publicador;
 
-    public LibroServiceImpl(LibroRepository libroRepository) {
+    public LibroServiceImpl(LibroRepository libroRepository, PublicadorEventos publicador) {
         this.libroRepository = libroRepository;
+        this.publicador = publicador;
     }
 
     @Override
@@ -33,19 +47,119 @@ public class LibroServiceImpl implements LibroService {
         return libroRepository.findAll();
     }
 
+    @Override
+    public List<Libro> obtenerPagina(Long despuesDeId, int limite) {
+        return libroRepository.findPagina(despuesDeId, limite);
+    }
+
+    @Override
+    public List<Libro> buscar(String consulta, int limite) {
+        if (consulta == null || consulta.trim().isEmpty()) {
+            throw new IllegalArgumentException("La consulta es requerida");
+        }
+        return libroRepository.findPorTexto(consulta, limite);
+    }
+
+    @Override
+    public List<String> autocompletar(String prefijo, int limite) {
+        return libroRepository.findSugerencias(prefijo, limite);
+    }
+
     @Override
     public Libro guardar(Libro libro) {
+        String error = validar(libro);
+        if (error != null) {
+            throw new IllegalArgumentException(error);
+        }
+
+        return libroRepository.save(libro);
+    }
+
+    @Override
+    public ResumenImportacion importar(Iterator<FilaImportacion> filas, Consumer<ErrorImportacion> errores) {
+        List<FilaImportacion> lote = new ArrayList<>(TAMANIO_LOTE_IMPORTACION);
+        long importados = 0;
+        long leidas = 0;
+        while (filas.hasNext()) {
+            lote.add(filas.next());
+            leidas++;
+            if (lote.size() == TAMANIO_LOTE_IMPORTACION) {
+                importados += importarLote(lote, errores);
+                lote.clear();
+            }
+        }
+        if (!lote.isEmpty()) {
+            importados += importarLote(lote, errores);
+        }
+        return new ResumenImportacion(importados, leidas - importados);
+    }
+
+    /**
+     * Los ISBN repetidos se descartan antes de escribir: dentro del lote con
+     * un conjunto y contra el catálogo con el índice de ISBN, que ya incluye
+     * los lotes anteriores.
+     *
+     * @return Cantidad de libros guardados
+     */
+    private int importarLote(List<FilaImportacion> lote, Consumer<ErrorImportacion> errores) {
+        Set<String> isbnsDelLote = new HashSet<>(lote.size() * 2);
+        List<Libro> validos = new ArrayList<>(lote.size());
+        List<FilaImportacion> filasValidas = new ArrayList<>(lote.size());
+        for (FilaImportacion fila : lote) {
+            Libro libro = fila.libro();
+            String error = fila.error() != null ? fila.error() : validar(libro);
+            if (error == null && (!isbnsDelLote.add(libro.getIsbn())
+                    || libroRepository.findByIsbn(libro.getIsbn()).isPresent())) {
+                error = "Ya existe un libro con ISBN: " + libro.getIsbn();
+            }
+            if (error != null) {
+                errores.accept(new ErrorImportacion(fila.linea(), libro == null ? null : libro.getIsbn(), error));
+            } else {
+                validos.add(libro);
+                filasValidas.add(fila);
+            }
+        }
+        if (validos.isEmpty()) {
+            return 0;
+        }
+        try {
+            libroRepository.saveAll(validos);
+            return validos.size();
+        } catch (IllegalArgumentException e) {
+            // Otra escritura tomó un ISBN después de la verificación: se
+            // sigue de a uno con los que no llegaron a guardarse
+            int guardados = 0;
+            for (int i = 0; i < validos.size(); i++) {
+                Libro libro = validos.get(i);
+                if (libro.getId() == null) {
+                    try {
+                        libroRepository.save(libro);
+                    } catch (IllegalArgumentException duplicado) {
+                        errores.accept(new ErrorImportacion(filasValidas.get(i).linea(), libro.getIsbn(),
+                                duplicado.getMessage()));
+                        continue;
+                    }
+                }
+                guardados++;
+            }
+            return guardados;
+        }
+    }
+
+    /**
+     * @return El motivo por el que el libro no se puede guardar, o null si es válido
+     */
+    private static String validar(Libro libro) {
         if (libro.getIsbn() == null || libro.getIsbn().trim().isEmpty()) {
-            throw new IllegalArgumentException("El ISBN es requerido");
+            return "El ISBN es requerido";
         }
         if (libro.getTitulo() == null || libro.getTitulo().trim().isEmpty()) {
-            throw new IllegalArgumentException("El título es requerido");
+            return "El título es requerido";
         }
         if (libro.getAutor() == null || libro.getAutor().trim().isEmpty()) {
-            throw new IllegalArgumentException("El autor es requerido");
+            return "El autor es requerido";
         }
-
-        return libroRepository.save(libro);
+        return null;
     }
 
     @Override
@@ -61,17 +175,26 @@ public class LibroServiceImpl implements LibroService {
         Libro libroExistente = libroRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("No existe el libro con ID: " + id));
 
-        libroExistente.setTitulo(libro.getTitulo());
-        libroExistente.setAutor(libro.getAutor());
-
-        return libroRepository.save(libroExistente);
+        String isbn = libro.getIsbn() != null && !libro.getIsbn().trim().isEmpty()
+                ? libro.getIsbn()
+                : libroExistente.getIsbn();
+        // El repositorio reserva el ISBN antes de tocar el libro: si está tomado, el libro queda como estaba
+        return libroRepository.actualizar(id, isbn, libro.getTitulo(), libro.getAutor());
     }
 
     @Override
     public List<Libro> buscarDisponibles() {
-        return libroRepository.findAll().stream()
-                .filter(Libro::estaDisponible)
-                .collect(Collectors.toList());
+        return libroRepository.findByEstado(EstadoLibro.DISPONIBLE);
+    }
+
+    @Override
+    public List<Libro> buscarPorEstado(EstadoLibro estado) {
+        return libroRepository.findByEstado(estado);
+    }
+
+    @Override
+    public int contarPorEstado(EstadoLibro estado) {
+        return libroRepository.countByEstado(estado);
     }
 
     @Override
@@ -79,11 +202,10 @@ public class LibroServiceImpl implements LibroService {
         Libro libro = libroRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("No existe el libro con ID: " + id));
 
-        try {
-            libro.enviarAReparacion();
-            libroRepository.save(libro);
-        } catch (IllegalStateException e) {
-            throw new IllegalStateException("No se puede enviar a reparación: " + e.getMessage());
+        if (!libro.intentarEnviarAReparacion()) {
+            throw LibroNoDisponibleException.paraReparacion();
         }
+        libroRepository.save(libro);
+        publicador.publicar(new LibroEnReparacionEvent(id));
     }
 }
\ No newline at end of file
@@ -1,5 +1,10 @@
 package com.biblioteca.app.service.impl;
 
+import com.biblioteca.app.concurrencia.BloqueosPorFranjas;
+import com.biblioteca.app.event.LibroDevueltoEvent;
+import com.biblioteca.app.event.PrestamoRealizadoEvent;
+import com.biblioteca.app.event.PublicadorEventos;
+import com.biblioteca.app.exception.LibroNoDisponibleException;
 import com.biblioteca.app.model.Libro;
 import com.biblioteca.app.model.Prestamo;
 import com.biblioteca.app.model.Usuario;
@@ -7,23 +12,51 @@ import com.biblioteca.app.repository.LibroRepository;
 import com.biblioteca.app.repository.PrestamoRepository;
 import com.biblioteca.app.repository.UsuarioRepository;
 import com.biblioteca.app.service.PrestamoService;
+import com.biblioteca.app.service.PrestamosResueltos;
+import com.biblioteca.app.service.ResultadoLote;
+import com.biblioteca.app.service.SolicitudPrestamo;
 import org.springframework.stereotype.Service;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
 
 @Service
 public class PrestamoServiceImpl implements PrestamoService {
+    private static final int FRANJAS = 256;
+
     private final PrestamoRepository prestamoRepository;
     private final LibroRepository libroRepository;
     private final UsuarioRepository usuarioRepository;
+    private final PublicadorEventos publicador;
+    private final BloqueosPorFranjas bloqueosUsuario = new BloqueosPorFranjas(FRANJAS);
 
     public PrestamoServiceImpl(PrestamoRepository prestamoRepository,
             LibroRepository libroRepository,
-            UsuarioRepository usuarioRepository) {
+            UsuarioRepository usuarioRepository,
+            PublicadorEventos publicador) {
         this.prestamoRepository = prestamoRepository;
         this.libroRepository = libroRepository;
         this.usuarioRepository = usuarioRepository;
+        this.publicador = publicador;
     }
 
+    /**
+     * El libro se toma con un compare-and-set sobre su estado, así que dos
+     * préstamos concurrentes del mismo libro no se bloquean entre sí: uno gana
+     * y el otro falla de inmediato. El cupo del usuario se reserva también
+     * con un compare-and-set, así que el préstamo no toma ningún lock.
+     */
     @Override
     public Prestamo realizarPrestamo(Long libroId, Long usuarioId) {
         Libro libro = libroRepository.findById(libroId)
@@ -32,12 +65,19 @@ public class PrestamoServiceImpl implements PrestamoService {
         Usuario usuario = usuarioRepository.findById(usuarioId)
                 .orElseThrow(() -> new IllegalArgumentException("No existe el usuario con ID: " + usuarioId));
 
+        tomarLibro(usuario, libro);
+        // El préstamo se guarda antes que el libro: si algo falla entre ambos,
+        // la recuperación deriva el estado del libro de sus préstamos activos
+        Prestamo prestamo = new Prestamo(null, libro.getId(), usuario.getId(), LocalDate.now(), null);
         try {
-            Prestamo prestamo = new Prestamo(libro, usuario);
-            return prestamoRepository.save(prestamo);
-        } catch (IllegalStateException e) {
-            throw new IllegalStateException("No se puede realizar el préstamo: " + e.getMessage());
+            prestamoRepository.save(prestamo);
+            libroRepository.save(libro);
+        } catch (RuntimeException e) {
+            deshacerPrestamo(prestamo, libro, usuario, e);
+            throw e;
         }
+        publicarPrestamo(prestamo);
+        return prestamo;
     }
 
     @Override
@@ -45,12 +85,162 @@ public class PrestamoServiceImpl implements PrestamoService {
         Prestamo prestamo = prestamoRepository.findById(prestamoId)
                 .orElseThrow(() -> new IllegalArgumentException("No existe el préstamo con ID: " + prestamoId));
 
+        Libro libro = buscar(prestamo.getLibroId(), libroRepository::findById);
+        Usuario usuario = buscar(prestamo.getUsuarioId(), usuarioRepository::findById);
+        Lock bloqueoUsuario = bloqueosUsuario.para(claveDeBloqueo(prestamo));
+        bloqueoUsuario.lock();
+        try {
+            finalizar(prestamo, libro, usuario);
+        } finally {
+            bloqueoUsuario.unlock();
+        }
         try {
-            prestamo.finalizar();
             prestamoRepository.save(prestamo);
-        } catch (IllegalStateException e) {
-            throw new IllegalStateException("No se puede devolver el libro: " + e.getMessage());
+            if (libro != null) {
+                libroRepository.save(libro);
+            }
+        } catch (RuntimeException e) {
+            deshacerDevolucion(prestamo, libro, usuario, e);
+            throw e;
+        }
+        publicarDevolucion(prestamo);
+    }
+
+    /**
+     * Cada libro y cada usuario distinto se busca una sola vez. Los préstamos y
+     * los libros se guardan al final con {@code saveAll}, así que con
+     * persistencia el lote espera un único fsync.
+     */
+    @Override
+    public List<ResultadoLote<Prestamo>> realizarPrestamos(List<SolicitudPrestamo> solicitudes) {
+        List<ResultadoLote<Prestamo>> resultados = new ArrayList<>(Collections.nCopies(solicitudes.size(), null));
+        Map<Long, List<Integer>> porUsuario = new LinkedHashMap<>();
+        for (int i = 0; i < solicitudes.size(); i++) {
+            porUsuario.computeIfAbsent(solicitudes.get(i).usuarioId(), clave -> new ArrayList<>()).add(i);
+        }
+
+        Map<Long, Libro> libros = new HashMap<>();
+        LocalDate hoy = LocalDate.now();
+        List<Prestamo> nuevos = new ArrayList<>();
+        List<Integer> indicesNuevos = new ArrayList<>();
+        List<Libro> prestados = new ArrayList<>();
+        List<Usuario> prestatarios = new ArrayList<>();
+        for (Map.Entry<Long, List<Integer>> grupo : porUsuario.entrySet()) {
+            Long usuarioId = grupo.getKey();
+            Usuario usuario = usuarioId != null ? usuarioRepository.findById(usuarioId).orElse(null) : null;
+            List<Integer> validas = new ArrayList<>(grupo.getValue().size());
+            for (int i : grupo.getValue()) {
+                Long libroId = solicitudes.get(i).libroId();
+                if (buscarUnaVez(libros, libroId, libroRepository::findById) == null) {
+                    resultados.set(i, ResultadoLote.fallo(
+                            new IllegalArgumentException("No existe el libro con ID: " + libroId)));
+                } else if (usuario == null) {
+                    resultados.set(i, ResultadoLote.fallo(
+                            new IllegalArgumentException("No existe el usuario con ID: " + usuarioId)));
+                } else {
+                    validas.add(i);
+                }
+            }
+            if (validas.isEmpty()) {
+                continue;
+            }
+
+            for (int i : validas) {
+                Libro libro = libros.get(solicitudes.get(i).libroId());
+                try {
+                    tomarLibro(usuario, libro);
+                    nuevos.add(new Prestamo(null, libro.getId(), usuarioId, hoy, null));
+                    indicesNuevos.add(i);
+                    prestados.add(libro);
+                    prestatarios.add(usuario);
+                } catch (IllegalStateException | LibroNoDisponibleException e) {
+                    resultados.set(i, ResultadoLote.fallo(e));
+                }
+            }
+        }
+
+        // Igual que en el préstamo individual, los préstamos antes que los libros
+        List<Prestamo> guardados;
+        try {
+            guardados = prestamoRepository.saveAll(nuevos);
+            libroRepository.saveAll(prestados);
+        } catch (RuntimeException e) {
+            for (int j = 0; j < nuevos.size(); j++) {
+                deshacerPrestamo(nuevos.get(j), prestados.get(j), prestatarios.get(j), e);
+            }
+            throw e;
+        }
+        for (int j = 0; j < guardados.size(); j++) {
+            resultados.set(indicesNuevos.get(j), ResultadoLote.exito(guardados.get(j)));
+            publicarPrestamo(guardados.get(j));
         }
+        return resultados;
+    }
+
+    /**
+     * Agrupa los préstamos por clave de bloqueo para tomar cada lock una sola vez,
+     * busca todos los libros y usuarios del lote de una vez y guarda
+     * préstamos y libros al final con {@code saveAll}.
+     */
+    @Override
+    public List<ResultadoLote<Prestamo>> devolverLibros(List<Long> prestamoIds) {
+        List<ResultadoLote<Prestamo>> resultados = new ArrayList<>(Collections.nCopies(prestamoIds.size(), null));
+        Map<Long, Prestamo> prestamos = new HashMap<>();
+        Map<Long, List<Integer>> porBloqueo = new LinkedHashMap<>();
+        for (int i = 0; i < prestamoIds.size(); i++) {
+            Long id = prestamoIds.get(i);
+            Prestamo prestamo = buscarUnaVez(prestamos, id, prestamoRepository::findById);
+            if (prestamo == null) {
+                resultados.set(i, ResultadoLote.fallo(
+                        new IllegalArgumentException("No existe el préstamo con ID: " + id)));
+            } else {
+                porBloqueo.computeIfAbsent(claveDeBloqueo(prestamo), clave -> new ArrayList<>()).add(i);
+            }
+        }
+        Map<Long, Libro> libros = libroRepository.findAllById(
+                prestamos.values().stream().filter(Objects::nonNull).map(Prestamo::getLibroId).toList());
+        Map<Long, Usuario> usuarios = usuarioRepository.findAllById(
+                prestamos.values().stream().filter(Objects::nonNull).map(Prestamo::getUsuarioId).toList());
+
+        List<Prestamo> finalizados = new ArrayList<>();
+        List<Libro> devueltos = new ArrayList<>();
+        for (Map.Entry<Long, List<Integer>> grupo : porBloqueo.entrySet()) {
+            Lock bloqueoUsuario = bloqueosUsuario.para(grupo.getKey());
+            bloqueoUsuario.lock();
+            try {
+                for (int i : grupo.getValue()) {
+                    Prestamo prestamo = prestamos.get(prestamoIds.get(i));
+                    Libro libro = prestamo.getLibroId() != null ? libros.get(prestamo.getLibroId()) : null;
+                    try {
+                        Usuario usuario = prestamo.getUsuarioId() != null ? usuarios.get(prestamo.getUsuarioId()) : null;
+                        finalizar(prestamo, libro, usuario);
+                        finalizados.add(prestamo);
+                        if (libro != null) {
+                            devueltos.add(libro);
+                        }
+                        resultados.set(i, ResultadoLote.exito(prestamo));
+                    } catch (IllegalStateException e) {
+                        resultados.set(i, ResultadoLote.fallo(e));
+                    }
+                }
+            } finally {
+                bloqueoUsuario.unlock();
+            }
+        }
+
+        try {
+            prestamoRepository.saveAll(finalizados);
+            libroRepository.saveAll(devueltos);
+        } catch (RuntimeException e) {
+            for (Prestamo prestamo : finalizados) {
+                Libro libro = prestamo.getLibroId() != null ? libros.get(prestamo.getLibroId()) : null;
+                Usuario usuario = prestamo.getUsuarioId() != null ? usuarios.get(prestamo.getUsuarioId()) : null;
+                deshacerDevolucion(prestamo, libro, usuario, e);
+            }
+            throw e;
+        }
+        finalizados.forEach(this::publicarDevolucion);
+        return resultados;
     }
 
     @Override
@@ -82,6 +272,31 @@ public class PrestamoServiceImpl implements PrestamoService {
         return prestamoRepository.findAll();
     }
 
+    @Override
+    public List<Prestamo> obtenerPagina(Long despuesDeId, int limite) {
+        return prestamoRepository.findPagina(despuesDeId, limite);
+    }
+
+    /**
+     * Junta los ids distintos y los busca con una llamada por repositorio; los
+     * mapas quedan ordenados por id.
+     */
+    @Override
+    public PrestamosResueltos resolver(List<Prestamo> prestamos) {
+        Set<Long> libroIds = new HashSet<>();
+        Set<Long> usuarioIds = new HashSet<>();
+        for (Prestamo prestamo : prestamos) {
+            if (prestamo.getLibroId() != null) {
+                libroIds.add(prestamo.getLibroId());
+            }
+            if (prestamo.getUsuarioId() != null) {
+                usuarioIds.add(prestamo.getUsuarioId());
+            }
+        }
+        return new PrestamosResueltos(prestamos, new TreeMap<>(libroRepository.findAllById(libroIds)),
+                new TreeMap<>(usuarioRepository.findAllById(usuarioIds)));
+    }
+
     @Override
     public void eliminar(Long id) {
         if (!prestamoRepository.existsById(id)) {
@@ -89,4 +304,143 @@ public class PrestamoServiceImpl implements PrestamoService {
         }
         prestamoRepository.deleteById(id);
     }
-}
\ No newline at end of file
+
+    /**
+     * Reserva el cupo del usuario y toma el libro; si el libro no está
+     * disponible, devuelve el lugar reservado.
+     */
+    private static void tomarLibro(Usuario usuario, Libro libro) {
+        if (!usuario.intentarAgregarLibroPrestado(libro.getId())) {
+            throw new IllegalStateException(
+                    "No se puede realizar el préstamo: El usuario no puede realizar más préstamos");
+        }
+        if (!libro.intentarPrestar()) {
+            usuario.quitarLibroPrestado(libro.getId());
+            throw LibroNoDisponibleException.paraPrestamo();
+        }
+    }
+
+    /**
+     * Deshace un préstamo que no se pudo guardar: elimina el préstamo si se
+     * llegó a guardar, devuelve el libro y libera el lugar del cupo. Si algo
+     * de esto también falla, queda como excepción suprimida de la original.
+     */
+    private void deshacerPrestamo(Prestamo prestamo, Libro libro, Usuario usuario, RuntimeException causa) {
+        if (prestamo.getId() != null) {
+            try {
+                prestamoRepository.deleteById(prestamo.getId());
+            } catch (RuntimeException e) {
+                causa.addSuppressed(e);
+            }
+        }
+        libro.intentarDevolver();
+        usuario.quitarLibroPrestado(libro.getId());
+    }
+
+    /**
+     * Deshace una devolución que no se pudo guardar: vuelve a tomar el lugar
+     * del cupo y el libro, bajo el mismo lock que la devolución, y sólo si
+     * los consigue reabre el préstamo. Si mientras tanto otro préstamo tomó
+     * el libro o el cupo, el préstamo queda finalizado y el conflicto queda
+     * como excepción suprimida de la original. En los dos casos el préstamo
+     * se vuelve a guardar, por si se había llegado a guardar en el otro
+     * estado; si eso también falla, queda como suprimida.
+     */
+    private void deshacerDevolucion(Prestamo prestamo, Libro libro, Usuario usuario, RuntimeException causa) {
+        Lock bloqueoUsuario = bloqueosUsuario.para(claveDeBloqueo(prestamo));
+        bloqueoUsuario.lock();
+        try {
+            if (volverATomar(libro, usuario)) {
+                prestamo.reabrir();
+            } else {
+                causa.addSuppressed(new IllegalStateException("No se puede deshacer la devolución del préstamo "
+                        + prestamo.getId() + ": El libro o el cupo del usuario ya se volvieron a tomar"));
+            }
+        } finally {
+            bloqueoUsuario.unlock();
+        }
+        try {
+            prestamoRepository.save(prestamo);
+        } catch (RuntimeException e) {
+            causa.addSuppressed(e);
+        }
+    }
+
+    /**
+     * Como {@link #tomarLibro}, pero sin lanzar: devuelve false si no
+     * consiguió el cupo o el libro, y en ese caso no se queda con ninguno.
+     * Un libro eliminado no hay que tomarlo, y la devolución tampoco soltó
+     * su lugar del cupo.
+     */
+    private static boolean volverATomar(Libro libro, Usuario usuario) {
+        if (libro == null) {
+            return true;
+        }
+        if (usuario != null && !usuario.intentarAgregarLibroPrestado(libro.getId())) {
+            return false;
+        }
+        if (!libro.intentarPrestar()) {
+            if (usuario != null) {
+                usuario.quitarLibroPrestado(libro.getId());
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * La devolución toma el lock del usuario del préstamo. Un préstamo sin
+     * usuario no tiene cupo que cuidar, pero dos devoluciones suyas igual se
+     * tienen que excluir: usa el lock de su propio id.
+     */
+    private static Long claveDeBloqueo(Prestamo prestamo) {
+        return prestamo.getUsuarioId() != null ? prestamo.getUsuarioId() : prestamo.getId();
+    }
+
+    /**
+     * Finaliza el préstamo y devuelve el libro del usuario. Si el libro o el
+     * usuario se eliminaron, el préstamo se finaliza igual, y también si el
+     * libro no está en el cupo del usuario (la recuperación no lo pudo poner
+     * porque el cupo ya estaba lleno). Se llama con el lock del usuario
+     * tomado.
+     */
+    private static void finalizar(Prestamo prestamo, Libro libro, Usuario usuario) {
+        try {
+            prestamo.finalizar();
+            if (libro != null && usuario != null && usuario.tieneLibroPrestado(libro.getId())) {
+                usuario.devolverLibro(libro);
+            } else if (libro != null) {
+                libro.devolver();
+            }
+        } catch (IllegalStateException e) {
+            throw new IllegalStateException("No se puede devolver el libro: " + e.getMessage());
+        }
+    }
+
+    private void publicarPrestamo(Prestamo prestamo) {
+        publicador.publicar(new PrestamoRealizadoEvent(
+                prestamo.getId(), prestamo.getLibroId(), prestamo.getUsuarioId(), prestamo.getFechaPrestamo()));
+    }
+
+    private void publicarDevolucion(Prestamo prestamo) {
+        publicador.publicar(new LibroDevueltoEvent(
+                prestamo.getId(), prestamo.getLibroId(), prestamo.getUsuarioId(), prestamo.getFechaDevolucion()));
+    }
+
+    private static <T> T buscar(Long id, Function<Long, Optional<T>> buscar) {
+        return id != null ? buscar.apply(id).orElse(null) : null;
+    }
+
+    /**
+     * Busca cada id una sola vez por lote; recuerda también los que no existen.
+     */
+    private static <T> T buscarUnaVez(Map<Long, T> encontrados, Long id, Function<Long, Optional<T>> buscar) {
+        if (id == null) {
+            return null;
+        }
+        if (!encontrados.containsKey(id)) {
+            encontrados.put(id, buscar.apply(id).orElse(null));
+        }
+        return encontrados.get(id);
+    }
+}
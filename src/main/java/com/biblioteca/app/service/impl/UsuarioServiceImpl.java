@@ -1,5 +1,7 @@
 package com.biblioteca.app.service.impl;
 
+import com.biblioteca.app.event.PublicadorEventos;
+import com.biblioteca.app.event.UsuarioSuspendidoEvent;
 import com.biblioteca.app.model.Usuario;
 import com.biblioteca.app.repository.UsuarioRepository;
 import com.biblioteca.app.service.UsuarioService;
@@ -10,9 +12,11 @@ import java.util.stream.Collectors;
 @Service
 public class UsuarioServiceImpl implements UsuarioService {
     private final UsuarioRepository usuarioRepository;
+    private final PublicadorEventos publicador;
 
-    public UsuarioServiceImpl(UsuarioRepository usuarioRepository) {
+    public UsuarioServiceImpl(UsuarioRepository usuarioRepository, PublicadorEventos publicador) {
         this.usuarioRepository = usuarioRepository;
+        this.publicador = publicador;
     }
 
     @Override
@@ -32,6 +36,11 @@ public class UsuarioServiceImpl implements UsuarioService {
         return usuarioRepository.findAll();
     }
 
+    @Override
+    public List<Usuario> obtenerPagina(Long despuesDeId, int limite) {
+        return usuarioRepository.findPagina(despuesDeId, limite);
+    }
+
     @Override
     public Usuario guardar(Usuario usuario) {
         if (usuario.getNombre() == null || usuario.getNombre().trim().isEmpty()) {
@@ -54,13 +63,12 @@ public class UsuarioServiceImpl implements UsuarioService {
 
     @Override
     public Usuario actualizar(Long id, Usuario usuario) {
-        Usuario usuarioExistente = usuarioRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("No existe el usuario con ID: " + id));
-
-        usuarioExistente.setNombre(usuario.getNombre());
-        usuarioExistente.setEmail(usuario.getEmail());
+        if (usuarioRepository.findById(id).isEmpty()) {
+            throw new IllegalArgumentException("No existe el usuario con ID: " + id);
+        }
 
-        return usuarioRepository.save(usuarioExistente);
+        // El repositorio reserva el email antes de tocar el usuario: si está tomado, el usuario queda como estaba
+        return usuarioRepository.actualizar(id, usuario.getNombre(), usuario.getEmail());
     }
 
     @Override
@@ -81,6 +89,7 @@ public class UsuarioServiceImpl implements UsuarioService {
 
         usuario.setEstado("SUSPENDIDO");
         usuarioRepository.save(usuario);
+        publicador.publicar(new UsuarioSuspendidoEvent(id));
     }
 
     @Override
@@ -0,0 +1,222 @@
+package com.biblioteca.app.service.metricas;
+
+import com.biblioteca.app.model.EstadoLibro;
+import com.biblioteca.app.model.Libro;
+import com.biblioteca.app.service.ErrorImportacion;
+import com.biblioteca.app.service.FilaImportacion;
+import com.biblioteca.app.service.LibroService;
+import com.biblioteca.app.service.ResumenImportacion;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Servicio de libros que mide cada operación del delegado. Los timers se
+ * registran al construirlo, así que en cada llamada no se busca ni se crea
+ * ningún medidor.
+ */
+public class LibroServiceMedido implements LibroService {
+    private final LibroService delegado;
+    private final OperacionMedida buscarPorIsbn;
+    private final OperacionMedida buscarPorId;
+    private final OperacionMedida obtenerTodos;
+    private final OperacionMedida obtenerPagina;
+    private final OperacionMedida buscar;
+    private final OperacionMedida autocompletar;
+    private final OperacionMedida guardar;
+    private final OperacionMedida importar;
+    private final OperacionMedida eliminar;
+    private final OperacionMedida actualizar;
+    private final OperacionMedida buscarDisponibles;
+    private final OperacionMedida buscarPorEstado;
+    private final OperacionMedida contarPorEstado;
+    private final OperacionMedida enviarAReparacion;
+
+    public LibroServiceMedido(LibroService delegado, MeterRegistry registro) {
+        this.delegado = delegado;
+        this.buscarPorIsbn = new OperacionMedida(registro, "libros", "buscarPorIsbn");
+        this.buscarPorId = new OperacionMedida(registro, "libros", "buscarPorId");
+        this.obtenerTodos = new OperacionMedida(registro, "libros", "obtenerTodos");
+        this.obtenerPagina = new OperacionMedida(registro, "libros", "obtenerPagina");
+        this.buscar = new OperacionMedida(registro, "libros", "buscar");
+        this.autocompletar = new OperacionMedida(registro, "libros", "autocompletar");
+        this.guardar = new OperacionMedida(registro, "libros", "guardar");
+        this.importar = new OperacionMedida(registro, "libros", "importar");
+        this.eliminar = new OperacionMedida(registro, "libros", "eliminar");
+        this.actualizar = new OperacionMedida(registro, "libros", "actualizar");
+        this.buscarDisponibles = new OperacionMedida(registro, "libros", "buscarDisponibles");
+        this.buscarPorEstado = new OperacionMedida(registro, "libros", "buscarPorEstado");
+        this.contarPorEstado = new OperacionMedida(registro, "libros", "contarPorEstado");
+        this.enviarAReparacion = new OperacionMedida(registro, "libros", "enviarAReparacion");
+    }
+
+    @Override
+    public Libro buscarPorIsbn(String isbn) {
+        long inicio = buscarPorIsbn.iniciar();
+        try {
+            return delegado.buscarPorIsbn(isbn);
+        } catch (RuntimeException e) {
+            throw buscarPorIsbn.fallo(e);
+        } finally {
+            buscarPorIsbn.terminar(inicio);
+        }
+    }
+
+    @Override
+    public Libro buscarPorId(Long id) {
+        long inicio = buscarPorId.iniciar();
+        try {
+            return delegado.buscarPorId(id);
+        } catch (RuntimeException e) {
+            throw buscarPorId.fallo(e);
+        } finally {
+            buscarPorId.terminar(inicio);
+        }
+    }
+
+    @Override
+    public List<Libro> obtenerTodos() {
+        long inicio = obtenerTodos.iniciar();
+        try {
+            return delegado.obtenerTodos();
+        } catch (RuntimeException e) {
+            throw obtenerTodos.fallo(e);
+        } finally {
+            obtenerTodos.terminar(inicio);
+        }
+    }
+
+    @Override
+    public List<Libro> obtenerPagina(Long despuesDeId, int limite) {
+        long inicio = obtenerPagina.iniciar();
+        try {
+            return delegado.obtenerPagina(despuesDeId, limite);
+        } catch (RuntimeException e) {
+            throw obtenerPagina.fallo(e);
+        } finally {
+            obtenerPagina.terminar(inicio);
+        }
+    }
+
+    @Override
+    public List<Libro> buscar(String consulta, int limite) {
+        long inicio = buscar.iniciar();
+        try {
+            return delegado.buscar(consulta, limite);
+        } catch (RuntimeException e) {
+            throw buscar.fallo(e);
+        } finally {
+            buscar.terminar(inicio);
+        }
+    }
+
+    @Override
+    public List<String> autocompletar(String prefijo, int limite) {
+        long inicio = autocompletar.iniciar();
+        try {
+            return delegado.autocompletar(prefijo, limite);
+        } catch (RuntimeException e) {
+            throw autocompletar.fallo(e);
+        } finally {
+            autocompletar.terminar(inicio);
+        }
+    }
+
+    @Override
+    public Libro guardar(Libro libro) {
+        long inicio = guardar.iniciar();
+        try {
+            return delegado.guardar(libro);
+        } catch (RuntimeException e) {
+            throw guardar.fallo(e);
+        } finally {
+            guardar.terminar(inicio);
+        }
+    }
+
+    @Override
+    public ResumenImportacion importar(Iterator<FilaImportacion> filas, Consumer<ErrorImportacion> errores) {
+        long inicio = importar.iniciar();
+        try {
+            return delegado.importar(filas, errores);
+        } catch (RuntimeException e) {
+            throw importar.fallo(e);
+        } finally {
+            importar.terminar(inicio);
+        }
+    }
+
+    @Override
+    public void eliminar(Long id) {
+        long inicio = eliminar.iniciar();
+        try {
+            delegado.eliminar(id);
+        } catch (RuntimeException e) {
+            throw eliminar.fallo(e);
+        } finally {
+            eliminar.terminar(inicio);
+        }
+    }
+
+    @Override
+    public Libro actualizar(Long id, Libro libro) {
+        long inicio = actualizar.iniciar();
+        try {
+            return delegado.actualizar(id, libro);
+        } catch (RuntimeException e) {
+            throw actualizar.fallo(e);
+        } finally {
+            actualizar.terminar(inicio);
+        }
+    }
+
+    @Override
+    public List<Libro> buscarDisponibles() {
+        long inicio = buscarDisponibles.iniciar();
+        try {
+            return delegado.buscarDisponibles();
+        } catch (RuntimeException e) {
+            throw buscarDisponibles.fallo(e);
+        } finally {
+            buscarDisponibles.terminar(inicio);
+        }
+    }
+
+    @Override
+    public List<Libro> buscarPorEstado(EstadoLibro estado) {
+        long inicio = buscarPorEstado.iniciar();
+        try {
+            return delegado.buscarPorEstado(estado);
+        } catch (RuntimeException e) {
+            throw buscarPorEstado.fallo(e);
+        } finally {
+            buscarPorEstado.terminar(inicio);
+        }
+    }
+
+    @Override
+    public int contarPorEstado(EstadoLibro estado) {
+        long inicio = contarPorEstado.iniciar();
+        try {
+            return delegado.contarPorEstado(estado);
+        } catch (RuntimeException e) {
+            throw contarPorEstado.fallo(e);
+        } finally {
+            contarPorEstado.terminar(inicio);
+        }
+    }
+
+    @Override
+    public void enviarAReparacion(Long id) {
+        long inicio = enviarAReparacion.iniciar();
+        try {
+            delegado.enviarAReparacion(id);
+        } catch (RuntimeException e) {
+            throw enviarAReparacion.fallo(e);
+        } finally {
+            enviarAReparacion.terminar(inicio);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.biblioteca.app.service.metricas;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timer y contador de errores de una operación de servicio, registrados una
+ * sola vez al crear el decorador. Los percentiles salen de un histograma HDR
+ * (el de Micrometer), así que medir una llamada no reserva memoria: sólo lee
+ * el reloj y actualiza contadores ya creados.
+ * <p>
+ * Uso:
+ * <pre>{@code
+ * long inicio = operacion.iniciar();
+ * try {
+ *     return delegado.metodo();
+ * } catch (RuntimeException e) {
+ *     throw operacion.fallo(e);
+ * } finally {
+ *     operacion.terminar(inicio);
+ * }
+ * }</pre>
+ */
+public final class OperacionMedida {
+    public static final String TIMER = "biblioteca.servicio";
+    public static final String ERRORES = "biblioteca.servicio.errores";
+
+    private final Timer timer;
+    private final Counter errores;
+
+    public OperacionMedida(MeterRegistry registro, String servicio, String operacion) {
+        this.timer = Timer.builder(TIMER)
+                .description("Duración de las operaciones de servicio")
+                .tag("servicio", servicio)
+                .tag("operacion", operacion)
+                .publishPercentiles(0.5, 0.9, 0.99, 0.999)
+                .minimumExpectedValue(Duration.ofNanos(100))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(registro);
+        this.errores = Counter.builder(ERRORES)
+                .description("Operaciones de servicio que terminaron con una excepción")
+                .tag("servicio", servicio)
+                .tag("operacion", operacion)
+                .register(registro);
+    }
+
+    public long iniciar() {
+        return System.nanoTime();
+    }
+
+    public void terminar(long inicio) {
+        timer.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Cuenta el error y devuelve la misma excepción para relanzarla.
+     */
+    public RuntimeException fallo(RuntimeException e) {
+        errores.increment();
+        return e;
+    }
+}
@@ -0,0 +1,191 @@
+package com.biblioteca.app.service.metricas;
+
+import com.biblioteca.app.model.Prestamo;
+import com.biblioteca.app.service.PrestamoService;
+import com.biblioteca.app.service.PrestamosResueltos;
+import com.biblioteca.app.service.ResultadoLote;
+import com.biblioteca.app.service.SolicitudPrestamo;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.List;
+
+/**
+ * Servicio de préstamos que mide cada operación del delegado. Los timers se
+ * registran al construirlo, así que en cada llamada no se busca ni se crea
+ * ningún medidor.
+ */
+public class PrestamoServiceMedido implements PrestamoService {
+    private final PrestamoService delegado;
+    private final OperacionMedida realizarPrestamo;
+    private final OperacionMedida devolverLibro;
+    private final OperacionMedida realizarPrestamos;
+    private final OperacionMedida devolverLibros;
+    private final OperacionMedida obtenerPrestamosActivos;
+    private final OperacionMedida obtenerPrestamosVencidos;
+    private final OperacionMedida obtenerPrestamosPorUsuario;
+    private final OperacionMedida buscarPorId;
+    private final OperacionMedida obtenerTodos;
+    private final OperacionMedida obtenerPagina;
+    private final OperacionMedida resolver;
+    private final OperacionMedida eliminar;
+
+    public PrestamoServiceMedido(PrestamoService delegado, MeterRegistry registro) {
+        this.delegado = delegado;
+        this.realizarPrestamo = new OperacionMedida(registro, "prestamos", "realizarPrestamo");
+        this.devolverLibro = new OperacionMedida(registro, "prestamos", "devolverLibro");
+        this.realizarPrestamos = new OperacionMedida(registro, "prestamos", "realizarPrestamos");
+        this.devolverLibros = new OperacionMedida(registro, "prestamos", "devolverLibros");
+        this.obtenerPrestamosActivos = new OperacionMedida(registro, "prestamos", "obtenerPrestamosActivos");
+        this.obtenerPrestamosVencidos = new OperacionMedida(registro, "prestamos", "obtenerPrestamosVencidos");
+        this.obtenerPrestamosPorUsuario = new OperacionMedida(registro, "prestamos", "obtenerPrestamosPorUsuario");
+        this.buscarPorId = new OperacionMedida(registro, "prestamos", "buscarPorId");
+        this.obtenerTodos = new OperacionMedida(registro, "prestamos", "obtenerTodos");
+        this.obtenerPagina = new OperacionMedida(registro, "prestamos", "obtenerPagina");
+        this.resolver = new OperacionMedida(registro, "prestamos", "resolver");
+        this.eliminar = new OperacionMedida(registro, "prestamos", "eliminar");
+    }
+
+    @Override
+    public Prestamo realizarPrestamo(Long libroId, Long usuarioId) {
+        long inicio = realizarPrestamo.iniciar();
+        try {
+            return delegado.realizarPrestamo(libroId, usuarioId);
+        } catch (RuntimeException e) {
+            throw realizarPrestamo.fallo(e);
+        } finally {
+            realizarPrestamo.terminar(inicio);
+        }
+    }
+
+    @Override
+    public void devolverLibro(Long prestamoId) {
+        long inicio = devolverLibro.iniciar();
+        try {
+            delegado.devolverLibro(prestamoId);
+        } catch (RuntimeException e) {
+            throw devolverLibro.fallo(e);
+        } finally {
+            devolverLibro.terminar(inicio);
+        }
+    }
+
+    @Override
+    public List<ResultadoLote<Prestamo>> realizarPrestamos(List<SolicitudPrestamo> solicitudes) {
+        long inicio = realizarPrestamos.iniciar();
+        try {
+            return delegado.realizarPrestamos(solicitudes);
+        } catch (RuntimeException e) {
+            throw realizarPrestamos.fallo(e);
+        } finally {
+            realizarPrestamos.terminar(inicio);
+        }
+    }
+
+    @Override
+    public List<ResultadoLote<Prestamo>> devolverLibros(List<Long> prestamoIds) {
+        long inicio = devolverLibros.iniciar();
+        try {
+            return delegado.devolverLibros(prestamoIds);
+        } catch (RuntimeException e) {
+            throw devolverLibros.fallo(e);
+        } finally {
+            devolverLibros.terminar(inicio);
+        }
+    }
+
+    @Override
+    public List<Prestamo> obtenerPrestamosActivos() {
+        long inicio = obtenerPrestamosActivos.iniciar();
+        try {
+            return delegado.obtenerPrestamosActivos();
+        } catch (RuntimeException e) {
+            throw obtenerPrestamosActivos.fallo(e);
+        } finally {
+            obtenerPrestamosActivos.terminar(inicio);
+        }
+    }
+
+    @Override
+    public List<Prestamo> obtenerPrestamosVencidos() {
+        long inicio = obtenerPrestamosVencidos.iniciar();
+        try {
+            return delegado.obtenerPrestamosVencidos();
+        } catch (RuntimeException e) {
+            throw obtenerPrestamosVencidos.fallo(e);
+        } finally {
+            obtenerPrestamosVencidos.terminar(inicio);
+        }
+    }
+
+    @Override
+    public List<Prestamo> obtenerPrestamosPorUsuario(Long usuarioId) {
+        long inicio = obtenerPrestamosPorUsuario.iniciar();
+        try {
+            return delegado.obtenerPrestamosPorUsuario(usuarioId);
+        } catch (RuntimeException e) {
+            throw obtenerPrestamosPorUsuario.fallo(e);
+        } finally {
+            obtenerPrestamosPorUsuario.terminar(inicio);
+        }
+    }
+
+    @Override
+    public Prestamo buscarPorId(Long id) {
+        long inicio = buscarPorId.iniciar();
+        try {
+            return delegado.buscarPorId(id);
+        } catch (RuntimeException e) {
+            throw buscarPorId.fallo(e);
+        } finally {
+            buscarPorId.terminar(inicio);
+        }
+    }
+
+    @Override
+    public List<Prestamo> obtenerTodos() {
+        long inicio = obtenerTodos.iniciar();
+        try {
+            return delegado.obtenerTodos();
+        } catch (RuntimeException e) {
+            throw obtenerTodos.fallo(e);
+        } finally {
+            obtenerTodos.terminar(inicio);
+        }
+    }
+
+    @Override
+    public List<Prestamo> obtenerPagina(Long despuesDeId, int limite) {
+        long inicio = obtenerPagina.iniciar();
+        try {
+            return delegado.obtenerPagina(despuesDeId, limite);
+        } catch (RuntimeException e) {
+            throw obtenerPagina.fallo(e);
+        } finally {
+            obtenerPagina.terminar(inicio);
+        }
+    }
+
+    @Override
+    public PrestamosResueltos resolver(List<Prestamo> prestamos) {
+        long inicio = resolver.iniciar();
+        try {
+            return delegado.resolver(prestamos);
+        } catch (RuntimeException e) {
+            throw resolver.fallo(e);
+        } finally {
+            resolver.terminar(inicio);
+        }
+    }
+
+    @Override
+    public void eliminar(Long id) {
+        long inicio = eliminar.iniciar();
+        try {
+            delegado.eliminar(id);
+        } catch (RuntimeException e) {
+            throw eliminar.fallo(e);
+        } finally {
+            eliminar.terminar(inicio);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.biblioteca.app.service.metricas;
+
+import com.biblioteca.app.model.Usuario;
+import com.biblioteca.app.service.UsuarioService;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.List;
+
+/**
+ * Servicio de usuarios que mide cada operación del delegado. Los timers se
+ * registran al construirlo, así que en cada llamada no se busca ni se crea
+ * ningún medidor.
+ */
+public class UsuarioServiceMedido implements UsuarioService {
+    private final UsuarioService delegado;
+    private final OperacionMedida buscarPorEmail;
+    private final OperacionMedida buscarPorId;
+    private final OperacionMedida obtenerTodos;
+    private final OperacionMedida obtenerPagina;
+    private final OperacionMedida guardar;
+    private final OperacionMedida eliminar;
+    private final OperacionMedida actualizar;
+    private final OperacionMedida buscarUsuariosActivos;
+    private final OperacionMedida suspenderUsuario;
+    private final OperacionMedida activarUsuario;
+
+    public UsuarioServiceMedido(UsuarioService delegado, MeterRegistry registro) {
+        this.delegado = delegado;
+        this.buscarPorEmail = new OperacionMedida(registro, "usuarios", "buscarPorEmail");
+        this.buscarPorId = new OperacionMedida(registro, "usuarios", "buscarPorId");
+        this.obtenerTodos = new OperacionMedida(registro, "usuarios", "obtenerTodos");
+        this.obtenerPagina = new OperacionMedida(registro, "usuarios", "obtenerPagina");
+        this.guardar = new OperacionMedida(registro, "usuarios", "guardar");
+        this.eliminar = new OperacionMedida(registro, "usuarios", "eliminar");
+        this.actualizar = new OperacionMedida(registro, "usuarios", "actualizar");
+        this.buscarUsuariosActivos = new OperacionMedida(registro, "usuarios", "buscarUsuariosActivos");
+        this.suspenderUsuario = new OperacionMedida(registro, "usuarios", "suspenderUsuario");
+        this.activarUsuario = new OperacionMedida(registro, "usuarios", "activarUsuario");
+    }
+
+    @Override
+    public Usuario buscarPorEmail(String email) {
+        long inicio = buscarPorEmail.iniciar();
+        try {
+            return delegado.buscarPorEmail(email);
+        } catch (RuntimeException e) {
+            throw buscarPorEmail.fallo(e);
+        } finally {
+            buscarPorEmail.terminar(inicio);
+        }
+    }
+
+    @Override
+    public Usuario buscarPorId(Long id) {
+        long inicio = buscarPorId.iniciar();
+        try {
+            return delegado.buscarPorId(id);
+        } catch (RuntimeException e) {
+            throw buscarPorId.fallo(e);
+        } finally {
+            buscarPorId.terminar(inicio);
+        }
+    }
+
+    @Override
+    public List<Usuario> obtenerTodos() {
+        long inicio = obtenerTodos.iniciar();
+        try {
+            return delegado.obtenerTodos();
+        } catch (RuntimeException e) {
+            throw obtenerTodos.fallo(e);
+        } finally {
+            obtenerTodos.terminar(inicio);
+        }
+    }
+
+    @Override
+    public List<Usuario> obtenerPagina(Long despuesDeId, int limite) {
+        long inicio = obtenerPagina.iniciar();
+        try {
+            return delegado.obtenerPagina(despuesDeId, limite);
+        } catch (RuntimeException e) {
+            throw obtenerPagina.fallo(e);
+        } finally {
+            obtenerPagina.terminar(inicio);
+        }
+    }
+
+    @Override
+    public Usuario guardar(Usuario usuario) {
+        long inicio = guardar.iniciar();
+        try {
+            return delegado.guardar(usuario);
+        } catch (RuntimeException e) {
+            throw guardar.fallo(e);
+        } finally {
+            guardar.terminar(inicio);
+        }
+    }
+
+    @Override
+    public void eliminar(Long id) {
+        long inicio = eliminar.iniciar();
+        try {
+            delegado.eliminar(id);
+        } catch (RuntimeException e) {
+            throw eliminar.fallo(e);
+        } finally {
+            eliminar.terminar(inicio);
+        }
+    }
+
+    @Override
+    public Usuario actualizar(Long id, Usuario usuario) {
+        long inicio = actualizar.iniciar();
+        try {
+            return delegado.actualizar(id, usuario);
+        } catch (RuntimeException e) {
+            throw actualizar.fallo(e);
+        } finally {
+            actualizar.terminar(inicio);
+        }
+    }
+
+    @Override
+    public List<Usuario> buscarUsuariosActivos() {
+        long inicio = buscarUsuariosActivos.iniciar();
+        try {
+            return delegado.buscarUsuariosActivos();
+        } catch (RuntimeException e) {
+            throw buscarUsuariosActivos.fallo(e);
+        } finally {
+            buscarUsuariosActivos.terminar(inicio);
+        }
+    }
+
+    @Override
+    public void suspenderUsuario(Long id) {
+        long inicio = suspenderUsuario.iniciar();
+        try {
+            delegado.suspenderUsuario(id);
+        } catch (RuntimeException e) {
+            throw suspenderUsuario.fallo(e);
+        } finally {
+            suspenderUsuario.terminar(inicio);
+        }
+    }
+
+    @Override
+    public void activarUsuario(Long id) {
+        long inicio = activarUsuario.iniciar();
+        try {
+            delegado.activarUsuario(id);
+        } catch (RuntimeException e) {
+            throw activarUsuario.fallo(e);
+        } finally {
+            activarUsuario.terminar(inicio);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.biblioteca.app.controller;
+
+import com.biblioteca.app.model.EstadoLibro;
+import com.biblioteca.app.model.Libro;
+import com.biblioteca.app.model.Prestamo;
+import com.biblioteca.app.model.Usuario;
+import com.biblioteca.app.service.LibroService;
+import com.biblioteca.app.service.PrestamoService;
+import com.biblioteca.app.service.UsuarioService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class ExportacionControllerTest {
+
+    private MockMvc mockMvc;
+
+    @Mock
+    private LibroService libroService;
+
+    @Mock
+    private UsuarioService usuarioService;
+
+    @Mock
+    private PrestamoService prestamoService;
+
+    private ExportacionController exportacionController;
+
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        objectMapper = JsonMapper.builder().findAndAddModules().build();
+        exportacionController = new ExportacionController(libroService, usuarioService, prestamoService,
+                objectMapper);
+        mockMvc = MockMvcBuilders.standaloneSetup(exportacionController).build();
+    }
+
+    @Test
+    void exportarLibros_DebeEscribirUnLibroPorLinea() throws Exception {
+        // Arrange
+        Libro libro1 = new Libro(1L, "978-1", "Rayuela", "Cortázar", EstadoLibro.DISPONIBLE);
+        Libro libro2 = new Libro(2L, "978-2", "Ficciones", "Borges", EstadoLibro.PRESTADO);
+        when(libroService.obtenerPagina(null, ExportacionController.TAMANIO_PAGINA))
+                .thenReturn(List.of(libro1, libro2));
+
+        // Act
+        MvcResult resultado = mockMvc.perform(get("/api/exportar/libros"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        String cuerpo = mockMvc.perform(asyncDispatch(resultado))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        String[] lineas = cuerpo.split("\n");
+        assertTrue(cuerpo.endsWith("\n"));
+        assertEquals(2, lineas.length);
+        assertEquals("Rayuela", objectMapper.readTree(lineas[0]).get("titulo").asText());
+        assertEquals("Ficciones", objectMapper.readTree(lineas[1]).get("titulo").asText());
+    }
+
+    @Test
+    void exportarPrestamos_DebeRecorrerTodasLasPaginas() throws Exception {
+        // Arrange
+        int tamanio = ExportacionController.TAMANIO_PAGINA;
+        Libro libro = new Libro(1L, "978-1", "Rayuela", "Cortázar", EstadoLibro.PRESTADO);
+        Usuario usuario = new Usuario(1L, "Juan", "juan@mail.com", "ACTIVO");
+        when(prestamoService.obtenerPagina(null, tamanio)).thenReturn(prestamos(1, tamanio, libro, usuario));
+        when(prestamoService.obtenerPagina((long) tamanio, tamanio))
+                .thenReturn(prestamos(tamanio + 1, tamanio + 5, libro, usuario));
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+
+        // Act
+        exportacionController.exportarPrestamos().getBody().writeTo(salida);
+
+        // Assert
+        String[] lineas = salida.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(tamanio + 5, lineas.length);
+        JsonNode ultimo = objectMapper.readTree(lineas[lineas.length - 1]);
+        assertEquals(tamanio + 5, ultimo.get("id").asLong());
+        assertEquals(libro.getId(), ultimo.get("libroId").asLong());
+        assertNull(ultimo.get("libro"));
+        assertFalse(lineas[1].startsWith(" "));
+        verify(prestamoService, times(2)).obtenerPagina(any(), eq(tamanio));
+    }
+
+    @Test
+    void exportarUsuarios_CuandoNoHayUsuarios_DebeRetornarCuerpoVacio() throws Exception {
+        // Arrange
+        when(usuarioService.obtenerPagina(null, ExportacionController.TAMANIO_PAGINA)).thenReturn(List.of());
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+
+        // Act
+        exportacionController.exportarUsuarios().getBody().writeTo(salida);
+
+        // Assert
+        assertEquals(0, salida.size());
+        verify(usuarioService).obtenerPagina(null, ExportacionController.TAMANIO_PAGINA);
+    }
+
+    private static List<Prestamo> prestamos(long desde, long hasta, Libro libro, Usuario usuario) {
+        List<Prestamo> prestamos = new ArrayList<>();
+        LongStream.rangeClosed(desde, hasta).forEach(id -> prestamos.add(
+                new Prestamo(id, libro.getId(), usuario.getId(), LocalDate.of(2024, 1, 1), null)));
+        return prestamos;
+    }
+}
@@ -0,0 +1,98 @@
+package com.biblioteca.app.controller;
+
+import com.biblioteca.app.model.EstadoLibro;
+import com.biblioteca.app.model.Libro;
+import com.biblioteca.app.model.Prestamo;
+import com.biblioteca.app.model.Usuario;
+import com.biblioteca.app.service.LibroService;
+import com.biblioteca.app.service.PrestamoService;
+import com.biblioteca.app.service.UsuarioService;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+/**
+ * Corre en una JVM con -Xmx256m (ver la ejecución "memoria-acotada" del pom).
+ * Cinco millones de préstamos reales no entran en ese heap, así que el servicio
+ * los genera página por página: lo que se mide es que la exportación no retenga
+ * lo que ya escribió.
+ */
+class ExportacionMemoriaTest {
+    private static final long HEAP_MAXIMO = 256L * 1024 * 1024;
+    private static final int CANTIDAD_PRESTAMOS = 5_000_000;
+
+    @Test
+    void exportarPrestamos_ConCincoMillones_DebeFuncionarConHeapAcotado() throws Exception {
+        // Arrange
+        assumeTrue(Runtime.getRuntime().maxMemory() <= HEAP_MAXIMO);
+        Libro libro = new Libro(1L, "978-1", "Rayuela", "Cortázar", EstadoLibro.PRESTADO);
+        Usuario usuario = new Usuario(1L, "Juan", "juan@mail.com", "ACTIVO");
+        AtomicInteger paginasLeidas = new AtomicInteger();
+        // stubOnly: el mock no guarda las invocaciones ni lo que devolvió
+        PrestamoService prestamoService = mock(PrestamoService.class, withSettings().stubOnly());
+        when(prestamoService.obtenerPagina(any(), anyInt())).thenAnswer(invocacion -> {
+            paginasLeidas.incrementAndGet();
+            Long despuesDeId = invocacion.getArgument(0);
+            int limite = invocacion.getArgument(1);
+            long desde = despuesDeId == null ? 1 : despuesDeId + 1;
+            long hasta = Math.min(desde + limite - 1, CANTIDAD_PRESTAMOS);
+            List<Prestamo> pagina = new ArrayList<>(limite);
+            for (long id = desde; id <= hasta; id++) {
+                pagina.add(new Prestamo(id, libro.getId(), usuario.getId(), LocalDate.of(2024, 1, 1), null));
+            }
+            return pagina;
+        });
+        ExportacionController controller = new ExportacionController(mock(LibroService.class),
+                mock(UsuarioService.class), prestamoService, JsonMapper.builder().findAndAddModules().build());
+        SalidaContadora salida = new SalidaContadora(paginasLeidas);
+
+        // Act
+        controller.exportarPrestamos().getBody().writeTo(salida);
+
+        // Assert
+        assertEquals(CANTIDAD_PRESTAMOS, salida.lineas);
+        assertEquals(1, salida.paginasAlPrimerByte);
+        assertEquals(CANTIDAD_PRESTAMOS / ExportacionController.TAMANIO_PAGINA + 1, paginasLeidas.get());
+    }
+
+    /**
+     * Descarta lo escrito y sólo cuenta líneas.
+     */
+    private static final class SalidaContadora extends OutputStream {
+        private final AtomicInteger paginasLeidas;
+        private long lineas;
+        private int paginasAlPrimerByte = -1;
+
+        SalidaContadora(AtomicInteger paginasLeidas) {
+            this.paginasLeidas = paginasLeidas;
+        }
+
+        @Override
+        public void write(int b) {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            if (paginasAlPrimerByte < 0 && len > 0) {
+                paginasAlPrimerByte = paginasLeidas.get();
+            }
+            for (int i = off; i < off + len; i++) {
+                if (b[i] == '\n') {
+                    lineas++;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.biblioteca.app.controller;
+
+import com.biblioteca.app.service.ErrorImportacion;
+import com.biblioteca.app.service.FilaImportacion;
+import com.biblioteca.app.service.LibroService;
+import com.biblioteca.app.service.ResumenImportacion;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class ImportacionControllerTest {
+
+    private MockMvc mockMvc;
+
+    @Mock
+    private LibroService libroService;
+
+    private ObjectMapper objectMapper;
+
+    private final List<FilaImportacion> filasRecibidas = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        objectMapper = JsonMapper.builder().findAndAddModules().build();
+        mockMvc = MockMvcBuilders.standaloneSetup(new ImportacionController(libroService, objectMapper)).build();
+        // El servicio rechaza las filas que ya traen error y acepta las demás
+        when(libroService.importar(any(), any())).thenAnswer(invocacion -> {
+            Iterator<FilaImportacion> filas = invocacion.getArgument(0);
+            Consumer<ErrorImportacion> errores = invocacion.getArgument(1);
+            long rechazadas = 0;
+            while (filas.hasNext()) {
+                FilaImportacion fila = filas.next();
+                filasRecibidas.add(fila);
+                if (fila.error() != null) {
+                    errores.accept(new ErrorImportacion(fila.linea(), null, fila.error()));
+                    rechazadas++;
+                }
+            }
+            return new ResumenImportacion(filasRecibidas.size() - rechazadas, rechazadas);
+        });
+    }
+
+    @Test
+    void importarCsv_DebeLeerCamposEntreComillasYReportarFilasMalFormadas() throws Exception {
+        // Arrange: columnas en otro orden, una extra y marca de orden de bytes
+        String csv = "\uFEFFAutor,Título,ISBN,Editorial\r\n"
+                + "Cortázar,Rayuela,978-1,Sudamericana\r\n"
+                + "\r\n"
+                + "\"Borges, Jorge Luis\",\"Ficciones\nCompleto\",978-2,Sur\n"
+                + "Solo dos,columnas\n"
+                + "\"Autor \"\"citado\"\"\",Título,978-3,\n";
+
+        // Act
+        String[] lineas = importar(csv, ImportacionController.TEXT_CSV_VALUE);
+
+        // Assert
+        assertEquals(4, filasRecibidas.size());
+        FilaImportacion primera = filasRecibidas.get(0);
+        assertEquals(2, primera.linea());
+        assertEquals("978-1", primera.libro().getIsbn());
+        assertEquals("Rayuela", primera.libro().getTitulo());
+        assertEquals("Cortázar", primera.libro().getAutor());
+        FilaImportacion segunda = filasRecibidas.get(1);
+        assertEquals(4, segunda.linea());
+        assertEquals("Borges, Jorge Luis", segunda.libro().getAutor());
+        assertEquals("Ficciones\nCompleto", segunda.libro().getTitulo());
+        assertEquals(6, filasRecibidas.get(2).linea());
+        assertEquals("Se esperaban 3 columnas y hay 2", filasRecibidas.get(2).error());
+        assertEquals("Autor \"citado\"", filasRecibidas.get(3).libro().getAutor());
+
+        assertEquals(2, lineas.length);
+        assertEquals(6, objectMapper.readTree(lineas[0]).get("linea").asLong());
+        assertEquals(3, objectMapper.readTree(lineas[1]).get("importados").asLong());
+        assertEquals(1, objectMapper.readTree(lineas[1]).get("rechazados").asLong());
+    }
+
+    @Test
+    void importarCsv_SinColumnaRequerida_DebeRetornarBadRequest() throws Exception {
+        // Act & Assert
+        mockMvc.perform(post("/api/importar/libros")
+                        .contentType(ImportacionController.TEXT_CSV_VALUE)
+                        .content("isbn,titulo\n978-1,Rayuela\n"))
+                .andExpect(status().isBadRequest());
+        verify(libroService, never()).importar(any(), any());
+    }
+
+    @Test
+    void importarNdjson_DebeReportarLineasInvalidasSinCortarLaLectura() throws Exception {
+        // Arrange
+        String ndjson = "{\"isbn\":\"978-1\",\"titulo\":\"Rayuela\",\"autor\":\"Cortázar\",\"id\":7}\n"
+                + "{\"isbn\":\"978-2\",\"titulo\":\n"
+                + "\n"
+                + "{\"isbn\":\"978-3\",\"titulo\":\"Ficciones\",\"autor\":\"Borges\"}";
+
+        // Act
+        String[] lineas = importar(ndjson, MediaType.APPLICATION_NDJSON_VALUE);
+
+        // Assert
+        assertEquals(3, filasRecibidas.size());
+        assertEquals("Rayuela", filasRecibidas.get(0).libro().getTitulo());
+        assertNull(filasRecibidas.get(0).libro().getId());
+        assertEquals(2, filasRecibidas.get(1).linea());
+        assertTrue(filasRecibidas.get(1).error().startsWith("JSON inválido"));
+        assertEquals(4, filasRecibidas.get(2).linea());
+        assertEquals("Borges", filasRecibidas.get(2).libro().getAutor());
+        assertEquals(2, lineas.length);
+        assertEquals(2, objectMapper.readTree(lineas[0]).get("linea").asLong());
+        assertEquals(2, objectMapper.readTree(lineas[1]).get("importados").asLong());
+    }
+
+    private String[] importar(String cuerpo, String tipo) throws Exception {
+        MvcResult resultado = mockMvc.perform(post("/api/importar/libros")
+                        .contentType(tipo)
+                        .content(cuerpo.getBytes(StandardCharsets.UTF_8)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(resultado))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8)
+                .split("\n");
+    }
+}
@@ -1,9 +1,15 @@
 package com.biblioteca.app.controller;
 
+import com.biblioteca.app.exception.GlobalExceptionHandler;
+import com.biblioteca.app.exception.LibroNoDisponibleException;
+import com.biblioteca.app.model.EstadoLibro;
 import com.biblioteca.app.model.Prestamo;
 import com.biblioteca.app.model.Libro;
 import com.biblioteca.app.model.Usuario;
 import com.biblioteca.app.service.PrestamoService;
+import com.biblioteca.app.service.PrestamosResueltos;
+import com.biblioteca.app.service.ResultadoLote;
+import com.biblioteca.app.service.SolicitudPrestamo;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -15,8 +21,10 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -40,40 +48,50 @@ class PrestamoControllerTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        mockMvc = MockMvcBuilders.standaloneSetup(prestamoController).build();
+        mockMvc = MockMvcBuilders.standaloneSetup(prestamoController)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
         objectMapper = new ObjectMapper();
     }
 
     @Test
     void obtenerTodos_DebeRetornarListaDePrestamos() throws Exception {
         // Arrange
-        Libro libro1 = new Libro(1L, "123", "Libro 1", "Autor 1", "PRESTADO");
+        Libro libro1 = new Libro(1L, "123", "Libro 1", "Autor 1", EstadoLibro.PRESTADO);
         Usuario usuario1 = new Usuario(1L, "Juan", "juan@mail.com", "ACTIVO");
-        Prestamo prestamo1 = new Prestamo(1L, libro1, usuario1, LocalDate.now(), LocalDate.now().plusDays(7));
+        Prestamo prestamo1 = new Prestamo(1L, libro1.getId(), usuario1.getId(), LocalDate.now(), LocalDate.now().plusDays(7));
+        Prestamo prestamo2 = new Prestamo(2L, libro1.getId(), usuario1.getId(), LocalDate.now(), null);
 
-        List<Prestamo> prestamos = Arrays.asList(prestamo1);
-        when(prestamoService.obtenerTodos()).thenReturn(prestamos);
+        List<Prestamo> prestamos = Arrays.asList(prestamo1, prestamo2);
+        when(prestamoService.obtenerPagina(null, Pagina.LIMITE_POR_DEFECTO)).thenReturn(prestamos);
+        when(prestamoService.resolver(prestamos)).thenReturn(
+                new PrestamosResueltos(prestamos, Map.of(1L, libro1), Map.of(1L, usuario1)));
 
         // Act & Assert
         mockMvc.perform(get("/api/prestamos"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$", hasSize(1)))
-                .andExpect(jsonPath("$[0].id", is(1)));
+                .andExpect(jsonPath("$.prestamos", hasSize(2)))
+                .andExpect(jsonPath("$.prestamos[0].id", is(1)))
+                .andExpect(jsonPath("$.prestamos[1].libroId", is(1)))
+                .andExpect(jsonPath("$.prestamos[1].libro").doesNotExist())
+                .andExpect(jsonPath("$.libros.*", hasSize(1)))
+                .andExpect(jsonPath("$.libros.1.titulo", is("Libro 1")))
+                .andExpect(jsonPath("$.usuarios.1.nombre", is("Juan")));
     }
 
     @Test
     void obtenerPorId_CuandoExiste_DebeRetornarPrestamo() throws Exception {
         // Arrange
-        Libro libro = new Libro(1L, "123", "Libro 1", "Autor 1", "PRESTADO");
-        Usuario usuario = new Usuario(1L, "Juan", "juan@mail.com", "ACTIVO");
-        Prestamo prestamo = new Prestamo(1L, libro, usuario, LocalDate.now(), LocalDate.now().plusDays(7));
+        Prestamo prestamo = new Prestamo(1L, 2L, 3L, LocalDate.now(), LocalDate.now().plusDays(7));
 
         when(prestamoService.buscarPorId(1L)).thenReturn(prestamo);
 
         // Act & Assert
         mockMvc.perform(get("/api/prestamos/1"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.id", is(1)));
+                .andExpect(jsonPath("$.id", is(1)))
+                .andExpect(jsonPath("$.libroId", is(2)))
+                .andExpect(jsonPath("$.usuarioId", is(3)));
     }
 
     @Test
@@ -89,44 +107,48 @@ class PrestamoControllerTest {
     @Test
     void obtenerPrestamosActivos_DebeRetornarListaDePrestamosActivos() throws Exception {
         // Arrange
-        Libro libro = new Libro(1L, "123", "Libro 1", "Autor 1", "PRESTADO");
+        Libro libro = new Libro(1L, "123", "Libro 1", "Autor 1", EstadoLibro.PRESTADO);
         Usuario usuario = new Usuario(1L, "Juan", "juan@mail.com", "ACTIVO");
-        Prestamo prestamo = new Prestamo(1L, libro, usuario, LocalDate.now(), LocalDate.now().plusDays(7));
+        Prestamo prestamo = new Prestamo(1L, libro.getId(), usuario.getId(), LocalDate.now(), LocalDate.now().plusDays(7));
 
         List<Prestamo> prestamosActivos = Arrays.asList(prestamo);
         when(prestamoService.obtenerPrestamosActivos()).thenReturn(prestamosActivos);
+        when(prestamoService.resolver(prestamosActivos)).thenReturn(
+                new PrestamosResueltos(prestamosActivos, Map.of(1L, libro), Map.of(1L, usuario)));
 
         // Act & Assert
         mockMvc.perform(get("/api/prestamos/activos"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$", hasSize(1)))
-                .andExpect(jsonPath("$[0].id", is(1)));
+                .andExpect(jsonPath("$.prestamos", hasSize(1)))
+                .andExpect(jsonPath("$.prestamos[0].id", is(1)))
+                .andExpect(jsonPath("$.libros.1.id", is(1)));
     }
 
     @Test
     void obtenerPrestamosVencidos_DebeRetornarListaDePrestamosVencidos() throws Exception {
         // Arrange
-        Libro libro = new Libro(1L, "123", "Libro 1", "Autor 1", "PRESTADO");
+        Libro libro = new Libro(1L, "123", "Libro 1", "Autor 1", EstadoLibro.PRESTADO);
         Usuario usuario = new Usuario(1L, "Juan", "juan@mail.com", "ACTIVO");
-        Prestamo prestamo = new Prestamo(1L, libro, usuario, LocalDate.now().minusDays(10),
+        Prestamo prestamo = new Prestamo(1L, libro.getId(), usuario.getId(), LocalDate.now().minusDays(10),
                 LocalDate.now().minusDays(3));
 
         List<Prestamo> prestamosVencidos = Arrays.asList(prestamo);
         when(prestamoService.obtenerPrestamosVencidos()).thenReturn(prestamosVencidos);
+        when(prestamoService.resolver(prestamosVencidos)).thenReturn(
+                new PrestamosResueltos(prestamosVencidos, Map.of(1L, libro), Map.of(1L, usuario)));
 
         // Act & Assert
         mockMvc.perform(get("/api/prestamos/vencidos"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$", hasSize(1)))
-                .andExpect(jsonPath("$[0].id", is(1)));
+                .andExpect(jsonPath("$.prestamos", hasSize(1)))
+                .andExpect(jsonPath("$.prestamos[0].id", is(1)))
+                .andExpect(jsonPath("$.usuarios.1.id", is(1)));
     }
 
     @Test
     void realizarPrestamo_ConDatosValidos_DebeRetornarPrestamoCreado() throws Exception {
         // Arrange
-        Libro libro = new Libro(1L, "123", "Libro 1", "Autor 1", "PRESTADO");
-        Usuario usuario = new Usuario(1L, "Juan", "juan@mail.com", "ACTIVO");
-        Prestamo nuevoPrestamo = new Prestamo(1L, libro, usuario, LocalDate.now(), LocalDate.now().plusDays(7));
+        Prestamo nuevoPrestamo = new Prestamo(1L, 1L, 1L, LocalDate.now(), LocalDate.now().plusDays(7));
 
         when(prestamoService.realizarPrestamo(1L, 1L)).thenReturn(nuevoPrestamo);
 
@@ -138,6 +160,19 @@ class PrestamoControllerTest {
                 .andExpect(jsonPath("$.id", is(1)));
     }
 
+    @Test
+    void realizarPrestamo_ConLibroNoDisponible_DebeRetornar409() throws Exception {
+        // Arrange
+        when(prestamoService.realizarPrestamo(1L, 1L)).thenThrow(LibroNoDisponibleException.paraPrestamo());
+
+        // Act & Assert
+        mockMvc.perform(post("/api/prestamos")
+                .param("libroId", "1")
+                .param("usuarioId", "1"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message", is(LibroNoDisponibleException.paraPrestamo().getMessage())));
+    }
+
     @Test
     void devolverLibro_CuandoExiste_DebeRetornar200() throws Exception {
         // Act & Assert
@@ -147,6 +182,69 @@ class PrestamoControllerTest {
         verify(prestamoService).devolverLibro(1L);
     }
 
+    @Test
+    void realizarPrestamos_DebeRetornarUnResultadoPorSolicitud() throws Exception {
+        // Arrange
+        Prestamo prestamo = new Prestamo(10L, 1L, 1L, LocalDate.now(), null);
+        List<SolicitudPrestamo> solicitudes = List.of(
+                new SolicitudPrestamo(1L, 1L), new SolicitudPrestamo(2L, 1L), new SolicitudPrestamo(99L, 1L),
+                new SolicitudPrestamo(3L, 1L));
+        when(prestamoService.realizarPrestamos(solicitudes)).thenReturn(List.of(
+                ResultadoLote.exito(prestamo),
+                ResultadoLote.fallo(new IllegalStateException("El usuario no puede realizar más préstamos")),
+                ResultadoLote.fallo(new IllegalArgumentException("No existe el libro con ID: 99")),
+                ResultadoLote.fallo(LibroNoDisponibleException.paraPrestamo())));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/prestamos/lote")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(solicitudes)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(4)))
+                .andExpect(jsonPath("$[0].estado", is(201)))
+                .andExpect(jsonPath("$[0].resultado.id", is(10)))
+                .andExpect(jsonPath("$[1].estado", is(400)))
+                .andExpect(jsonPath("$[2].estado", is(404)))
+                .andExpect(jsonPath("$[2].error", is("No existe el libro con ID: 99")))
+                .andExpect(jsonPath("$[2].resultado").doesNotExist())
+                .andExpect(jsonPath("$[3].estado", is(409)));
+    }
+
+    @Test
+    void realizarPrestamos_ConLoteDemasiadoGrande_DebeRetornar400() throws Exception {
+        // Arrange
+        List<SolicitudPrestamo> solicitudes = new ArrayList<>();
+        for (long i = 0; i <= ItemLote.MAXIMO_POR_LOTE; i++) {
+            solicitudes.add(new SolicitudPrestamo(i, 1L));
+        }
+
+        // Act & Assert
+        mockMvc.perform(post("/api/prestamos/lote")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(solicitudes)))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(prestamoService);
+    }
+
+    @Test
+    void devolverLibros_DebeRetornarUnResultadoPorPrestamo() throws Exception {
+        // Arrange
+        Prestamo prestamo = new Prestamo(1L, null, null, LocalDate.now(), LocalDate.now());
+        when(prestamoService.devolverLibros(List.of(1L, 2L))).thenReturn(List.of(
+                ResultadoLote.exito(prestamo),
+                ResultadoLote.fallo(new IllegalArgumentException("No existe el préstamo con ID: 2"))));
+
+        // Act & Assert
+        mockMvc.perform(patch("/api/prestamos/lote/devolver")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[1, 2]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].estado", is(200)))
+                .andExpect(jsonPath("$[0].resultado.id", is(1)))
+                .andExpect(jsonPath("$[1].estado", is(404)));
+    }
+
     @Test
     void eliminar_CuandoExiste_DebeRetornar204() throws Exception {
         // Act & Assert
@@ -17,6 +17,7 @@ import java.util.List;
 
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -48,14 +49,45 @@ class UsuarioControllerTest {
         Usuario usuario2 = new Usuario(2L, "Ana", "ana@mail.com", "ACTIVO");
         List<Usuario> usuarios = Arrays.asList(usuario1, usuario2);
 
-        when(usuarioService.obtenerTodos()).thenReturn(usuarios);
+        when(usuarioService.obtenerPagina(null, Pagina.LIMITE_POR_DEFECTO)).thenReturn(usuarios);
 
         // Act & Assert
         mockMvc.perform(get("/api/usuarios"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(2)))
                 .andExpect(jsonPath("$[0].nombre", is("Juan")))
-                .andExpect(jsonPath("$[1].nombre", is("Ana")));
+                .andExpect(jsonPath("$[1].nombre", is("Ana")))
+                .andExpect(header().doesNotExist(Pagina.CABECERA_SIGUIENTE));
+    }
+
+    @Test
+    void obtenerTodos_CuandoHayMasDeUnaPagina_DebeRetornarCursorEnCabecera() throws Exception {
+        // Arrange
+        Usuario usuario1 = new Usuario(1L, "Juan", "juan@mail.com", "ACTIVO");
+        Usuario usuario2 = new Usuario(2L, "Ana", "ana@mail.com", "ACTIVO");
+        Usuario usuario3 = new Usuario(3L, "Eva", "eva@mail.com", "ACTIVO");
+        when(usuarioService.obtenerPagina(null, 2)).thenReturn(Arrays.asList(usuario1, usuario2));
+        when(usuarioService.obtenerPagina(2L, 2)).thenReturn(List.of(usuario3));
+
+        // Act
+        String siguiente = mockMvc.perform(get("/api/usuarios").param("limite", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andReturn().getResponse().getHeader(Pagina.CABECERA_SIGUIENTE);
+
+        // Assert
+        mockMvc.perform(get("/api/usuarios").param("limite", "2").param("cursor", siguiente))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].nombre", is("Eva")))
+                .andExpect(header().doesNotExist(Pagina.CABECERA_SIGUIENTE));
+    }
+
+    @Test
+    void obtenerTodos_ConLimiteExcesivo_DebeRetornarBadRequest() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/usuarios").param("limite", "5000"))
+                .andExpect(status().isBadRequest());
+        verify(usuarioService, never()).obtenerPagina(any(), anyInt());
     }
 
     @Test
@@ -138,4 +170,43 @@ class UsuarioControllerTest {
 
         verify(usuarioService).activarUsuario(1L);
     }
-}
\ No newline at end of file
+
+    @Test
+    void obtenerPagina_CuandoLaPaginaEstaCompleta_DebeRetornarCursorSiguiente() throws Exception {
+        // Arrange
+        Usuario usuario1 = new Usuario(1L, "Juan", "juan@mail.com", "ACTIVO");
+        Usuario usuario2 = new Usuario(2L, "Ana", "ana@mail.com", "ACTIVO");
+        when(usuarioService.obtenerPagina(null, 2)).thenReturn(Arrays.asList(usuario1, usuario2));
+        when(usuarioService.obtenerPagina(2L, 2)).thenReturn(List.of());
+
+        // Act
+        String respuesta = mockMvc.perform(get("/api/usuarios/pagina").param("limite", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.elementos", hasSize(2)))
+                .andExpect(jsonPath("$.siguiente", notNullValue()))
+                .andReturn().getResponse().getContentAsString();
+        String siguiente = objectMapper.readTree(respuesta).get("siguiente").asText();
+
+        // Assert
+        mockMvc.perform(get("/api/usuarios/pagina").param("limite", "2").param("cursor", siguiente))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.elementos", hasSize(0)))
+                .andExpect(jsonPath("$.siguiente", nullValue()));
+        verify(usuarioService).obtenerPagina(2L, 2);
+    }
+
+    @Test
+    void obtenerPagina_ConCursorInvalido_DebeRetornarBadRequest() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/usuarios/pagina").param("cursor", "no-es-un-cursor"))
+                .andExpect(status().isBadRequest());
+        verify(usuarioService, never()).obtenerPagina(any(), anyInt());
+    }
+
+    @Test
+    void obtenerPagina_ConLimiteExcesivo_DebeRetornarBadRequest() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/usuarios/pagina").param("limite", "5000"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,253 @@
+package com.biblioteca.app.event;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BusEventosTest {
+
+    private static final Duration ESPERA = Duration.ofMillis(1);
+
+    private BusEventos bus;
+
+    @AfterEach
+    void tearDown() {
+        if (bus != null) {
+            bus.close();
+        }
+    }
+
+    @Test
+    void entregaLosEventosEnOrdenYDeALotes() {
+        // Arrange
+        Registrador registrador = new Registrador("registro");
+        bus = BusEventos.iniciar(List.of(registrador), new OpcionesBus(64, 8, PoliticaSaturacion.ESPERAR, ESPERA));
+
+        // Act
+        for (long i = 1; i <= 200; i++) {
+            assertTrue(bus.publicar(new LibroEnReparacionEvent(i)));
+        }
+        bus.close();
+
+        // Assert
+        assertEquals(200, registrador.eventos.size());
+        for (int i = 0; i < 200; i++) {
+            assertEquals(new LibroEnReparacionEvent(i + 1L), registrador.eventos.get(i));
+        }
+        assertTrue(registrador.tamaniosDeLote.stream().allMatch(tamanio -> tamanio >= 1 && tamanio <= 8));
+        assertEquals(0, bus.getRetraso("registro"));
+        assertEquals(200, bus.getProcesados("registro"));
+    }
+
+    @Test
+    void unSuscriptorTrabadoNoFrenaAlQuePublicaNiALosDemas() throws Exception {
+        // Arrange
+        CountDownLatch destrabar = new CountDownLatch(1);
+        SuscriptorEventos trabado = suscriptor("trabado", lote -> esperar(destrabar));
+        Registrador rapido = new Registrador("rapido");
+        bus = BusEventos.iniciar(List.of(trabado, rapido),
+                new OpcionesBus(16, 4, PoliticaSaturacion.DESCARTAR, ESPERA));
+
+        // Act
+        int aceptados = 0;
+        for (long i = 1; i <= 100; i++) {
+            if (bus.publicar(new UsuarioSuspendidoEvent(i))) {
+                aceptados++;
+            }
+        }
+
+        // Assert
+        // Hasta que el trabado termine su primer lote no libera ninguna casilla
+        assertEquals(16, aceptados);
+        assertEquals(100 - aceptados, bus.getDescartados());
+        assertTrue(bus.getRetraso("trabado") > 0);
+        esperarHasta(() -> rapido.eventos.size() == bus.getPublicados());
+        assertEquals(0, bus.getRetraso("rapido"));
+        destrabar.countDown();
+    }
+
+    @Test
+    void conPoliticaEsperarVariosPublicadoresNoPierdenEventos() throws Exception {
+        // Arrange
+        Registrador registrador = new Registrador("registro");
+        bus = BusEventos.iniciar(List.of(registrador), new OpcionesBus(8, 4, PoliticaSaturacion.ESPERAR, ESPERA));
+        int hilos = 8;
+        int porHilo = 2_000;
+        ExecutorService executor = Executors.newFixedThreadPool(hilos);
+
+        // Act
+        List<Future<?>> resultados = new ArrayList<>();
+        for (int h = 0; h < hilos; h++) {
+            long base = (long) h * porHilo;
+            resultados.add(executor.submit(() -> {
+                for (long i = 1; i <= porHilo; i++) {
+                    assertTrue(bus.publicar(new LibroEnReparacionEvent(base + i)));
+                }
+            }));
+        }
+        for (Future<?> resultado : resultados) {
+            resultado.get();
+        }
+        executor.shutdown();
+        bus.close();
+
+        // Assert
+        assertEquals(hilos * porHilo, registrador.eventos.size());
+        assertEquals(hilos * porHilo, registrador.eventos.stream().distinct().count());
+        assertEquals(0, bus.getDescartados());
+    }
+
+    @Test
+    void unLoteQueFallaSeCuentaYElSuscriptorSigue() {
+        // Arrange
+        Registrador registrador = new Registrador("registro");
+        SuscriptorEventos fallido = suscriptor("fallido", lote -> {
+            throw new IllegalStateException("falla");
+        });
+        bus = BusEventos.iniciar(List.of(fallido, registrador),
+                new OpcionesBus(64, 1, PoliticaSaturacion.ESPERAR, ESPERA));
+
+        // Act
+        for (long i = 1; i <= 10; i++) {
+            bus.publicar(new UsuarioSuspendidoEvent(i));
+        }
+        bus.close();
+
+        // Assert
+        assertEquals(10, bus.getLotesFallidos("fallido"));
+        assertEquals(10, bus.getProcesados("fallido"));
+        assertEquals(10, registrador.eventos.size());
+    }
+
+    @Test
+    void unErrorQueNoEsFatalSeCuentaComoUnLoteFallido() {
+        // Arrange
+        SuscriptorEventos fallido = suscriptor("fallido", lote -> {
+            throw new AssertionError("falla");
+        });
+        bus = BusEventos.iniciar(List.of(fallido), new OpcionesBus(64, 1, PoliticaSaturacion.ESPERAR, ESPERA));
+
+        // Act
+        for (long i = 1; i <= 10; i++) {
+            bus.publicar(new UsuarioSuspendidoEvent(i));
+        }
+        bus.close();
+
+        // Assert
+        assertEquals(10, bus.getLotesFallidos("fallido"));
+        assertEquals(10, bus.getProcesados("fallido"));
+    }
+
+    @Test
+    void unSuscriptorDetenidoPorUnErrorFatalNoFrenaAlQuePublica() {
+        // Arrange
+        SuscriptorEventos fatal = suscriptor("fatal", lote -> {
+            throw new StackOverflowError("simulado");
+        });
+        Registrador registrador = new Registrador("registro");
+        bus = BusEventos.iniciar(List.of(fatal, registrador),
+                new OpcionesBus(8, 4, PoliticaSaturacion.ESPERAR, ESPERA));
+
+        // Act
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            for (long i = 1; i <= 100; i++) {
+                assertTrue(bus.publicar(new LibroEnReparacionEvent(i)));
+            }
+        });
+        bus.close();
+
+        // Assert
+        assertEquals(1, bus.getLotesFallidos("fatal"));
+        assertEquals(100, registrador.eventos.size());
+        assertEquals(0, bus.getDescartados());
+    }
+
+    @Test
+    void cerradoDescartaLoQueSePublica() {
+        // Arrange
+        bus = BusEventos.iniciar(List.of(new Registrador("registro")),
+                new OpcionesBus(16, 4, PoliticaSaturacion.ESPERAR, ESPERA));
+        bus.close();
+
+        // Act
+        boolean aceptado = bus.publicar(new LibroEnReparacionEvent(1L));
+
+        // Assert
+        assertFalse(aceptado);
+        assertEquals(1, bus.getDescartados());
+    }
+
+    @Test
+    void suscriptoresConElMismoNombreLanzanExcepcion() {
+        // Arrange
+        OpcionesBus opciones = new OpcionesBus(16, 4, PoliticaSaturacion.DESCARTAR, ESPERA);
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> BusEventos.iniciar(List.of(new Registrador("a"), new Registrador("a")), opciones));
+    }
+
+    private static SuscriptorEventos suscriptor(String nombre, Consumer<List<EventoDominio>> accion) {
+        return new SuscriptorEventos() {
+            @Override
+            public String nombre() {
+                return nombre;
+            }
+
+            @Override
+            public void procesar(List<EventoDominio> lote) {
+                accion.accept(lote);
+            }
+        };
+    }
+
+    private static void esperar(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void esperarHasta(BooleanSupplier condicion) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condicion.getAsBoolean()) {
+            assertTrue(System.nanoTime() < limite, "La condición no se cumplió a tiempo");
+            Thread.sleep(1);
+        }
+    }
+
+    private static final class Registrador implements SuscriptorEventos {
+        private final String nombre;
+        private final List<EventoDominio> eventos = Collections.synchronizedList(new ArrayList<>());
+        private final List<Integer> tamaniosDeLote = Collections.synchronizedList(new ArrayList<>());
+
+        Registrador(String nombre) {
+            this.nombre = nombre;
+        }
+
+        @Override
+        public String nombre() {
+            return nombre;
+        }
+
+        @Override
+        public void procesar(List<EventoDominio> lote) {
+            tamaniosDeLote.add(lote.size());
+            eventos.addAll(lote);
+        }
+    }
+}
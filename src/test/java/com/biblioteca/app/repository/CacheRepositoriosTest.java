@@ -0,0 +1,137 @@
+package com.biblioteca.app.repository;
+
+import com.biblioteca.app.event.PublicadorEventos;
+import com.biblioteca.app.model.EstadoLibro;
+import com.biblioteca.app.model.Libro;
+import com.biblioteca.app.model.Usuario;
+import com.biblioteca.app.repository.cache.LibroRepositoryCacheado;
+import com.biblioteca.app.repository.cache.OpcionesCache;
+import com.biblioteca.app.repository.cache.UsuarioRepositoryCacheado;
+import com.biblioteca.app.repository.impl.LibroRepositoryImpl;
+import com.biblioteca.app.repository.impl.PrestamoRepositoryImpl;
+import com.biblioteca.app.repository.impl.UsuarioRepositoryImpl;
+import com.biblioteca.app.service.PrestamoService;
+import com.biblioteca.app.service.impl.PrestamoServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cachés de lectura delante de un repositorio que, como uno guardado fuera de
+ * memoria, devuelve una copia nueva en cada búsqueda: sin invalidación la
+ * caché serviría el estado viejo.
+ */
+class CacheRepositoriosTest {
+
+    private static final OpcionesCache OPCIONES = new OpcionesCache(1000, Duration.ofMinutes(10));
+
+    private LibroRepositoryImpl almacen;
+    private LibroRepositoryCacheado libroRepository;
+
+    @BeforeEach
+    void setUp() {
+        almacen = new LibroRepositoryImpl() {
+            @Override
+            public Optional<Libro> findById(Long id) {
+                return super.findById(id).map(CacheRepositoriosTest::copia);
+            }
+
+            @Override
+            public Optional<Libro> findByIsbn(String isbn) {
+                return super.findByIsbn(isbn).map(CacheRepositoriosTest::copia);
+            }
+        };
+        libroRepository = new LibroRepositoryCacheado(almacen, OPCIONES);
+    }
+
+    @Test
+    void findByIdRepetidoSeSirveDesdeLaCache() {
+        // Arrange
+        Long id = libroRepository.save(new Libro("ISBN1", "Rayuela", "Cortázar")).getId();
+
+        // Act
+        Libro primera = libroRepository.findById(id).get();
+        Libro segunda = libroRepository.findById(id).get();
+
+        // Assert
+        assertSame(primera, segunda);
+        assertEquals(1, libroRepository.getCachePorId().stats().hitCount());
+        assertEquals(1, libroRepository.getCachePorId().stats().missCount());
+        assertTrue(libroRepository.findById(99L).isEmpty());
+        assertNull(libroRepository.getCachePorId().getIfPresent(99L));
+    }
+
+    @Test
+    void despuesDeUnPrestamoNoSeLeeLaDisponibilidadVieja() {
+        // Arrange
+        UsuarioRepository usuarioRepository = new UsuarioRepositoryCacheado(new UsuarioRepositoryImpl(), OPCIONES);
+        PrestamoService prestamoService = new PrestamoServiceImpl(new PrestamoRepositoryImpl(), libroRepository,
+                usuarioRepository, PublicadorEventos.NINGUNO);
+        Long libroId = libroRepository.save(new Libro("ISBN1", "Rayuela", "Cortázar")).getId();
+        Long usuarioId = usuarioRepository.save(new Usuario("Ana", "ana@mail.com")).getId();
+        Libro enCache = libroRepository.findById(libroId).get();
+
+        // Act
+        Long prestamoId = prestamoService.realizarPrestamo(libroId, usuarioId).getId();
+        Libro despuesDelPrestamo = libroRepository.findById(libroId).get();
+        // La devolución cambia el estado de la instancia vigente, que puede ser ésta
+        EstadoLibro estadoDespuesDelPrestamo = despuesDelPrestamo.getEstado();
+        prestamoService.devolverLibro(prestamoId);
+        Libro despuesDeLaDevolucion = libroRepository.findByIsbn("ISBN1").get();
+
+        // Assert: cada lectura posterior a una escritura vuelve a ir al almacén
+        assertNotSame(enCache, despuesDelPrestamo);
+        assertEquals(EstadoLibro.PRESTADO, estadoDespuesDelPrestamo);
+        assertNotSame(despuesDelPrestamo, despuesDeLaDevolucion);
+        assertEquals(EstadoLibro.DISPONIBLE, despuesDeLaDevolucion.getEstado());
+    }
+
+    @Test
+    void findByIsbnDescartaElIsbnQueCambioOSeElimino() {
+        // Arrange
+        Long id = libroRepository.save(new Libro("ISBN1", "Rayuela", "Cortázar")).getId();
+        assertTrue(libroRepository.findByIsbn("ISBN1").isPresent());
+        Libro editado = libroRepository.findById(id).get();
+        editado.setIsbn("ISBN2");
+
+        // Act
+        libroRepository.save(editado);
+        Optional<Libro> porIsbnViejo = libroRepository.findByIsbn("ISBN1");
+        Optional<Libro> porIsbnNuevo = libroRepository.findByIsbn("ISBN2");
+        libroRepository.deleteById(id);
+
+        // Assert
+        assertTrue(porIsbnViejo.isEmpty());
+        assertEquals(id, porIsbnNuevo.get().getId());
+        assertTrue(libroRepository.findByIsbn("ISBN2").isEmpty());
+        assertTrue(libroRepository.findById(id).isEmpty());
+    }
+
+    @Test
+    void laCacheNoSuperaElTamanioMaximo() {
+        // Arrange
+        LibroRepositoryCacheado acotado = new LibroRepositoryCacheado(almacen,
+                new OpcionesCache(10, Duration.ofMinutes(10)));
+        for (int i = 0; i < 1000; i++) {
+            acotado.save(new Libro("ISBN" + i, "Libro " + i, "Autor"));
+        }
+
+        // Act
+        for (long id = 1; id <= 1000; id++) {
+            assertEquals(id, acotado.findById(id).get().getId());
+        }
+        acotado.getCachePorId().cleanUp();
+
+        // Assert
+        assertTrue(acotado.getCachePorId().estimatedSize() <= 10);
+        assertTrue(acotado.getCachePorId().stats().evictionCount() >= 990);
+    }
+
+    private static Libro copia(Libro libro) {
+        return new Libro(libro.getId(), libro.getIsbn(), libro.getTitulo(), libro.getAutor(), libro.getEstado());
+    }
+}
@@ -6,8 +6,14 @@ import com.biblioteca.app.repository.impl.LibroRepositoryImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -165,4 +171,270 @@ class LibroRepositoryTest {
         assertEquals("Título Actualizado", libroActualizado.get().getTitulo());
         assertEquals("Autor Actualizado", libroActualizado.get().getAutor());
     }
-}
\ No newline at end of file
+
+    @Test
+    void guardarLibroConIsbnDuplicadoLanzaExcepcion() {
+        // Arrange
+        libroRepository.save(new Libro(null, "ISBN-DUP", "Libro 1", "Autor 1", EstadoLibro.DISPONIBLE));
+        Libro duplicado = new Libro(null, "ISBN-DUP", "Libro 2", "Autor 2", EstadoLibro.DISPONIBLE);
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> libroRepository.save(duplicado));
+        assertNull(duplicado.getId());
+        assertEquals(1, libroRepository.findAll().size());
+    }
+
+    @Test
+    void cambiarIsbnActualizaElIndice() {
+        // Arrange
+        Libro libro = libroRepository.save(new Libro(null, "ISBN-VIEJO", "Libro", "Autor", EstadoLibro.DISPONIBLE));
+
+        // Act
+        libro.setIsbn("ISBN-NUEVO");
+        libroRepository.save(libro);
+
+        // Assert
+        assertTrue(libroRepository.findByIsbn("ISBN-VIEJO").isEmpty());
+        assertEquals(libro.getId(), libroRepository.findByIsbn("ISBN-NUEVO").get().getId());
+        libroRepository.save(new Libro(null, "ISBN-VIEJO", "Otro", "Autor", EstadoLibro.DISPONIBLE));
+    }
+
+    @Test
+    void actualizarConIsbnDeOtroLibroNoCambiaNada() {
+        // Arrange
+        libroRepository.save(new Libro(null, "ISBN-1", "Libro 1", "Autor 1", EstadoLibro.DISPONIBLE));
+        Libro libro = libroRepository.save(new Libro(null, "ISBN-2", "Libro 2", "Autor 2", EstadoLibro.PRESTADO));
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> libroRepository.actualizar(libro.getId(), "ISBN-1", "Otro título", "Otro autor"));
+        assertEquals("ISBN-2", libro.getIsbn());
+        assertEquals("Libro 2", libro.getTitulo());
+        assertSame(libro, libroRepository.findByIsbn("ISBN-2").get());
+        assertTrue(libroRepository.findPorTexto("otro", 10).isEmpty());
+    }
+
+    @Test
+    void actualizarCambiaLaMismaInstanciaSinTocarElEstado() {
+        // Arrange
+        Libro libro = libroRepository.save(new Libro(null, "ISBN-1", "Libro", "Autor", EstadoLibro.PRESTADO));
+
+        // Act
+        Libro actualizado = libroRepository.actualizar(libro.getId(), "ISBN-2", "Rayuela", "Cortázar");
+
+        // Assert
+        assertSame(libro, actualizado);
+        assertEquals(EstadoLibro.PRESTADO, libro.getEstado());
+        assertTrue(libroRepository.findByIsbn("ISBN-1").isEmpty());
+        assertSame(libro, libroRepository.findByIsbn("ISBN-2").get());
+        assertEquals(List.of(libro), libroRepository.findPorTexto("rayuela", 10));
+        assertThrows(IllegalArgumentException.class, () -> libroRepository.actualizar(99L, "ISBN-3", "T", "A"));
+    }
+
+    @Test
+    void deleteByIdLiberaElIsbn() {
+        // Arrange
+        Libro libro = libroRepository.save(new Libro(null, "ISBN-LIBRE", "Libro", "Autor", EstadoLibro.DISPONIBLE));
+
+        // Act
+        libroRepository.deleteById(libro.getId());
+
+        // Assert
+        assertTrue(libroRepository.findByIsbn("ISBN-LIBRE").isEmpty());
+        Libro nuevo = libroRepository.save(new Libro(null, "ISBN-LIBRE", "Otro", "Autor", EstadoLibro.DISPONIBLE));
+        assertEquals(nuevo.getId(), libroRepository.findByIsbn("ISBN-LIBRE").get().getId());
+    }
+
+    @Test
+    void guardarConcurrenteConMismoIsbnSoloAceptaUno() throws InterruptedException {
+        // Arrange
+        int hilos = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(hilos);
+        CountDownLatch largada = new CountDownLatch(1);
+        AtomicInteger aceptados = new AtomicInteger();
+
+        // Act
+        for (int i = 0; i < hilos; i++) {
+            int n = i;
+            executor.submit(() -> {
+                largada.await();
+                try {
+                    libroRepository.save(new Libro(null, "ISBN-CARRERA", "Libro " + n, "Autor", EstadoLibro.DISPONIBLE));
+                    aceptados.incrementAndGet();
+                } catch (IllegalArgumentException e) {
+                    // Otro hilo ganó el ISBN
+                }
+                return null;
+            });
+        }
+        largada.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Assert
+        assertEquals(1, aceptados.get());
+        assertEquals(1, libroRepository.findAll().size());
+        assertTrue(libroRepository.findByIsbn("ISBN-CARRERA").isPresent());
+    }
+
+    @Test
+    void findPaginaRecorreTodosLosLibrosEnOrdenDeId() {
+        // Arrange
+        for (int i = 0; i < 25; i++) {
+            libroRepository.save(new Libro("ISBN-" + i, "Libro " + i, "Autor"));
+        }
+        libroRepository.deleteById(7L);
+
+        // Act
+        List<Long> recorridos = new ArrayList<>();
+        Long cursor = null;
+        List<Libro> pagina;
+        do {
+            pagina = libroRepository.findPagina(cursor, 10);
+            pagina.forEach(libro -> recorridos.add(libro.getId()));
+            cursor = pagina.isEmpty() ? cursor : pagina.get(pagina.size() - 1).getId();
+        } while (pagina.size() == 10);
+
+        // Assert
+        assertEquals(24, recorridos.size());
+        assertFalse(recorridos.contains(7L));
+        for (int i = 1; i < recorridos.size(); i++) {
+            assertTrue(recorridos.get(i - 1) < recorridos.get(i));
+        }
+    }
+
+    @Test
+    void findPaginaConLimiteInvalidoLanzaExcepcion() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> libroRepository.findPagina(null, 0));
+    }
+
+    @Test
+    void findPorTextoIgnoraTildesYMayusculas() {
+        // Arrange
+        libroRepository.save(new Libro("ISBN-1", "Cien años de soledad", "Gabriel García Márquez"));
+        libroRepository.save(new Libro("ISBN-2", "Rayuela", "Julio Cortázar"));
+
+        // Act
+        List<Libro> porAutor = libroRepository.findPorTexto("garcia marquez", 10);
+        List<Libro> porTitulo = libroRepository.findPorTexto("RAYUELA", 10);
+
+        // Assert
+        assertEquals(1, porAutor.size());
+        assertEquals("ISBN-1", porAutor.get(0).getIsbn());
+        assertEquals(1, porTitulo.size());
+        assertEquals("ISBN-2", porTitulo.get(0).getIsbn());
+    }
+
+    @Test
+    void findPorTextoOrdenaPorRelevancia() {
+        // Arrange
+        libroRepository.save(new Libro("ISBN-1", "Historia de la filosofía occidental", "Bertrand Russell"));
+        libroRepository.save(new Libro("ISBN-2", "Historia de Roma", "Indro Montanelli"));
+        libroRepository.save(new Libro("ISBN-3", "Historia de la filosofía", "Julián Marías"));
+
+        // Act
+        List<Libro> resultado = libroRepository.findPorTexto("historia filosofia", 10);
+
+        // Assert
+        assertEquals(List.of("ISBN-3", "ISBN-1", "ISBN-2"),
+                resultado.stream().map(Libro::getIsbn).toList());
+    }
+
+    @Test
+    void findPorTextoRespetaElLimite() {
+        // Arrange
+        for (int i = 0; i < 5; i++) {
+            libroRepository.save(new Libro("ISBN-" + i, "Poemas " + i, "Autor"));
+        }
+
+        // Act
+        List<Libro> resultado = libroRepository.findPorTexto("poemas", 3);
+
+        // Assert
+        assertEquals(3, resultado.size());
+    }
+
+    @Test
+    void findPorTextoSeActualizaAlModificarYEliminar() {
+        // Arrange
+        Libro libro = libroRepository.save(new Libro("ISBN-1", "El túnel", "Ernesto Sabato"));
+        Libro otro = libroRepository.save(new Libro("ISBN-2", "Sobre héroes y tumbas", "Ernesto Sabato"));
+
+        // Act
+        libro.setTitulo("Abaddón el exterminador");
+        libroRepository.save(libro);
+        libroRepository.deleteById(otro.getId());
+
+        // Assert
+        assertTrue(libroRepository.findPorTexto("tunel", 10).isEmpty());
+        assertEquals(List.of(libro), libroRepository.findPorTexto("abaddon", 10));
+        assertEquals(List.of(libro), libroRepository.findPorTexto("sabato", 10));
+    }
+
+    @Test
+    void findPorTextoSoloConPalabrasVaciasNoEncuentraNada() {
+        // Arrange
+        libroRepository.save(new Libro("ISBN-1", "El nombre de la rosa", "Umberto Eco"));
+
+        // Act & Assert
+        assertTrue(libroRepository.findPorTexto("de la", 10).isEmpty());
+    }
+
+    @Test
+    void findSugerenciasSeActualizaAlModificarYEliminar() {
+        // Arrange
+        Libro libro = libroRepository.save(new Libro("ISBN-1", "Martín Fierro", "José Hernández"));
+        Libro otro = libroRepository.save(new Libro("ISBN-2", "Marianela", "Benito Pérez Galdós"));
+
+        // Act
+        libro.setTitulo("La vuelta de Martín Fierro");
+        libroRepository.save(libro);
+        libroRepository.deleteById(otro.getId());
+
+        // Assert
+        assertTrue(libroRepository.findSugerencias("mar", 10).isEmpty());
+        assertEquals(List.of("La vuelta de Martín Fierro"), libroRepository.findSugerencias("la vuelta", 10));
+        assertEquals(List.of("José Hernández"), libroRepository.findSugerencias("jose", 10));
+    }
+
+    @Test
+    void findByEstadoYCountByEstadoSiguenLasTransiciones() {
+        // Arrange
+        Libro libro1 = libroRepository.save(new Libro("ISBN1", "Libro 1", "Autor"));
+        Libro libro2 = libroRepository.save(new Libro("ISBN2", "Libro 2", "Autor"));
+        Libro libro3 = libroRepository.save(new Libro("ISBN3", "Libro 3", "Autor"));
+
+        // Act
+        libro1.prestar();
+        libroRepository.save(libro1);
+        libro3.enviarAReparacion();
+        libroRepository.save(libro3);
+        libro1.devolver();
+        libro1.prestar();
+        libroRepository.save(libro1);
+        libroRepository.deleteById(libro2.getId());
+
+        // Assert
+        assertEquals(0, libroRepository.countByEstado(EstadoLibro.DISPONIBLE));
+        assertTrue(libroRepository.findByEstado(EstadoLibro.DISPONIBLE).isEmpty());
+        assertEquals(1, libroRepository.countByEstado(EstadoLibro.PRESTADO));
+        assertEquals(List.of(libro1), libroRepository.findByEstado(EstadoLibro.PRESTADO));
+        assertEquals(1, libroRepository.countByEstado(EstadoLibro.EN_REPARACION));
+        assertEquals(List.of(libro3), libroRepository.findByEstado(EstadoLibro.EN_REPARACION));
+    }
+
+    @Test
+    void findByEstadoDescartaLosCambiosTodaviaNoGuardados() {
+        // Arrange
+        Libro libro1 = libroRepository.save(new Libro("ISBN1", "Libro 1", "Autor"));
+        Libro libro2 = libroRepository.save(new Libro("ISBN2", "Libro 2", "Autor"));
+
+        // Act
+        libro1.prestar();
+
+        // Assert
+        assertEquals(List.of(libro2), libroRepository.findByEstado(EstadoLibro.DISPONIBLE));
+        assertTrue(libroRepository.findByEstado(EstadoLibro.PRESTADO).isEmpty());
+    }
+}
@@ -0,0 +1,473 @@
+package com.biblioteca.app.repository;
+
+import com.biblioteca.app.event.PublicadorEventos;
+import com.biblioteca.app.exception.LibroNoDisponibleException;
+import com.biblioteca.app.model.EstadoLibro;
+import com.biblioteca.app.model.Libro;
+import com.biblioteca.app.model.Prestamo;
+import com.biblioteca.app.model.Usuario;
+import com.biblioteca.app.repository.impl.LibroRepositoryImpl;
+import com.biblioteca.app.repository.impl.PrestamoRepositoryImpl;
+import com.biblioteca.app.repository.impl.UsuarioRepositoryImpl;
+import com.biblioteca.app.repository.persistencia.AplicadorRegistros;
+import com.biblioteca.app.repository.persistencia.CodificadorRegistros;
+import com.biblioteca.app.repository.persistencia.GestorInstantaneas;
+import com.biblioteca.app.repository.persistencia.Instantaneas;
+import com.biblioteca.app.repository.persistencia.LibroRepositoryDuradero;
+import com.biblioteca.app.repository.persistencia.LogEscrituraAnticipada;
+import com.biblioteca.app.repository.persistencia.OpcionesLog;
+import com.biblioteca.app.repository.persistencia.PrestamoRepositoryDuradero;
+import com.biblioteca.app.repository.persistencia.RegistradorCambios;
+import com.biblioteca.app.repository.persistencia.UsuarioRepositoryDuradero;
+import com.biblioteca.app.service.PrestamoService;
+import com.biblioteca.app.service.ResultadoLote;
+import com.biblioteca.app.service.SolicitudPrestamo;
+import com.biblioteca.app.service.impl.PrestamoServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistenciaTest {
+
+    private static final OpcionesLog SINCRONICO = new OpcionesLog(true, Duration.ofMillis(5), 256);
+    private static final OpcionesLog ASINCRONICO = new OpcionesLog(false, Duration.ofMillis(5), 256);
+
+    @TempDir
+    Path directorio;
+
+    private Instancia instancia;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (instancia != null) {
+            instancia.log.close();
+        }
+    }
+
+    @Test
+    void recuperaLibrosUsuariosYPrestamosTrasReiniciar() throws IOException {
+        // Arrange
+        instancia = abrir(SINCRONICO);
+        Libro prestado = instancia.libros.save(new Libro("ISBN1", "Libro 1", "Autor 1"));
+        Libro devuelto = instancia.libros.save(new Libro("ISBN2", "Libro 2", "Autor 2"));
+        Libro eliminado = instancia.libros.save(new Libro("ISBN3", "Libro 3", "Autor 3"));
+        Usuario juan = instancia.usuarios.save(new Usuario("Juan", "juan@mail.com"));
+        Prestamo activo = instancia.prestamoService.realizarPrestamo(prestado.getId(), juan.getId());
+        Prestamo finalizado = instancia.prestamoService.realizarPrestamo(devuelto.getId(), juan.getId());
+        instancia.prestamoService.devolverLibro(finalizado.getId());
+        instancia.libros.deleteById(eliminado.getId());
+        prestado.setTitulo("Libro 1 (2da edición)");
+        instancia.libros.save(prestado);
+
+        // Act
+        instancia.log.close();
+        instancia = abrir(SINCRONICO);
+
+        // Assert
+        assertEquals(2, instancia.libros.findAll().size());
+        assertFalse(instancia.libros.existsById(eliminado.getId()));
+        Libro recuperado = instancia.libros.findByIsbn("ISBN1").get();
+        assertEquals("Libro 1 (2da edición)", recuperado.getTitulo());
+        assertEquals(EstadoLibro.PRESTADO, recuperado.getEstado());
+        assertEquals(EstadoLibro.DISPONIBLE, instancia.libros.findById(devuelto.getId()).get().getEstado());
+
+        Usuario juanRecuperado = instancia.usuarios.findByEmail("juan@mail.com").get();
+        assertEquals(1, juanRecuperado.getLibrosPrestados().size());
+
+        List<Prestamo> activos = instancia.prestamos.findPrestamosActivos();
+        assertEquals(1, activos.size());
+        assertEquals(activo.getId(), activos.get(0).getId());
+        assertEquals(recuperado.getId(), activos.get(0).getLibroId());
+        assertFalse(instancia.prestamos.findById(finalizado.getId()).get().isActivo());
+    }
+
+    @Test
+    void masPrestamosActivosQueElCupoNoImpidenRecuperarNiDevolver() throws IOException {
+        // Arrange
+        instancia = abrir(SINCRONICO);
+        Usuario juan = instancia.usuarios.save(new Usuario("Juan", "juan@mail.com"));
+        List<Prestamo> activos = new ArrayList<>();
+        for (int i = 1; i <= Usuario.LIMITE_PRESTAMOS + 1; i++) {
+            Libro libro = instancia.libros.save(new Libro(null, "ISBN" + i, "Libro " + i, "Autor", EstadoLibro.PRESTADO));
+            // Datos de antes del límite en el modelo: los préstamos se guardan sin pasar por el servicio
+            activos.add(instancia.prestamos.save(new Prestamo(null, libro.getId(), juan.getId(), LocalDate.now(), null)));
+        }
+
+        // Act
+        instancia.log.close();
+        instancia = abrir(SINCRONICO);
+
+        // Assert
+        assertEquals(Usuario.LIMITE_PRESTAMOS + 1, instancia.prestamos.findPrestamosActivos().size());
+        assertEquals(Usuario.LIMITE_PRESTAMOS, instancia.usuarios.findById(juan.getId()).get().contarLibrosPrestados());
+        for (Prestamo prestamo : activos) {
+            instancia.prestamoService.devolverLibro(prestamo.getId());
+        }
+        assertTrue(instancia.prestamos.findPrestamosActivos().isEmpty());
+        assertEquals(0, instancia.usuarios.findById(juan.getId()).get().contarLibrosPrestados());
+        assertEquals(Usuario.LIMITE_PRESTAMOS + 1, instancia.libros.countByEstado(EstadoLibro.DISPONIBLE));
+    }
+
+    @Test
+    void prestamosYDevolucionesPorLoteSeRecuperanTrasReiniciar() throws IOException {
+        // Arrange
+        instancia = abrir(SINCRONICO);
+        Libro libro1 = instancia.libros.save(new Libro("ISBN1", "Libro 1", "Autor"));
+        Libro libro2 = instancia.libros.save(new Libro("ISBN2", "Libro 2", "Autor"));
+        Libro libro3 = instancia.libros.save(new Libro("ISBN3", "Libro 3", "Autor"));
+        Usuario ana = instancia.usuarios.save(new Usuario("Ana", "ana@mail.com"));
+        Usuario eva = instancia.usuarios.save(new Usuario("Eva", "eva@mail.com"));
+        List<ResultadoLote<Prestamo>> prestados = instancia.prestamoService.realizarPrestamos(List.of(
+                new SolicitudPrestamo(libro1.getId(), ana.getId()),
+                new SolicitudPrestamo(libro2.getId(), eva.getId()),
+                new SolicitudPrestamo(libro3.getId(), ana.getId())));
+        instancia.prestamoService.devolverLibros(List.of(prestados.get(1).valor().getId()));
+
+        // Act
+        instancia.log.close();
+        instancia = abrir(SINCRONICO);
+
+        // Assert
+        assertEquals(2, instancia.prestamos.findPrestamosActivos().size());
+        assertEquals(EstadoLibro.PRESTADO, instancia.libros.findById(libro1.getId()).get().getEstado());
+        assertEquals(EstadoLibro.DISPONIBLE, instancia.libros.findById(libro2.getId()).get().getEstado());
+        assertEquals(EstadoLibro.PRESTADO, instancia.libros.findById(libro3.getId()).get().getEstado());
+        assertEquals(2, instancia.usuarios.findById(ana.getId()).get().getLibrosPrestados().size());
+        assertFalse(instancia.prestamos.findById(prestados.get(1).valor().getId()).get().isActivo());
+        assertEquals(2, instancia.libros.countByEstado(EstadoLibro.PRESTADO));
+        assertEquals(List.of(libro2.getId()), instancia.libros.findByEstado(EstadoLibro.DISPONIBLE).stream()
+                .map(Libro::getId).toList());
+    }
+
+    @Test
+    void lasSecuenciasContinuanDespuesDelUltimoIdRecuperado() throws IOException {
+        // Arrange
+        instancia = abrir(SINCRONICO);
+        instancia.libros.save(new Libro("ISBN1", "Libro 1", "Autor"));
+        Libro ultimo = instancia.libros.save(new Libro("ISBN2", "Libro 2", "Autor"));
+        Usuario usuario = instancia.usuarios.save(new Usuario("Ana", "ana@mail.com"));
+        Prestamo prestamo = instancia.prestamoService.realizarPrestamo(ultimo.getId(), usuario.getId());
+        instancia.log.close();
+        instancia = abrir(SINCRONICO);
+
+        // Act
+        Libro nuevo = instancia.libros.save(new Libro("ISBN3", "Libro 3", "Autor"));
+        Usuario otro = instancia.usuarios.save(new Usuario("Eva", "eva@mail.com"));
+        Prestamo otroPrestamo = instancia.prestamoService.realizarPrestamo(nuevo.getId(), otro.getId());
+
+        // Assert
+        assertEquals(ultimo.getId() + 1, nuevo.getId());
+        assertEquals(usuario.getId() + 1, otro.getId());
+        assertEquals(prestamo.getId() + 1, otroPrestamo.getId());
+    }
+
+    @Test
+    void unRegistroCortadoAlFinalSeDescarta() throws IOException {
+        // Arrange
+        instancia = abrir(SINCRONICO);
+        instancia.libros.save(new Libro("ISBN1", "Libro 1", "Autor"));
+        instancia.libros.save(new Libro("ISBN2", "Libro 2", "Autor"));
+        instancia.log.close();
+        Path archivo = LogEscrituraAnticipada.rutaSegmento(directorio, 1);
+        long tamanioValido = Files.size(archivo);
+        // Un registro que anuncia 100 bytes pero se cortó a los 3
+        Files.write(archivo, new byte[]{0, 0, 0, 100, 1, 2, 3, 4, 9, 9, 9}, StandardOpenOption.APPEND);
+
+        // Act
+        instancia = abrir(SINCRONICO);
+        instancia.libros.save(new Libro("ISBN3", "Libro 3", "Autor"));
+        instancia.log.close();
+        instancia = abrir(SINCRONICO);
+
+        // Assert
+        assertEquals(3, instancia.libros.findAll().size());
+        assertTrue(Files.size(archivo) > tamanioValido);
+    }
+
+    @Test
+    void escritoresConcurrentesCompartenFsyncSinPerderRegistros() throws Exception {
+        // Arrange
+        instancia = abrir(SINCRONICO);
+        int hilos = 8;
+        int librosPorHilo = 250;
+        ExecutorService executor = Executors.newFixedThreadPool(hilos);
+        List<Future<?>> tareas = new ArrayList<>();
+
+        // Act
+        for (int h = 0; h < hilos; h++) {
+            int hilo = h;
+            tareas.add(executor.submit(() -> {
+                for (int i = 0; i < librosPorHilo; i++) {
+                    instancia.libros.save(new Libro("ISBN-" + hilo + "-" + i, "Libro", "Autor"));
+                }
+            }));
+        }
+        for (Future<?> tarea : tareas) {
+            tarea.get();
+        }
+        executor.shutdown();
+        instancia.log.close();
+        instancia = abrir(SINCRONICO);
+
+        // Assert
+        assertEquals(hilos * librosPorHilo, instancia.libros.findAll().size());
+    }
+
+    @Test
+    void sinEsperarFsyncSincronizarDejaTodoEnDisco() throws IOException {
+        // Arrange
+        instancia = abrir(ASINCRONICO);
+        for (int i = 0; i < 1_000; i++) {
+            instancia.usuarios.save(new Usuario("Usuario " + i, "u" + i + "@mail.com"));
+        }
+
+        // Act
+        instancia.log.sincronizar();
+        Instancia copia = abrirCopia();
+
+        // Assert
+        assertEquals(1_000, copia.usuarios.findAll().size());
+        copia.log.close();
+    }
+
+    @Test
+    void unArchivoAjenoNoSeAbreComoLog() throws IOException {
+        // Arrange
+        Files.writeString(LogEscrituraAnticipada.rutaSegmento(directorio, 1), "no soy un log");
+
+        // Act & Assert
+        assertThrows(IOException.class, () -> abrir(SINCRONICO));
+    }
+
+    @Test
+    void instantaneaMasColaDelLogRecuperanElEstado() throws IOException {
+        // Arrange
+        instancia = abrir(SINCRONICO);
+        Libro libro1 = instancia.libros.save(new Libro("ISBN1", "Libro 1", "Autor"));
+        Libro libro2 = instancia.libros.save(new Libro("ISBN2", "Libro 2", "Autor"));
+        Usuario juan = instancia.usuarios.save(new Usuario("Juan", "juan@mail.com"));
+        Prestamo anterior = instancia.prestamoService.realizarPrestamo(libro1.getId(), juan.getId());
+
+        // Act
+        Path ruta = instancia.gestorInstantaneas.tomarInstantanea();
+        instancia.prestamoService.devolverLibro(anterior.getId());
+        Prestamo posterior = instancia.prestamoService.realizarPrestamo(libro2.getId(), juan.getId());
+        instancia.libros.deleteById(libro1.getId());
+        instancia.log.close();
+        instancia = abrir(SINCRONICO);
+
+        // Assert
+        assertTrue(Files.exists(ruta));
+        assertFalse(Files.exists(LogEscrituraAnticipada.rutaSegmento(directorio, 1)));
+        assertFalse(instancia.libros.existsById(libro1.getId()));
+        assertEquals(EstadoLibro.PRESTADO, instancia.libros.findById(libro2.getId()).get().getEstado());
+        assertFalse(instancia.prestamos.findById(anterior.getId()).get().isActivo());
+        List<Prestamo> activos = instancia.prestamos.findPrestamosActivos();
+        assertEquals(1, activos.size());
+        assertEquals(posterior.getId(), activos.get(0).getId());
+        assertEquals(1, instancia.usuarios.findById(juan.getId()).get().getLibrosPrestados().size());
+    }
+
+    @Test
+    void laInstantaneaConservaSecuenciasDeIdsBorrados() throws IOException {
+        // Arrange
+        instancia = abrir(SINCRONICO);
+        instancia.libros.save(new Libro("ISBN1", "Libro 1", "Autor"));
+        Libro borrado = instancia.libros.save(new Libro("ISBN2", "Libro 2", "Autor"));
+        instancia.libros.deleteById(borrado.getId());
+        instancia.gestorInstantaneas.tomarInstantanea();
+        instancia.log.close();
+        instancia = abrir(SINCRONICO);
+
+        // Act
+        Libro nuevo = instancia.libros.save(new Libro("ISBN3", "Libro 3", "Autor"));
+
+        // Assert
+        assertEquals(borrado.getId() + 1, nuevo.getId());
+    }
+
+    @Test
+    void instantaneasConEscritoresConcurrentesRecuperanElEstadoFinal() throws Exception {
+        // Arrange
+        instancia = abrir(ASINCRONICO);
+        List<Long> libros = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            libros.add(instancia.libros.save(new Libro("ISBN-" + i, "Libro " + i, "Autor")).getId());
+        }
+        List<Long> usuarios = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            usuarios.add(instancia.usuarios.save(new Usuario("Usuario " + i, "u" + i + "@mail.com")).getId());
+        }
+        int hilos = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(hilos);
+        List<Future<?>> tareas = new ArrayList<>();
+
+        // Act
+        for (int h = 0; h < hilos; h++) {
+            tareas.add(executor.submit(() -> operarAlAzar(instancia, libros, usuarios, 3_000)));
+        }
+        for (int i = 0; i < 5; i++) {
+            instancia.gestorInstantaneas.tomarInstantanea();
+        }
+        for (Future<?> tarea : tareas) {
+            tarea.get();
+        }
+        executor.shutdown();
+        Instancia original = instancia;
+        original.log.close();
+        instancia = abrir(SINCRONICO);
+
+        // Assert
+        for (Long libroId : libros) {
+            Libro esperado = original.libros.findById(libroId).get();
+            Libro recuperado = instancia.libros.findById(libroId).get();
+            assertEquals(esperado.getTitulo(), recuperado.getTitulo());
+            assertEquals(esperado.getEstado(), recuperado.getEstado());
+        }
+        assertEquals(ids(original.prestamos.findPrestamosActivos()), ids(instancia.prestamos.findPrestamosActivos()));
+        assertEquals(original.prestamos.findAll().size(), instancia.prestamos.findAll().size());
+    }
+
+    @Test
+    void guardarYEliminarElMismoLibroALaVezSeRecuperaComoQuedoEnMemoria() throws Exception {
+        // Arrange
+        instancia = abrir(ASINCRONICO);
+        Instancia original = instancia;
+        List<Libro> libros = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            libros.add(original.libros.save(new Libro("ISBN" + i, "Libro " + i, "Autor")));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        // Act
+        for (Libro libro : libros) {
+            CountDownLatch largada = new CountDownLatch(1);
+            Future<?> guardado = executor.submit(() -> {
+                largada.await();
+                libro.setTitulo("Editado");
+                return original.libros.save(libro);
+            });
+            Future<?> eliminacion = executor.submit(() -> {
+                largada.await();
+                original.libros.deleteById(libro.getId());
+                return null;
+            });
+            largada.countDown();
+            guardado.get();
+            eliminacion.get();
+        }
+        executor.shutdown();
+        original.log.close();
+        instancia = abrir(SINCRONICO);
+
+        // Assert
+        for (Libro libro : libros) {
+            assertEquals(original.libros.existsById(libro.getId()), instancia.libros.existsById(libro.getId()),
+                    "Libro " + libro.getId());
+        }
+    }
+
+    @Test
+    void unaInstantaneaDaniadaImpideArrancar() throws IOException {
+        // Arrange
+        instancia = abrir(SINCRONICO);
+        instancia.libros.save(new Libro("ISBN1", "Libro 1", "Autor"));
+        Path ruta = instancia.gestorInstantaneas.tomarInstantanea();
+        instancia.log.close();
+        instancia = null;
+        byte[] contenido = Files.readAllBytes(ruta);
+        contenido[contenido.length - 1] ^= 0x7F;
+        Files.write(ruta, contenido);
+
+        // Act & Assert
+        assertThrows(IOException.class, () -> abrir(SINCRONICO));
+    }
+
+    private static void operarAlAzar(Instancia instancia, List<Long> libros, List<Long> usuarios, int operaciones) {
+        ThreadLocalRandom azar = ThreadLocalRandom.current();
+        for (int i = 0; i < operaciones; i++) {
+            int accion = azar.nextInt(3);
+            try {
+                if (accion == 0) {
+                    instancia.prestamoService.realizarPrestamo(
+                            libros.get(azar.nextInt(libros.size())), usuarios.get(azar.nextInt(usuarios.size())));
+                } else if (accion == 1) {
+                    List<Prestamo> activos = instancia.prestamos.findPrestamosActivos();
+                    if (!activos.isEmpty()) {
+                        instancia.prestamoService.devolverLibro(activos.get(azar.nextInt(activos.size())).getId());
+                    }
+                } else {
+                    Libro libro = instancia.libros.findById(libros.get(azar.nextInt(libros.size()))).get();
+                    libro.setTitulo("Titulo " + azar.nextInt(1_000));
+                    instancia.libros.save(libro);
+                }
+            } catch (IllegalStateException | LibroNoDisponibleException e) {
+                // Libro no disponible, usuario sin cupo o préstamo ya devuelto
+            }
+        }
+    }
+
+    private static Set<Long> ids(List<Prestamo> prestamos) {
+        return prestamos.stream().map(Prestamo::getId).collect(Collectors.toSet());
+    }
+
+    private Instancia abrir(OpcionesLog opciones) throws IOException {
+        return abrir(directorio, opciones);
+    }
+
+    private Instancia abrirCopia() throws IOException {
+        Path copia = Files.createDirectory(directorio.resolve("copia"));
+        Files.copy(LogEscrituraAnticipada.rutaSegmento(directorio, 1), LogEscrituraAnticipada.rutaSegmento(copia, 1));
+        return abrir(copia, SINCRONICO);
+    }
+
+    private static Instancia abrir(Path directorio, OpcionesLog opciones) throws IOException {
+        LibroRepositoryImpl libros = new LibroRepositoryImpl();
+        UsuarioRepositoryImpl usuarios = new UsuarioRepositoryImpl();
+        PrestamoRepositoryImpl prestamos = new PrestamoRepositoryImpl();
+        AplicadorRegistros aplicador = new AplicadorRegistros(libros, usuarios, prestamos);
+        long desdeSegmento = Instantaneas.cargarUltima(directorio, aplicador);
+        LogEscrituraAnticipada log = LogEscrituraAnticipada.abrir(directorio, opciones, desdeSegmento,
+                registro -> CodificadorRegistros.aplicar(registro, aplicador));
+        aplicador.reconstruirEstadoDerivado();
+        return new Instancia(log, new RegistradorCambios(log), libros, usuarios, prestamos);
+    }
+
+    private static final class Instancia {
+        final LogEscrituraAnticipada log;
+        final GestorInstantaneas gestorInstantaneas;
+        final LibroRepository libros;
+        final UsuarioRepository usuarios;
+        final PrestamoRepository prestamos;
+        final PrestamoService prestamoService;
+
+        Instancia(LogEscrituraAnticipada log, RegistradorCambios registrador,
+                LibroRepositoryImpl libros, UsuarioRepositoryImpl usuarios, PrestamoRepositoryImpl prestamos) {
+            this.log = log;
+            this.gestorInstantaneas = new GestorInstantaneas(log, libros, usuarios, prestamos, Long.MAX_VALUE);
+            this.libros = new LibroRepositoryDuradero(libros, registrador);
+            this.usuarios = new UsuarioRepositoryDuradero(usuarios, registrador);
+            this.prestamos = new PrestamoRepositoryDuradero(prestamos, registrador);
+            this.prestamoService = new PrestamoServiceImpl(this.prestamos, this.libros, this.usuarios,
+                    PublicadorEventos.NINGUNO);
+        }
+    }
+}
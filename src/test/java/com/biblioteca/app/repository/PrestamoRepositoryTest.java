@@ -0,0 +1,197 @@
+package com.biblioteca.app.repository;
+
+import com.biblioteca.app.event.PublicadorEventos;
+import com.biblioteca.app.exception.LibroNoDisponibleException;
+import com.biblioteca.app.model.EstadoLibro;
+import com.biblioteca.app.model.Libro;
+import com.biblioteca.app.model.Prestamo;
+import com.biblioteca.app.model.Usuario;
+import com.biblioteca.app.repository.impl.LibroRepositoryImpl;
+import com.biblioteca.app.repository.impl.PrestamoRepositoryImpl;
+import com.biblioteca.app.repository.impl.UsuarioRepositoryImpl;
+import com.biblioteca.app.service.PrestamoService;
+import com.biblioteca.app.service.impl.PrestamoServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrestamoRepositoryTest {
+
+    private PrestamoRepository prestamoRepository;
+    private Libro libro;
+    private Usuario juan;
+    private Usuario ana;
+
+    @BeforeEach
+    void setUp() {
+        prestamoRepository = new PrestamoRepositoryImpl();
+        libro = new Libro(1L, "ISBN1", "Libro 1", "Autor 1", EstadoLibro.PRESTADO);
+        juan = new Usuario(1L, "Juan", "juan@mail.com", "ACTIVO");
+        ana = new Usuario(2L, "Ana", "ana@mail.com", "ACTIVO");
+    }
+
+    @Test
+    void findByUsuarioDevuelveSoloLosPrestamosDelUsuario() {
+        // Arrange
+        Prestamo deJuan1 = prestamoRepository.save(new Prestamo(null, libro.getId(), juan.getId(), LocalDate.now(), null));
+        Prestamo deJuan2 = prestamoRepository.save(new Prestamo(null, libro.getId(), juan.getId(), LocalDate.now(), LocalDate.now()));
+        prestamoRepository.save(new Prestamo(null, libro.getId(), ana.getId(), LocalDate.now(), null));
+
+        // Act
+        List<Prestamo> resultado = prestamoRepository.findByUsuario(juan);
+
+        // Assert
+        assertEquals(2, resultado.size());
+        assertTrue(resultado.stream().anyMatch(p -> p.getId().equals(deJuan1.getId())));
+        assertTrue(resultado.stream().anyMatch(p -> p.getId().equals(deJuan2.getId())));
+    }
+
+    @Test
+    void findByUsuarioSinPrestamosDevuelveListaVacia() {
+        // Act & Assert
+        assertTrue(prestamoRepository.findByUsuario(ana).isEmpty());
+    }
+
+    @Test
+    void deleteByIdQuitaElPrestamoDelIndiceDeUsuario() {
+        // Arrange
+        Prestamo prestamo = prestamoRepository.save(new Prestamo(null, libro.getId(), juan.getId(), LocalDate.now(), null));
+
+        // Act
+        prestamoRepository.deleteById(prestamo.getId());
+
+        // Assert
+        assertTrue(prestamoRepository.findByUsuario(juan).isEmpty());
+    }
+
+    @Test
+    void cambiarUsuarioDeUnPrestamoMueveElIndice() {
+        // Arrange
+        Prestamo prestamo = prestamoRepository.save(new Prestamo(null, libro.getId(), juan.getId(), LocalDate.now(), null));
+
+        // Act
+        prestamo.setUsuarioId(ana.getId());
+        prestamoRepository.save(prestamo);
+
+        // Assert
+        assertTrue(prestamoRepository.findByUsuario(juan).isEmpty());
+        assertEquals(1, prestamoRepository.findByUsuario(ana).size());
+    }
+
+    @Test
+    void findPrestamosActivosExcluyePrestamosFinalizados() {
+        // Arrange
+        Prestamo activo = prestamoRepository.save(new Prestamo(null, libro.getId(), juan.getId(), LocalDate.now(), null));
+        prestamoRepository.save(new Prestamo(null, libro.getId(), ana.getId(), LocalDate.now(), LocalDate.now()));
+
+        // Act
+        List<Prestamo> resultado = prestamoRepository.findPrestamosActivos();
+
+        // Assert
+        assertEquals(1, resultado.size());
+        assertEquals(activo.getId(), resultado.get(0).getId());
+    }
+
+    @Test
+    void findPrestamosVencidosDevuelveSoloActivosVencidos() {
+        // Arrange
+        Prestamo vencido = prestamoRepository.save(new Prestamo(null, libro.getId(), juan.getId(), LocalDate.now().minusDays(10), null));
+        prestamoRepository.save(new Prestamo(null, libro.getId(), juan.getId(), LocalDate.now(), null));
+        prestamoRepository.save(new Prestamo(null, libro.getId(), ana.getId(), LocalDate.now().minusDays(10), LocalDate.now()));
+
+        // Act
+        List<Prestamo> resultado = prestamoRepository.findPrestamosVencidos();
+
+        // Assert
+        assertEquals(1, resultado.size());
+        assertEquals(vencido.getId(), resultado.get(0).getId());
+    }
+
+    @Test
+    void findPrestamosVencidosAlRespetaLaFechaDeVencimiento() {
+        // Arrange
+        LocalDate hoy = LocalDate.of(2025, 5, 14);
+        Prestamo venceAyer = prestamoRepository.save(new Prestamo(null, libro.getId(), juan.getId(), hoy.minusDays(8), null));
+        prestamoRepository.save(new Prestamo(null, libro.getId(), ana.getId(), hoy.minusDays(7), null));
+
+        // Act
+        List<Prestamo> resultado = prestamoRepository.findPrestamosVencidosAl(hoy);
+
+        // Assert
+        assertEquals(1, resultado.size());
+        assertEquals(venceAyer.getId(), resultado.get(0).getId());
+        assertEquals(2, prestamoRepository.findPrestamosVencidosAl(hoy.plusDays(1)).size());
+    }
+
+    @Test
+    void conjuntoDeActivosCoincideConRecorridoCompletoTrasOperacionesConcurrentes() throws Exception {
+        // Arrange: cada hilo opera con su propio usuario y sus propios libros
+        LibroRepository libroRepository = new LibroRepositoryImpl();
+        UsuarioRepository usuarioRepository = new UsuarioRepositoryImpl();
+        PrestamoService prestamoService = new PrestamoServiceImpl(prestamoRepository, libroRepository, usuarioRepository,
+                PublicadorEventos.NINGUNO);
+        int hilos = 8;
+        int librosPorHilo = 5;
+        ExecutorService executor = Executors.newFixedThreadPool(hilos);
+        List<Future<?>> tareas = new ArrayList<>();
+
+        // Act
+        for (int h = 0; h < hilos; h++) {
+            Usuario usuario = usuarioRepository.save(new Usuario(null, "Usuario " + h, "u" + h + "@mail.com", "ACTIVO"));
+            List<Long> libros = new ArrayList<>();
+            for (int l = 0; l < librosPorHilo; l++) {
+                libros.add(libroRepository.save(new Libro("ISBN-" + h + "-" + l, "Libro " + l, "Autor")).getId());
+            }
+            tareas.add(executor.submit(() -> operarAlAzar(prestamoService, usuario, libros, 2_000)));
+        }
+        for (Future<?> tarea : tareas) {
+            tarea.get();
+        }
+        executor.shutdown();
+
+        // Assert
+        Set<Long> segunConjunto = prestamoRepository.findPrestamosActivos().stream()
+                .map(Prestamo::getId)
+                .collect(Collectors.toSet());
+        Set<Long> segunRecorrido = prestamoRepository.findAll().stream()
+                .filter(Prestamo::isActivo)
+                .map(Prestamo::getId)
+                .collect(Collectors.toSet());
+        assertEquals(segunRecorrido, segunConjunto);
+    }
+
+    private void operarAlAzar(PrestamoService prestamoService, Usuario usuario, List<Long> libros, int operaciones) {
+        ThreadLocalRandom azar = ThreadLocalRandom.current();
+        List<Prestamo> abiertos = new ArrayList<>();
+        for (int i = 0; i < operaciones; i++) {
+            boolean prestar = abiertos.isEmpty() || (usuario.puedePrestarLibro() && azar.nextBoolean());
+            if (prestar) {
+                Long libroId = libros.get(azar.nextInt(libros.size()));
+                try {
+                    abiertos.add(prestamoService.realizarPrestamo(libroId, usuario.getId()));
+                } catch (IllegalStateException | LibroNoDisponibleException e) {
+                    // Libro ya prestado o usuario sin cupo
+                }
+            } else {
+                Prestamo prestamo = abiertos.remove(azar.nextInt(abiertos.size()));
+                if (azar.nextInt(4) == 0) {
+                    // Transición sin volver a guardar: el conjunto debe corregirse al leer
+                    prestamo.finalizar();
+                } else {
+                    prestamoService.devolverLibro(prestamo.getId());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.biblioteca.app.repository;
+
+import com.biblioteca.app.event.PublicadorEventos;
+import com.biblioteca.app.exception.LibroNoDisponibleException;
+import com.biblioteca.app.model.EstadoLibro;
+import com.biblioteca.app.model.Libro;
+import com.biblioteca.app.model.Prestamo;
+import com.biblioteca.app.model.Usuario;
+import com.biblioteca.app.repository.compacto.LibroRepositoryCompacto;
+import com.biblioteca.app.repository.compacto.PrestamoRepositoryCompacto;
+import com.biblioteca.app.repository.impl.UsuarioRepositoryImpl;
+import com.biblioteca.app.service.PrestamoService;
+import com.biblioteca.app.service.impl.PrestamoServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RepositoriosCompactosTest {
+
+    private LibroRepositoryCompacto libroRepository;
+    private UsuarioRepository usuarioRepository;
+    private PrestamoRepositoryCompacto prestamoRepository;
+    private Usuario juan;
+    private Usuario ana;
+
+    @BeforeEach
+    void setUp() {
+        libroRepository = new LibroRepositoryCompacto();
+        usuarioRepository = new UsuarioRepositoryImpl();
+        prestamoRepository = new PrestamoRepositoryCompacto();
+        juan = usuarioRepository.save(new Usuario("Juan", "juan@mail.com"));
+        ana = usuarioRepository.save(new Usuario("Ana", "ana@mail.com"));
+    }
+
+    @Test
+    void mientrasSeUsaElLibroLasBusquedasDevuelvenLaMismaInstancia() {
+        // Arrange
+        Libro libro = libroRepository.save(new Libro("ISBN1", "Rayuela", "Cortázar"));
+
+        // Act
+        Libro porId = libroRepository.findById(libro.getId()).get();
+        Libro porIsbn = libroRepository.findByIsbn("ISBN1").get();
+
+        // Assert
+        assertSame(libro, porId);
+        assertSame(libro, porIsbn);
+        assertSame(libro, libroRepository.findAll().get(0));
+        assertEquals(1, libroRepository.contar());
+    }
+
+    @Test
+    void guardarOtraInstanciaDeUnLibroEnUsoActualizaLaInstanciaViva() {
+        // Arrange
+        Libro enUso = libroRepository.save(new Libro("ISBN1", "Rayuela", "Cortázar"));
+        Libro copia = new Libro(enUso.getId(), "ISBN1", "Rayuela (2a ed.)", "Cortázar", EstadoLibro.DISPONIBLE);
+
+        // Act
+        Libro guardado = libroRepository.save(copia);
+
+        // Assert
+        assertSame(enUso, guardado);
+        assertSame(enUso, libroRepository.findById(enUso.getId()).get());
+        assertEquals("Rayuela (2a ed.)", enUso.getTitulo());
+        assertTrue(enUso.intentarPrestar());
+        assertFalse(libroRepository.findById(enUso.getId()).get().intentarPrestar());
+    }
+
+    @Test
+    void elIsbnEsUnicoYSeLiberaAlCambiarloOBorrarlo() {
+        // Arrange
+        Libro rayuela = libroRepository.save(new Libro("ISBN1", "Rayuela", "Cortázar"));
+        Libro repetido = new Libro("ISBN1", "Otro", "Otro");
+
+        // Act + Assert
+        assertThrows(IllegalArgumentException.class, () -> libroRepository.save(repetido));
+        assertNull(repetido.getId());
+
+        rayuela.setIsbn("ISBN2");
+        libroRepository.save(rayuela);
+        assertTrue(libroRepository.findByIsbn("ISBN1").isEmpty());
+        assertNotNull(libroRepository.save(repetido).getId());
+
+        libroRepository.deleteById(rayuela.getId());
+        assertTrue(libroRepository.findByIsbn("ISBN2").isEmpty());
+        assertFalse(libroRepository.existsById(rayuela.getId()));
+        assertEquals("ISBN3", libroRepository.save(new Libro("ISBN3", "Ficciones", "Borges")).getIsbn());
+    }
+
+    @Test
+    void paginaEstadoYTextoComoElRepositorioEstandar() {
+        // Arrange
+        for (int i = 1; i <= 10; i++) {
+            libroRepository.save(new Libro("ISBN" + i, "Libro " + i, i % 2 == 0 ? "Borges" : "Cortázar"));
+        }
+        libroRepository.deleteById(4L);
+        // La fila del 4 se reutiliza con un id mayor
+        Libro nuevo = libroRepository.save(new Libro("ISBN11", "Libro 11", "Borges"));
+        Libro prestado = libroRepository.findById(7L).get();
+        prestado.setEstado(EstadoLibro.PRESTADO);
+        libroRepository.save(prestado);
+
+        // Act
+        List<Libro> pagina = libroRepository.findPagina(2L, 3);
+        List<Libro> disponibles = libroRepository.findByEstado(EstadoLibro.DISPONIBLE);
+
+        // Assert
+        assertEquals(List.of(3L, 5L, 6L), pagina.stream().map(Libro::getId).toList());
+        assertEquals(9, disponibles.size());
+        assertEquals(nuevo.getId(), disponibles.get(disponibles.size() - 1).getId());
+        assertEquals(1, libroRepository.countByEstado(EstadoLibro.PRESTADO));
+        assertEquals(9, libroRepository.countByEstado(EstadoLibro.DISPONIBLE));
+        assertEquals(5, libroRepository.findPorTexto("borges", 10).size());
+        assertEquals(List.of("Borges"), libroRepository.findSugerencias("borg", 5));
+    }
+
+    @Test
+    void prestamosPorUsuarioActivosYVencidos() {
+        // Arrange
+        Libro libro = libroRepository.save(new Libro("ISBN1", "Rayuela", "Cortázar"));
+        LocalDate hoy = LocalDate.of(2024, 3, 20);
+        Prestamo vencidoHaceMucho = prestamoRepository.save(new Prestamo(null, libro.getId(), juan.getId(), hoy.minusDays(30), null));
+        Prestamo vencido = prestamoRepository.save(new Prestamo(null, libro.getId(), ana.getId(), hoy.minusDays(8), null));
+        Prestamo vigente = prestamoRepository.save(new Prestamo(null, libro.getId(), juan.getId(), hoy.minusDays(7), null));
+        Prestamo devuelto = prestamoRepository.save(new Prestamo(null, libro.getId(), juan.getId(), hoy.minusDays(40), hoy.minusDays(35)));
+
+        // Act
+        vencido.setUsuarioId(juan.getId());
+        prestamoRepository.save(vencido);
+        prestamoRepository.deleteById(vigente.getId());
+
+        // Assert
+        assertEquals(3, prestamoRepository.findByUsuario(juan).size());
+        assertTrue(prestamoRepository.findByUsuario(ana).isEmpty());
+        assertEquals(2, prestamoRepository.contarActivos());
+        assertEquals(List.of(vencidoHaceMucho, vencido), prestamoRepository.findPrestamosVencidosAl(hoy));
+        assertEquals(2, prestamoRepository.contarVencidosAl(hoy));
+        assertEquals(1, prestamoRepository.contarVencidosAl(hoy.minusDays(1)));
+        assertSame(devuelto, prestamoRepository.findById(devuelto.getId()).get());
+        assertFalse(prestamoRepository.findById(devuelto.getId()).get().isActivo());
+        assertEquals(List.of(devuelto.getId()), prestamoRepository.findPagina(vencido.getId(), 10).stream()
+                .map(Prestamo::getId).toList());
+        assertEquals(3, prestamoRepository.contar());
+    }
+
+    @Test
+    void unMismoLibroSoloSePrestaUnaVez() throws Exception {
+        // Arrange
+        PrestamoService prestamoService = new PrestamoServiceImpl(prestamoRepository, libroRepository,
+                usuarioRepository, PublicadorEventos.NINGUNO);
+        Long libroId = libroRepository.save(new Libro("ISBN-POPULAR", "Libro Popular", "Autor")).getId();
+        List<Long> usuarios = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            usuarios.add(usuarioRepository.save(new Usuario("Usuario " + i, "u" + i + "@mail.com")).getId());
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(usuarios.size());
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<Boolean>> resultados = new ArrayList<>();
+
+        // Act
+        for (Long usuarioId : usuarios) {
+            resultados.add(executor.submit(() -> {
+                largada.await();
+                try {
+                    prestamoService.realizarPrestamo(libroId, usuarioId);
+                    return true;
+                } catch (IllegalStateException | LibroNoDisponibleException e) {
+                    return false;
+                }
+            }));
+        }
+        largada.countDown();
+        int exitos = 0;
+        for (Future<Boolean> resultado : resultados) {
+            exitos += resultado.get() ? 1 : 0;
+        }
+        executor.shutdown();
+
+        // Assert
+        assertEquals(1, exitos);
+        assertEquals(1, prestamoRepository.findPrestamosActivos().size());
+        assertEquals(EstadoLibro.PRESTADO, libroRepository.findById(libroId).get().getEstado());
+        assertEquals(1, libroRepository.countByEstado(EstadoLibro.PRESTADO));
+    }
+}
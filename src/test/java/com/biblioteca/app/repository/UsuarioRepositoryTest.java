@@ -0,0 +1,144 @@
+package com.biblioteca.app.repository;
+
+import com.biblioteca.app.model.Usuario;
+import com.biblioteca.app.repository.impl.UsuarioRepositoryImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UsuarioRepositoryTest {
+
+    private UsuarioRepository usuarioRepository;
+
+    @BeforeEach
+    void setUp() {
+        usuarioRepository = new UsuarioRepositoryImpl();
+    }
+
+    @Test
+    void buscarPorEmailIgnoraMayusculasYEspacios() {
+        // Arrange
+        Usuario usuario = usuarioRepository.save(new Usuario(null, "Juan", "Juan@Mail.com", "ACTIVO"));
+
+        // Act
+        Optional<Usuario> encontrado = usuarioRepository.findByEmail("  juan@mail.COM ");
+
+        // Assert
+        assertTrue(encontrado.isPresent());
+        assertEquals(usuario.getId(), encontrado.get().getId());
+    }
+
+    @Test
+    void buscarPorEmailNoExistenteDevuelveOptionalVacio() {
+        // Act & Assert
+        assertTrue(usuarioRepository.findByEmail("nadie@mail.com").isEmpty());
+    }
+
+    @Test
+    void guardarUsuarioConEmailDuplicadoLanzaExcepcion() {
+        // Arrange
+        usuarioRepository.save(new Usuario(null, "Juan", "juan@mail.com", "ACTIVO"));
+        Usuario duplicado = new Usuario(null, "Otro Juan", "JUAN@mail.com", "ACTIVO");
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> usuarioRepository.save(duplicado));
+        assertNull(duplicado.getId());
+        assertEquals(1, usuarioRepository.findAll().size());
+    }
+
+    @Test
+    void cambiarEmailActualizaElIndice() {
+        // Arrange
+        Usuario usuario = usuarioRepository.save(new Usuario(null, "Ana", "ana@mail.com", "ACTIVO"));
+
+        // Act
+        usuario.setEmail("ana.nueva@mail.com");
+        usuarioRepository.save(usuario);
+
+        // Assert
+        assertTrue(usuarioRepository.findByEmail("ana@mail.com").isEmpty());
+        assertEquals(usuario.getId(), usuarioRepository.findByEmail("ana.nueva@mail.com").get().getId());
+    }
+
+    @Test
+    void actualizarConEmailDeOtroUsuarioNoCambiaNada() {
+        // Arrange
+        usuarioRepository.save(new Usuario(null, "Juan", "juan@mail.com", "ACTIVO"));
+        Usuario ana = usuarioRepository.save(new Usuario(null, "Ana", "ana@mail.com", "ACTIVO"));
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> usuarioRepository.actualizar(ana.getId(), "Ana María", "JUAN@mail.com"));
+        assertEquals("Ana", ana.getNombre());
+        assertEquals("ana@mail.com", ana.getEmail());
+        assertSame(ana, usuarioRepository.findByEmail("ana@mail.com").get());
+    }
+
+    @Test
+    void actualizarCambiaLaMismaInstancia() {
+        // Arrange
+        Usuario ana = usuarioRepository.save(new Usuario(null, "Ana", "ana@mail.com", "SUSPENDIDO"));
+
+        // Act
+        Usuario actualizada = usuarioRepository.actualizar(ana.getId(), "Ana María", "ana.maria@mail.com");
+
+        // Assert
+        assertSame(ana, actualizada);
+        assertEquals("SUSPENDIDO", ana.getEstado());
+        assertTrue(usuarioRepository.findByEmail("ana@mail.com").isEmpty());
+        assertSame(ana, usuarioRepository.findByEmail("ana.maria@mail.com").get());
+        assertThrows(IllegalArgumentException.class, () -> usuarioRepository.actualizar(99L, "Nadie", "n@mail.com"));
+    }
+
+    @Test
+    void deleteByIdLiberaElEmail() {
+        // Arrange
+        Usuario usuario = usuarioRepository.save(new Usuario(null, "Ana", "ana@mail.com", "ACTIVO"));
+
+        // Act
+        usuarioRepository.deleteById(usuario.getId());
+
+        // Assert
+        assertTrue(usuarioRepository.findByEmail("ana@mail.com").isEmpty());
+        assertNotNull(usuarioRepository.save(new Usuario(null, "Ana", "ana@mail.com", "ACTIVO")).getId());
+    }
+
+    @Test
+    void registrosConcurrentesConMismoEmailSoloAceptanUno() throws InterruptedException {
+        // Arrange
+        int hilos = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(hilos);
+        CountDownLatch largada = new CountDownLatch(1);
+        AtomicInteger aceptados = new AtomicInteger();
+
+        // Act
+        for (int i = 0; i < hilos; i++) {
+            int n = i;
+            executor.submit(() -> {
+                largada.await();
+                try {
+                    usuarioRepository.save(new Usuario(null, "Usuario " + n, " Carrera@Mail.com", "ACTIVO"));
+                    aceptados.incrementAndGet();
+                } catch (IllegalArgumentException e) {
+                    // Otro hilo registró el email primero
+                }
+                return null;
+            });
+        }
+        largada.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Assert
+        assertEquals(1, aceptados.get());
+        assertEquals(1, usuarioRepository.findAll().size());
+    }
+}
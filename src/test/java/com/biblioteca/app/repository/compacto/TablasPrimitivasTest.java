@@ -0,0 +1,76 @@
+package com.biblioteca.app.repository.compacto;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Las tablas de direccionamiento abierto contra un {@link HashMap}, con altas
+ * y bajas mezcladas para que el corrimiento al borrar cruce grupos y el final
+ * de la tabla.
+ */
+class TablasPrimitivasTest {
+
+    @Test
+    void mapaLongIntSeComportaComoUnHashMap() {
+        // Arrange
+        MapaLongInt mapa = new MapaLongInt(4);
+        Map<Long, Integer> esperado = new HashMap<>();
+        Random random = new Random(7);
+
+        // Act
+        for (int i = 0; i < 200_000; i++) {
+            // Claves de un rango chico para que haya muchas colisiones y reemplazos
+            long clave = random.nextInt(5_000) - 100L;
+            if (random.nextInt(3) == 0) {
+                Integer anterior = esperado.remove(clave);
+                assertEquals(anterior == null ? MapaLongInt.AUSENTE : anterior, mapa.remove(clave));
+            } else {
+                esperado.put(clave, i);
+                mapa.put(clave, i);
+            }
+        }
+
+        // Assert
+        assertEquals(esperado.size(), mapa.size());
+        for (long clave = -100; clave < 4_900; clave++) {
+            assertEquals(esperado.getOrDefault(clave, MapaLongInt.AUSENTE), mapa.get(clave));
+        }
+        assertThrows(IllegalArgumentException.class, () -> mapa.put(Long.MIN_VALUE, 1));
+    }
+
+    @Test
+    void indiceUnicoPorFilaSeComportaComoUnHashMap() {
+        // Arrange: la columna de claves que leería el repositorio
+        List<String> columna = new ArrayList<>();
+        IndiceUnicoPorFila indice = new IndiceUnicoPorFila(columna::get);
+        Map<String, Integer> esperado = new HashMap<>();
+        Random random = new Random(11);
+
+        // Act
+        for (int i = 0; i < 100_000; i++) {
+            String clave = "ISBN-" + random.nextInt(3_000);
+            Integer fila = esperado.get(clave);
+            if (fila != null) {
+                indice.quitar(clave);
+                esperado.remove(clave);
+            } else {
+                columna.add(clave);
+                indice.agregar(clave, columna.size() - 1);
+                esperado.put(clave, columna.size() - 1);
+            }
+        }
+
+        // Assert
+        for (int i = 0; i < 3_000; i++) {
+            String clave = "ISBN-" + i;
+            assertEquals(esperado.getOrDefault(clave, Filas.NINGUNA), indice.buscar(clave));
+        }
+    }
+}
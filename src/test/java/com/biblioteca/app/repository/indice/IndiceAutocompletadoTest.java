@@ -0,0 +1,164 @@
+package com.biblioteca.app.repository.indice;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndiceAutocompletadoTest {
+
+    @Test
+    void sugerirIgnoraTildesYOrdenaPorCantidadDeLibros() {
+        // Arrange
+        IndiceAutocompletado indice = new IndiceAutocompletado();
+        indice.indexar(1L, "Cien años de soledad", "Gabriel García Márquez");
+        indice.indexar(2L, "Crónica de una muerte anunciada", "Gabriel García Márquez");
+        indice.indexar(3L, "Ganarse la muerte", "Griselda Gambaro");
+
+        // Act
+        List<String> sugerencias = indice.sugerir("GA", 10);
+
+        // Assert
+        assertEquals(List.of("Gabriel García Márquez", "Ganarse la muerte"), sugerencias);
+        assertEquals(List.of("Cien años de soledad"), indice.sugerir("cien anos", 10));
+    }
+
+    @Test
+    void sugerirRespetaElEspacioFinalDelPrefijo() {
+        // Arrange
+        IndiceAutocompletado indice = new IndiceAutocompletado();
+        indice.indexar(1L, "Cien años de soledad");
+        indice.indexar(2L, "Cienfuegos");
+
+        // Act & Assert
+        assertEquals(List.of("Cien años de soledad", "Cienfuegos"), indice.sugerir("cien", 10));
+        assertEquals(List.of("Cien años de soledad"), indice.sugerir("cien ", 10));
+    }
+
+    @Test
+    void cambiosPosterioresACompactarTapanLaBase() {
+        // Arrange
+        IndiceAutocompletado indice = new IndiceAutocompletado();
+        indice.indexar(1L, "El túnel");
+        indice.indexar(2L, "El Aleph");
+        indice.compactar();
+
+        // Act
+        indice.indexar(1L, "Sobre héroes y tumbas");
+        indice.quitar(2L);
+        indice.indexar(3L, "El juguete rabioso");
+
+        // Assert
+        assertEquals(List.of("El juguete rabioso"), indice.sugerir("el", 10));
+        assertEquals(List.of("Sobre héroes y tumbas"), indice.sugerir("sobre", 10));
+        indice.compactar();
+        assertEquals(List.of("El juguete rabioso"), indice.sugerir("el", 10));
+        assertEquals(2, indice.memoria().sugerenciasBase());
+    }
+
+    @Test
+    void sugerirCoincideConRecorrerTodoAunConCompactacionesIntermedias() {
+        // Arrange
+        String[] palabras = {"la", "casa", "cama", "campo", "noche", "norte", "mar", "martes", "sol", "sombra"};
+        Random random = new Random(42);
+        IndiceAutocompletado indice = new IndiceAutocompletado();
+        Map<Long, String> titulos = new HashMap<>();
+
+        // Act
+        for (int paso = 0; paso < 20_000; paso++) {
+            long id = random.nextInt(3_000);
+            if (random.nextInt(5) == 0) {
+                indice.quitar(id);
+                titulos.remove(id);
+            } else {
+                String titulo = palabras[random.nextInt(palabras.length)] + " "
+                        + palabras[random.nextInt(palabras.length)]
+                        + (random.nextBoolean() ? " " + palabras[random.nextInt(palabras.length)] : "");
+                indice.indexar(id, titulo);
+                titulos.put(id, titulo);
+            }
+            if (paso % 4_000 == 0) {
+                indice.compactar();
+            }
+        }
+
+        // Assert
+        for (String prefijo : List.of("c", "ca", "cam", "la ", "m", "mar", "no", "s", "sombra sol")) {
+            assertEquals(esperado(titulos, prefijo, 7), indice.sugerir(prefijo, 7), prefijo);
+        }
+    }
+
+    @Test
+    void lecturasConcurrentesConEscriturasYCompactaciones() throws Exception {
+        // Arrange
+        IndiceAutocompletado indice = new IndiceAutocompletado();
+        for (long id = 0; id < 1_000; id++) {
+            indice.indexar(id, "Libro fijo " + id);
+        }
+        AtomicBoolean terminado = new AtomicBoolean();
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+
+        // Act
+        Future<?> escritor = executor.submit(() -> {
+            for (long id = 1_000; id < 30_000; id++) {
+                indice.indexar(id, "Libro nuevo " + id);
+                if (id % 5_000 == 0) {
+                    indice.compactar();
+                }
+            }
+            terminado.set(true);
+        });
+        List<Future<?>> lectores = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            lectores.add(executor.submit(() -> {
+                while (!terminado.get()) {
+                    // Los libros fijos nunca cambian: siempre tienen que aparecer
+                    assertEquals(List.of("Libro fijo 0", "Libro fijo 1", "Libro fijo 10"),
+                            indice.sugerir("libro fijo", 3));
+                }
+            }));
+        }
+        escritor.get(30, TimeUnit.SECONDS);
+        for (Future<?> lector : lectores) {
+            lector.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Assert
+        assertEquals(List.of("Libro nuevo 29999"), indice.sugerir("libro nuevo 29999", 3));
+    }
+
+    /**
+     * Misma semántica que el índice, recorriendo todos los títulos.
+     */
+    private static List<String> esperado(Map<Long, String> titulos, String prefijo, int limite) {
+        String clave = AnalizadorTexto.clave(prefijo) + (prefijo.endsWith(" ") ? " " : "");
+        Map<String, Integer> pesos = new TreeMap<>();
+        Map<String, String> textos = new HashMap<>();
+        for (String titulo : titulos.values()) {
+            String claveTitulo = AnalizadorTexto.clave(titulo);
+            if (claveTitulo.startsWith(clave)) {
+                pesos.merge(claveTitulo, 1, Integer::sum);
+                textos.putIfAbsent(claveTitulo, titulo);
+            }
+        }
+        return pesos.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey(Comparator.naturalOrder())))
+                .limit(limite)
+                .map(entrada -> textos.get(entrada.getKey()))
+                .toList();
+    }
+}
@@ -0,0 +1,61 @@
+package com.biblioteca.app.repository.indice;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndiceTextoCompletoTest {
+
+    @Test
+    void quitarDeUnTerminoFrecuenteDejaSoloLosQueQuedan() {
+        // Arrange
+        IndiceTextoCompleto indice = new IndiceTextoCompleto();
+        Set<Long> esperados = new HashSet<>();
+        for (long id = 1; id <= 2_000; id++) {
+            indice.indexar(id, "Historia comun " + id, "Autor");
+            esperados.add(id);
+        }
+        Random azar = new Random(7);
+
+        // Act
+        for (int i = 0; i < 5_000; i++) {
+            long id = 1 + azar.nextInt(2_000);
+            if (esperados.remove(id)) {
+                indice.quitar(id);
+            } else {
+                indice.indexar(id, "Historia comun " + id, "Autor");
+                esperados.add(id);
+            }
+        }
+
+        // Assert
+        assertEquals(esperados, new HashSet<>(indice.buscar("comun", 10_000)));
+        assertEquals(esperados.size(), indice.tamanio());
+        long ausente = 1;
+        while (esperados.contains(ausente)) {
+            ausente++;
+        }
+        assertEquals(List.of(), indice.buscar(String.valueOf(ausente), 10));
+    }
+
+    @Test
+    void indexadoConComparaLosCamposIndexados() {
+        // Arrange
+        IndiceTextoCompleto indice = new IndiceTextoCompleto();
+        indice.indexar(1L, "Rayuela", "Julio Cortázar");
+
+        // Act
+        indice.indexar(1L, "RAYUELA", "Julio Cortázar");
+
+        // Assert
+        assertTrue(indice.indexadoCon(1L, "RAYUELA", "Julio Cortázar"));
+        assertFalse(indice.indexadoCon(1L, "Rayuela", "Julio Cortázar"));
+        assertFalse(indice.indexadoCon(2L, "RAYUELA", "Julio Cortázar"));
+        assertEquals(List.of(1L), indice.buscar("rayuela", 10));
+    }
+}
@@ -0,0 +1,156 @@
+package com.biblioteca.app.repository.mapeado;
+
+import com.biblioteca.app.model.Libro;
+import com.biblioteca.app.model.Prestamo;
+import com.biblioteca.app.model.Usuario;
+import com.biblioteca.app.repository.LibroRepository;
+import com.biblioteca.app.repository.UsuarioRepository;
+import com.biblioteca.app.repository.impl.LibroRepositoryImpl;
+import com.biblioteca.app.repository.impl.UsuarioRepositoryImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrestamoRepositoryMapeadoTest {
+    // Segmentos chicos para que los préstamos crucen varios archivos
+    private static final int REGISTROS_POR_SEGMENTO = 4;
+    private static final LocalDate HOY = LocalDate.of(2024, 3, 20);
+
+    @TempDir
+    Path directorio;
+
+    private LibroRepository libroRepository;
+    private UsuarioRepository usuarioRepository;
+    private Libro libro;
+    private Usuario juan;
+    private Usuario ana;
+
+    @BeforeEach
+    void setUp() {
+        libroRepository = new LibroRepositoryImpl();
+        usuarioRepository = new UsuarioRepositoryImpl();
+        libro = libroRepository.save(new Libro("ISBN1", "Rayuela", "Cortázar"));
+        juan = usuarioRepository.save(new Usuario("Juan", "juan@mail.com"));
+        ana = usuarioRepository.save(new Usuario("Ana", "ana@mail.com"));
+    }
+
+    @Test
+    void losActivosSonLasMismasInstanciasYLosFinalizadosSeLeenDeLosArchivos() throws IOException {
+        // Arrange
+        try (PrestamoRepositoryMapeado repositorio = abrir()) {
+            Prestamo activo = repositorio.save(new Prestamo(null, libro.getId(), juan.getId(), HOY, null));
+            Prestamo devuelto = repositorio.save(new Prestamo(null, libro.getId(), ana.getId(), HOY.minusDays(20), HOY.minusDays(15)));
+
+            // Act
+            Prestamo leido = repositorio.findById(devuelto.getId()).get();
+
+            // Assert
+            assertSame(activo, repositorio.findById(activo.getId()).get());
+            assertNotSame(devuelto, leido);
+            assertEquals(HOY.minusDays(15), leido.getFechaDevolucion());
+            assertEquals(libro.getId(), leido.getLibroId());
+            assertEquals(ana.getId(), leido.getUsuarioId());
+            assertEquals(List.of(activo), repositorio.findPrestamosActivos());
+        }
+    }
+
+    @Test
+    void losPrestamosSobrevivenAlReinicio() throws IOException {
+        // Arrange
+        Prestamo vencidoHaceMucho;
+        Prestamo vencido;
+        Prestamo devuelto;
+        try (PrestamoRepositoryMapeado repositorio = abrir()) {
+            vencidoHaceMucho = repositorio.save(new Prestamo(null, libro.getId(), juan.getId(), HOY.minusDays(30), null));
+            vencido = repositorio.save(new Prestamo(null, libro.getId(), ana.getId(), HOY.minusDays(8), null));
+            Prestamo vigente = repositorio.save(new Prestamo(null, libro.getId(), juan.getId(), HOY.minusDays(7), null));
+            devuelto = repositorio.save(new Prestamo(null, libro.getId(), juan.getId(), HOY.minusDays(40), HOY.minusDays(35)));
+            for (int i = 0; i < 10; i++) {
+                repositorio.save(new Prestamo(null, libro.getId(), ana.getId(), HOY.minusDays(60), HOY.minusDays(50)));
+            }
+            vencido.setUsuarioId(juan.getId());
+            repositorio.save(vencido);
+            repositorio.deleteById(vigente.getId());
+        }
+
+        // Act
+        try (PrestamoRepositoryMapeado repositorio = abrir()) {
+            Prestamo nuevo = repositorio.save(new Prestamo(null, libro.getId(), juan.getId(), HOY, null));
+
+            // Assert
+            assertEquals(15, repositorio.getUltimoId());
+            assertEquals(14, repositorio.contar());
+            assertEquals(3, repositorio.contarActivos());
+            assertEquals(List.of(nuevo.getId(), devuelto.getId(), vencido.getId(), vencidoHaceMucho.getId()),
+                    repositorio.findByUsuario(juan).stream().map(Prestamo::getId).toList());
+            assertEquals(10, repositorio.findByUsuario(ana).size());
+            assertEquals(List.of(vencidoHaceMucho.getId(), vencido.getId()),
+                    repositorio.findPrestamosVencidosAl(HOY).stream().map(Prestamo::getId).toList());
+            assertEquals(1, repositorio.contarVencidosAl(HOY.minusDays(1)));
+            assertFalse(repositorio.existsById(3L));
+            assertEquals(List.of(4L, 5L), repositorio.findPagina(2L, 2).stream().map(Prestamo::getId).toList());
+            assertEquals(14, repositorio.findAll().size());
+        }
+    }
+
+    @Test
+    void unaActualizacionCortadaSeDescartaYRearmaLasListas() throws IOException {
+        // Arrange
+        Prestamo primero;
+        Prestamo movido;
+        Prestamo ultimo;
+        try (PrestamoRepositoryMapeado repositorio = abrir()) {
+            primero = repositorio.save(new Prestamo(null, libro.getId(), juan.getId(), HOY.minusDays(3), null));
+            movido = repositorio.save(new Prestamo(null, libro.getId(), juan.getId(), HOY.minusDays(2), null));
+            ultimo = repositorio.save(new Prestamo(null, libro.getId(), juan.getId(), HOY.minusDays(1), null));
+        }
+        // Como si el proceso se hubiera cortado al pasar el préstamo a Ana:
+        // el registro quedó marcado y el enlace del siguiente, a medio escribir
+        try (FileChannel canal = FileChannel.open(directorio.resolve("prestamos-000000.seg"),
+                StandardOpenOption.WRITE)) {
+            long registro = (movido.getId() - 1) * PrestamoRepositoryMapeado.TAMANIO_REGISTRO;
+            canal.write(ByteBuffer.wrap(new byte[]{PrestamoRepositoryMapeado.ESCRIBIENDO}),
+                    registro + PrestamoRepositoryMapeado.ESTADO);
+            long anteriorDelUltimo = (ultimo.getId() - 1) * PrestamoRepositoryMapeado.TAMANIO_REGISTRO
+                    + PrestamoRepositoryMapeado.ANTERIOR_DEL_USUARIO;
+            canal.write(ByteBuffer.allocate(Long.BYTES).putLong(0, movido.getId() + 10), anteriorDelUltimo);
+        }
+
+        // Act
+        try (PrestamoRepositoryMapeado repositorio = abrir()) {
+
+            // Assert
+            assertFalse(repositorio.existsById(movido.getId()));
+            assertEquals(2, repositorio.contar());
+            assertEquals(2, repositorio.contarActivos());
+            assertEquals(ultimo.getId(), repositorio.getUltimoId());
+            assertEquals(List.of(ultimo.getId(), primero.getId()),
+                    repositorio.findByUsuario(juan).stream().map(Prestamo::getId).toList());
+            assertEquals(List.of(), repositorio.findByUsuario(ana));
+        }
+    }
+
+    @Test
+    void unIdMenorAUnoNoSePuedeGuardar() throws IOException {
+        try (PrestamoRepositoryMapeado repositorio = abrir()) {
+            // Act + Assert
+            assertThrows(IllegalArgumentException.class,
+                    () -> repositorio.save(new Prestamo(0L, libro.getId(), juan.getId(), HOY, null)));
+            assertEquals(0, repositorio.contar());
+        }
+    }
+
+    private PrestamoRepositoryMapeado abrir() throws IOException {
+        return PrestamoRepositoryMapeado.abrir(directorio, REGISTROS_POR_SEGMENTO, false);
+    }
+}
@@ -0,0 +1,57 @@
+package com.biblioteca.app.repository.mapeado;
+
+import com.biblioteca.app.model.Prestamo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Corre en una JVM con -Xmx256m (ver la ejecución "memoria-acotada" del pom).
+ * Tres millones de préstamos como objetos no entran en ese heap; en los
+ * archivos mapeados sólo quedan en el heap los activos.
+ */
+class PrestamosMapeadosMemoriaTest {
+    private static final long HEAP_MAXIMO = 256L * 1024 * 1024;
+    private static final int CANTIDAD_PRESTAMOS = 3_000_000;
+    private static final int ACTIVOS = 1_000;
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void tresMillonesDePrestamosNoOcupanElHeap() throws Exception {
+        // Arrange
+        assumeTrue(Runtime.getRuntime().maxMemory() <= HEAP_MAXIMO);
+        LocalDate fecha = LocalDate.of(2024, 1, 1);
+
+        try (PrestamoRepositoryMapeado repositorio = PrestamoRepositoryMapeado.abrir(directorio,
+                PrestamoRepositoryMapeado.REGISTROS_POR_SEGMENTO, false)) {
+            // Act
+            for (int i = 0; i < CANTIDAD_PRESTAMOS; i++) {
+                boolean activo = i >= CANTIDAD_PRESTAMOS - ACTIVOS;
+                repositorio.save(new Prestamo(null, 1L, 1L, fecha, activo ? null : fecha.plusDays(3)));
+            }
+            long usado = heapUsado();
+
+            // Assert
+            assertEquals(CANTIDAD_PRESTAMOS, repositorio.contar());
+            assertEquals(ACTIVOS, repositorio.contarActivos());
+            assertEquals(fecha.plusDays(3), repositorio.findById(1L).get().getFechaDevolucion());
+            assertTrue(usado < 64L * 1024 * 1024, "heap usado: " + usado);
+        }
+    }
+
+    private static long heapUsado() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,162 @@
+package com.biblioteca.app.service;
+
+import com.biblioteca.app.event.EventoDominio;
+import com.biblioteca.app.event.PrestamoVencidoEvent;
+import com.biblioteca.app.model.EstadoLibro;
+import com.biblioteca.app.model.Libro;
+import com.biblioteca.app.model.Prestamo;
+import com.biblioteca.app.model.Usuario;
+import com.biblioteca.app.repository.PrestamoRepository;
+import com.biblioteca.app.repository.impl.PrestamoRepositoryImpl;
+import com.biblioteca.app.service.impl.BarridoVencimientos;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BarridoVencimientosTest {
+
+    private static final LocalDate HOY = LocalDate.of(2025, 5, 14);
+
+    @TempDir
+    Path directorio;
+
+    private PrestamoRepository prestamoRepository;
+    private List<EventoDominio> eventos;
+    private BarridoVencimientos barrido;
+    private Libro libro;
+    private Usuario usuario;
+
+    @BeforeEach
+    void setUp() {
+        prestamoRepository = new PrestamoRepositoryImpl();
+        eventos = new ArrayList<>();
+        barrido = new BarridoVencimientos(prestamoRepository, eventos::add, HOY.minusDays(30));
+        libro = new Libro(1L, "ISBN1", "Libro 1", "Autor 1", EstadoLibro.PRESTADO);
+        usuario = new Usuario(1L, "Juan", "juan@mail.com", "ACTIVO");
+    }
+
+    @Test
+    void barrerPublicaUnEventoPorPrestamoVencido() {
+        // Arrange
+        Prestamo vencido = prestamoRepository.save(new Prestamo(null, libro.getId(), usuario.getId(), HOY.minusDays(8), null));
+        prestamoRepository.save(new Prestamo(null, libro.getId(), usuario.getId(), HOY.minusDays(7), null));
+
+        // Act
+        int publicados = barrido.barrer(HOY);
+
+        // Assert
+        assertEquals(1, publicados);
+        PrestamoVencidoEvent evento = (PrestamoVencidoEvent) eventos.get(0);
+        assertEquals(vencido.getId(), evento.prestamoId());
+        assertEquals(HOY.minusDays(1), evento.fechaVencimiento());
+    }
+
+    @Test
+    void barrerNoRepiteEventosDePrestamosYaNotificados() {
+        // Arrange
+        prestamoRepository.save(new Prestamo(null, libro.getId(), usuario.getId(), HOY.minusDays(10), null));
+
+        // Act
+        barrido.barrer(HOY);
+        barrido.barrer(HOY.plusDays(1));
+
+        // Assert
+        assertEquals(1, eventos.size());
+    }
+
+    @Test
+    void barrerNotificaLosQueVencenEnPasadasPosteriores() {
+        // Arrange
+        prestamoRepository.save(new Prestamo(null, libro.getId(), usuario.getId(), HOY.minusDays(10), null));
+        prestamoRepository.save(new Prestamo(null, libro.getId(), usuario.getId(), HOY, null));
+
+        // Act
+        int primeraPasada = barrido.barrer(HOY);
+        int segundaPasada = barrido.barrer(HOY.plusDays(8));
+
+        // Assert
+        assertEquals(1, primeraPasada);
+        assertEquals(1, segundaPasada);
+    }
+
+    @Test
+    void sinMarcaGuardadaLaPrimeraPasadaPublicaTodosLosVencidos() throws IOException {
+        // Arrange
+        prestamoRepository.save(new Prestamo(null, libro.getId(), usuario.getId(), HOY.minusDays(60), null));
+        prestamoRepository.save(new Prestamo(null, libro.getId(), usuario.getId(), HOY.minusDays(10), null));
+        BarridoVencimientos primero = new BarridoVencimientos(prestamoRepository, eventos::add,
+                directorio.resolve("marca"));
+
+        // Act
+        int publicados = primero.barrer(HOY);
+
+        // Assert
+        assertEquals(2, publicados);
+        assertEquals(HOY, primero.getMarca());
+    }
+
+    @Test
+    void trasUnReinicioPublicaLosQueVencieronMientrasEstabaDetenido() throws IOException {
+        // Arrange
+        Path archivo = directorio.resolve("marca");
+        prestamoRepository.save(new Prestamo(null, libro.getId(), usuario.getId(), HOY.minusDays(10), null));
+        Prestamo vencioDetenido = prestamoRepository.save(
+                new Prestamo(null, libro.getId(), usuario.getId(), HOY.minusDays(5), null));
+        new BarridoVencimientos(prestamoRepository, eventos::add, archivo).barrer(HOY);
+        eventos.clear();
+
+        // Act
+        BarridoVencimientos reiniciado = new BarridoVencimientos(prestamoRepository, eventos::add, archivo);
+        int mismoDia = reiniciado.barrer(HOY);
+        int tresDiasDespues = reiniciado.barrer(HOY.plusDays(3));
+
+        // Assert
+        assertEquals(0, mismoDia);
+        assertEquals(1, tresDiasDespues);
+        assertEquals(vencioDetenido.getId(), ((PrestamoVencidoEvent) eventos.get(0)).prestamoId());
+        assertEquals(HOY.plusDays(3),
+                new BarridoVencimientos(prestamoRepository, eventos::add, archivo).getMarca());
+    }
+
+    @Test
+    void siElBusDescartaUnEventoLaMarcaNoAvanza() {
+        // Arrange
+        prestamoRepository.save(new Prestamo(null, libro.getId(), usuario.getId(), HOY.minusDays(10), null));
+        prestamoRepository.save(new Prestamo(null, libro.getId(), usuario.getId(), HOY.minusDays(9), null));
+        AtomicInteger lugaresEnElBus = new AtomicInteger(1);
+        BarridoVencimientos conBusLleno = new BarridoVencimientos(prestamoRepository,
+                evento -> lugaresEnElBus.getAndDecrement() > 0 && eventos.add(evento), HOY.minusDays(30));
+
+        // Act
+        int primeraPasada = conBusLleno.barrer(HOY);
+        LocalDate marcaTrasDescarte = conBusLleno.getMarca();
+        lugaresEnElBus.set(Integer.MAX_VALUE);
+        eventos.clear();
+        int segundaPasada = conBusLleno.barrer(HOY);
+
+        // Assert
+        assertEquals(1, primeraPasada);
+        assertEquals(HOY.minusDays(30), marcaTrasDescarte);
+        assertEquals(2, segundaPasada);
+        assertEquals(HOY, conBusLleno.getMarca());
+    }
+
+    @Test
+    void barrerIgnoraPrestamosDevueltos() {
+        // Arrange
+        Prestamo prestamo = prestamoRepository.save(new Prestamo(null, libro.getId(), usuario.getId(), HOY.minusDays(10), null));
+        prestamoRepository.save(new Prestamo(prestamo.getId(), libro.getId(), usuario.getId(), HOY.minusDays(10), HOY));
+
+        // Act & Assert
+        assertEquals(0, barrido.barrer(HOY));
+    }
+}
@@ -0,0 +1,80 @@
+package com.biblioteca.app.service;
+
+import com.biblioteca.app.event.PublicadorEventos;
+import com.biblioteca.app.model.Libro;
+import com.biblioteca.app.repository.LibroRepository;
+import com.biblioteca.app.repository.impl.LibroRepositoryImpl;
+import com.biblioteca.app.service.impl.LibroServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Importación por lotes sobre el repositorio en memoria: se guardan las filas
+ * que {@code guardar} aceptaría y cada rechazo se reporta con su línea.
+ */
+class LibroServiceImportacionTest {
+
+    private LibroRepository libroRepository;
+    private LibroService libroService;
+
+    @BeforeEach
+    void setUp() {
+        libroRepository = new LibroRepositoryImpl();
+        libroService = new LibroServiceImpl(libroRepository, PublicadorEventos.NINGUNO);
+    }
+
+    @Test
+    void importarGuardaLasFilasValidasYReportaLasDemas() {
+        // Arrange
+        libroRepository.save(new Libro("ISBN0", "Existente", "Autor"));
+        List<FilaImportacion> filas = List.of(
+                FilaImportacion.valida(2, new Libro("ISBN1", "Rayuela", "Cortázar")),
+                FilaImportacion.valida(3, new Libro("ISBN2", " ", "Borges")),
+                FilaImportacion.invalida(4, "Comillas sin cerrar"),
+                FilaImportacion.valida(5, new Libro("ISBN0", "Repetido del catálogo", "Autor")),
+                FilaImportacion.valida(6, new Libro("ISBN1", "Repetido del archivo", "Autor")),
+                FilaImportacion.valida(7, new Libro("ISBN3", "Ficciones", "Borges")));
+        List<ErrorImportacion> errores = new ArrayList<>();
+
+        // Act
+        ResumenImportacion resumen = libroService.importar(filas.iterator(), errores::add);
+
+        // Assert
+        assertEquals(new ResumenImportacion(2, 4), resumen);
+        assertEquals(List.of(
+                new ErrorImportacion(3, "ISBN2", "El título es requerido"),
+                new ErrorImportacion(4, null, "Comillas sin cerrar"),
+                new ErrorImportacion(5, "ISBN0", "Ya existe un libro con ISBN: ISBN0"),
+                new ErrorImportacion(6, "ISBN1", "Ya existe un libro con ISBN: ISBN1")), errores);
+        assertEquals("Rayuela", libroRepository.findByIsbn("ISBN1").get().getTitulo());
+        assertEquals("Ficciones", libroRepository.findByIsbn("ISBN3").get().getTitulo());
+        assertEquals(3, libroRepository.findAll().size());
+    }
+
+    @Test
+    void importarDetectaRepetidosEntreLotes() {
+        // Arrange: la fila repetida cae en el lote siguiente al original
+        int total = 2500;
+        List<FilaImportacion> filas = new ArrayList<>(IntStream.range(0, total)
+                .mapToObj(i -> FilaImportacion.valida(i + 2, new Libro("ISBN" + i, "Libro " + i, "Autor")))
+                .toList());
+        filas.add(FilaImportacion.valida(total + 2, new Libro("ISBN5", "Otra vez", "Autor")));
+        List<ErrorImportacion> errores = new ArrayList<>();
+
+        // Act
+        ResumenImportacion resumen = libroService.importar(filas.iterator(), errores::add);
+
+        // Assert
+        assertEquals(new ResumenImportacion(total, 1), resumen);
+        assertEquals(List.of(new ErrorImportacion(total + 2, "ISBN5", "Ya existe un libro con ISBN: ISBN5")),
+                errores);
+        assertEquals("Libro 5", libroRepository.findByIsbn("ISBN5").get().getTitulo());
+        assertEquals(total, libroRepository.findAll().size());
+    }
+}
@@ -1,5 +1,8 @@
 package com.biblioteca.app.service;
 
+import com.biblioteca.app.event.LibroEnReparacionEvent;
+import com.biblioteca.app.exception.LibroNoDisponibleException;
+import com.biblioteca.app.event.PublicadorEventos;
 import com.biblioteca.app.model.Libro;
 import com.biblioteca.app.model.EstadoLibro;
 import com.biblioteca.app.repository.LibroRepository;
@@ -14,10 +17,10 @@ import org.mockito.MockitoAnnotations;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
@@ -26,6 +29,9 @@ class LibroServiceTest {
     @Mock
     private LibroRepository libroRepository;
 
+    @Mock
+    private PublicadorEventos publicador;
+
     @InjectMocks
     private LibroServiceImpl libroService;
 
@@ -171,7 +177,8 @@ class LibroServiceTest {
         libroActualizado.setAutor("Autor Actualizado");
 
         when(libroRepository.findById(id)).thenReturn(Optional.of(libroExistente));
-        when(libroRepository.save(any(Libro.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(libroRepository.actualizar(id, "ISBN1", "Título Actualizado", "Autor Actualizado"))
+                .thenReturn(new Libro(id, "ISBN1", "Título Actualizado", "Autor Actualizado", EstadoLibro.DISPONIBLE));
 
         // Act
         Libro resultado = libroService.actualizar(id, libroActualizado);
@@ -181,21 +188,36 @@ class LibroServiceTest {
         assertEquals("Título Actualizado", resultado.getTitulo());
         assertEquals("Autor Actualizado", resultado.getAutor());
         verify(libroRepository).findById(id);
-        verify(libroRepository).save(any(Libro.class));
+        verify(libroRepository).actualizar(id, "ISBN1", "Título Actualizado", "Autor Actualizado");
+    }
+
+    @Test
+    void actualizarConIsbnTomadoNoTocaElLibro() {
+        // Arrange
+        Long id = 1L;
+        Libro libroExistente = new Libro(id, "ISBN1", "Título Original", "Autor Original", EstadoLibro.DISPONIBLE);
+        Libro cambios = new Libro(null, "ISBN2", "Título Nuevo", "Autor Nuevo", EstadoLibro.DISPONIBLE);
+
+        when(libroRepository.findById(id)).thenReturn(Optional.of(libroExistente));
+        when(libroRepository.actualizar(id, "ISBN2", "Título Nuevo", "Autor Nuevo"))
+                .thenThrow(new IllegalArgumentException("ISBN duplicado"));
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> libroService.actualizar(id, cambios));
+        verify(libroRepository, never()).save(any(Libro.class));
+        assertEquals("ISBN1", libroExistente.getIsbn());
+        assertEquals("Título Original", libroExistente.getTitulo());
+        assertEquals("Autor Original", libroExistente.getAutor());
     }
 
     @Test
     void buscarDisponiblesRetornaSoloLibrosDisponibles() {
         // Arrange
-        List<Libro> todosLosLibros = Arrays.asList(
+        List<Libro> librosDisponibles = Arrays.asList(
                 new Libro(1L, "ISBN1", "Libro 1", "Autor 1", EstadoLibro.DISPONIBLE),
-                new Libro(2L, "ISBN2", "Libro 2", "Autor 2", EstadoLibro.PRESTADO),
                 new Libro(3L, "ISBN3", "Libro 3", "Autor 3", EstadoLibro.DISPONIBLE));
-        List<Libro> librosDisponibles = todosLosLibros.stream()
-                .filter(Libro::estaDisponible)
-                .collect(Collectors.toList());
 
-        when(libroRepository.findAll()).thenReturn(todosLosLibros);
+        when(libroRepository.findByEstado(EstadoLibro.DISPONIBLE)).thenReturn(librosDisponibles);
 
         // Act
         List<Libro> resultado = libroService.buscarDisponibles();
@@ -206,7 +228,22 @@ class LibroServiceTest {
         for (Libro libro : resultado) {
             assertTrue(libro.estaDisponible());
         }
-        verify(libroRepository).findAll();
+        verify(libroRepository).findByEstado(EstadoLibro.DISPONIBLE);
+        verify(libroRepository, never()).findAll();
+    }
+
+    @Test
+    void contarPorEstadoNoRecorreLosLibros() {
+        // Arrange
+        when(libroRepository.countByEstado(EstadoLibro.PRESTADO)).thenReturn(42);
+
+        // Act
+        int resultado = libroService.contarPorEstado(EstadoLibro.PRESTADO);
+
+        // Assert
+        assertEquals(42, resultado);
+        verify(libroRepository, never()).findAll();
+        verify(libroRepository, never()).findByEstado(any());
     }
 
     @Test
@@ -225,6 +262,7 @@ class LibroServiceTest {
         assertEquals(EstadoLibro.EN_REPARACION, libro.getEstado());
         verify(libroRepository).findById(id);
         verify(libroRepository).save(libro);
+        verify(publicador).publicar(new LibroEnReparacionEvent(id));
     }
 
     @Test
@@ -236,8 +274,29 @@ class LibroServiceTest {
         when(libroRepository.findById(id)).thenReturn(Optional.of(libro));
 
         // Act & Assert
-        assertThrows(IllegalStateException.class, () -> libroService.enviarAReparacion(id));
+        assertThrows(LibroNoDisponibleException.class, () -> libroService.enviarAReparacion(id));
         verify(libroRepository).findById(id);
         verify(libroRepository, never()).save(any(Libro.class));
+        verify(publicador, never()).publicar(any());
+    }
+
+    @Test
+    void buscarConConsultaValidaDelegaEnElRepositorio() {
+        // Arrange
+        Libro libro = new Libro(1L, "ISBN1", "Rayuela", "Julio Cortázar", EstadoLibro.DISPONIBLE);
+        when(libroRepository.findPorTexto("rayuela", 20)).thenReturn(List.of(libro));
+
+        // Act
+        List<Libro> resultado = libroService.buscar("rayuela", 20);
+
+        // Assert
+        assertEquals(List.of(libro), resultado);
+    }
+
+    @Test
+    void buscarConConsultaVaciaLanzaExcepcion() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> libroService.buscar("  ", 20));
+        verify(libroRepository, never()).findPorTexto(any(), anyInt());
     }
-}
\ No newline at end of file
+}
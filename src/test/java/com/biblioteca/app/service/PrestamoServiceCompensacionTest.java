@@ -0,0 +1,145 @@
+package com.biblioteca.app.service;
+
+import com.biblioteca.app.event.PublicadorEventos;
+import com.biblioteca.app.model.EstadoLibro;
+import com.biblioteca.app.model.Libro;
+import com.biblioteca.app.model.Prestamo;
+import com.biblioteca.app.model.Usuario;
+import com.biblioteca.app.repository.PrestamoRepository;
+import com.biblioteca.app.repository.UsuarioRepository;
+import com.biblioteca.app.repository.impl.LibroRepositoryImpl;
+import com.biblioteca.app.repository.impl.PrestamoRepositoryImpl;
+import com.biblioteca.app.repository.impl.UsuarioRepositoryImpl;
+import com.biblioteca.app.service.impl.PrestamoServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Si el repositorio de libros falla al guardar, el préstamo o la devolución
+ * se deshace: el libro, el cupo del usuario y los préstamos quedan como
+ * estaban.
+ */
+class PrestamoServiceCompensacionTest {
+
+    private LibroQueFalla libroRepository;
+    private UsuarioRepository usuarioRepository;
+    private PrestamoRepository prestamoRepository;
+    private PrestamoService prestamoService;
+    private Usuario usuario;
+
+    @BeforeEach
+    void setUp() {
+        libroRepository = new LibroQueFalla();
+        usuarioRepository = new UsuarioRepositoryImpl();
+        prestamoRepository = new PrestamoRepositoryImpl();
+        prestamoService = new PrestamoServiceImpl(prestamoRepository, libroRepository, usuarioRepository,
+                PublicadorEventos.NINGUNO);
+        usuario = usuarioRepository.save(new Usuario("Ana", "ana@mail.com"));
+    }
+
+    @Test
+    void realizarPrestamoQueNoSePuedeGuardarDevuelveElLibroYElCupo() {
+        // Arrange
+        Libro libro = libroRepository.save(new Libro("ISBN1", "Libro 1", "Autor"));
+        libroRepository.fallar = true;
+
+        // Act & Assert
+        assertThrows(UncheckedIOException.class,
+                () -> prestamoService.realizarPrestamo(libro.getId(), usuario.getId()));
+        assertEquals(EstadoLibro.DISPONIBLE, libro.getEstado());
+        assertEquals(0, usuario.contarLibrosPrestados());
+        assertTrue(prestamoRepository.findAll().isEmpty());
+    }
+
+    @Test
+    void realizarPrestamosQueNoSePuedenGuardarDevuelvenLosLibrosYElCupo() {
+        // Arrange
+        Libro libro1 = libroRepository.save(new Libro("ISBN1", "Libro 1", "Autor"));
+        Libro libro2 = libroRepository.save(new Libro("ISBN2", "Libro 2", "Autor"));
+        libroRepository.fallar = true;
+
+        // Act & Assert
+        assertThrows(UncheckedIOException.class, () -> prestamoService.realizarPrestamos(List.of(
+                new SolicitudPrestamo(libro1.getId(), usuario.getId()),
+                new SolicitudPrestamo(libro2.getId(), usuario.getId()))));
+        assertEquals(EstadoLibro.DISPONIBLE, libro1.getEstado());
+        assertEquals(EstadoLibro.DISPONIBLE, libro2.getEstado());
+        assertEquals(0, usuario.contarLibrosPrestados());
+        assertTrue(prestamoRepository.findAll().isEmpty());
+    }
+
+    @Test
+    void devolverLibroQueNoSePuedeGuardarDejaElPrestamoActivo() {
+        // Arrange
+        Libro libro = libroRepository.save(new Libro("ISBN1", "Libro 1", "Autor"));
+        Prestamo prestamo = prestamoService.realizarPrestamo(libro.getId(), usuario.getId());
+        libroRepository.fallar = true;
+
+        // Act & Assert
+        assertThrows(UncheckedIOException.class, () -> prestamoService.devolverLibro(prestamo.getId()));
+        assertEquals(EstadoLibro.PRESTADO, libro.getEstado());
+        assertTrue(usuario.tieneLibroPrestado(libro.getId()));
+        assertEquals(List.of(prestamo.getId()),
+                prestamoRepository.findPrestamosActivos().stream().map(Prestamo::getId).toList());
+        assertNull(prestamo.getFechaDevolucion());
+    }
+
+    @Test
+    void devolucionQueNoSePuedeGuardarNoReabreElPrestamoSiElLibroYaSePrestoDeNuevo() {
+        // Arrange
+        Libro libro = libroRepository.save(new Libro("ISBN1", "Libro 1", "Autor"));
+        Usuario otro = usuarioRepository.save(new Usuario("Beto", "beto@mail.com"));
+        Prestamo prestamo = prestamoService.realizarPrestamo(libro.getId(), usuario.getId());
+        // El guardado falla después de que otro hilo ya tomó el libro devuelto
+        libroRepository.antesDeFallar = () -> CompletableFuture
+                .runAsync(() -> prestamoService.realizarPrestamo(libro.getId(), otro.getId()))
+                .join();
+        libroRepository.fallar = true;
+
+        // Act
+        UncheckedIOException error = assertThrows(UncheckedIOException.class,
+                () -> prestamoService.devolverLibro(prestamo.getId()));
+
+        // Assert
+        assertEquals(1, error.getSuppressed().length);
+        assertInstanceOf(IllegalStateException.class, error.getSuppressed()[0]);
+        assertNotNull(prestamo.getFechaDevolucion());
+        assertEquals(EstadoLibro.PRESTADO, libro.getEstado());
+        assertEquals(0, usuario.contarLibrosPrestados());
+        assertTrue(otro.tieneLibroPrestado(libro.getId()));
+        List<Prestamo> activos = prestamoRepository.findPrestamosActivos();
+        assertEquals(1, activos.size());
+        assertEquals(otro.getId(), activos.get(0).getUsuarioId());
+    }
+
+    private static final class LibroQueFalla extends LibroRepositoryImpl {
+        private volatile boolean fallar;
+        private volatile Runnable antesDeFallar = () -> { };
+
+        @Override
+        public Libro save(Libro libro) {
+            if (fallar) {
+                // Falla una sola vez, así lo que corra antes puede guardar
+                fallar = false;
+                antesDeFallar.run();
+                throw new UncheckedIOException(new IOException("Disco lleno"));
+            }
+            return super.save(libro);
+        }
+
+        @Override
+        public List<Libro> saveAll(List<Libro> libros) {
+            if (fallar) {
+                throw new UncheckedIOException(new IOException("Disco lleno"));
+            }
+            return super.saveAll(libros);
+        }
+    }
+}
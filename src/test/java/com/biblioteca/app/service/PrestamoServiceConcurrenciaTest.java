@@ -0,0 +1,264 @@
+package com.biblioteca.app.service;
+
+import com.biblioteca.app.event.PublicadorEventos;
+import com.biblioteca.app.exception.LibroNoDisponibleException;
+import com.biblioteca.app.model.EstadoLibro;
+import com.biblioteca.app.model.Libro;
+import com.biblioteca.app.model.Prestamo;
+import com.biblioteca.app.model.Usuario;
+import com.biblioteca.app.repository.LibroRepository;
+import com.biblioteca.app.repository.PrestamoRepository;
+import com.biblioteca.app.repository.UsuarioRepository;
+import com.biblioteca.app.repository.impl.LibroRepositoryImpl;
+import com.biblioteca.app.repository.impl.PrestamoRepositoryImpl;
+import com.biblioteca.app.repository.impl.UsuarioRepositoryImpl;
+import com.biblioteca.app.service.impl.PrestamoServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de estrés del préstamo concurrente: ningún libro se presta dos veces
+ * y ningún usuario supera el límite de tres préstamos.
+ */
+class PrestamoServiceConcurrenciaTest {
+
+    private static final int HILOS = 16;
+
+    private LibroRepository libroRepository;
+    private UsuarioRepository usuarioRepository;
+    private PrestamoRepository prestamoRepository;
+    private PrestamoService prestamoService;
+
+    @BeforeEach
+    void setUp() {
+        libroRepository = new LibroRepositoryImpl();
+        usuarioRepository = new UsuarioRepositoryImpl();
+        prestamoRepository = new PrestamoRepositoryImpl();
+        prestamoService = new PrestamoServiceImpl(prestamoRepository, libroRepository, usuarioRepository,
+                PublicadorEventos.NINGUNO);
+    }
+
+    @Test
+    void unMismoLibroSoloSePrestaUnaVez() throws Exception {
+        // Arrange
+        Long libroId = libroRepository.save(new Libro("ISBN-POPULAR", "Libro Popular", "Autor")).getId();
+        List<Long> usuarios = crearUsuarios(HILOS);
+        AtomicInteger exitos = new AtomicInteger();
+
+        // Act
+        ejecutarEnParalelo(HILOS, i -> {
+            try {
+                prestamoService.realizarPrestamo(libroId, usuarios.get(i));
+                exitos.incrementAndGet();
+            } catch (IllegalStateException | LibroNoDisponibleException e) {
+                // Otro usuario se llevó el libro
+            }
+        });
+
+        // Assert
+        assertEquals(1, exitos.get());
+        assertEquals(1, prestamoRepository.findPrestamosActivos().size());
+    }
+
+    @Test
+    void unUsuarioNoSuperaElLimiteDePrestamos() throws Exception {
+        // Arrange
+        Long usuarioId = crearUsuarios(1).get(0);
+        List<Long> libros = crearLibros(HILOS);
+        AtomicInteger exitos = new AtomicInteger();
+
+        // Act
+        ejecutarEnParalelo(HILOS, i -> {
+            try {
+                prestamoService.realizarPrestamo(libros.get(i), usuarioId);
+                exitos.incrementAndGet();
+            } catch (IllegalStateException | LibroNoDisponibleException e) {
+                // Usuario sin cupo
+            }
+        });
+
+        // Assert
+        assertEquals(3, exitos.get());
+        assertEquals(3, usuarioRepository.findById(usuarioId).get().getLibrosPrestados().size());
+    }
+
+    @Test
+    void prestamosIndividualesYPorLoteNoSuperanElLimiteNiPierdenCupo() throws Exception {
+        // Arrange
+        Long usuarioId = crearUsuarios(1).get(0);
+        Long otroUsuarioId = usuarioRepository.save(new Usuario("Otro", "otro@mail.com")).getId();
+        List<Long> libros = crearLibros(HILOS);
+        Long ocupado = libroRepository.save(new Libro("ISBN-OCUPADO", "Ocupado", "Autor")).getId();
+        prestamoService.realizarPrestamo(ocupado, otroUsuarioId);
+        AtomicInteger exitos = new AtomicInteger();
+
+        // Act
+        ejecutarEnParalelo(HILOS, i -> {
+            // Intentos con un libro prestado: reservan cupo y lo tienen que devolver
+            for (int intento = 0; intento < 100; intento++) {
+                try {
+                    prestamoService.realizarPrestamo(ocupado, usuarioId);
+                } catch (IllegalStateException | LibroNoDisponibleException e) {
+                    // Libro no disponible o usuario sin cupo
+                }
+            }
+            if (i % 2 == 0) {
+                try {
+                    prestamoService.realizarPrestamo(libros.get(i), usuarioId);
+                    exitos.incrementAndGet();
+                } catch (IllegalStateException | LibroNoDisponibleException e) {
+                    // Usuario sin cupo
+                }
+            } else {
+                exitos.addAndGet((int) prestamoService
+                        .realizarPrestamos(List.of(new SolicitudPrestamo(libros.get(i), usuarioId)))
+                        .stream().filter(ResultadoLote::exitoso).count());
+            }
+        });
+
+        // Assert
+        Usuario usuario = usuarioRepository.findById(usuarioId).get();
+        assertEquals(3, exitos.get());
+        assertEquals(3, usuario.contarLibrosPrestados());
+        assertFalse(usuario.tieneLibroPrestado(ocupado));
+    }
+
+    @Test
+    void prestamoYReparacionConcurrentesNuncaGananAmbos() throws Exception {
+        // Arrange
+        Long usuarioId = crearUsuarios(1).get(0);
+
+        for (int ronda = 0; ronda < 200; ronda++) {
+            Libro libro = libroRepository.save(new Libro("ISBN-R" + ronda, "Libro", "Autor"));
+            AtomicInteger prestado = new AtomicInteger();
+            AtomicInteger reparado = new AtomicInteger();
+
+            // Act
+            ejecutarEnParalelo(2, i -> {
+                if (i == 0) {
+                    try {
+                        Prestamo prestamo = prestamoService.realizarPrestamo(libro.getId(), usuarioId);
+                        prestado.incrementAndGet();
+                        prestamoService.devolverLibro(prestamo.getId());
+                    } catch (LibroNoDisponibleException e) {
+                        // El libro ya estaba en reparación
+                    }
+                } else if (libro.intentarEnviarAReparacion()) {
+                    reparado.incrementAndGet();
+                }
+            });
+
+            // Assert
+            // La reparación gana antes del préstamo o después de la devolución, nunca durante
+            assertTrue(prestado.get() + reparado.get() >= 1);
+            EstadoLibro esperado = reparado.get() == 1 ? EstadoLibro.EN_REPARACION : EstadoLibro.DISPONIBLE;
+            assertEquals(esperado, libro.getEstado());
+        }
+    }
+
+    @Test
+    void prestamosYDevolucionesAlAzarMantienenLosInvariantes() throws Exception {
+        // Arrange
+        List<Long> libros = crearLibros(20);
+        List<Long> usuarios = crearUsuarios(10);
+
+        // Act
+        ejecutarEnParalelo(HILOS, i -> {
+            ThreadLocalRandom azar = ThreadLocalRandom.current();
+            for (int op = 0; op < 2_000; op++) {
+                if (azar.nextBoolean()) {
+                    try {
+                        prestamoService.realizarPrestamo(
+                                libros.get(azar.nextInt(libros.size())),
+                                usuarios.get(azar.nextInt(usuarios.size())));
+                    } catch (IllegalStateException | LibroNoDisponibleException e) {
+                        // Libro no disponible o usuario sin cupo
+                    }
+                } else {
+                    List<Prestamo> activos = prestamoRepository.findPrestamosActivos();
+                    if (!activos.isEmpty()) {
+                        try {
+                            prestamoService.devolverLibro(activos.get(azar.nextInt(activos.size())).getId());
+                        } catch (IllegalStateException e) {
+                            // Otro hilo lo devolvió primero
+                        }
+                    }
+                }
+            }
+        });
+
+        // Assert
+        List<Prestamo> activos = prestamoRepository.findPrestamosActivos();
+        Map<Long, Long> activosPorLibro = activos.stream()
+                .collect(Collectors.groupingBy(Prestamo::getLibroId, Collectors.counting()));
+        Map<Long, Long> activosPorUsuario = activos.stream()
+                .collect(Collectors.groupingBy(Prestamo::getUsuarioId, Collectors.counting()));
+
+        assertTrue(activosPorLibro.values().stream().allMatch(n -> n == 1));
+        assertTrue(activosPorUsuario.values().stream().allMatch(n -> n <= 3));
+        for (Long libroId : libros) {
+            Libro libro = libroRepository.findById(libroId).get();
+            boolean prestado = activosPorLibro.containsKey(libroId);
+            assertEquals(prestado ? EstadoLibro.PRESTADO : EstadoLibro.DISPONIBLE, libro.getEstado());
+        }
+        for (Long usuarioId : usuarios) {
+            Usuario usuario = usuarioRepository.findById(usuarioId).get();
+            assertEquals(activosPorUsuario.getOrDefault(usuarioId, 0L).intValue(), usuario.getLibrosPrestados().size());
+        }
+    }
+
+    private List<Long> crearLibros(int cantidad) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < cantidad; i++) {
+            ids.add(libroRepository.save(new Libro("ISBN-" + i, "Libro " + i, "Autor")).getId());
+        }
+        return ids;
+    }
+
+    private List<Long> crearUsuarios(int cantidad) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < cantidad; i++) {
+            ids.add(usuarioRepository.save(new Usuario("Usuario " + i, "usuario" + i + "@mail.com")).getId());
+        }
+        return ids;
+    }
+
+    private void ejecutarEnParalelo(int hilos, Tarea tarea) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(hilos);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<Void>> resultados = new ArrayList<>();
+        for (int i = 0; i < hilos; i++) {
+            int indice = i;
+            Callable<Void> llamada = () -> {
+                largada.await();
+                tarea.ejecutar(indice);
+                return null;
+            };
+            resultados.add(executor.submit(llamada));
+        }
+        largada.countDown();
+        for (Future<Void> resultado : resultados) {
+            resultado.get();
+        }
+        executor.shutdown();
+    }
+
+    @FunctionalInterface
+    private interface Tarea {
+        void ejecutar(int indice);
+    }
+}
@@ -0,0 +1,200 @@
+package com.biblioteca.app.service;
+
+import com.biblioteca.app.event.EventoDominio;
+import com.biblioteca.app.event.LibroDevueltoEvent;
+import com.biblioteca.app.event.PrestamoRealizadoEvent;
+import com.biblioteca.app.event.PublicadorEventos;
+import com.biblioteca.app.exception.LibroNoDisponibleException;
+import com.biblioteca.app.model.EstadoLibro;
+import com.biblioteca.app.model.Libro;
+import com.biblioteca.app.model.Prestamo;
+import com.biblioteca.app.model.Usuario;
+import com.biblioteca.app.repository.LibroRepository;
+import com.biblioteca.app.repository.PrestamoRepository;
+import com.biblioteca.app.repository.UsuarioRepository;
+import com.biblioteca.app.repository.impl.LibroRepositoryImpl;
+import com.biblioteca.app.repository.impl.PrestamoRepositoryImpl;
+import com.biblioteca.app.repository.impl.UsuarioRepositoryImpl;
+import com.biblioteca.app.service.impl.PrestamoServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Préstamos y devoluciones por lotes sobre los repositorios en memoria: cada
+ * elemento termina igual que con la operación individual.
+ */
+class PrestamoServiceLoteTest {
+
+    private LibroRepository libroRepository;
+    private UsuarioRepository usuarioRepository;
+    private PrestamoRepository prestamoRepository;
+    private PrestamoService prestamoService;
+
+    @BeforeEach
+    void setUp() {
+        libroRepository = new LibroRepositoryImpl();
+        usuarioRepository = new UsuarioRepositoryImpl();
+        prestamoRepository = new PrestamoRepositoryImpl();
+        prestamoService = new PrestamoServiceImpl(prestamoRepository, libroRepository, usuarioRepository,
+                PublicadorEventos.NINGUNO);
+    }
+
+    @Test
+    void realizarPrestamosDevuelveUnResultadoPorSolicitudEnOrden() {
+        // Arrange
+        Long ana = usuarioRepository.save(new Usuario("Ana", "ana@mail.com")).getId();
+        Long eva = usuarioRepository.save(new Usuario("Eva", "eva@mail.com")).getId();
+        Long libro1 = libroRepository.save(new Libro("ISBN1", "Libro 1", "Autor")).getId();
+        Long libro2 = libroRepository.save(new Libro("ISBN2", "Libro 2", "Autor")).getId();
+
+        // Act
+        List<ResultadoLote<Prestamo>> resultados = prestamoService.realizarPrestamos(List.of(
+                new SolicitudPrestamo(libro1, ana),
+                new SolicitudPrestamo(99L, ana),
+                new SolicitudPrestamo(libro1, eva),
+                new SolicitudPrestamo(libro2, 99L),
+                new SolicitudPrestamo(libro2, eva)));
+
+        // Assert
+        assertEquals(5, resultados.size());
+        assertTrue(resultados.get(0).exitoso());
+        assertEquals(libro1, resultados.get(0).valor().getLibroId());
+        assertNotNull(resultados.get(0).valor().getId());
+        assertInstanceOf(IllegalArgumentException.class, resultados.get(1).error());
+        assertInstanceOf(LibroNoDisponibleException.class, resultados.get(2).error());
+        assertEquals("No existe el usuario con ID: 99", resultados.get(3).error().getMessage());
+        assertTrue(resultados.get(4).exitoso());
+        assertEquals(2, prestamoRepository.findPrestamosActivos().size());
+        assertEquals(EstadoLibro.PRESTADO, libroRepository.findById(libro2).get().getEstado());
+    }
+
+    @Test
+    void realizarPrestamosRespetaElLimiteDelUsuarioDentroDelLote() {
+        // Arrange
+        Long usuario = usuarioRepository.save(new Usuario("Ana", "ana@mail.com")).getId();
+        List<SolicitudPrestamo> solicitudes = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Long libro = libroRepository.save(new Libro("ISBN" + i, "Libro " + i, "Autor")).getId();
+            solicitudes.add(new SolicitudPrestamo(libro, usuario));
+        }
+
+        // Act
+        List<ResultadoLote<Prestamo>> resultados = prestamoService.realizarPrestamos(solicitudes);
+
+        // Assert
+        assertEquals(3, resultados.stream().filter(ResultadoLote::exitoso).count());
+        assertFalse(resultados.get(3).exitoso());
+        assertFalse(resultados.get(4).exitoso());
+        assertEquals(3, usuarioRepository.findById(usuario).get().getLibrosPrestados().size());
+        assertEquals(EstadoLibro.DISPONIBLE, libroRepository.findById(solicitudes.get(4).libroId()).get().getEstado());
+    }
+
+    @Test
+    void losPrestamosYDevolucionesExitososPublicanUnEventoCadaUno() {
+        // Arrange
+        List<EventoDominio> publicados = new ArrayList<>();
+        PrestamoService servicio = new PrestamoServiceImpl(prestamoRepository, libroRepository, usuarioRepository,
+                publicados::add);
+        Long usuario = usuarioRepository.save(new Usuario("Ana", "ana@mail.com")).getId();
+        Long libro1 = libroRepository.save(new Libro("ISBN1", "Libro 1", "Autor")).getId();
+        Long libro2 = libroRepository.save(new Libro("ISBN2", "Libro 2", "Autor")).getId();
+
+        // Act
+        Prestamo prestamo1 = servicio.realizarPrestamo(libro1, usuario);
+        List<ResultadoLote<Prestamo>> lote = servicio.realizarPrestamos(List.of(
+                new SolicitudPrestamo(libro2, usuario),
+                new SolicitudPrestamo(libro1, usuario)));
+        servicio.devolverLibro(prestamo1.getId());
+        servicio.devolverLibros(List.of(lote.get(0).valor().getId(), 99L));
+
+        // Assert
+        LocalDate hoy = LocalDate.now();
+        Long prestamo2 = lote.get(0).valor().getId();
+        assertEquals(List.of(
+                new PrestamoRealizadoEvent(prestamo1.getId(), libro1, usuario, hoy),
+                new PrestamoRealizadoEvent(prestamo2, libro2, usuario, hoy),
+                new LibroDevueltoEvent(prestamo1.getId(), libro1, usuario, hoy),
+                new LibroDevueltoEvent(prestamo2, libro2, usuario, hoy)), publicados);
+    }
+
+    @Test
+    void devolverLibrosFinalizaLosPrestamosYReportaLosQueFallan() {
+        // Arrange
+        Long usuario = usuarioRepository.save(new Usuario("Ana", "ana@mail.com")).getId();
+        Long libro1 = libroRepository.save(new Libro("ISBN1", "Libro 1", "Autor")).getId();
+        Long libro2 = libroRepository.save(new Libro("ISBN2", "Libro 2", "Autor")).getId();
+        Prestamo prestamo1 = prestamoService.realizarPrestamo(libro1, usuario);
+        Prestamo prestamo2 = prestamoService.realizarPrestamo(libro2, usuario);
+
+        // Act
+        List<ResultadoLote<Prestamo>> resultados = prestamoService.devolverLibros(
+                List.of(prestamo1.getId(), 99L, prestamo1.getId(), prestamo2.getId()));
+
+        // Assert
+        assertTrue(resultados.get(0).exitoso());
+        assertFalse(resultados.get(0).valor().isActivo());
+        assertInstanceOf(IllegalArgumentException.class, resultados.get(1).error());
+        assertEquals("No se puede devolver el libro: El préstamo ya está finalizado",
+                resultados.get(2).error().getMessage());
+        assertTrue(resultados.get(3).exitoso());
+        assertTrue(prestamoRepository.findPrestamosActivos().isEmpty());
+        assertEquals(EstadoLibro.DISPONIBLE, libroRepository.findById(libro1).get().getEstado());
+        assertEquals(EstadoLibro.DISPONIBLE, libroRepository.findById(libro2).get().getEstado());
+        assertTrue(usuarioRepository.findById(usuario).get().getLibrosPrestados().isEmpty());
+    }
+
+    @Test
+    void devolverPrestamosSinUsuarioLosFinalizaYLiberaLosLibros() {
+        // Arrange
+        Libro libro1 = libroRepository.save(new Libro("ISBN1", "Libro 1", "Autor"));
+        Libro libro2 = libroRepository.save(new Libro("ISBN2", "Libro 2", "Autor"));
+        libro1.prestar();
+        libro2.prestar();
+        Prestamo individual = prestamoRepository.save(
+                new Prestamo(null, libro1.getId(), null, LocalDate.now(), null));
+        Prestamo enLote = prestamoRepository.save(
+                new Prestamo(null, libro2.getId(), null, LocalDate.now(), null));
+
+        // Act
+        prestamoService.devolverLibro(individual.getId());
+        List<ResultadoLote<Prestamo>> resultados = prestamoService.devolverLibros(List.of(enLote.getId()));
+
+        // Assert
+        assertFalse(prestamoRepository.findById(individual.getId()).get().isActivo());
+        assertTrue(resultados.get(0).exitoso());
+        assertEquals(EstadoLibro.DISPONIBLE, libroRepository.findById(libro1.getId()).get().getEstado());
+        assertEquals(EstadoLibro.DISPONIBLE, libroRepository.findById(libro2.getId()).get().getEstado());
+    }
+
+    @Test
+    void resolverIncluyeCadaLibroYUsuarioUnaSolaVez() {
+        // Arrange
+        Long ana = usuarioRepository.save(new Usuario("Ana", "ana@mail.com")).getId();
+        Long eva = usuarioRepository.save(new Usuario("Eva", "eva@mail.com")).getId();
+        Long libro1 = libroRepository.save(new Libro("ISBN1", "Libro 1", "Autor")).getId();
+        Long libro2 = libroRepository.save(new Libro("ISBN2", "Libro 2", "Autor")).getId();
+        Long eliminado = libroRepository.save(new Libro("ISBN3", "Libro 3", "Autor")).getId();
+        Prestamo devuelto = prestamoService.realizarPrestamo(libro1, ana);
+        prestamoService.devolverLibro(devuelto.getId());
+        prestamoService.realizarPrestamo(libro1, eva);
+        prestamoService.realizarPrestamo(libro2, ana);
+        prestamoService.realizarPrestamo(eliminado, eva);
+        libroRepository.deleteById(eliminado);
+        List<Prestamo> prestamos = prestamoService.obtenerTodos();
+
+        // Act
+        PrestamosResueltos resueltos = prestamoService.resolver(prestamos);
+
+        // Assert
+        assertSame(prestamos, resueltos.prestamos());
+        assertEquals(List.of(libro1, libro2), new ArrayList<>(resueltos.libros().keySet()));
+        assertEquals(List.of(ana, eva), new ArrayList<>(resueltos.usuarios().keySet()));
+        assertEquals("Libro 2", resueltos.libros().get(libro2).getTitulo());
+    }
+}
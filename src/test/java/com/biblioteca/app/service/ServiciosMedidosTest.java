@@ -0,0 +1,103 @@
+package com.biblioteca.app.service;
+
+import com.biblioteca.app.model.Libro;
+import com.biblioteca.app.service.metricas.LibroServiceMedido;
+import com.biblioteca.app.service.metricas.OperacionMedida;
+import com.biblioteca.app.service.metricas.PrestamoServiceMedido;
+import com.sun.management.ThreadMXBean;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.*;
+
+class ServiciosMedidosTest {
+
+    @Mock
+    private LibroService libroService;
+
+    @Mock
+    private PrestamoService prestamoService;
+
+    private SimpleMeterRegistry registro;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        registro = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void operacionDelegadaSeCuentaConPercentiles() {
+        // Arrange
+        Libro libro = new Libro("978-1", "Titulo", "Autor");
+        when(libroService.buscarPorId(1L)).thenReturn(libro);
+        LibroService medido = new LibroServiceMedido(libroService, registro);
+
+        // Act
+        Libro resultado = null;
+        for (int i = 0; i < 10; i++) {
+            resultado = medido.buscarPorId(1L);
+        }
+
+        // Assert
+        assertSame(libro, resultado);
+        Timer timer = registro.get(OperacionMedida.TIMER)
+                .tags("servicio", "libros", "operacion", "buscarPorId").timer();
+        assertEquals(10, timer.count());
+        ValueAtPercentile[] percentiles = timer.takeSnapshot().percentileValues();
+        assertEquals(4, percentiles.length);
+        assertTrue(Arrays.stream(percentiles).allMatch(p -> p.value() >= 0));
+    }
+
+    @Test
+    void operacionQueFallaCuentaErrorYRelanzaLaExcepcion() {
+        // Arrange
+        IllegalStateException error = new IllegalStateException("no disponible");
+        when(prestamoService.realizarPrestamo(1L, 2L)).thenThrow(error);
+        PrestamoService medido = new PrestamoServiceMedido(prestamoService, registro);
+
+        // Act
+        IllegalStateException lanzada = assertThrows(IllegalStateException.class,
+                () -> medido.realizarPrestamo(1L, 2L));
+
+        // Assert
+        assertSame(error, lanzada);
+        assertEquals(1.0, registro.get(OperacionMedida.ERRORES)
+                .tags("servicio", "prestamos", "operacion", "realizarPrestamo").counter().count());
+        assertEquals(1, registro.get(OperacionMedida.TIMER)
+                .tags("servicio", "prestamos", "operacion", "realizarPrestamo").timer().count());
+    }
+
+    @Test
+    void medirUnaOperacionNoReservaMemoria() {
+        // Arrange
+        ThreadMXBean hilos = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(hilos.isThreadAllocatedMemorySupported() && hilos.isThreadAllocatedMemoryEnabled());
+        OperacionMedida operacion = new OperacionMedida(registro, "libros", "buscarPorId");
+        long idHilo = Thread.currentThread().threadId();
+        for (int i = 0; i < 200_000; i++) {
+            operacion.terminar(operacion.iniciar());
+        }
+
+        // Act
+        long antes = hilos.getThreadAllocatedBytes(idHilo);
+        for (int i = 0; i < 100_000; i++) {
+            operacion.terminar(operacion.iniciar());
+        }
+        long reservados = hilos.getThreadAllocatedBytes(idHilo) - antes;
+
+        // Assert: reservar un objeto por medición serían al menos 16 bytes cada una; lo
+        // que queda es el histograma ampliando su rango alguna vez
+        assertTrue(reservados < 100_000, "Se reservaron " + reservados + " bytes en 100000 mediciones");
+    }
+}
@@ -1,5 +1,7 @@
 package com.biblioteca.app.service;
 
+import com.biblioteca.app.event.PublicadorEventos;
+import com.biblioteca.app.event.UsuarioSuspendidoEvent;
 import com.biblioteca.app.model.Usuario;
 import com.biblioteca.app.repository.UsuarioRepository;
 import com.biblioteca.app.service.impl.UsuarioServiceImpl;
@@ -25,6 +27,9 @@ class UsuarioServiceTest {
     @Mock
     private UsuarioRepository usuarioRepository;
 
+    @Mock
+    private PublicadorEventos publicador;
+
     @InjectMocks
     private UsuarioServiceImpl usuarioService;
 
@@ -156,7 +161,8 @@ class UsuarioServiceTest {
         usuarioActualizado.setEmail("actualizado@test.com");
 
         when(usuarioRepository.findById(id)).thenReturn(Optional.of(usuarioExistente));
-        when(usuarioRepository.save(any(Usuario.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(usuarioRepository.actualizar(id, "Nombre Actualizado", "actualizado@test.com"))
+                .thenReturn(new Usuario(id, "Nombre Actualizado", "actualizado@test.com", "ACTIVO"));
 
         // Act
         Usuario resultado = usuarioService.actualizar(id, usuarioActualizado);
@@ -166,7 +172,8 @@ class UsuarioServiceTest {
         assertEquals("Nombre Actualizado", resultado.getNombre());
         assertEquals("actualizado@test.com", resultado.getEmail());
         verify(usuarioRepository).findById(id);
-        verify(usuarioRepository).save(any(Usuario.class));
+        verify(usuarioRepository).actualizar(id, "Nombre Actualizado", "actualizado@test.com");
+        verify(usuarioRepository, never()).save(any(Usuario.class));
     }
 
     @Test
@@ -207,6 +214,7 @@ class UsuarioServiceTest {
         assertEquals("SUSPENDIDO", usuario.getEstado());
         verify(usuarioRepository).findById(id);
         verify(usuarioRepository).save(usuario);
+        verify(publicador).publicar(new UsuarioSuspendidoEvent(id));
     }
 
     @Test
@@ -221,6 +229,7 @@ class UsuarioServiceTest {
         assertThrows(IllegalStateException.class, () -> usuarioService.suspenderUsuario(id));
         verify(usuarioRepository).findById(id);
         verify(usuarioRepository, never()).save(any(Usuario.class));
+        verify(publicador, never()).publicar(any());
     }
 
     @Test